@@ -0,0 +1,235 @@
+package com.example.frauddetection.admission;
+
+import com.example.frauddetection.dto.FraudDetectionResult;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 检测接口与队列消费共用的准入控制
+ *
+ * 同步接口和SQS消费调用同一个检测服务，共用数据库连接池和CPU。全局最多同时进行capacity笔检测，
+ * 其中apiReserved个名额只留给同步接口：队列消费最多使用capacity - max(apiReserved, 接口在途数)个名额，
+ * 同步接口可以使用全部空闲名额。队列积压时不会占满容量，同步调用方始终有名额可用。
+ * 同步调用方超时很短，没有名额时最多等待apiMaxWait，仍没有则返回503；
+ * 队列可以承受延迟，没有名额时消费者暂停接收（而不是把消息堆在本地），消息留在队列中。
+ * 同步接口释放名额时通知注册的监听器，消费者据此立即把本地已接收的消息交给空出的名额。
+ */
+@Slf4j
+@Component
+public class AdmissionController implements MeterBinder {
+
+    public enum Source {
+        API, QUEUE;
+
+        public String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final boolean enabled;
+    private final int capacity;
+    private final int apiReserved;
+    private final long apiMaxWaitNanos;
+    private final Object monitor = new Object();
+    private final LongAdder apiRejected = new LongAdder();
+    private final LongAdder queueThrottled = new LongAdder();
+    private final List<Runnable> apiReleaseListeners = new CopyOnWriteArrayList<>();
+
+    // 以下字段在monitor上修改
+    private int apiInFlight;
+    private int queueInFlight;
+
+    @Autowired
+    public AdmissionController(
+            @Value("${fraud-detection.admission.enabled:true}") boolean enabled,
+            @Value("${fraud-detection.admission.capacity:64}") int capacity,
+            @Value("${fraud-detection.admission.api-reserved:16}") int apiReserved,
+            @Value("${fraud-detection.admission.api-max-wait-ms:20}") long apiMaxWaitMs) {
+        if (capacity < 1 || apiReserved < 0 || apiReserved >= capacity) {
+            throw new IllegalArgumentException("准入控制参数无效: capacity=" + capacity + ", apiReserved=" + apiReserved);
+        }
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.apiReserved = apiReserved;
+        this.apiMaxWaitNanos = TimeUnit.MILLISECONDS.toNanos(apiMaxWaitMs);
+        log.info("准入控制: {}, 容量: {}, 同步接口预留: {}, 接口最长等待: {}ms",
+                enabled ? "启用" : "关闭", capacity, apiReserved, apiMaxWaitMs);
+    }
+
+    /**
+     * 不限制准入
+     */
+    public static AdmissionController unlimited() {
+        return new AdmissionController(false, 1, 0, 0);
+    }
+
+    /**
+     * 同步接口取一个名额，没有空闲名额时最多等待apiMaxWait
+     *
+     * @return 超时仍没有名额或等待期间被中断时返回false，调用方应返回{@link #overloaded()}
+     */
+    public boolean tryAcquireApi() {
+        if (!enabled) {
+            return true;
+        }
+        long deadline = System.nanoTime() + apiMaxWaitNanos;
+        synchronized (monitor) {
+            while (apiInFlight + queueInFlight >= capacity) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    apiRejected.increment();
+                    return false;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(monitor, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    apiRejected.increment();
+                    return false;
+                }
+            }
+            apiInFlight++;
+            return true;
+        }
+    }
+
+    /**
+     * 队列消费取一个名额，不等待
+     */
+    public boolean tryAcquireQueue() {
+        if (!enabled) {
+            return true;
+        }
+        synchronized (monitor) {
+            if (queueAvailable() <= 0) {
+                return false;
+            }
+            queueInFlight++;
+            return true;
+        }
+    }
+
+    /**
+     * @return 队列消费当前还能使用的名额数
+     */
+    public int availableForQueue() {
+        if (!enabled) {
+            return Integer.MAX_VALUE;
+        }
+        synchronized (monitor) {
+            return queueAvailable();
+        }
+    }
+
+    /**
+     * 等待直到队列消费有可用名额，用于在接收消息之前暂停轮询
+     *
+     * @return 超时仍没有名额时返回false
+     */
+    public boolean awaitQueueCapacity(long timeoutMs) throws InterruptedException {
+        if (!enabled) {
+            return true;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        synchronized (monitor) {
+            if (queueAvailable() <= 0) {
+                queueThrottled.increment();
+            }
+            while (queueAvailable() <= 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(monitor, remaining);
+            }
+            return true;
+        }
+    }
+
+    public void release(Source source) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (monitor) {
+            if (source == Source.API) {
+                apiInFlight--;
+            } else {
+                queueInFlight--;
+            }
+            monitor.notifyAll();
+        }
+        if (source == Source.API) {
+            // 在监视器外回调，监听器可以直接取名额
+            for (Runnable listener : apiReleaseListeners) {
+                try {
+                    listener.run();
+                } catch (RuntimeException e) {
+                    log.warn("同步接口释放名额的监听器执行失败", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 注册同步接口释放名额时的回调，在释放名额的请求线程中执行，应只做不阻塞的短操作
+     * 队列消费释放名额时由消费者自己接着取下一条，不需要通知
+     */
+    public void addApiReleaseListener(Runnable listener) {
+        apiReleaseListeners.add(listener);
+    }
+
+    /**
+     * 同步接口没有名额时的响应
+     */
+    public static ResponseEntity<FraudDetectionResult> overloaded() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .build();
+    }
+
+    public int getInFlight(Source source) {
+        synchronized (monitor) {
+            return source == Source.API ? apiInFlight : queueInFlight;
+        }
+    }
+
+    private int queueAvailable() {
+        return capacity - Math.max(apiReserved, apiInFlight) - queueInFlight;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Source source : Source.values()) {
+            Gauge.builder("fraud.admission.in.flight", this, c -> c.getInFlight(source))
+                    .tag("source", source.tag())
+                    .description("已准入、正在检测的交易数")
+                    .register(registry);
+        }
+        Gauge.builder("fraud.admission.capacity", this, c -> c.capacity)
+                .description("同时进行的检测数上限")
+                .register(registry);
+        FunctionCounter.builder("fraud.admission.rejected", apiRejected, LongAdder::doubleValue)
+                .tag("source", Source.API.tag())
+                .description("没有名额被拒绝的同步检测请求数")
+                .register(registry);
+        FunctionCounter.builder("fraud.admission.throttled", queueThrottled, LongAdder::doubleValue)
+                .tag("source", Source.QUEUE.tag())
+                .description("队列消费因没有名额暂停接收的次数")
+                .register(registry);
+    }
+}
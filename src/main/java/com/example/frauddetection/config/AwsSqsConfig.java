@@ -44,6 +44,9 @@ public class AwsSqsConfig {
     @Value("${aws.credentials.secret-key:#{null}}")
     private String secretKey;
 
+    @Value("${fraud-detection.aws.sqs.jms.concurrency:3-10}")
+    private String jmsConcurrency;
+
     /**
      * AWS SQS客户端 (v1) - 用于JMS接口
      */
@@ -114,7 +117,7 @@ public class AwsSqsConfig {
         DefaultJmsListenerContainerFactory factory = new DefaultJmsListenerContainerFactory();
         factory.setConnectionFactory(sqsConnectionFactory);
         factory.setDestinationResolver(new DynamicDestinationResolver());
-        factory.setConcurrency("3-10");
+        factory.setConcurrency(jmsConcurrency);
         factory.setSessionAcknowledgeMode(Session.CLIENT_ACKNOWLEDGE);
         factory.setMessageConverter(messageConverter());
         return factory;
@@ -0,0 +1,104 @@
+package com.example.frauddetection.config;
+
+import com.example.frauddetection.dto.TransactionRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.Map;
+
+/**
+ * Kafka接入配置
+ *
+ * 批量监听、手动提交偏移量：监听器处理并持久化一批记录后才提交。
+ * 某条记录处理失败时由DefaultErrorHandler提交它之前的偏移量并从该记录重新拉取，
+ * 重试耗尽后发布到死信主题（默认为 主题名.DLT，key不变）再跳过；死信发布失败时不跳过，继续重试该记录。
+ * 消息体按TransactionRequest解析，不依赖生产者写入的类型头；无法解析的消息以null值交给监听器。
+ * 连接等基础配置沿用spring.kafka，生产环境默认排除了Kafka自动配置，因此这里单独绑定KafkaProperties。
+ */
+@Slf4j
+@EnableKafka
+@Configuration
+@EnableConfigurationProperties(KafkaProperties.class)
+@ConditionalOnProperty(name = "fraud-detection.kafka.enabled", havingValue = "true")
+public class KafkaConsumerConfig {
+
+    @Bean
+    public ConsumerFactory<String, TransactionRequest> fraudKafkaConsumerFactory(
+            KafkaProperties kafkaProperties,
+            ObjectMapper objectMapper,
+            @Value("${fraud-detection.kafka.max-poll-records:500}") int maxPollRecords) {
+        Map<String, Object> properties = kafkaProperties.buildConsumerProperties();
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        properties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        JsonDeserializer<TransactionRequest> valueDeserializer =
+                new JsonDeserializer<>(TransactionRequest.class, objectMapper, false);
+        return new DefaultKafkaConsumerFactory<>(properties, new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(valueDeserializer));
+    }
+
+    /**
+     * 重试耗尽的记录发布到死信主题，消息体按原交易请求写成JSON，不带类型头
+     */
+    @Bean
+    public DeadLetterPublishingRecoverer fraudDeadLetterRecoverer(
+            KafkaProperties kafkaProperties,
+            ObjectMapper objectMapper,
+            @Value("${fraud-detection.kafka.topic:transactions}") String topic,
+            @Value("${fraud-detection.kafka.dead-letter-topic:}") String configuredDeadLetterTopic) {
+        String deadLetterTopic = configuredDeadLetterTopic.trim().isEmpty()
+                ? topic + ".DLT" : configuredDeadLetterTopic.trim();
+        JsonSerializer<Object> valueSerializer = new JsonSerializer<>(objectMapper);
+        valueSerializer.setAddTypeInfo(false);
+        KafkaTemplate<String, Object> template = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(
+                kafkaProperties.buildProducerProperties(), new StringSerializer(), valueSerializer));
+        log.info("Kafka死信主题: {}", deadLetterTopic);
+        // 分区为-1时按key分区，死信主题的分区数不必与原主题相同
+        return new DeadLetterPublishingRecoverer(template,
+                (record, e) -> new TopicPartition(deadLetterTopic, -1));
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, TransactionRequest> fraudBatchListenerContainerFactory(
+            ConsumerFactory<String, TransactionRequest> fraudKafkaConsumerFactory,
+            DeadLetterPublishingRecoverer fraudDeadLetterRecoverer,
+            @Value("${fraud-detection.kafka.concurrency:3}") int concurrency,
+            @Value("${fraud-detection.kafka.retry-interval-ms:1000}") long retryIntervalMs,
+            @Value("${fraud-detection.kafka.retry-attempts:2}") long retryAttempts) {
+        ConcurrentKafkaListenerContainerFactory<String, TransactionRequest> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(fraudKafkaConsumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.setCommonErrorHandler(new DefaultErrorHandler((record, e) -> {
+            log.error("Kafka记录重试耗尽，转入死信主题: {}-{}@{}, key: {}",
+                    record.topic(), record.partition(), record.offset(), record.key(), e);
+            fraudDeadLetterRecoverer.accept(record, e);
+        }, new FixedBackOff(retryIntervalMs, retryAttempts)));
+        log.info("Kafka批量监听已配置, 并发消费者数: {}", concurrency);
+        return factory;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.frauddetection.config;
+
+import com.example.frauddetection.messaging.AdaptiveConcurrencyLimiter;
+import com.example.frauddetection.messaging.transport.InMemoryMessageTransport;
+import com.example.frauddetection.messaging.transport.MessageTransport;
+import com.example.frauddetection.messaging.transport.SqsMessageTransport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.services.sqs.SqsClient;
+
+import java.time.Duration;
+
+/**
+ * 交易消息传输配置
+ * sqs: 使用AWS SQS（默认）；in-memory: 进程内队列，不依赖AWS，用于离线运行和压测
+ * 欺诈警报传输单独配置（fraud-detection.alerts.transport），默认不发布警报
+ * 深度分析决策的结果队列单独配置（fraud-detection.tiered.transport），默认不发送
+ */
+@Slf4j
+@Configuration
+public class MessageTransportConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "fraud-detection.transport.type", havingValue = "sqs", matchIfMissing = true)
+    public MessageTransport transactionTransport(
+            SqsClient sqsClient,
+            @Value("${fraud-detection.aws.sqs.transaction-queue-url}") String transactionQueueUrl) {
+        return new SqsMessageTransport(sqsClient, transactionQueueUrl);
+    }
+
+    @Bean(name = "transactionTransport")
+    @ConditionalOnProperty(name = "fraud-detection.transport.type", havingValue = "in-memory")
+    public MessageTransport inMemoryTransactionTransport(
+            @Value("${fraud-detection.transport.in-memory.capacity:100000}") int capacity,
+            @Value("${fraud-detection.transport.in-memory.visibility-timeout-seconds:30}") int visibilityTimeoutSeconds,
+            @Value("${fraud-detection.transport.in-memory.send-timeout-ms:1000}") long sendTimeoutMs) {
+        log.info("使用进程内消息队列, 容量: {}, 可见性超时: {}s", capacity, visibilityTimeoutSeconds);
+        return new InMemoryMessageTransport(capacity, Duration.ofSeconds(visibilityTimeoutSeconds),
+                Duration.ofMillis(sendTimeoutMs));
+    }
+
+    @Bean(name = "alertTransport")
+    @ConditionalOnProperty(name = "fraud-detection.alerts.transport", havingValue = "sqs")
+    public MessageTransport sqsAlertTransport(
+            SqsClient sqsClient,
+            @Value("${fraud-detection.alerts.queue-url}") String alertQueueUrl) {
+        return new SqsMessageTransport(sqsClient, alertQueueUrl);
+    }
+
+    @Bean(name = "alertTransport")
+    @ConditionalOnProperty(name = "fraud-detection.alerts.transport", havingValue = "in-memory")
+    public MessageTransport inMemoryAlertTransport(
+            @Value("${fraud-detection.transport.in-memory.capacity:100000}") int capacity,
+            @Value("${fraud-detection.transport.in-memory.visibility-timeout-seconds:30}") int visibilityTimeoutSeconds,
+            @Value("${fraud-detection.transport.in-memory.send-timeout-ms:1000}") long sendTimeoutMs) {
+        return new InMemoryMessageTransport(capacity, Duration.ofSeconds(visibilityTimeoutSeconds),
+                Duration.ofMillis(sendTimeoutMs));
+    }
+
+    @Bean(name = "verdictTransport")
+    @ConditionalOnProperty(name = "fraud-detection.tiered.transport", havingValue = "sqs")
+    public MessageTransport sqsVerdictTransport(
+            SqsClient sqsClient,
+            @Value("${fraud-detection.tiered.queue-url}") String verdictQueueUrl) {
+        return new SqsMessageTransport(sqsClient, verdictQueueUrl);
+    }
+
+    @Bean(name = "verdictTransport")
+    @ConditionalOnProperty(name = "fraud-detection.tiered.transport", havingValue = "in-memory")
+    public MessageTransport inMemoryVerdictTransport(
+            @Value("${fraud-detection.transport.in-memory.capacity:100000}") int capacity,
+            @Value("${fraud-detection.transport.in-memory.visibility-timeout-seconds:30}") int visibilityTimeoutSeconds,
+            @Value("${fraud-detection.transport.in-memory.send-timeout-ms:1000}") long sendTimeoutMs) {
+        return new InMemoryMessageTransport(capacity, Duration.ofSeconds(visibilityTimeoutSeconds),
+                Duration.ofMillis(sendTimeoutMs));
+    }
+
+    /**
+     * 消费者的并发限制，作为MeterBinder由actuator注册指标
+     */
+    @Bean
+    public AdaptiveConcurrencyLimiter consumerConcurrencyLimiter(
+            @Value("${fraud-detection.aws.sqs.consumer.concurrency.adaptive:true}") boolean adaptive,
+            @Value("${fraud-detection.aws.sqs.consumer.concurrency.initial-limit:5}") int initialLimit,
+            @Value("${fraud-detection.aws.sqs.consumer.concurrency.min-limit:1}") int minLimit,
+            @Value("${fraud-detection.aws.sqs.consumer.concurrency.max-limit:50}") int maxLimit,
+            @Value("${fraud-detection.aws.sqs.consumer.concurrency.latency-threshold-ms:500}") long latencyThresholdMs,
+            @Value("${fraud-detection.aws.sqs.consumer.concurrency.backoff-ratio:0.9}") double backoffRatio) {
+        if (!adaptive) {
+            return AdaptiveConcurrencyLimiter.fixed(initialLimit);
+        }
+        return new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, latencyThresholdMs, backoffRatio, true);
+    }
+}
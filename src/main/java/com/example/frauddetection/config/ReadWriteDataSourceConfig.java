@@ -0,0 +1,55 @@
+package com.example.frauddetection.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * 读写分离数据源配置
+ *
+ * 启用后写连接池沿用spring.datasource配置，读连接池使用fraud-detection.datasource.read配置
+ * （生产环境指向只读副本），两个连接池大小独立。查询接口走的只读事务使用读连接池，
+ * 大查询不会再占满欺诈检测写入路径的连接。
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "fraud-detection.datasource.read-replica.enabled", havingValue = "true")
+public class ReadWriteDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource writeDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("fraud-write");
+        return dataSource;
+    }
+
+    /**
+     * 读连接池，属性直接绑定到HikariDataSource（jdbc-url、username、maximum-pool-size等）
+     */
+    @Bean
+    @ConfigurationProperties("fraud-detection.datasource.read")
+    public HikariDataSource readDataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("fraud-read");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("writeDataSource") DataSource writeDataSource,
+                                 @Qualifier("readDataSource") HikariDataSource readDataSource) {
+        log.info("已启用读写分离数据源, 读连接池: {}", readDataSource.getJdbcUrl());
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(writeDataSource, readDataSource));
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.frauddetection.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 读写分离路由数据源
+ *
+ * 只读事务中的连接从读连接池获取，其余（读写事务、无事务）从写连接池获取。
+ * 事务管理器在开启事务时就会获取连接，而此时只读标记还未设置，
+ * 因此必须外包一层LazyConnectionDataSourceProxy，推迟到第一条语句执行时才真正获取连接。
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route {
+        WRITE, READ
+    }
+
+    public ReadWriteRoutingDataSource(DataSource writeDataSource, DataSource readDataSource) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Route.WRITE, writeDataSource);
+        targets.put(Route.READ, readDataSource);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(writeDataSource);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Route.READ : Route.WRITE;
+    }
+}
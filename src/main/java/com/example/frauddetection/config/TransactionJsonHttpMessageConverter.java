@@ -0,0 +1,55 @@
+package com.example.frauddetection.config;
+
+import com.example.frauddetection.dto.FraudDetectionResult;
+import com.example.frauddetection.dto.TransactionRequest;
+import com.example.frauddetection.messaging.codec.TransactionJsonCodec;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 检测接口的JSON转换器
+ *
+ * 只处理TransactionRequest和FraudDetectionResult，使用{@link TransactionJsonCodec}流式读写；
+ * 排在Jackson转换器之前注册，其它类型仍由Jackson处理。
+ */
+public class TransactionJsonHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    private final TransactionJsonCodec codec;
+
+    public TransactionJsonHttpMessageConverter(TransactionJsonCodec codec) {
+        super(StandardCharsets.UTF_8, MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        this.codec = codec;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == TransactionRequest.class || clazz == FraudDetectionResult.class;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        try {
+            return clazz == TransactionRequest.class
+                    ? codec.readRequest(inputMessage.getBody())
+                    : codec.readResult(inputMessage.getBody());
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotReadableException("JSON解析失败: " + e.getOriginalMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+        if (value instanceof TransactionRequest) {
+            codec.write((TransactionRequest) value, outputMessage.getBody());
+        } else {
+            codec.write((FraudDetectionResult) value, outputMessage.getBody());
+        }
+    }
+}
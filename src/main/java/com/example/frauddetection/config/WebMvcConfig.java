@@ -1,11 +1,15 @@
 package com.example.frauddetection.config;
 
 import com.example.frauddetection.interceptor.TraceIdInterceptor;
+import com.example.frauddetection.messaging.codec.TransactionJsonCodec;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 /**
  * Web MVC配置类
  */
@@ -13,10 +17,12 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 public class WebMvcConfig implements WebMvcConfigurer {
 
     private final TraceIdInterceptor traceIdInterceptor;
+    private final TransactionJsonCodec transactionJsonCodec;
 
     @Autowired
-    public WebMvcConfig(TraceIdInterceptor traceIdInterceptor) {
+    public WebMvcConfig(TraceIdInterceptor traceIdInterceptor, TransactionJsonCodec transactionJsonCodec) {
         this.traceIdInterceptor = traceIdInterceptor;
+        this.transactionJsonCodec = transactionJsonCodec;
     }
 
     @Override
@@ -25,4 +31,10 @@ public class WebMvcConfig implements WebMvcConfigurer {
         registry.addInterceptor(traceIdInterceptor)
                 .addPathPatterns("/**");
     }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // 检测接口的请求和结果使用流式编解码，放在Jackson转换器之前
+        converters.add(0, new TransactionJsonHttpMessageConverter(transactionJsonCodec));
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.example.frauddetection.controller;
+
+import com.example.frauddetection.dto.ArchiveSummary;
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.persistence.archive.ColumnarArchiveReader;
+import com.example.frauddetection.persistence.archive.TransactionArchiveService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/archive")
+public class ArchiveController {
+
+    private final TransactionArchiveService archiveService;
+
+    @Autowired
+    public ArchiveController(TransactionArchiveService archiveService) {
+        this.archiveService = archiveService;
+    }
+
+    /**
+     * 立即执行一次归档
+     */
+    @PostMapping("/run")
+    public ResponseEntity<ArchiveSummary> run() throws IOException {
+        return ResponseEntity.ok(archiveService.archive());
+    }
+
+    @GetMapping
+    public ResponseEntity<List<String>> listArchives() throws IOException {
+        List<String> names = new ArrayList<>();
+        for (Path file : archiveService.listArchives()) {
+            names.add(file.getFileName().toString());
+        }
+        return ResponseEntity.ok(names);
+    }
+
+    /**
+     * 读取归档文件中[from, to)区间的交易
+     */
+    @GetMapping("/{fileName:.+}/rows")
+    public ResponseEntity<List<Transaction>> readRows(@PathVariable String fileName,
+                                                      @RequestParam(defaultValue = "0") int from,
+                                                      @RequestParam(defaultValue = "100") int limit) throws IOException {
+        try (ColumnarArchiveReader reader = archiveService.open(fileName)) {
+            int start = Math.min(Math.max(0, from), reader.getRowCount());
+            int end = Math.min(reader.getRowCount(), start + Math.max(0, limit));
+            return ResponseEntity.ok(reader.readRows(start, end));
+        } catch (NoSuchFileException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.frauddetection.controller;
+
+import com.example.frauddetection.dto.BacktestReport;
+import com.example.frauddetection.dto.BacktestRequest;
+import com.example.frauddetection.service.backtest.BacktestService;
+import com.example.frauddetection.service.rule.dsl.RuleExpressionException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/backtests")
+public class BacktestController {
+
+    private final BacktestService backtestService;
+
+    @Autowired
+    public BacktestController(BacktestService backtestService) {
+        this.backtestService = backtestService;
+    }
+
+    /**
+     * 提交回测任务，返回任务ID，通过查询接口获取结果
+     */
+    @PostMapping
+    public ResponseEntity<?> submitBacktest(@RequestBody BacktestRequest request) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(backtestService.submit(request));
+        } catch (IllegalArgumentException | RuleExpressionException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<BacktestReport> getBacktest(@PathVariable String jobId) {
+        BacktestReport report = backtestService.getReport(jobId);
+        if (report != null) {
+            return ResponseEntity.ok(report);
+        }
+        return ResponseEntity.notFound().build();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.frauddetection.controller;
+
+import com.example.frauddetection.dto.ReclassificationStatus;
+import com.example.frauddetection.service.reclassify.ReclassificationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/reclassification")
+public class ReclassificationController {
+
+    private final ReclassificationService reclassificationService;
+
+    @Autowired
+    public ReclassificationController(ReclassificationService reclassificationService) {
+        this.reclassificationService = reclassificationService;
+    }
+
+    /**
+     * 启动重分类任务
+     *
+     * @param resume true时从上次的检查点继续，否则从头扫描
+     */
+    @PostMapping
+    public ResponseEntity<ReclassificationStatus> start(@RequestParam(defaultValue = "false") boolean resume) {
+        if (!reclassificationService.start(resume)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(reclassificationService.getStatus());
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(reclassificationService.getStatus());
+    }
+
+    @PostMapping("/stop")
+    public ResponseEntity<ReclassificationStatus> stop() {
+        reclassificationService.stop();
+        return ResponseEntity.ok(reclassificationService.getStatus());
+    }
+
+    @GetMapping
+    public ResponseEntity<ReclassificationStatus> getStatus() {
+        return ResponseEntity.ok(reclassificationService.getStatus());
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.frauddetection.controller;
+
+import com.example.frauddetection.dto.RuleInfo;
+import com.example.frauddetection.dto.ShadowStats;
+import com.example.frauddetection.service.impl.RuleBasedFraudDetectionService;
+import com.example.frauddetection.service.rule.FraudRule;
+import com.example.frauddetection.service.rule.dsl.DslRuleRegistry;
+import com.example.frauddetection.service.rule.dsl.RuleExpressionCompiler;
+import com.example.frauddetection.service.rule.dsl.RuleExpressionException;
+import com.example.frauddetection.service.shadow.ShadowRuleEvaluator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/rules")
+public class RuleAdminController {
+
+    private final RuleBasedFraudDetectionService fraudDetectionService;
+    private final DslRuleRegistry dslRuleRegistry;
+    private final ShadowRuleEvaluator shadowRuleEvaluator;
+
+    @Autowired
+    public RuleAdminController(
+            RuleBasedFraudDetectionService fraudDetectionService,
+            DslRuleRegistry dslRuleRegistry,
+            ShadowRuleEvaluator shadowRuleEvaluator) {
+        this.fraudDetectionService = fraudDetectionService;
+        this.dslRuleRegistry = dslRuleRegistry;
+        this.shadowRuleEvaluator = shadowRuleEvaluator;
+    }
+
+    /**
+     * 查询当前生效的规则（按评估顺序）
+     */
+    @GetMapping
+    public ResponseEntity<List<RuleInfo>> getActiveRules() {
+        return ResponseEntity.ok(toRuleInfos(fraudDetectionService.getActiveRuleSet().getRules()));
+    }
+
+    /**
+     * 重新加载DSL规则文件
+     */
+    @PostMapping("/reload")
+    public ResponseEntity<?> reloadRules() {
+        try {
+            dslRuleRegistry.reload();
+            return ResponseEntity.ok(toRuleInfos(fraudDetectionService.getActiveRuleSet().getRules()));
+        } catch (RuleExpressionException e) {
+            log.warn("重新加载DSL规则失败，保留当前规则: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * 校验规则表达式，不影响当前规则
+     */
+    @PostMapping("/validate")
+    public ResponseEntity<String> validateExpression(@RequestBody String expression) {
+        try {
+            RuleExpressionCompiler.compile(expression);
+            return ResponseEntity.ok("OK");
+        } catch (RuleExpressionException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * 查询影子规则与线上规则的对比统计
+     */
+    @GetMapping("/shadow/stats")
+    public ResponseEntity<ShadowStats> getShadowStats() {
+        return ResponseEntity.ok(shadowRuleEvaluator.getStats());
+    }
+
+    /**
+     * 重新加载影子候选规则，统计同时清零
+     */
+    @PostMapping("/shadow/reload")
+    public ResponseEntity<?> reloadShadowRules() {
+        if (!shadowRuleEvaluator.isEnabled()) {
+            return ResponseEntity.badRequest().body("影子规则评估未启用");
+        }
+        try {
+            shadowRuleEvaluator.reload();
+            return ResponseEntity.ok(shadowRuleEvaluator.getStats());
+        } catch (RuleExpressionException e) {
+            log.warn("重新加载影子规则失败，保留当前候选规则: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    private List<RuleInfo> toRuleInfos(List<FraudRule> rules) {
+        List<RuleInfo> infos = new ArrayList<>(rules.size());
+        for (FraudRule rule : rules) {
+            infos.add(RuleInfo.builder()
+                    .code(rule.getCode())
+                    .reason(rule.getReason())
+                    .weight(rule.getWeight())
+                    .cost(rule.getCost())
+                    .build());
+        }
+        return infos;
+    }
+}
@@ -1,8 +1,11 @@
 package com.example.frauddetection.controller;
 
+import com.example.frauddetection.admission.AdmissionController;
+import com.example.frauddetection.admission.AdmissionController.Source;
 import com.example.frauddetection.dto.FraudDetectionResult;
 import com.example.frauddetection.dto.TransactionRequest;
 import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.ratelimit.EdgeRateLimiter;
 import com.example.frauddetection.repository.TransactionRepository;
 import com.example.frauddetection.service.FraudDetectionService;
 import lombok.extern.slf4j.Slf4j;
@@ -10,6 +13,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
 import java.util.List;
 
 @Slf4j
@@ -19,27 +23,50 @@ public class SimpleFraudDetectionController {
 
     private final FraudDetectionService fraudDetectionService;
     private final TransactionRepository transactionRepository;
+    private final EdgeRateLimiter edgeRateLimiter;
+    private final AdmissionController admissionController;
 
     @Autowired
     public SimpleFraudDetectionController(
             FraudDetectionService fraudDetectionService,
-            TransactionRepository transactionRepository) {
+            TransactionRepository transactionRepository,
+            EdgeRateLimiter edgeRateLimiter,
+            AdmissionController admissionController) {
         this.fraudDetectionService = fraudDetectionService;
         this.transactionRepository = transactionRepository;
+        this.edgeRateLimiter = edgeRateLimiter;
+        this.admissionController = admissionController;
         log.info("SimpleFraudDetectionController已初始化");
     }
 
     /**
      * 接收交易请求并直接执行欺诈检测，不使用任何消息队列
      * @param request 交易请求
+     * @param httpRequest HTTP请求，按其客户端地址限流
      * @return 欺诈检测结果
      */
     @PostMapping("/detect")
-    public ResponseEntity<FraudDetectionResult> detectFraud(@RequestBody TransactionRequest request) {
+    public ResponseEntity<FraudDetectionResult> detectFraud(@RequestBody TransactionRequest request,
+                                                            HttpServletRequest httpRequest) {
         log.info("收到欺诈检测请求: {}", request.getTransactionId());
         
-        // 直接执行欺诈检测
-        FraudDetectionResult result = fraudDetectionService.analyzeTransaction(request);
+        // 超出账户或IP限流时直接返回，不评估规则、不写库
+        ResponseEntity<FraudDetectionResult> limited = edgeRateLimiter.check(request, httpRequest);
+        if (limited != null) {
+            return limited;
+        }
+
+        // 与队列消费共用检测容量，没有名额时最多等待api-max-wait-ms，仍没有则返回503
+        if (!admissionController.tryAcquireApi()) {
+            log.warn("检测容量已满，拒绝请求: {}", request.getTransactionId());
+            return AdmissionController.overloaded();
+        }
+        FraudDetectionResult result;
+        try {
+            result = fraudDetectionService.analyzeTransaction(request);
+        } finally {
+            admissionController.release(Source.API);
+        }
         
         log.info("完成欺诈检测: {}, 结果: {}", request.getTransactionId(), result.isFraudulent());
         
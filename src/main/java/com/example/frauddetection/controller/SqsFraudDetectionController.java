@@ -6,7 +6,7 @@ import com.example.frauddetection.messaging.SqsAwsProducer;
 import com.example.frauddetection.model.Transaction;
 import com.example.frauddetection.repository.TransactionRepository;
 import com.example.frauddetection.service.FraudDetectionService;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.example.frauddetection.trace.TraceIds;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,11 +15,11 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Random;
-import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 @Slf4j
@@ -78,9 +78,10 @@ public class SqsFraudDetectionController {
         }
 
         try {
-            // 生成请求ID
-            String requestId = UUID.randomUUID().toString();
+            // 生成请求ID，同时作为追踪ID随消息传给消费者
+            String requestId = TraceIds.newTraceId();
             MDC.put("requestId", requestId);
+            MDC.put(TraceIds.MDC_KEY, requestId);
             
             TransactionRequest request = generateMockTransaction();
             // 将requestId设置到交易请求中
@@ -88,12 +89,13 @@ public class SqsFraudDetectionController {
             
             sqsAwsProducer.sendTransaction(request);
             log.info("已发送mock交易数据: {}", request.getTransactionId());
-        } catch (JsonProcessingException e) {
-            log.error("序列化mock交易数据失败", e);
+        } catch (IOException e) {
+            log.error("编码mock交易数据失败", e);
         } catch (Exception e) {
             log.error("发送mock交易数据失败", e);
         } finally {
             MDC.remove("requestId");
+            MDC.remove(TraceIds.MDC_KEY);
         }
     }
 
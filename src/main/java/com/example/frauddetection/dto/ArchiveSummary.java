@@ -0,0 +1,21 @@
+package com.example.frauddetection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchiveSummary {
+    private LocalDateTime cutoff;      // 早于该时间的交易被归档
+    private int files;                 // 本次生成的归档文件数
+    private long rows;                 // 本次归档并从数据库删除的交易数
+    private long elapsedMs;            // 耗时
+    private List<String> fileNames;    // 本次生成的归档文件
+}
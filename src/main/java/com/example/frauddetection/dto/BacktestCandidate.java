@@ -0,0 +1,23 @@
+package com.example.frauddetection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BacktestCandidate {
+    private String name;                     // 候选配置名称
+    private BigDecimal maxTransactionAmount; // 为空时沿用当前配置
+    private String suspiciousCountries;      // 为空时沿用当前配置
+    private Integer minAccountAgeDays;       // 为空时沿用当前配置
+    private Double blockThreshold;           // 为空时沿用当前配置
+    private Boolean includeDslRules;         // 是否包含当前生效的DSL规则，默认包含
+    private List<String> extraRules;         // 追加的DSL规则行(编码|权重|原因|表达式)
+}
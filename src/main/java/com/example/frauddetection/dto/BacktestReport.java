@@ -0,0 +1,37 @@
+package com.example.frauddetection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BacktestReport {
+    private String jobId;                    // 回测任务ID
+    private String status;                   // RUNNING / COMPLETED / FAILED
+    private String error;                    // 失败原因
+    private LocalDateTime startedAt;         // 开始时间
+    private long scanned;                    // 已扫描交易数
+    private long elapsedMs;                  // 耗时
+    private List<CandidateResult> candidates; // 各候选配置的结果
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CandidateResult {
+        private String name;                     // 候选配置名称
+        private long flagged;                    // 候选配置判定欺诈的交易数
+        private long flippedToFraud;             // 原为正常、候选判定欺诈
+        private long flippedToClean;             // 原为欺诈、候选判定正常
+        private Map<String, Long> ruleHits;      // 各规则命中次数
+        private List<String> sampleFlippedIds;   // 翻转交易ID样本
+    }
+}
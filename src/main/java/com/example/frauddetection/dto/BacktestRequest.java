@@ -0,0 +1,21 @@
+package com.example.frauddetection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BacktestRequest {
+    private LocalDateTime start;              // 交易时间范围起点，为空表示不限
+    private LocalDateTime end;                // 交易时间范围终点，为空表示不限
+    private Integer chunkSize;                // 每批读取的交易数
+    private Integer sampleSize;               // 每个候选保留的翻转交易ID样本数
+    private List<BacktestCandidate> candidates; // 候选规则配置
+}
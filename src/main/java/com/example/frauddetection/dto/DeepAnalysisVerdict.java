@@ -0,0 +1,27 @@
+package com.example.frauddetection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeepAnalysisVerdict {
+    private String transactionId;        // 交易ID，下游按该键更新决策
+    private String accountId;
+    private boolean initialFraudulent;   // 第一级（同步）决策
+    private boolean fraudulent;          // 综合深度分析后的决策
+    private boolean changed;             // 决策是否与第一级不同
+    private String fraudReason;
+    private List<String> reasonCodes;    // 第一级与深度分析命中的全部编码
+    private Double riskScore;            // 模型风险分，未启用模型时为空
+    private Integer recentTransactionCount; // 历史窗口内的账户交易数，未查询时为空
+    private LocalDateTime analyzedAt;
+    private long analysisTimeMs;
+}
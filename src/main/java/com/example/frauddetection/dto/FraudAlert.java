@@ -0,0 +1,28 @@
+package com.example.frauddetection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FraudAlert {
+    private String alertId;                        // 账户ID + 窗口内首笔欺诈交易的时间，可作为下游去重键
+    private String accountId;
+    private LocalDateTime firstSeen;               // 窗口内首笔欺诈交易的决策时间
+    private LocalDateTime lastSeen;                // 窗口内末笔欺诈交易的决策时间
+    private int transactionCount;                  // 合并的欺诈交易数
+    private List<String> transactionIds;           // 交易ID，超过上限时只保留前若干个
+    private Map<String, BigDecimal> amountByCurrency; // 按币种汇总的交易金额
+    private List<String> reasonCodes;              // 命中的规则编码（去重）
+    private double maxRuleScore;                   // 最高规则风险分
+    private Double maxRiskScore;                   // 最高模型风险分，未启用模型时为空
+}
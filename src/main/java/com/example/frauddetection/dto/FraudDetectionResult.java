@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -13,5 +15,9 @@ public class FraudDetectionResult {
     private String transactionId;
     private boolean fraudulent;
     private String fraudReason;
+    private Double riskScore;        // 模型风险分，未启用模型时为空
+    private double ruleScore;        // 命中规则的加权风险分
+    private List<String> reasonCodes; // 所有贡献风险分的规则编码
+    private List<String> fallbackRules; // 超时、出错或未执行而使用兜底结果的耗时规则编码，全部正常完成时为空
     private long processingTimeMs;
 } 
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.example.frauddetection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReclassificationStatus {
+    private boolean running;           // 当前实例是否正在执行
+    private String status;             // 检查点状态: RUNNING / STOPPED / COMPLETED / FAILED
+    private Long lastProcessedId;      // 已处理到的交易主键
+    private long scanned;              // 已扫描交易数
+    private long updated;              // 结论发生变化并回写的交易数
+    private String error;              // 失败原因
+    private LocalDateTime startedAt;   // 本轮开始时间
+    private LocalDateTime updatedAt;   // 检查点更新时间
+}
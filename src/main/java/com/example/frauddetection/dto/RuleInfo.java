@@ -0,0 +1,17 @@
+package com.example.frauddetection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleInfo {
+    private String code;             // 规则编码
+    private String reason;           // 命中原因
+    private double weight;           // 风险权重
+    private int cost;                // 评估开销
+}
@@ -0,0 +1,26 @@
+package com.example.frauddetection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShadowStats {
+    private boolean enabled;           // 是否启用影子评估
+    private String ruleFile;           // 候选规则文件
+    private long submitted;            // 提交到影子执行器的决策数
+    private long dropped;              // 执行器饱和被丢弃的决策数
+    private long evaluated;            // 已完成评估的决策数
+    private long bothFraud;            // 双方都判定欺诈
+    private long bothClean;            // 双方都判定正常
+    private long shadowOnlyFraud;      // 仅候选规则判定欺诈
+    private long championOnlyFraud;    // 仅线上规则判定欺诈
+    private double disagreementRate;   // 不一致率
+    private Map<String, Long> ruleHits; // 候选规则命中次数
+}
@@ -1,32 +1,35 @@
 package com.example.frauddetection.interceptor;
 
+import com.example.frauddetection.trace.TraceIds;
 import org.slf4j.MDC;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.util.UUID;
 
 /**
  * 请求追踪拦截器
- * 为每个HTTP请求生成唯一的traceId
+ * 优先沿用上游传入的追踪ID（traceparent，其次X-Trace-Id），没有时为请求生成新的traceId
  */
 @Component
 public class TraceIdInterceptor implements HandlerInterceptor {
 
-    private static final String TRACE_ID = "traceId";
-
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
-        // 生成traceId
-        String traceId = UUID.randomUUID().toString();
-        
-        // 将traceId放入MDC
-        MDC.put(TRACE_ID, traceId);
+        String traceId = TraceIds.fromTraceparent(request.getHeader(TraceIds.TRACEPARENT_HEADER));
+        if (traceId == null) {
+            traceId = TraceIds.sanitize(request.getHeader(TraceIds.TRACE_ID_HEADER));
+        }
+        if (traceId == null) {
+            traceId = TraceIds.newTraceId();
+        }
+
+        // 将traceId放入MDC，经SqsAwsProducer发送的消息会带上该traceId
+        MDC.put(TraceIds.MDC_KEY, traceId);
         
         // 将traceId添加到响应头，方便前端追踪
-        response.addHeader("X-Trace-Id", traceId);
+        response.addHeader(TraceIds.TRACE_ID_HEADER, traceId);
         
         return true;
     }
@@ -34,6 +37,6 @@ public class TraceIdInterceptor implements HandlerInterceptor {
     @Override
     public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
         // 请求完成后清理MDC
-        MDC.remove(TRACE_ID);
+        MDC.remove(TraceIds.MDC_KEY);
     }
-} 
\ No newline at end of file
+}
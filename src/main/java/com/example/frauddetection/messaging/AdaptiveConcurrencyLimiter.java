@@ -0,0 +1,231 @@
+package com.example.frauddetection.messaging;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 自适应并发限制（AIMD，与TCP拥塞控制相同的加性增、乘性减）
+ *
+ * 处理中的消息数不超过当前限制。每条消息处理完成后按结果调整限制：
+ * 耗时不超过延迟阈值且限制已被用满一半以上时加性增长（每条 +1/limit，约每轮并发 +1）；
+ * 处理失败或耗时超过阈值时乘以backoffRatio，两次减小之间至少间隔一个延迟阈值，
+ * 避免同一轮并发中的多条慢消息把限制连续压到最小值。
+ * 调用方式：先{@link #tryAcquire()}或{@link #acquire()}，处理结束后调用{@link #onSuccess(long)}、{@link #onDropped()}或{@link #onIgnored()}之一。
+ */
+public final class AdaptiveConcurrencyLimiter implements MeterBinder {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final boolean adaptive;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong successes = new AtomicLong();
+    private final AtomicLong drops = new AtomicLong();
+    private final Object monitor = new Object();
+
+    // 以下字段在monitor上修改
+    private double limit;
+    private long lastDecreaseAt;
+    private double smoothedLatencyNanos;
+    private volatile int permits;
+    private volatile int waiters;
+
+    /**
+     * @param initialLimit       初始并发限制
+     * @param minLimit           最小并发限制
+     * @param maxLimit           最大并发限制（也是工作线程数）
+     * @param latencyThresholdMs 单条消息处理耗时超过该值视为过载
+     * @param backoffRatio       过载时限制的缩小比例
+     * @param adaptive           为false时限制固定为initialLimit
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      long latencyThresholdMs, double backoffRatio, boolean adaptive) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("并发限制范围无效: [" + minLimit + ", " + maxLimit + "]");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio必须在(0, 1)之间: " + backoffRatio);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs);
+        this.backoffRatio = backoffRatio;
+        this.adaptive = adaptive;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.permits = (int) limit;
+        this.lastDecreaseAt = System.nanoTime() - latencyThresholdNanos;
+    }
+
+    /**
+     * 固定并发限制
+     */
+    public static AdaptiveConcurrencyLimiter fixed(int limit) {
+        return new AdaptiveConcurrencyLimiter(limit, limit, limit, Long.MAX_VALUE, 0.5, false);
+    }
+
+    /**
+     * @return 当前还能开始处理的消息数
+     */
+    public int availablePermits() {
+        return Math.max(0, permits - inFlight.get());
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= permits) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 无条件占用一个名额，用于已经按{@link #availablePermits()}接收、期间限制又缩小的情况
+     */
+    public void acquire() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * 等待直到有可用的并发名额
+     *
+     * @return 超时仍没有名额时返回false
+     */
+    public boolean awaitPermit(long timeoutMs) throws InterruptedException {
+        if (availablePermits() > 0) {
+            return true;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        synchronized (monitor) {
+            waiters++;
+            try {
+                while (availablePermits() <= 0) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(monitor, remaining);
+                }
+                return true;
+            } finally {
+                waiters--;
+            }
+        }
+    }
+
+    /**
+     * 处理成功，按耗时调整限制并释放名额
+     */
+    public void onSuccess(long latencyNanos) {
+        successes.incrementAndGet();
+        int inFlightBefore = inFlight.get();
+        synchronized (monitor) {
+            smoothedLatencyNanos = smoothedLatencyNanos == 0
+                    ? latencyNanos : smoothedLatencyNanos * 0.9 + latencyNanos * 0.1;
+            if (latencyNanos > latencyThresholdNanos) {
+                decrease();
+            } else if (adaptive && inFlightBefore * 2 >= limit) {
+                setLimit(limit + 1.0 / limit);
+            }
+        }
+        release();
+    }
+
+    /**
+     * 处理失败（超时、数据库错误等与负载相关的失败），缩小限制并释放名额
+     */
+    public void onDropped() {
+        drops.incrementAndGet();
+        synchronized (monitor) {
+            decrease();
+        }
+        release();
+    }
+
+    /**
+     * 结果与负载无关（例如消息格式错误），只释放名额
+     */
+    public void onIgnored() {
+        release();
+    }
+
+    public int getLimit() {
+        return permits;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("fraud.consumer.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("消息处理并发限制")
+                .register(registry);
+        Gauge.builder("fraud.consumer.concurrency.in.flight", this, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("正在处理的消息数")
+                .register(registry);
+        Gauge.builder("fraud.consumer.latency.smoothed", this, l -> l.smoothedLatencyMillis())
+                .description("消息处理耗时的指数移动平均")
+                .baseUnit("milliseconds")
+                .register(registry);
+        FunctionCounter.builder("fraud.consumer.completed", successes, AtomicLong::doubleValue)
+                .description("处理成功的消息数")
+                .register(registry);
+        FunctionCounter.builder("fraud.consumer.dropped", drops, AtomicLong::doubleValue)
+                .description("处理失败并触发限流的消息数")
+                .register(registry);
+    }
+
+    private double smoothedLatencyMillis() {
+        synchronized (monitor) {
+            return smoothedLatencyNanos / 1_000_000.0;
+        }
+    }
+
+    private void decrease() {
+        long now = System.nanoTime();
+        if (!adaptive || now - lastDecreaseAt < latencyThresholdNanos) {
+            return;
+        }
+        lastDecreaseAt = now;
+        setLimit(limit * backoffRatio);
+    }
+
+    private void setLimit(double newLimit) {
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        permits = (int) limit;
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        if (waiters > 0) {
+            synchronized (monitor) {
+                monitor.notifyAll();
+            }
+        }
+    }
+}
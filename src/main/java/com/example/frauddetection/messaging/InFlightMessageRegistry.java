@@ -0,0 +1,205 @@
+package com.example.frauddetection.messaging;
+
+import com.example.frauddetection.messaging.transport.InboundMessage;
+import com.example.frauddetection.messaging.transport.MessageTransport;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 在途消息登记与可见性心跳
+ *
+ * 消费者接收消息后登记，确认或放弃后注销。后台心跳每隔heartbeatInterval检查一次，
+ * 可见性剩余时间不足两个心跳间隔的消息（无论还在线程池队列中等待还是正在处理）
+ * 批量延长为visibilityTimeout，避免处理排队期间消息超时被重复投递、重复分析和入库。
+ * 在途超过maxInFlight的消息不再延长，交给队列按正常超时重新投递，防止卡住的消息被永久占用。
+ */
+@Slf4j
+@Component
+public class InFlightMessageRegistry implements MeterBinder {
+
+    private final MessageTransport transport;
+    private final boolean enabled;
+    private final long visibilityTimeoutNanos;
+    private final long heartbeatIntervalNanos;
+    private final long maxInFlightNanos;
+    private final Map<String, Tracked> tracked = new ConcurrentHashMap<>();
+    private final AtomicLong extended = new AtomicLong();
+    private final AtomicLong released = new AtomicLong();
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final ScheduledExecutorService heartbeat;
+
+    @Autowired
+    public InFlightMessageRegistry(
+            MessageTransport transactionTransport,
+            @Value("${fraud-detection.aws.sqs.consumer.visibility.heartbeat-enabled:true}") boolean enabled,
+            @Value("${fraud-detection.aws.sqs.consumer.visibility.timeout-seconds:30}") int visibilityTimeoutSeconds,
+            @Value("${fraud-detection.aws.sqs.consumer.visibility.heartbeat-interval-seconds:10}") int heartbeatIntervalSeconds,
+            @Value("${fraud-detection.aws.sqs.consumer.visibility.max-in-flight-seconds:900}") int maxInFlightSeconds) {
+        this(transactionTransport, enabled, Duration.ofSeconds(visibilityTimeoutSeconds),
+                Duration.ofSeconds(heartbeatIntervalSeconds), Duration.ofSeconds(maxInFlightSeconds));
+    }
+
+    public InFlightMessageRegistry(MessageTransport transport, boolean enabled, Duration visibilityTimeout,
+                                   Duration heartbeatInterval, Duration maxInFlight) {
+        if (enabled && heartbeatInterval.multipliedBy(2).compareTo(visibilityTimeout) > 0) {
+            throw new IllegalArgumentException("心跳间隔(" + heartbeatInterval + ")必须不超过可见性超时("
+                    + visibilityTimeout + ")的一半");
+        }
+        this.transport = transport;
+        this.enabled = enabled;
+        this.visibilityTimeoutNanos = visibilityTimeout.toNanos();
+        this.heartbeatIntervalNanos = heartbeatInterval.toNanos();
+        this.maxInFlightNanos = maxInFlight.toNanos();
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "sqs-visibility-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 启动心跳，重复调用无效
+     */
+    public void start() {
+        if (!enabled || !started.compareAndSet(false, true)) {
+            return;
+        }
+        heartbeat.scheduleWithFixedDelay(this::extendExpiring, heartbeatIntervalNanos, heartbeatIntervalNanos,
+                TimeUnit.NANOSECONDS);
+        log.info("在途消息可见性心跳已启动, 可见性超时: {}s, 心跳间隔: {}s",
+                TimeUnit.NANOSECONDS.toSeconds(visibilityTimeoutNanos), TimeUnit.NANOSECONDS.toSeconds(heartbeatIntervalNanos));
+    }
+
+    /**
+     * 登记刚接收的消息，可见性从现在起按visibilityTimeout计算
+     */
+    public void register(InboundMessage message) {
+        if (enabled) {
+            long now = System.nanoTime();
+            tracked.put(message.getReceiptHandle(), new Tracked(message, now, now + visibilityTimeoutNanos));
+        }
+    }
+
+    /**
+     * 确认处理完成（删除消息）并注销
+     */
+    public void acknowledge(InboundMessage message) {
+        tracked.remove(message.getReceiptHandle());
+        transport.acknowledge(Collections.singletonList(message));
+    }
+
+    /**
+     * 放弃处理并注销，消息立即可以被重新接收，用于可以重试的失败
+     */
+    public void release(InboundMessage message) {
+        tracked.remove(message.getReceiptHandle());
+        released.incrementAndGet();
+        transport.release(Collections.singletonList(message));
+    }
+
+    /**
+     * 批量放弃处理并注销，用于停机时尚未开始处理的消息
+     */
+    public void releaseAll(List<InboundMessage> messages) {
+        for (InboundMessage message : messages) {
+            tracked.remove(message.getReceiptHandle());
+        }
+        released.addAndGet(messages.size());
+        transport.release(messages);
+    }
+
+    /**
+     * 只注销，消息按队列的可见性超时重新投递，用于不可重试的失败（交给重试次数和死信队列处理）
+     */
+    public void forget(InboundMessage message) {
+        tracked.remove(message.getReceiptHandle());
+    }
+
+    public int getTrackedCount() {
+        return tracked.size();
+    }
+
+    /**
+     * 批量延长即将超时的在途消息
+     */
+    void extendExpiring() {
+        try {
+            long now = System.nanoTime();
+            List<InboundMessage> expiring = new ArrayList<>();
+            List<Tracked> entries = new ArrayList<>();
+            for (Tracked entry : tracked.values()) {
+                if (entry.visibleUntil - now > 2 * heartbeatIntervalNanos) {
+                    continue;
+                }
+                if (now - entry.registeredAt > maxInFlightNanos) {
+                    if (tracked.remove(entry.message.getReceiptHandle(), entry)) {
+                        log.warn("消息在途时间超过上限，不再延长可见性: {}", entry.message.getMessageId());
+                    }
+                    continue;
+                }
+                expiring.add(entry.message);
+                entries.add(entry);
+            }
+            if (expiring.isEmpty()) {
+                return;
+            }
+            transport.changeVisibility(expiring, Duration.ofNanos(visibilityTimeoutNanos));
+            for (Tracked entry : entries) {
+                entry.visibleUntil = now + visibilityTimeoutNanos;
+            }
+            extended.addAndGet(expiring.size());
+            log.debug("已延长{}条在途消息的可见性", expiring.size());
+        } catch (Exception e) {
+            log.error("延长消息可见性时发生错误", e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("fraud.consumer.visibility.tracked", this, InFlightMessageRegistry::getTrackedCount)
+                .description("登记中的在途消息数")
+                .register(registry);
+        FunctionCounter.builder("fraud.consumer.visibility.extended", extended, AtomicLong::doubleValue)
+                .description("延长可见性的消息次数")
+                .register(registry);
+        FunctionCounter.builder("fraud.consumer.visibility.released", released, AtomicLong::doubleValue)
+                .description("处理失败后立即放回队列的消息数")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+    }
+
+    private static final class Tracked {
+        private final InboundMessage message;
+        private final long registeredAt;
+        private volatile long visibleUntil;
+
+        private Tracked(InboundMessage message, long registeredAt, long visibleUntil) {
+            this.message = message;
+            this.registeredAt = registeredAt;
+            this.visibleUntil = visibleUntil;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.frauddetection.messaging;
+
+import com.example.frauddetection.dto.TransactionRequest;
+import com.example.frauddetection.service.FraudDetectionService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Kafka批量消费者
+ *
+ * 生产者以accountId作为消息key，同一账户的交易落在同一分区并按顺序处理。
+ * 每个分区只分配给一个消费线程，并发度由容器的消费者数决定（不超过分区数）。
+ * 一批记录中同一分区的记录是连续的，按拉取顺序逐条分析并持久化，全部完成后手动提交偏移量。
+ * 某条记录失败时抛出BatchListenerFailedException，已处理的记录提交偏移量，失败记录及其后的记录重新拉取。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "fraud-detection.kafka.enabled", havingValue = "true")
+public class KafkaTransactionConsumer {
+
+    private final FraudDetectionService fraudDetectionService;
+
+    @Autowired
+    public KafkaTransactionConsumer(FraudDetectionService fraudDetectionService) {
+        this.fraudDetectionService = fraudDetectionService;
+    }
+
+    @KafkaListener(id = "fraud-transactions",
+            topics = "${fraud-detection.kafka.topic:transactions}",
+            groupId = "${fraud-detection.kafka.group-id:fraud-detection-group}",
+            containerFactory = "fraudBatchListenerContainerFactory")
+    public void onBatch(List<ConsumerRecord<String, TransactionRequest>> records, Acknowledgment acknowledgment) {
+        long startTime = System.currentTimeMillis();
+        int fraudulent = 0;
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, TransactionRequest> record = records.get(i);
+            if (record.value() == null) {
+                // 无法解析的消息重试也不会成功，记录后跳过
+                log.error("无法解析的Kafka消息，已跳过: {}-{}@{}, 原因: {}", record.topic(), record.partition(),
+                        record.offset(), record.headers().lastHeader(SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER) != null
+                                ? "反序列化失败" : "空消息");
+                continue;
+            }
+            try {
+                if (fraudDetectionService.analyzeTransaction(record.value()).isFraudulent()) {
+                    fraudulent++;
+                }
+            } catch (RuntimeException e) {
+                throw new BatchListenerFailedException("处理交易失败: " + record.value().getTransactionId(), e, i);
+            }
+        }
+        acknowledgment.acknowledge();
+        log.info("Kafka批次处理完成, 记录数: {}, 欺诈: {}, 耗时: {}ms",
+                records.size(), fraudulent, System.currentTimeMillis() - startTime);
+    }
+}
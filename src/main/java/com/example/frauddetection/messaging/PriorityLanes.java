@@ -0,0 +1,246 @@
+package com.example.frauddetection.messaging;
+
+import com.example.frauddetection.dto.TransactionRequest;
+import com.example.frauddetection.messaging.transport.InboundMessage;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 消费者的优先级通道
+ *
+ * 消费者按并发名额处理消息，名额用满时收到的消息先放入本地预取缓冲，按通道排队：
+ * 消息属性priority为high/normal时按属性分类，否则金额不低于highValueThreshold的交易进入高优先级通道。
+ * 有名额空出时按平滑加权轮询（与nginx upstream相同）从非空通道中取下一条，两个通道都有积压时
+ * 每highWeight + normalWeight条中高优先级通道得到highWeight条，前面有k条高优先级消息时
+ * 最多等待 (k + 1) * (highWeight + normalWeight) / highWeight 条消息处理完；普通通道也不会饿死。
+ * 通道只能在预取缓冲内重新排序，缓冲之外的积压仍按队列顺序接收。
+ * prefetch为0时不预取，收到的消息立即开始处理，通道不起作用。
+ */
+@Slf4j
+@Component
+public class PriorityLanes implements MeterBinder {
+
+    /** 上游指定优先级的消息属性，取值high或normal */
+    public static final String PRIORITY_ATTRIBUTE = "priority";
+
+    public enum Lane {
+        HIGH, NORMAL;
+
+        public String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final Lane[] LANES = Lane.values();
+
+    private final BigDecimal highValueThreshold;
+    private final int prefetch;
+    private final int[] weights = new int[LANES.length];
+    private final int[] currentWeights = new int[LANES.length];
+    private final ArrayDeque<Entry>[] queues;
+    private final LongAdder[] waitCount = new LongAdder[LANES.length];
+    private final LongAdder[] waitNanos = new LongAdder[LANES.length];
+    private int size;
+
+    @Autowired
+    public PriorityLanes(
+            @Value("${fraud-detection.aws.sqs.consumer.lanes.high-value-threshold:10000}") BigDecimal highValueThreshold,
+            @Value("${fraud-detection.aws.sqs.consumer.lanes.high-weight:4}") int highWeight,
+            @Value("${fraud-detection.aws.sqs.consumer.lanes.normal-weight:1}") int normalWeight,
+            @Value("${fraud-detection.aws.sqs.consumer.lanes.prefetch:50}") int prefetch) {
+        if (highWeight < 1 || normalWeight < 1 || prefetch < 0) {
+            throw new IllegalArgumentException("优先级通道参数无效: highWeight=" + highWeight
+                    + ", normalWeight=" + normalWeight + ", prefetch=" + prefetch);
+        }
+        this.highValueThreshold = highValueThreshold;
+        this.prefetch = prefetch;
+        this.weights[Lane.HIGH.ordinal()] = highWeight;
+        this.weights[Lane.NORMAL.ordinal()] = normalWeight;
+        @SuppressWarnings("unchecked")
+        ArrayDeque<Entry>[] queues = new ArrayDeque[LANES.length];
+        for (int i = 0; i < LANES.length; i++) {
+            queues[i] = new ArrayDeque<>();
+            waitCount[i] = new LongAdder();
+            waitNanos[i] = new LongAdder();
+        }
+        this.queues = queues;
+        if (prefetch > 0) {
+            log.info("消费者优先级通道: 预取{}条, 高额阈值: {}, 权重 high:normal = {}:{}",
+                    prefetch, highValueThreshold, highWeight, normalWeight);
+        }
+    }
+
+    /**
+     * 不预取，收到的消息立即开始处理
+     */
+    public static PriorityLanes passThrough() {
+        return new PriorityLanes(null, 1, 1, 0);
+    }
+
+    /**
+     * @param request 解析后的交易请求，解析失败时为null
+     */
+    public Lane classify(InboundMessage message, TransactionRequest request) {
+        String priority = message.getAttribute(PRIORITY_ATTRIBUTE);
+        if (priority != null) {
+            if ("high".equalsIgnoreCase(priority)) {
+                return Lane.HIGH;
+            }
+            if ("normal".equalsIgnoreCase(priority)) {
+                return Lane.NORMAL;
+            }
+        }
+        if (highValueThreshold != null && request != null && request.getAmount() != null
+                && request.getAmount().compareTo(highValueThreshold) >= 0) {
+            return Lane.HIGH;
+        }
+        return Lane.NORMAL;
+    }
+
+    public synchronized void offer(Lane lane, Runnable task) {
+        queues[lane.ordinal()].addLast(new Entry(task, System.nanoTime()));
+        size++;
+    }
+
+    /**
+     * 按平滑加权轮询取出下一条：每个非空通道的当前权重加上自身权重，取当前权重最大的通道，
+     * 再从它的当前权重中减去所有非空通道的权重之和
+     *
+     * @return 所有通道都为空时返回null
+     */
+    public synchronized Runnable poll() {
+        int total = 0;
+        int selected = -1;
+        for (int i = 0; i < LANES.length; i++) {
+            if (queues[i].isEmpty()) {
+                continue;
+            }
+            currentWeights[i] += weights[i];
+            total += weights[i];
+            if (selected < 0 || currentWeights[i] > currentWeights[selected]) {
+                selected = i;
+            }
+        }
+        if (selected < 0) {
+            return null;
+        }
+        currentWeights[selected] -= total;
+        Entry entry = queues[selected].pollFirst();
+        if (queues[selected].isEmpty()) {
+            // 通道空闲期间不累积权重，重新出现积压时从头参与轮询
+            currentWeights[selected] = 0;
+        }
+        if (size-- == prefetch) {
+            notifyAll();
+        }
+        waitCount[selected].increment();
+        waitNanos[selected].add(System.nanoTime() - entry.enqueuedAt);
+        return entry.task;
+    }
+
+    /**
+     * 等待直到预取缓冲有空位
+     *
+     * @return 超时仍没有空位时返回false
+     */
+    public synchronized boolean awaitRoom(long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (size >= prefetch) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+
+    /**
+     * 取出所有尚未开始的任务，用于停机时放回队列
+     */
+    public synchronized List<Runnable> drainAll() {
+        List<Runnable> tasks = new ArrayList<>(size);
+        for (int i = 0; i < LANES.length; i++) {
+            for (Entry entry : queues[i]) {
+                tasks.add(entry.task);
+            }
+            queues[i].clear();
+            currentWeights[i] = 0;
+        }
+        size = 0;
+        notifyAll();
+        return tasks;
+    }
+
+    /**
+     * @return 预取缓冲还能容纳的消息数
+     */
+    public synchronized int remainingCapacity() {
+        return Math.max(0, prefetch - size);
+    }
+
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    public synchronized int depth(Lane lane) {
+        return queues[lane.ordinal()].size();
+    }
+
+    public int getPrefetch() {
+        return prefetch;
+    }
+
+    /**
+     * @return 通道中排队最久的消息已等待的毫秒数，通道为空时为0
+     */
+    public synchronized double oldestWaitMillis(Lane lane) {
+        Entry head = queues[lane.ordinal()].peekFirst();
+        return head == null ? 0 : (System.nanoTime() - head.enqueuedAt) / 1_000_000.0;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Lane lane : LANES) {
+            Gauge.builder("fraud.consumer.lane.depth", this, l -> l.depth(lane))
+                    .tag("lane", lane.tag())
+                    .description("在通道中等待并发名额的消息数")
+                    .register(registry);
+            Gauge.builder("fraud.consumer.lane.oldest.wait", this, l -> l.oldestWaitMillis(lane))
+                    .tag("lane", lane.tag())
+                    .description("通道中排队最久的消息已等待的时间")
+                    .baseUnit("milliseconds")
+                    .register(registry);
+            FunctionTimer.builder("fraud.consumer.lane.wait", this,
+                            l -> l.waitCount[lane.ordinal()].sum(),
+                            l -> l.waitNanos[lane.ordinal()].doubleValue(), TimeUnit.NANOSECONDS)
+                    .tag("lane", lane.tag())
+                    .description("消息在通道中等待并发名额的时间")
+                    .register(registry);
+        }
+    }
+
+    private static final class Entry {
+        private final Runnable task;
+        private final long enqueuedAt;
+
+        private Entry(Runnable task, long enqueuedAt) {
+            this.task = task;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -1,58 +1,148 @@
 package com.example.frauddetection.messaging;
 
+import com.example.frauddetection.admission.AdmissionController;
+import com.example.frauddetection.admission.AdmissionController.Source;
 import com.example.frauddetection.dto.TransactionRequest;
+import com.example.frauddetection.messaging.codec.TransactionMessageCodec;
+import com.example.frauddetection.messaging.transport.InboundMessage;
+import com.example.frauddetection.messaging.transport.MessageTransport;
+import com.example.frauddetection.messaging.transport.SqsMessageTransport;
 import com.example.frauddetection.service.FraudDetectionService;
+import com.example.frauddetection.trace.TraceIds;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import software.amazon.awssdk.services.sqs.SqsClient;
-import software.amazon.awssdk.services.sqs.model.*;
 
-import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.UUID;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * 使用AWS SDK v2直接从SQS接收消息的消费者
- * 支持标准队列和FIFO队列
+ * 交易消息消费者
+ * 通过MessageTransport接收消息，默认是AWS SQS（支持标准队列和FIFO队列），也可以使用进程内队列离线运行
+ * 同时处理的消息数由{@link AdaptiveConcurrencyLimiter}控制：只接收有并发名额或能放入预取缓冲的消息，
+ * 数据库变慢或出错时并发限制自动收缩，剩余消息留在队列中而不是堆积在本地。
+ * 预取缓冲中的消息按{@link PriorityLanes}分通道排队，高额或上游标记为高优先级的交易优先获得空出的名额。
+ * 每条消息开始处理前还要通过与同步检测接口共用的{@link AdmissionController}，
+ * 队列消费的名额用完时暂停接收，把容量留给同步调用方
+ *
+ * 作为SmartLifecycle随应用上下文启停：收到SIGTERM后停止接收，线程池中尚未开始处理的消息立即放回队列，
+ * 正在处理的消息在drainTimeout内完成并确认，避免每次发布都在可见性超时后集中重新投递
  */
 @Slf4j
 @Component
-public class SqsAwsConsumer {
+public class SqsAwsConsumer implements SmartLifecycle {
 
-    private final SqsClient sqsClient;
-    private final ObjectMapper objectMapper;
+    private final MessageTransport transport;
+    private final TransactionMessageCodec codec;
     private final FraudDetectionService fraudDetectionService;
     private final SqsAwsProducer sqsAwsProducer;
-    private final String transactionQueueUrl;
-    private final AtomicBoolean isRunning = new AtomicBoolean(false);
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final ReentrantLock pollLock = new ReentrantLock();
     private final ThreadPoolExecutor executorService;
-    private final boolean isFifoQueue;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final InFlightMessageRegistry inFlightRegistry;
+    private final PriorityLanes lanes;
+    private final AdmissionController admissionController;
+    private final int batchSize;
+    private final Duration waitTime;
+    private final int maxBatchesPerPoll;
+    private final Duration drainTimeout;
 
-    @Autowired
+    /**
+     * 直接使用SQS客户端，接收参数使用默认值
+     */
     public SqsAwsConsumer(
             SqsClient sqsClient,
             ObjectMapper objectMapper,
             FraudDetectionService fraudDetectionService,
             SqsAwsProducer sqsAwsProducer,
-            @Value("${fraud-detection.aws.sqs.transaction-queue-url}") String transactionQueueUrl,
-            @Value("${fraud-detection.aws.sqs.consumer.threads:5}") int threadCount,
+            String transactionQueueUrl,
+            int threadCount,
+            int queueSize,
+            int keepAliveSeconds) {
+        this(new SqsMessageTransport(sqsClient, transactionQueueUrl), objectMapper, fraudDetectionService,
+                sqsAwsProducer, threadCount, queueSize, keepAliveSeconds);
+    }
+
+    private SqsAwsConsumer(
+            MessageTransport transport,
+            ObjectMapper objectMapper,
+            FraudDetectionService fraudDetectionService,
+            SqsAwsProducer sqsAwsProducer,
+            int threadCount,
+            int queueSize,
+            int keepAliveSeconds) {
+        this(transport, TransactionMessageCodec.json(objectMapper), fraudDetectionService, sqsAwsProducer,
+                AdaptiveConcurrencyLimiter.fixed(threadCount),
+                new InFlightMessageRegistry(transport, true, Duration.ofSeconds(30), Duration.ofSeconds(10),
+                        Duration.ofMinutes(15)),
+                queueSize, keepAliveSeconds, 10, 10, 100, 25);
+    }
+
+    /**
+     * 不预取，收到的消息立即开始处理
+     */
+    public SqsAwsConsumer(
+            MessageTransport transactionTransport,
+            TransactionMessageCodec codec,
+            FraudDetectionService fraudDetectionService,
+            SqsAwsProducer sqsAwsProducer,
+            AdaptiveConcurrencyLimiter consumerConcurrencyLimiter,
+            InFlightMessageRegistry inFlightRegistry,
+            int queueSize,
+            int keepAliveSeconds,
+            int batchSize,
+            int waitTimeSeconds,
+            int maxBatchesPerPoll,
+            int drainTimeoutSeconds) {
+        this(transactionTransport, codec, fraudDetectionService, sqsAwsProducer, consumerConcurrencyLimiter,
+                inFlightRegistry, PriorityLanes.passThrough(), AdmissionController.unlimited(), queueSize, keepAliveSeconds, batchSize,
+                waitTimeSeconds, maxBatchesPerPoll, drainTimeoutSeconds);
+    }
+
+    @Autowired
+    public SqsAwsConsumer(
+            MessageTransport transactionTransport,
+            TransactionMessageCodec codec,
+            FraudDetectionService fraudDetectionService,
+            SqsAwsProducer sqsAwsProducer,
+            AdaptiveConcurrencyLimiter consumerConcurrencyLimiter,
+            InFlightMessageRegistry inFlightRegistry,
+            PriorityLanes priorityLanes,
+            AdmissionController admissionController,
             @Value("${fraud-detection.aws.sqs.consumer.queue-size:100}") int queueSize,
-            @Value("${fraud-detection.aws.sqs.consumer.keep-alive-seconds:60}") int keepAliveSeconds) {
-        this.sqsClient = sqsClient;
-        this.objectMapper = objectMapper;
+            @Value("${fraud-detection.aws.sqs.consumer.keep-alive-seconds:60}") int keepAliveSeconds,
+            @Value("${fraud-detection.aws.sqs.consumer.batch-size:10}") int batchSize,
+            @Value("${fraud-detection.aws.sqs.consumer.wait-time-seconds:10}") int waitTimeSeconds,
+            @Value("${fraud-detection.aws.sqs.consumer.max-batches-per-poll:100}") int maxBatchesPerPoll,
+            @Value("${fraud-detection.aws.sqs.consumer.shutdown.drain-timeout-seconds:25}") int drainTimeoutSeconds) {
+        this.transport = transactionTransport;
+        this.codec = codec;
         this.fraudDetectionService = fraudDetectionService;
         this.sqsAwsProducer = sqsAwsProducer;
-        this.transactionQueueUrl = transactionQueueUrl;
+        this.batchSize = batchSize;
+        this.waitTime = Duration.ofSeconds(waitTimeSeconds);
+        this.maxBatchesPerPoll = maxBatchesPerPoll;
+        this.drainTimeout = Duration.ofSeconds(drainTimeoutSeconds);
+        this.concurrencyLimiter = consumerConcurrencyLimiter;
+        this.inFlightRegistry = inFlightRegistry;
+        this.lanes = priorityLanes;
+        this.admissionController = admissionController;
+        int threadCount = consumerConcurrencyLimiter.getMaxLimit();
         
-        // 创建线程池
+        // 创建线程池，线程数等于并发上限，实际并发由限制器控制
         this.executorService = new ThreadPoolExecutor(
                 threadCount, // 核心线程数
                 threadCount, // 最大线程数
@@ -68,119 +158,294 @@ public class SqsAwsConsumer {
                         return thread;
                     }
                 },
-                new ThreadPoolExecutor.CallerRunsPolicy() // 拒绝策略：调用者运行
+                // 拒绝策略：调用者运行；停机后提交的任务直接放回队列
+                (task, executor) -> {
+                    if (executor.isShutdown()) {
+                        concurrencyLimiter.onIgnored();
+                        admissionController.release(Source.QUEUE);
+                        inFlightRegistry.releaseAll(Collections.singletonList(((MessageTask) task).message));
+                    } else {
+                        task.run();
+                    }
+                }
         );
         
         // 允许核心线程超时
         this.executorService.allowCoreThreadTimeOut(true);
+        // 同步接口释放的名额不经过接收循环，直接把通道中等待的消息交给它
+        admissionController.addApiReleaseListener(this::dispatch);
         
-        // 检查队列URL是否以.fifo结尾
-        this.isFifoQueue = transactionQueueUrl.endsWith(".fifo");
-        log.info("AWS SDK SQS消费者已初始化，使用{}个线程，队列类型: {}", threadCount, isFifoQueue ? "FIFO" : "标准");
+        log.info("交易消息消费者已初始化，并发限制: {} (范围 {}-{}, 自适应: {})，传输: {}",
+                concurrencyLimiter.getLimit(), concurrencyLimiter.getMinLimit(), threadCount,
+                concurrencyLimiter.isAdaptive(), transport.getName());
     }
 
-    @PostConstruct
     public void init() {
-        isRunning.set(true);
-        log.info("AWS SDK SQS消费者已启动");
+        inFlightRegistry.start();
+        running.set(true);
+        log.info("交易消息消费者已启动");
+    }
+
+    @Override
+    public void start() {
+        init();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * 异步排空，与Web服务器的优雅停机并行进行
+     */
+    @Override
+    public void stop(Runnable callback) {
+        if (!running.compareAndSet(true, false)) {
+            callback.run();
+            return;
+        }
+        Thread drainer = new Thread(() -> {
+            try {
+                drain();
+            } finally {
+                callback.run();
+            }
+        }, "sqs-consumer-drain");
+        drainer.start();
     }
 
     /**
-     * 定期从SQS队列接收消息
+     * 定期接收消息
+     * 每轮连续接收，直到某一批不满（队列已空）或达到每轮接收上限（批次上限 x 每批消息数），积压时不受轮询间隔限制。
+     * 每批最多接收当前空闲的并发名额数加预取缓冲的空位数；两者都没有时最多等待一个长轮询时长，仍没有则结束本轮。
+     * 准入控制中队列消费的名额用完时同样等待，仍没有名额则结束本轮，消息留在队列中
      */
     @Scheduled(fixedDelayString = "${fraud-detection.aws.sqs.consumer.polling-interval-ms:1000}")
     public void receiveMessages() {
-        if (!isRunning.get()) {
+        if (!running.get()) {
             return;
         }
 
+        pollLock.lock();
         try {
-            // 生成消息ID
-            String messageId = UUID.randomUUID().toString();
-            MDC.put("messageId", messageId);
-
-            // 构建接收消息请求
-            ReceiveMessageRequest.Builder requestBuilder = ReceiveMessageRequest.builder()
-                    .queueUrl(transactionQueueUrl)
-                    .maxNumberOfMessages(10)
-                    .waitTimeSeconds(10);
-            
-            // FIFO队列可以添加特定的属性，如消息组ID等
-            if (isFifoQueue) {
-                // 在FIFO队列上使用长轮询
-                log.debug("从FIFO队列接收消息");
+            // 等锁期间可能已经开始停机
+            if (!running.get()) {
+                return;
             }
-            
-            ReceiveMessageRequest receiveRequest = requestBuilder.build();
-            ReceiveMessageResponse response = sqsClient.receiveMessage(receiveRequest);
-            List<Message> messages = response.messages();
-
-            if (!messages.isEmpty()) {
-                log.info("从SQS队列接收到{}条消息", messages.size());
-                
-                for (Message message : messages) {
-                    // 对于FIFO队列，我们可以记录消息组ID和序列号
-                    if (isFifoQueue) {
-                        log.debug("处理来自消息组: {} 的消息, 序列号: {}", 
-                            message.attributes().get(MessageSystemAttributeName.MESSAGE_GROUP_ID),
-                            message.attributes().get(MessageSystemAttributeName.SEQUENCE_NUMBER));
-                    }
-                    
-                    executorService.submit(() -> {
-                        try {
-                            MDC.put("messageId", messageId);
-                            processMessage(message);
-                        } finally {
-                            MDC.remove("messageId");
-                        }
-                    });
+            // 按并发名额接收时每批可能不满batchSize，按消息数限制每轮接收量
+            int maxMessagesPerPoll = maxBatchesPerPoll * batchSize;
+            int received = 0;
+            List<InboundMessage> messages;
+            int requested;
+            do {
+                if (!admissionController.awaitQueueCapacity(waitTime.toMillis())) {
+                    log.debug("检测容量已满，本轮停止接收");
+                    break;
                 }
-            }
+                // 容量可能是同步接口释放的，先把通道中的消息交给空出的名额
+                dispatch();
+                boolean available = lanes.getPrefetch() > 0
+                        ? lanes.awaitRoom(waitTime.toMillis())
+                        : concurrencyLimiter.awaitPermit(waitTime.toMillis());
+                if (!available) {
+                    log.debug("没有空闲的并发名额，本轮停止接收, 并发限制: {}", concurrencyLimiter.getLimit());
+                    break;
+                }
+                int permits = Math.min(concurrencyLimiter.availablePermits(), admissionController.availableForQueue());
+                requested = Math.min(batchSize, permits + lanes.remainingCapacity());
+                if (requested <= 0) {
+                    break;
+                }
+                messages = transport.receive(requested, waitTime);
+                if (!messages.isEmpty()) {
+                    log.debug("从{}接收到{}条消息", transport.getName(), messages.size());
+                }
+                if (!running.get()) {
+                    // 长轮询期间开始停机，收到的消息直接放回队列
+                    inFlightRegistry.releaseAll(messages);
+                    break;
+                }
+                for (InboundMessage message : messages) {
+                    // 排队和处理期间由心跳延长可见性
+                    inFlightRegistry.register(message);
+                    MessageTask task = new MessageTask(message);
+                    lanes.offer(lanes.classify(message, task.request), task);
+                }
+                // 按空闲名额数接收；接收期间限制缩小时超出的消息留在通道中，由后续完成的消息取走
+                dispatch();
+                received += messages.size();
+            } while (running.get() && messages.size() >= requested && received < maxMessagesPerPoll);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
-            log.error("从SQS接收消息时发生错误", e);
+            log.error("接收消息时发生错误", e);
         } finally {
-            MDC.remove("messageId");
+            pollLock.unlock();
+        }
+    }
+
+    /**
+     * 有空闲的并发名额和准入名额时按通道权重取出消息开始处理
+     * 接收线程放入消息后、每条消息处理结束后以及同步接口释放准入名额后调用；放弃名额后重新检查通道，
+     * 避免与另一线程同时放入消息时双方都没有取到
+     */
+    private void dispatch() {
+        while (running.get() && !lanes.isEmpty() && concurrencyLimiter.tryAcquire()) {
+            if (!admissionController.tryAcquireQueue()) {
+                // 同步接口释放名额时会再次调用这里
+                concurrencyLimiter.onIgnored();
+                return;
+            }
+            Runnable task = lanes.poll();
+            if (task == null) {
+                concurrencyLimiter.onIgnored();
+                admissionController.release(Source.QUEUE);
+                continue;
+            }
+            executorService.execute(task);
         }
     }
 
     /**
-     * 处理单个SQS消息
+     * 处理单条消息，成功后确认
+     * 检测失败（数据库错误等可重试的失败）立即放回队列；消息格式错误不放回，按可见性超时重新投递，
+     * 由队列的最大接收次数转入死信队列。
+     * 检测耗时和结果反馈给并发限制器；消息格式错误与负载无关，不参与调整
      *
-     * @param message SQS消息
+     * @param message       消息
+     * @param request       接收时解析出的交易请求
+     * @param decodeFailure 解析失败的原因，解析成功时为null
      */
-    private void processMessage(Message message) {
+    private void processMessage(InboundMessage message, TransactionRequest request, Exception decodeFailure) {
+        log.debug("处理消息: {}, 接收次数: {}", message.getMessageId(), message.getReceiveCount());
+        if (decodeFailure != null) {
+            concurrencyLimiter.onIgnored();
+            inFlightRegistry.forget(message);
+            log.error("解析消息时发生错误: {}", message.getMessageId(), decodeFailure);
+            return;
+        }
+
+        long startTime = System.nanoTime();
         try {
-            log.debug("处理SQS消息: {}", message.messageId());
-            
-            // 将消息转换为交易请求对象
-            TransactionRequest request = objectMapper.readValue(
-                    message.body(), TransactionRequest.class);
-            
             log.info("处理交易: {}", request.getTransactionId());
             
             // 执行欺诈检测
             fraudDetectionService.analyzeTransaction(request);
-            
-            // 删除已处理的消息
-            DeleteMessageRequest deleteRequest = DeleteMessageRequest.builder()
-                    .queueUrl(transactionQueueUrl)
-                    .receiptHandle(message.receiptHandle())
-                    .build();
-                    
-            sqsClient.deleteMessage(deleteRequest);
-            log.debug("SQS消息处理完成并已从队列删除: {}", message.messageId());
-            
         } catch (Exception e) {
-            log.error("处理SQS消息时发生错误: {}", message.messageId(), e);
+            concurrencyLimiter.onDropped();
+            log.error("处理消息时发生错误，放回队列等待重试: {}", message.getMessageId(), e);
+            try {
+                inFlightRegistry.release(message);
+            } catch (Exception releaseFailure) {
+                log.warn("放回消息失败，按可见性超时重新投递: {}", message.getMessageId(), releaseFailure);
+            }
+            return;
+        }
+        concurrencyLimiter.onSuccess(System.nanoTime() - startTime);
+
+        try {
+            // 确认（删除）已处理的消息
+            inFlightRegistry.acknowledge(message);
+            log.debug("消息处理完成并已确认: {}", message.getMessageId());
+        } catch (Exception e) {
+            log.error("确认消息时发生错误: {}", message.getMessageId(), e);
         }
     }
 
     /**
-     * 停止消费者
+     * 停止消费者并排空
      */
+    @Override
     public void stop() {
-        isRunning.set(false);
-        executorService.shutdown();
-        log.info("AWS SDK SQS消费者已停止");
+        if (running.compareAndSet(true, false)) {
+            drain();
+        }
+    }
+
+    /**
+     * 等待当前一轮接收结束，把尚未开始处理的消息放回队列，再等待正在处理的消息完成
+     */
+    private void drain() {
+        long deadline = System.nanoTime() + drainTimeout.toNanos();
+        try {
+            boolean locked = pollLock.tryLock(drainTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            if (!locked) {
+                log.warn("等待本轮接收结束超时");
+            }
+            List<Runnable> queued;
+            List<Runnable> unstarted = new ArrayList<>();
+            try {
+                queued = lanes.drainAll();
+                executorService.getQueue().drainTo(unstarted);
+                executorService.shutdown();
+            } finally {
+                if (locked) {
+                    pollLock.unlock();
+                }
+            }
+            List<InboundMessage> returned = new ArrayList<>(queued.size() + unstarted.size());
+            // 通道中的消息还没有占用并发名额
+            for (Runnable task : queued) {
+                returned.add(((MessageTask) task).message);
+            }
+            for (Runnable task : unstarted) {
+                returned.add(((MessageTask) task).message);
+                concurrencyLimiter.onIgnored();
+                admissionController.release(Source.QUEUE);
+            }
+            if (!returned.isEmpty()) {
+                inFlightRegistry.releaseAll(returned);
+                log.info("已将{}条尚未处理的消息放回队列", returned.size());
+            }
+            long remaining = deadline - System.nanoTime();
+            if (!executorService.awaitTermination(Math.max(0, remaining), TimeUnit.NANOSECONDS)) {
+                log.warn("排空超时，仍有{}条消息在处理，将在可见性超时后重新投递", executorService.getActiveCount());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("排空消费者时发生错误", e);
+        }
+        log.info("交易消息消费者已停止");
+    }
+
+    /**
+     * 线程池任务，停机时从队列中取出未开始的任务后可以拿到对应的消息
+     * 接收时解析消息（按消息属性选择JSON或二进制格式），解析出的金额用于选择通道，处理时不再重复解析
+     */
+    private final class MessageTask implements Runnable {
+        private final InboundMessage message;
+        private final TransactionRequest request;
+        private final Exception decodeFailure;
+
+        private MessageTask(InboundMessage message) {
+            this.message = message;
+            TransactionRequest decoded = null;
+            Exception failure = null;
+            try {
+                decoded = codec.decode(message);
+            } catch (Exception e) {
+                failure = e;
+            }
+            this.request = decoded;
+            this.decodeFailure = failure;
+        }
+
+        @Override
+        public void run() {
+            // 每条消息使用自己的消息ID和生产者传来的追踪ID，没有时生成新的追踪ID
+            String traceId = TraceIds.sanitize(message.getAttribute(TraceIds.MESSAGE_ATTRIBUTE));
+            try {
+                MDC.put(TraceIds.MDC_KEY, traceId != null ? traceId : TraceIds.newTraceId());
+                MDC.put("messageId", message.getMessageId());
+                processMessage(message, request, decodeFailure);
+            } finally {
+                admissionController.release(Source.QUEUE);
+                MDC.remove(TraceIds.MDC_KEY);
+                MDC.remove("messageId");
+            }
+            dispatch();
+        }
     }
-} 
\ No newline at end of file
+}
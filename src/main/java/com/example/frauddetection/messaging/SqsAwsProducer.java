@@ -1,79 +1,95 @@
 package com.example.frauddetection.messaging;
 
 import com.example.frauddetection.dto.TransactionRequest;
+import com.example.frauddetection.messaging.codec.TransactionMessageCodec;
+import com.example.frauddetection.messaging.transport.MessageTransport;
+import com.example.frauddetection.messaging.transport.OutboundMessage;
+import com.example.frauddetection.messaging.transport.SqsMessageTransport;
 import com.example.frauddetection.model.Transaction;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.example.frauddetection.trace.TraceIds;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.services.sqs.SqsClient;
-import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
-import software.amazon.awssdk.services.sqs.model.SendMessageResponse;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 
 /**
- * 使用AWS SDK直接与SQS交互的生产者
- * 与JMS模式的SqsTransactionProducer不同，这个实现直接使用AWS SDK
+ * 交易消息生产者
+ * 与JMS模式的SqsTransactionProducer不同，这个实现通过MessageTransport发送（默认是AWS SQS）
  * 支持FIFO队列的特性，包括消息组ID和消息去重ID
+ * 载荷格式（JSON或二进制）由TransactionMessageCodec决定
  */
 @Slf4j
 @Service
 public class SqsAwsProducer {
 
-    private final SqsClient sqsClient;
-    private final ObjectMapper objectMapper;
-    private final String transactionQueueUrl;
-    private final boolean isFifoQueue;
+    private static final String MESSAGE_GROUP_ID = "transaction-group"; // 可以根据交易类型或账户ID进行分组
+
+    private final MessageTransport transport;
+    private final TransactionMessageCodec codec;
+
+    /**
+     * 直接使用SQS客户端，JSON载荷
+     */
+    public SqsAwsProducer(SqsClient sqsClient, ObjectMapper objectMapper, String transactionQueueUrl) {
+        this(new SqsMessageTransport(sqsClient, transactionQueueUrl), objectMapper);
+    }
+
+    /**
+     * JSON载荷
+     */
+    public SqsAwsProducer(MessageTransport transactionTransport, ObjectMapper objectMapper) {
+        this(transactionTransport, TransactionMessageCodec.json(objectMapper));
+    }
 
     @Autowired
-    public SqsAwsProducer(
-            SqsClient sqsClient,
-            ObjectMapper objectMapper,
-            @Value("${fraud-detection.aws.sqs.transaction-queue-url}") String transactionQueueUrl
-            ) {
-        this.sqsClient = sqsClient;
-        this.objectMapper = objectMapper;
-        this.transactionQueueUrl = transactionQueueUrl;
-        // 检查队列URL是否以.fifo结尾
-        this.isFifoQueue = transactionQueueUrl.endsWith(".fifo");
-        log.info("AWS SDK SQS消息生产者已初始化, 队列类型: {}", isFifoQueue ? "FIFO" : "标准");
+    public SqsAwsProducer(MessageTransport transactionTransport, TransactionMessageCodec codec) {
+        this.transport = transactionTransport;
+        this.codec = codec;
+        log.info("交易消息生产者已初始化, 传输: {}", transport.getName());
     }
 
     /**
-     * 发送交易请求到SQS队列
+     * 发送交易请求到队列
      *
      * @param request 交易请求
      * @return 消息ID
-     * @throws JsonProcessingException 如果序列化失败
+     * @throws IOException 如果序列化失败
+     */
+    public String sendTransaction(TransactionRequest request) throws IOException {
+        log.info("发送交易到队列: {}", request.getTransactionId());
+        String messageId = transport.send(Collections.singletonList(toMessage(request))).get(0);
+        log.debug("交易消息已发送, 消息ID: {}", messageId);
+        return messageId;
+    }
+
+    /**
+     * 批量发送交易请求
+     *
+     * @return 消息ID，与入参顺序一致
      */
-    public String sendTransaction(TransactionRequest request) throws JsonProcessingException {
-        log.info("发送交易到SQS队列: {}", request.getTransactionId());
-        String messageBody = objectMapper.writeValueAsString(request);
-        
-        // 构建基本请求
-        SendMessageRequest.Builder requestBuilder = SendMessageRequest.builder()
-                .queueUrl(transactionQueueUrl)
-                .messageBody(messageBody);
-        
-        // 如果是FIFO队列，添加必要的属性
-        if (isFifoQueue) {
-            String messageGroupId = "transaction-group"; // 可以根据交易类型或账户ID进行分组
-            String messageDeduplicationId = request.getTransactionId(); // 使用交易ID作为去重ID
-            
-            requestBuilder
-                .messageGroupId(messageGroupId)
-                .messageDeduplicationId(messageDeduplicationId);
-                
-            log.debug("FIFO队列配置 - 消息组ID: {}, 消息去重ID: {}", messageGroupId, messageDeduplicationId);
+    public List<String> sendTransactions(List<TransactionRequest> requests) throws IOException {
+        List<OutboundMessage> messages = new ArrayList<>(requests.size());
+        for (TransactionRequest request : requests) {
+            messages.add(toMessage(request));
         }
-        
-        SendMessageRequest sendMessageRequest = requestBuilder.build();
-        SendMessageResponse response = sqsClient.sendMessage(sendMessageRequest);
-        log.debug("交易消息已发送, 消息ID: {}", response.messageId());
-        return response.messageId();
+        return transport.send(messages);
+    }
+
+    private OutboundMessage toMessage(TransactionRequest request) throws IOException {
+        // 沿用当前请求的追踪ID，消费者处理该消息时放入MDC；没有时为每条消息生成新的追踪ID
+        String traceId = MDC.get(TraceIds.MDC_KEY);
+        // FIFO队列使用交易ID作为去重ID，其他传输忽略
+        return codec.encode(request)
+                .withAttribute(TraceIds.MESSAGE_ATTRIBUTE, traceId != null ? traceId : TraceIds.newTraceId())
+                .withFifo(MESSAGE_GROUP_ID, request.getTransactionId());
     }
 
     /**
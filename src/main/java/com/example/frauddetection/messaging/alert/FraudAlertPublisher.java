@@ -0,0 +1,335 @@
+package com.example.frauddetection.messaging.alert;
+
+import com.example.frauddetection.dto.FraudAlert;
+import com.example.frauddetection.dto.FraudDetectionResult;
+import com.example.frauddetection.dto.TransactionRequest;
+import com.example.frauddetection.messaging.transport.MessageTransport;
+import com.example.frauddetection.messaging.transport.MessageTransportException;
+import com.example.frauddetection.messaging.transport.OutboundMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 欺诈警报发布（按账户合并、批量发送）
+ *
+ * 决策路径只把欺诈决策放入无锁队列（ConcurrentLinkedQueue）即返回，积压超过maxPending时直接丢弃并计数，
+ * 不会阻塞或拖慢决策。单个发布线程定期取出事件，按账户合并到打开的窗口中：
+ * 账户首笔欺诈交易开启窗口，coalesceWindow内的后续欺诈交易并入同一条警报，窗口到期后整批发送。
+ * 攻击期间同一账户的大量欺诈交易只产生一条警报，避免下游案件系统和队列被淹没。
+ * 发送失败的警报保留到下一轮重试，部分发送成功时只重试未发送的警报，被传输永久拒绝的警报丢弃并计数；
+ * 待发送警报超过maxPending时丢弃最早的。
+ * 合并状态只在发布线程中访问，不需要加锁。
+ */
+@Slf4j
+@Component
+public class FraudAlertPublisher implements MeterBinder {
+
+    private static final String UNKNOWN_ACCOUNT = "unknown";
+
+    private final MessageTransport transport;
+    private final ObjectMapper objectMapper;
+    private final long coalesceWindowNanos;
+    private final long flushIntervalMs;
+    private final int maxPending;
+    private final int maxTransactionsPerAlert;
+
+    private final ConcurrentLinkedQueue<AlertEvent> events = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingEvents = new AtomicInteger();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final ScheduledExecutorService flusher;
+
+    // 以下状态只在发布线程中访问
+    private final Map<String, OpenAlert> openAlerts = new LinkedHashMap<>();
+    private final Deque<FraudAlert> unsent = new ArrayDeque<>();
+
+    @Autowired
+    public FraudAlertPublisher(
+            @Qualifier("alertTransport") ObjectProvider<MessageTransport> alertTransport,
+            ObjectMapper objectMapper,
+            @Value("${fraud-detection.alerts.coalesce-window-ms:5000}") long coalesceWindowMs,
+            @Value("${fraud-detection.alerts.flush-interval-ms:200}") long flushIntervalMs,
+            @Value("${fraud-detection.alerts.max-pending:10000}") int maxPending,
+            @Value("${fraud-detection.alerts.max-transactions-per-alert:100}") int maxTransactionsPerAlert) {
+        this(alertTransport.getIfAvailable(), objectMapper, coalesceWindowMs, flushIntervalMs, maxPending,
+                maxTransactionsPerAlert);
+    }
+
+    /**
+     * @param transport 警报传输，为空时不发布警报
+     */
+    public FraudAlertPublisher(MessageTransport transport, ObjectMapper objectMapper, long coalesceWindowMs,
+                               long flushIntervalMs, int maxPending, int maxTransactionsPerAlert) {
+        this.transport = transport;
+        this.objectMapper = objectMapper;
+        this.coalesceWindowNanos = TimeUnit.MILLISECONDS.toNanos(coalesceWindowMs);
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxPending = maxPending;
+        this.maxTransactionsPerAlert = maxTransactionsPerAlert;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "fraud-alert-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!isEnabled()) {
+            log.info("欺诈警报发布未启用");
+            return;
+        }
+        flusher.scheduleWithFixedDelay(() -> flush(false), flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("欺诈警报发布已启动, 传输: {}, 合并窗口: {}ms", transport.getName(),
+                TimeUnit.NANOSECONDS.toMillis(coalesceWindowNanos));
+    }
+
+    public boolean isEnabled() {
+        return transport != null;
+    }
+
+    /**
+     * 提交一次决策，只处理欺诈决策，不会阻塞调用方
+     */
+    public void publish(TransactionRequest request, FraudDetectionResult result) {
+        if (!isEnabled() || !result.isFraudulent()) {
+            return;
+        }
+        if (pendingEvents.incrementAndGet() > maxPending) {
+            pendingEvents.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+        submitted.increment();
+        events.offer(new AlertEvent(request, result, System.nanoTime(), LocalDateTime.now()));
+    }
+
+    /**
+     * 合并新事件并发送到期的警报
+     *
+     * @param all 为true时不等窗口到期，发送全部打开的警报（停机时使用）
+     */
+    synchronized void flush(boolean all) {
+        try {
+            AlertEvent event;
+            while ((event = events.poll()) != null) {
+                pendingEvents.decrementAndGet();
+                String accountId = event.request.getAccountId() != null ? event.request.getAccountId() : UNKNOWN_ACCOUNT;
+                OpenAlert open = openAlerts.get(accountId);
+                if (open == null) {
+                    open = new OpenAlert(accountId, event);
+                    openAlerts.put(accountId, open);
+                }
+                open.add(event, maxTransactionsPerAlert);
+            }
+
+            long now = System.nanoTime();
+            // 窗口按开启顺序排列，遇到未到期的窗口即可停止
+            Iterator<OpenAlert> iterator = openAlerts.values().iterator();
+            while (iterator.hasNext()) {
+                OpenAlert open = iterator.next();
+                if (!all && now - open.openedAt < coalesceWindowNanos) {
+                    break;
+                }
+                iterator.remove();
+                unsent.addLast(open.toAlert());
+            }
+            while (unsent.size() > maxPending) {
+                unsent.pollFirst();
+                dropped.increment();
+            }
+            send();
+        } catch (Exception e) {
+            log.error("发布欺诈警报时发生错误", e);
+        }
+    }
+
+    private void send() {
+        if (unsent.isEmpty()) {
+            return;
+        }
+        List<FraudAlert> batch = new ArrayList<>(unsent.size());
+        List<OutboundMessage> messages = new ArrayList<>(unsent.size());
+        for (FraudAlert alert : unsent) {
+            try {
+                messages.add(OutboundMessage.of(objectMapper.writeValueAsString(alert))
+                        .withAttribute("accountId", alert.getAccountId())
+                        .withFifo(alert.getAccountId(), alert.getAlertId()));
+                batch.add(alert);
+            } catch (Exception e) {
+                // 无法序列化的警报重试也不会成功
+                dropped.increment();
+                log.error("序列化欺诈警报失败，丢弃: {}", alert.getAlertId(), e);
+            }
+        }
+        unsent.clear();
+        try {
+            transport.send(messages);
+        } catch (MessageTransportException e) {
+            failed.increment();
+            // 只保留未发送且未被永久拒绝的警报，已发送的不再重复发送
+            int sent = 0;
+            int rejected = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                if (e.isSent(i)) {
+                    sent++;
+                } else if (e.isRejected(i)) {
+                    rejected++;
+                } else {
+                    unsent.addLast(batch.get(i));
+                }
+            }
+            published.add(sent);
+            dropped.add(rejected);
+            log.warn("发送欺诈警报失败，已发送{}条，被拒绝丢弃{}条，{}条下一轮重试: {}",
+                    sent, rejected, unsent.size(), e.getMessage());
+            return;
+        } catch (Exception e) {
+            failed.increment();
+            unsent.addAll(batch);
+            log.warn("发送欺诈警报失败，{}条警报下一轮重试: {}", batch.size(), e.getMessage());
+            return;
+        }
+        published.add(batch.size());
+        log.info("已发布{}条欺诈警报", batch.size());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("fraud.alerts.pending", pendingEvents, AtomicInteger::get)
+                .description("等待合并的欺诈决策数")
+                .register(registry);
+        FunctionCounter.builder("fraud.alerts.submitted", submitted, LongAdder::doubleValue)
+                .description("提交的欺诈决策数")
+                .register(registry);
+        FunctionCounter.builder("fraud.alerts.dropped", dropped, LongAdder::doubleValue)
+                .description("积压过多被丢弃的欺诈决策或警报数")
+                .register(registry);
+        FunctionCounter.builder("fraud.alerts.published", published, LongAdder::doubleValue)
+                .description("已发布的合并警报数")
+                .register(registry);
+        FunctionCounter.builder("fraud.alerts.send.failures", failed, LongAdder::doubleValue)
+                .description("批量发送失败次数")
+                .register(registry);
+    }
+
+    /**
+     * 停机时发送全部打开的警报
+     */
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (isEnabled()) {
+            flush(true);
+        }
+    }
+
+    private static final class AlertEvent {
+        private final TransactionRequest request;
+        private final FraudDetectionResult result;
+        private final long receivedAt;
+        private final LocalDateTime decidedAt;
+
+        private AlertEvent(TransactionRequest request, FraudDetectionResult result, long receivedAt,
+                           LocalDateTime decidedAt) {
+            this.request = request;
+            this.result = result;
+            this.receivedAt = receivedAt;
+            this.decidedAt = decidedAt;
+        }
+    }
+
+    /**
+     * 一个账户正在合并中的警报
+     */
+    private static final class OpenAlert {
+        private final String accountId;
+        private final long openedAt;
+        private final LocalDateTime firstSeen;
+        private LocalDateTime lastSeen;
+        private int transactionCount;
+        private final List<String> transactionIds = new ArrayList<>();
+        private final Map<String, BigDecimal> amountByCurrency = new HashMap<>();
+        private final Set<String> reasonCodes = new LinkedHashSet<>();
+        private double maxRuleScore;
+        private Double maxRiskScore;
+
+        private OpenAlert(String accountId, AlertEvent first) {
+            this.accountId = accountId;
+            this.openedAt = first.receivedAt;
+            this.firstSeen = first.decidedAt;
+        }
+
+        private void add(AlertEvent event, int maxTransactions) {
+            transactionCount++;
+            lastSeen = event.decidedAt;
+            if (transactionIds.size() < maxTransactions) {
+                transactionIds.add(event.request.getTransactionId());
+            }
+            if (event.request.getAmount() != null) {
+                String currency = event.request.getCurrency() != null ? event.request.getCurrency() : "";
+                amountByCurrency.merge(currency, event.request.getAmount(), BigDecimal::add);
+            }
+            if (event.result.getReasonCodes() != null) {
+                reasonCodes.addAll(event.result.getReasonCodes());
+            }
+            maxRuleScore = Math.max(maxRuleScore, event.result.getRuleScore());
+            Double riskScore = event.result.getRiskScore();
+            if (riskScore != null && (maxRiskScore == null || riskScore > maxRiskScore)) {
+                maxRiskScore = riskScore;
+            }
+        }
+
+        private FraudAlert toAlert() {
+            return FraudAlert.builder()
+                    .alertId(accountId + ":" + firstSeen)
+                    .accountId(accountId)
+                    .firstSeen(firstSeen)
+                    .lastSeen(lastSeen)
+                    .transactionCount(transactionCount)
+                    .transactionIds(transactionIds)
+                    .amountByCurrency(amountByCurrency)
+                    .reasonCodes(new ArrayList<>(reasonCodes))
+                    .maxRuleScore(maxRuleScore)
+                    .maxRiskScore(maxRiskScore)
+                    .build();
+        }
+    }
+}
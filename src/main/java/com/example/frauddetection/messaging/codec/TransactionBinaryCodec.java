@@ -0,0 +1,209 @@
+package com.example.frauddetection.messaging.codec;
+
+import com.example.frauddetection.dto.TransactionRequest;
+import com.example.frauddetection.persistence.archive.VarInts;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 交易请求的紧凑二进制编码
+ *
+ * 版本1布局：
+ * <pre>
+ * byte   版本号
+ * varint 字段存在位图（第i位为1表示第i个字段非空）
+ * 依次为存在的字段：
+ *   字符串       varint字节数 + UTF-8
+ *   金额         varint小数位数 + zigzag varint最小货币单位数（例如10.50 = 2, 1050）
+ *   币种/国家     1字节字典编号，0表示其后为字符串
+ *   时间         zigzag varint UTC毫秒数（不足毫秒的部分丢弃）
+ * </pre>
+ * 字典属于格式的一部分，只能在新版本中修改。金额的最小单位数超出long范围时无法编码。
+ */
+public final class TransactionBinaryCodec {
+
+    public static final byte VERSION = 1;
+
+    private static final int REQUEST_ID = 0;
+    private static final int TRANSACTION_ID = 1;
+    private static final int ACCOUNT_ID = 2;
+    private static final int AMOUNT = 3;
+    private static final int CURRENCY = 4;
+    private static final int SOURCE_COUNTRY = 5;
+    private static final int DESTINATION_COUNTRY = 6;
+    private static final int TIMESTAMP = 7;
+    private static final int ACCOUNT_CREATION_DATE = 8;
+    private static final int IP_ADDRESS = 9;
+    private static final int DEVICE_ID = 10;
+
+    // 版本1字典：ISO 3166-1 二字母国家代码（字母序）和常用ISO 4217币种
+    private static final String[] COUNTRIES = ("AD,AE,AF,AG,AI,AL,AM,AO,AQ,AR,AS,AT,AU,AW,AX,AZ,BA,BB,BD,BE,BF,BG,BH,BI,"
+            + "BJ,BL,BM,BN,BO,BQ,BR,BS,BT,BV,BW,BY,BZ,CA,CC,CD,CF,CG,CH,CI,CK,CL,CM,CN,CO,CR,CU,CV,CW,CX,CY,CZ,DE,DJ,"
+            + "DK,DM,DO,DZ,EC,EE,EG,EH,ER,ES,ET,FI,FJ,FK,FM,FO,FR,GA,GB,GD,GE,GF,GG,GH,GI,GL,GM,GN,GP,GQ,GR,GS,GT,GU,"
+            + "GW,GY,HK,HM,HN,HR,HT,HU,ID,IE,IL,IM,IN,IO,IQ,IR,IS,IT,JE,JM,JO,JP,KE,KG,KH,KI,KM,KN,KP,KR,KW,KY,KZ,LA,"
+            + "LB,LC,LI,LK,LR,LS,LT,LU,LV,LY,MA,MC,MD,ME,MF,MG,MH,MK,ML,MM,MN,MO,MP,MQ,MR,MS,MT,MU,MV,MW,MX,MY,MZ,NA,"
+            + "NC,NE,NF,NG,NI,NL,NO,NP,NR,NU,NZ,OM,PA,PE,PF,PG,PH,PK,PL,PM,PN,PR,PS,PT,PW,PY,QA,RE,RO,RS,RU,RW,SA,SB,"
+            + "SC,SD,SE,SG,SH,SI,SJ,SK,SL,SM,SN,SO,SR,SS,ST,SV,SX,SY,SZ,TC,TD,TF,TG,TH,TJ,TK,TL,TM,TN,TO,TR,TT,TV,TW,"
+            + "TZ,UA,UG,UM,US,UY,UZ,VA,VC,VE,VG,VI,VN,VU,WF,WS,YE,YT,ZA,ZM,ZW").split(",");
+    private static final String[] CURRENCIES = ("USD,EUR,CNY,JPY,GBP,HKD,AUD,CAD,CHF,SGD,KRW,INR,RUB,BRL,MXN,SEK,NOK,"
+            + "DKK,PLN,TRY,ZAR,NZD,THB,MYR,IDR,PHP,VND,TWD,AED,SAR,ILS,CZK,HUF,RON,NGN,EGP,PKR,BDT,UAH,KZT,ARS,CLP,"
+            + "COP,PEN").split(",");
+    private static final Map<String, Integer> COUNTRY_CODES = index(COUNTRIES);
+    private static final Map<String, Integer> CURRENCY_CODES = index(CURRENCIES);
+
+    private TransactionBinaryCodec() {
+    }
+
+    /**
+     * @throws ArithmeticException 金额超出可编码范围
+     */
+    public static byte[] encode(TransactionRequest request) {
+        int present = 0;
+        present |= bit(REQUEST_ID, request.getRequestId());
+        present |= bit(TRANSACTION_ID, request.getTransactionId());
+        present |= bit(ACCOUNT_ID, request.getAccountId());
+        present |= bit(AMOUNT, request.getAmount());
+        present |= bit(CURRENCY, request.getCurrency());
+        present |= bit(SOURCE_COUNTRY, request.getSourceCountry());
+        present |= bit(DESTINATION_COUNTRY, request.getDestinationCountry());
+        present |= bit(TIMESTAMP, request.getTimestamp());
+        present |= bit(ACCOUNT_CREATION_DATE, request.getAccountCreationDate());
+        present |= bit(IP_ADDRESS, request.getIpAddress());
+        present |= bit(DEVICE_ID, request.getDeviceId());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(96);
+        out.write(VERSION);
+        VarInts.writeUnsigned(out, present);
+        writeString(out, request.getRequestId());
+        writeString(out, request.getTransactionId());
+        writeString(out, request.getAccountId());
+        BigDecimal amount = request.getAmount();
+        if (amount != null) {
+            if (amount.scale() < 0) {
+                amount = amount.setScale(0);
+            }
+            long minorUnits = amount.unscaledValue().longValueExact();
+            VarInts.writeUnsigned(out, amount.scale());
+            VarInts.writeSigned(out, minorUnits);
+        }
+        writeCoded(out, request.getCurrency(), CURRENCY_CODES);
+        writeCoded(out, request.getSourceCountry(), COUNTRY_CODES);
+        writeCoded(out, request.getDestinationCountry(), COUNTRY_CODES);
+        writeTime(out, request.getTimestamp());
+        writeTime(out, request.getAccountCreationDate());
+        writeString(out, request.getIpAddress());
+        writeString(out, request.getDeviceId());
+        return out.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException 版本不支持或数据不完整
+     */
+    public static TransactionRequest decode(byte[] payload) {
+        ByteBuffer in = ByteBuffer.wrap(payload);
+        try {
+            byte version = in.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("不支持的二进制消息版本: " + version);
+            }
+            int present = (int) VarInts.readUnsigned(in);
+            TransactionRequest request = new TransactionRequest();
+            request.setRequestId(readString(in, present, REQUEST_ID));
+            request.setTransactionId(readString(in, present, TRANSACTION_ID));
+            request.setAccountId(readString(in, present, ACCOUNT_ID));
+            if (has(present, AMOUNT)) {
+                int scale = (int) VarInts.readUnsigned(in);
+                request.setAmount(new BigDecimal(BigInteger.valueOf(VarInts.readSigned(in)), scale));
+            }
+            request.setCurrency(readCoded(in, present, CURRENCY, CURRENCIES));
+            request.setSourceCountry(readCoded(in, present, SOURCE_COUNTRY, COUNTRIES));
+            request.setDestinationCountry(readCoded(in, present, DESTINATION_COUNTRY, COUNTRIES));
+            request.setTimestamp(readTime(in, present, TIMESTAMP));
+            request.setAccountCreationDate(readTime(in, present, ACCOUNT_CREATION_DATE));
+            request.setIpAddress(readString(in, present, IP_ADDRESS));
+            request.setDeviceId(readString(in, present, DEVICE_ID));
+            return request;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("二进制消息不完整", e);
+        }
+    }
+
+    private static Map<String, Integer> index(String[] dictionary) {
+        Map<String, Integer> codes = new HashMap<>();
+        for (int i = 0; i < dictionary.length; i++) {
+            codes.put(dictionary[i], i + 1);
+        }
+        return codes;
+    }
+
+    private static int bit(int field, Object value) {
+        return value != null ? 1 << field : 0;
+    }
+
+    private static boolean has(int present, int field) {
+        return (present & (1 << field)) != 0;
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        if (value != null) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            VarInts.writeUnsigned(out, bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+    }
+
+    private static void writeCoded(ByteArrayOutputStream out, String value, Map<String, Integer> codes) {
+        if (value != null) {
+            Integer code = codes.get(value);
+            out.write(code != null ? code : 0);
+            if (code == null) {
+                writeString(out, value);
+            }
+        }
+    }
+
+    private static void writeTime(ByteArrayOutputStream out, LocalDateTime value) {
+        if (value != null) {
+            VarInts.writeSigned(out, value.toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+    }
+
+    private static String readString(ByteBuffer in, int present, int field) {
+        if (!has(present, field)) {
+            return null;
+        }
+        return readString(in);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = (int) VarInts.readUnsigned(in);
+        String value = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static String readCoded(ByteBuffer in, int present, int field, String[] dictionary) {
+        if (!has(present, field)) {
+            return null;
+        }
+        int code = in.get() & 0xFF;
+        return code == 0 ? readString(in) : dictionary[code - 1];
+    }
+
+    private static LocalDateTime readTime(ByteBuffer in, int present, int field) {
+        if (!has(present, field)) {
+            return null;
+        }
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(VarInts.readSigned(in)), ZoneOffset.UTC);
+    }
+}
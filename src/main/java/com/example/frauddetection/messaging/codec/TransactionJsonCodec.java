@@ -0,0 +1,526 @@
+package com.example.frauddetection.messaging.codec;
+
+import com.example.frauddetection.dto.FraudDetectionResult;
+import com.example.frauddetection.dto.TransactionRequest;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 交易请求和检测结果的专用JSON编解码
+ *
+ * 直接使用Jackson流式API（JsonParser/JsonGenerator）逐字段读写，不经过databind的反射、Bean属性查找和中间树，
+ * 输出与ObjectMapper的默认输出一致（字段顺序、空值、ISO-8601时间），输入兼容ObjectMapper可以读取的常见形式：
+ * 未知字段忽略，字符串字段接受标量，金额接受数字或字符串，时间接受ISO字符串（可带Z）或数组。
+ * 时间按固定位置手工解析/格式化，并缓存最近一次的日期部分：同一天的交易只解析一次日期。
+ */
+@Component
+public class TransactionJsonCodec {
+
+    private static final SerializableString REQUEST_ID = new SerializedString("requestId");
+    private static final SerializableString TRANSACTION_ID = new SerializedString("transactionId");
+    private static final SerializableString ACCOUNT_ID = new SerializedString("accountId");
+    private static final SerializableString AMOUNT = new SerializedString("amount");
+    private static final SerializableString CURRENCY = new SerializedString("currency");
+    private static final SerializableString SOURCE_COUNTRY = new SerializedString("sourceCountry");
+    private static final SerializableString DESTINATION_COUNTRY = new SerializedString("destinationCountry");
+    private static final SerializableString TIMESTAMP = new SerializedString("timestamp");
+    private static final SerializableString ACCOUNT_CREATION_DATE = new SerializedString("accountCreationDate");
+    private static final SerializableString IP_ADDRESS = new SerializedString("ipAddress");
+    private static final SerializableString DEVICE_ID = new SerializedString("deviceId");
+
+    private static final SerializableString FRAUDULENT = new SerializedString("fraudulent");
+    private static final SerializableString FRAUD_REASON = new SerializedString("fraudReason");
+    private static final SerializableString RISK_SCORE = new SerializedString("riskScore");
+    private static final SerializableString RULE_SCORE = new SerializedString("ruleScore");
+    private static final SerializableString REASON_CODES = new SerializedString("reasonCodes");
+    private static final SerializableString FALLBACK_RULES = new SerializedString("fallbackRules");
+    private static final SerializableString PROCESSING_TIME_MS = new SerializedString("processingTimeMs");
+
+    private final JsonFactory jsonFactory;
+
+    // 最近一次解析/格式化的日期，整体替换，不需要加锁
+    private volatile ParsedDate lastParsedDate = new ParsedDate("", null);
+    private volatile FormattedDate lastFormattedDate = new FormattedDate(null, "");
+
+    @Autowired
+    public TransactionJsonCodec(ObjectMapper objectMapper) {
+        this(objectMapper.getFactory());
+    }
+
+    public TransactionJsonCodec(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    public TransactionRequest readRequest(String json) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            return readRequest(parser);
+        }
+    }
+
+    public TransactionRequest readRequest(InputStream in) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            return readRequest(parser);
+        }
+    }
+
+    public FraudDetectionResult readResult(String json) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            return readResult(parser);
+        }
+    }
+
+    public FraudDetectionResult readResult(InputStream in) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            return readResult(parser);
+        }
+    }
+
+    public String writeAsString(TransactionRequest request) throws IOException {
+        StringWriter out = new StringWriter(320);
+        try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            writeRequest(request, generator);
+        }
+        return out.toString();
+    }
+
+    public String writeAsString(FraudDetectionResult result) throws IOException {
+        StringWriter out = new StringWriter(192);
+        try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            writeResult(result, generator);
+        }
+        return out.toString();
+    }
+
+    public void write(TransactionRequest request, OutputStream out) throws IOException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
+            writeRequest(request, generator);
+        }
+    }
+
+    public void write(FraudDetectionResult result, OutputStream out) throws IOException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
+            writeResult(result, generator);
+        }
+    }
+
+    /**
+     * @return JSON为null时返回null
+     */
+    TransactionRequest readRequest(JsonParser parser) throws IOException {
+        if (!startObject(parser)) {
+            return null;
+        }
+        TransactionRequest request = new TransactionRequest();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "requestId":
+                    request.setRequestId(readString(parser));
+                    break;
+                case "transactionId":
+                    request.setTransactionId(readString(parser));
+                    break;
+                case "accountId":
+                    request.setAccountId(readString(parser));
+                    break;
+                case "amount":
+                    request.setAmount(readDecimal(parser));
+                    break;
+                case "currency":
+                    request.setCurrency(readString(parser));
+                    break;
+                case "sourceCountry":
+                    request.setSourceCountry(readString(parser));
+                    break;
+                case "destinationCountry":
+                    request.setDestinationCountry(readString(parser));
+                    break;
+                case "timestamp":
+                    request.setTimestamp(readDateTime(parser));
+                    break;
+                case "accountCreationDate":
+                    request.setAccountCreationDate(readDateTime(parser));
+                    break;
+                case "ipAddress":
+                    request.setIpAddress(readString(parser));
+                    break;
+                case "deviceId":
+                    request.setDeviceId(readString(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return request;
+    }
+
+    /**
+     * @return JSON为null时返回null
+     */
+    FraudDetectionResult readResult(JsonParser parser) throws IOException {
+        if (!startObject(parser)) {
+            return null;
+        }
+        FraudDetectionResult result = new FraudDetectionResult();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "transactionId":
+                    result.setTransactionId(readString(parser));
+                    break;
+                case "fraudulent":
+                    result.setFraudulent(token == JsonToken.VALUE_TRUE
+                            || token == JsonToken.VALUE_STRING && "true".equalsIgnoreCase(parser.getText().trim()));
+                    break;
+                case "fraudReason":
+                    result.setFraudReason(readString(parser));
+                    break;
+                case "riskScore":
+                    BigDecimal riskScore = readDecimal(parser);
+                    result.setRiskScore(riskScore != null ? riskScore.doubleValue() : null);
+                    break;
+                case "ruleScore":
+                    BigDecimal ruleScore = readDecimal(parser);
+                    result.setRuleScore(ruleScore != null ? ruleScore.doubleValue() : 0);
+                    break;
+                case "reasonCodes":
+                    result.setReasonCodes(readStringList(parser));
+                    break;
+                case "fallbackRules":
+                    result.setFallbackRules(readStringList(parser));
+                    break;
+                case "processingTimeMs":
+                    BigDecimal processingTime = readDecimal(parser);
+                    result.setProcessingTimeMs(processingTime != null ? processingTime.longValue() : 0);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return result;
+    }
+
+    void writeRequest(TransactionRequest request, JsonGenerator generator) throws IOException {
+        if (request == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartObject();
+        writeString(generator, REQUEST_ID, request.getRequestId());
+        writeString(generator, TRANSACTION_ID, request.getTransactionId());
+        writeString(generator, ACCOUNT_ID, request.getAccountId());
+        generator.writeFieldName(AMOUNT);
+        if (request.getAmount() != null) {
+            generator.writeNumber(request.getAmount());
+        } else {
+            generator.writeNull();
+        }
+        writeString(generator, CURRENCY, request.getCurrency());
+        writeString(generator, SOURCE_COUNTRY, request.getSourceCountry());
+        writeString(generator, DESTINATION_COUNTRY, request.getDestinationCountry());
+        writeString(generator, TIMESTAMP, formatDateTime(request.getTimestamp()));
+        writeString(generator, ACCOUNT_CREATION_DATE, formatDateTime(request.getAccountCreationDate()));
+        writeString(generator, IP_ADDRESS, request.getIpAddress());
+        writeString(generator, DEVICE_ID, request.getDeviceId());
+        generator.writeEndObject();
+    }
+
+    void writeResult(FraudDetectionResult result, JsonGenerator generator) throws IOException {
+        if (result == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartObject();
+        writeString(generator, TRANSACTION_ID, result.getTransactionId());
+        generator.writeFieldName(FRAUDULENT);
+        generator.writeBoolean(result.isFraudulent());
+        writeString(generator, FRAUD_REASON, result.getFraudReason());
+        generator.writeFieldName(RISK_SCORE);
+        if (result.getRiskScore() != null) {
+            generator.writeNumber(result.getRiskScore());
+        } else {
+            generator.writeNull();
+        }
+        generator.writeFieldName(RULE_SCORE);
+        generator.writeNumber(result.getRuleScore());
+        writeStringList(generator, REASON_CODES, result.getReasonCodes());
+        writeStringList(generator, FALLBACK_RULES, result.getFallbackRules());
+        generator.writeFieldName(PROCESSING_TIME_MS);
+        generator.writeNumber(result.getProcessingTimeMs());
+        generator.writeEndObject();
+    }
+
+    private static boolean startObject(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken() != null ? parser.currentToken() : parser.nextToken();
+        if (token == null || token == JsonToken.VALUE_NULL) {
+            return false;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "期望JSON对象，实际为: " + token);
+        }
+        return true;
+    }
+
+    private static String readString(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!token.isScalarValue()) {
+            throw new JsonParseException(parser, "期望字符串，实际为: " + token);
+        }
+        return parser.getText();
+    }
+
+    private static BigDecimal readDecimal(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            return parser.getDecimalValue();
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            String text = parser.getText().trim();
+            if (text.isEmpty()) {
+                return null;
+            }
+            try {
+                return new BigDecimal(text);
+            } catch (NumberFormatException e) {
+                throw new JsonParseException(parser, "无效的数字: " + text, e);
+            }
+        }
+        throw new JsonParseException(parser, "期望数字，实际为: " + token);
+    }
+
+    private static List<String> readStringList(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.START_ARRAY) {
+            // 与databind的ACCEPT_SINGLE_VALUE_AS_ARRAY关闭时一致
+            throw new JsonParseException(parser, "期望数组，实际为: " + token);
+        }
+        List<String> values = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            values.add(readString(parser));
+        }
+        return values;
+    }
+
+    private static void writeString(JsonGenerator generator, SerializableString field, String value)
+            throws IOException {
+        generator.writeFieldName(field);
+        if (value != null) {
+            generator.writeString(value);
+        } else {
+            generator.writeNull();
+        }
+    }
+
+    private static void writeStringList(JsonGenerator generator, SerializableString field, List<String> values)
+            throws IOException {
+        generator.writeFieldName(field);
+        if (values != null) {
+            generator.writeStartArray();
+            for (String value : values) {
+                generator.writeString(value);
+            }
+            generator.writeEndArray();
+        } else {
+            generator.writeNull();
+        }
+    }
+
+    private LocalDateTime readDateTime(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        try {
+            if (token == JsonToken.VALUE_STRING) {
+                String text = parser.getText().trim();
+                return text.isEmpty() ? null : parseDateTime(text);
+            }
+            if (token == JsonToken.START_ARRAY) {
+                // [年, 月, 日, 时, 分(, 秒(, 纳秒))]
+                int[] parts = new int[7];
+                int count = 0;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (count == parts.length) {
+                        throw new JsonParseException(parser, "时间数组元素过多");
+                    }
+                    parts[count++] = parser.getValueAsInt();
+                }
+                if (count < 5) {
+                    throw new JsonParseException(parser, "时间数组元素不足");
+                }
+                return LocalDateTime.of(parts[0], parts[1], parts[2], parts[3], parts[4], parts[5], parts[6]);
+            }
+        } catch (DateTimeException e) {
+            throw new JsonParseException(parser, "无效的时间: " + e.getMessage(), e);
+        }
+        throw new JsonParseException(parser, "期望时间字符串，实际为: " + token);
+    }
+
+    /**
+     * 解析ISO-8601本地时间（yyyy-MM-ddTHH:mm[:ss[.SSSSSSSSS]]，结尾的Z忽略）
+     */
+    LocalDateTime parseDateTime(String text) {
+        int length = text.length();
+        if (text.charAt(length - 1) == 'Z') {
+            length--;
+        }
+        if (length < 16 || text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(10) != 'T'
+                || text.charAt(13) != ':') {
+            return LocalDateTime.parse(text.substring(0, length), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        }
+        LocalDate date = parseDate(text);
+        int hour = digits(text, 11, 13);
+        int minute = digits(text, 14, 16);
+        int second = 0;
+        int nano = 0;
+        if (length > 16) {
+            if (length < 19 || text.charAt(16) != ':') {
+                return LocalDateTime.parse(text.substring(0, length), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            }
+            second = digits(text, 17, 19);
+            if (length > 19) {
+                if (text.charAt(19) != '.' || length == 20 || length > 29) {
+                    return LocalDateTime.parse(text.substring(0, length), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+                }
+                nano = digits(text, 20, length);
+                for (int i = length; i < 29; i++) {
+                    nano *= 10;
+                }
+            }
+        }
+        if (hour < 0 || minute < 0 || second < 0 || nano < 0) {
+            return LocalDateTime.parse(text.substring(0, length), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        }
+        return LocalDateTime.of(date, LocalTime.of(hour, minute, second, nano));
+    }
+
+    private LocalDate parseDate(String text) {
+        ParsedDate cached = lastParsedDate;
+        if (text.regionMatches(0, cached.text, 0, 10)) {
+            return cached.date;
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 7);
+        int day = digits(text, 8, 10);
+        if (year < 0 || month < 0 || day < 0) {
+            throw new DateTimeException("无效的日期: " + text);
+        }
+        LocalDate date = LocalDate.of(year, month, day);
+        lastParsedDate = new ParsedDate(text.substring(0, 10), date);
+        return date;
+    }
+
+    /**
+     * 按ISO_LOCAL_DATE_TIME格式化（秒总是输出，纳秒去掉末尾的0）
+     */
+    String formatDateTime(LocalDateTime value) {
+        if (value == null) {
+            return null;
+        }
+        if (value.getYear() < 0 || value.getYear() > 9999) {
+            return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(value);
+        }
+        LocalDate date = value.toLocalDate();
+        FormattedDate cached = lastFormattedDate;
+        if (!date.equals(cached.date)) {
+            StringBuilder text = new StringBuilder(10);
+            pad(text, date.getYear(), 4).append('-');
+            pad(text, date.getMonthValue(), 2).append('-');
+            pad(text, date.getDayOfMonth(), 2);
+            cached = new FormattedDate(date, text.toString());
+            lastFormattedDate = cached;
+        }
+        StringBuilder text = new StringBuilder(29).append(cached.text).append('T');
+        pad(text, value.getHour(), 2).append(':');
+        pad(text, value.getMinute(), 2).append(':');
+        pad(text, value.getSecond(), 2);
+        int nano = value.getNano();
+        if (nano > 0) {
+            int digits = 9;
+            while (nano % 10 == 0) {
+                nano /= 10;
+                digits--;
+            }
+            text.append('.');
+            pad(text, nano, digits);
+        }
+        return text.toString();
+    }
+
+    /**
+     * @return 十进制数值，包含非数字字符时返回-1
+     */
+    private static int digits(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static StringBuilder pad(StringBuilder text, int value, int width) {
+        for (int limit = 10, i = 1; i < width; i++, limit *= 10) {
+            if (value < limit) {
+                text.append('0');
+            }
+        }
+        return text.append(value);
+    }
+
+    private static final class ParsedDate {
+        private final String text;
+        private final LocalDate date;
+
+        private ParsedDate(String text, LocalDate date) {
+            this.text = text;
+            this.date = date;
+        }
+    }
+
+    private static final class FormattedDate {
+        private final LocalDate date;
+        private final String text;
+
+        private FormattedDate(LocalDate date, String text) {
+            this.date = date;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.frauddetection.messaging.codec;
+
+import com.example.frauddetection.dto.TransactionRequest;
+import com.example.frauddetection.messaging.transport.InboundMessage;
+import com.example.frauddetection.messaging.transport.OutboundMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Base64;
+
+/**
+ * 交易消息的载荷编码
+ *
+ * 消息属性payloadFormat标明载荷格式：binary为base64包装的{@link TransactionBinaryCodec}编码（版本号在载荷首字节），
+ * 没有该属性或为json时按JSON解析（{@link TransactionJsonCodec}）。消费端始终同时支持两种格式，因此可以先升级消费者、再切换生产者的格式；
+ * 无法用二进制编码的请求（金额超出范围）自动回退为JSON。
+ */
+@Slf4j
+@Component
+public class TransactionMessageCodec {
+
+    public static final String FORMAT_ATTRIBUTE = "payloadFormat";
+    public static final String FORMAT_JSON = "json";
+    public static final String FORMAT_BINARY = "binary";
+
+    private final TransactionJsonCodec jsonCodec;
+    private final boolean binary;
+
+    @Autowired
+    public TransactionMessageCodec(
+            TransactionJsonCodec jsonCodec,
+            @Value("${fraud-detection.aws.sqs.producer.payload-format:json}") String payloadFormat) {
+        if (!FORMAT_JSON.equals(payloadFormat) && !FORMAT_BINARY.equals(payloadFormat)) {
+            throw new IllegalArgumentException("不支持的消息载荷格式: " + payloadFormat);
+        }
+        this.jsonCodec = jsonCodec;
+        this.binary = FORMAT_BINARY.equals(payloadFormat);
+    }
+
+    /**
+     * 只使用JSON编码
+     */
+    public static TransactionMessageCodec json(ObjectMapper objectMapper) {
+        return new TransactionMessageCodec(new TransactionJsonCodec(objectMapper), FORMAT_JSON);
+    }
+
+    public OutboundMessage encode(TransactionRequest request) throws IOException {
+        if (binary) {
+            try {
+                String body = Base64.getEncoder().encodeToString(TransactionBinaryCodec.encode(request));
+                return OutboundMessage.of(body).withAttribute(FORMAT_ATTRIBUTE, FORMAT_BINARY);
+            } catch (ArithmeticException e) {
+                log.debug("交易 {} 无法使用二进制编码，改用JSON: {}", request.getTransactionId(), e.getMessage());
+            }
+        }
+        return OutboundMessage.of(jsonCodec.writeAsString(request));
+    }
+
+    /**
+     * @throws IOException 载荷无法解析
+     */
+    public TransactionRequest decode(InboundMessage message) throws IOException {
+        String format = message.getAttribute(FORMAT_ATTRIBUTE);
+        if (format == null || FORMAT_JSON.equals(format)) {
+            return jsonCodec.readRequest(message.getBody());
+        }
+        if (FORMAT_BINARY.equals(format)) {
+            try {
+                return TransactionBinaryCodec.decode(Base64.getDecoder().decode(message.getBody()));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("二进制消息无法解析: " + e.getMessage(), e);
+            }
+        }
+        throw new IOException("不支持的消息载荷格式: " + format);
+    }
+}
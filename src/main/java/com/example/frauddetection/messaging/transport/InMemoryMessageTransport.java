@@ -0,0 +1,208 @@
+package com.example.frauddetection.messaging.transport;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 进程内消息队列，用于离线运行和压测整个消费链路
+ *
+ * 就绪消息保存在有界的数组环形缓冲区中；接收后的消息进入在途表并带有可见性截止时间，
+ * 确认时从在途表删除，超时未确认的消息重新放回就绪队列，接收次数加1。
+ * 在途消息按接收顺序排队检查超时，已确认的条目在到达队头时直接丢弃，整体开销为均摊O(1)。
+ * 延长可见性时用新的截止时间替换在途条目并追加到检查队列末尾，旧条目到达队头时同样被丢弃；
+ * 检查队列不按截止时间排序，设置得比默认值更短的可见性超时可能推迟到前面的条目到期后才生效。
+ * 队列满时发送方最多等待sendTimeout，仍然满则抛出MessageTransportException。
+ */
+@Slf4j
+public class InMemoryMessageTransport implements MessageTransport {
+
+    private static final long MAX_WAIT_SLICE_MS = 50;
+
+    private final ArrayBlockingQueue<StoredMessage> ready;
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<InFlight> expiryOrder = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock sweepLock = new ReentrantLock();
+    private final AtomicLong sequence = new AtomicLong();
+    private final long visibilityTimeoutNanos;
+    private final long sendTimeoutMs;
+
+    public InMemoryMessageTransport(int capacity, Duration visibilityTimeout, Duration sendTimeout) {
+        this.ready = new ArrayBlockingQueue<>(capacity);
+        this.visibilityTimeoutNanos = visibilityTimeout.toNanos();
+        this.sendTimeoutMs = sendTimeout.toMillis();
+    }
+
+    @Override
+    public String getName() {
+        return "in-memory";
+    }
+
+    @Override
+    public List<InboundMessage> receive(int maxMessages, Duration wait) {
+        List<InboundMessage> result = new ArrayList<>(maxMessages);
+        long deadline = System.nanoTime() + wait.toNanos();
+        try {
+            StoredMessage first = null;
+            while (first == null) {
+                requeueExpired();
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                first = ready.poll(Math.max(0, Math.min(remainingMs, MAX_WAIT_SLICE_MS)), TimeUnit.MILLISECONDS);
+                if (first == null && remainingMs <= 0) {
+                    return result;
+                }
+            }
+            List<StoredMessage> batch = new ArrayList<>(maxMessages);
+            batch.add(first);
+            ready.drainTo(batch, maxMessages - 1);
+            long visibleAt = System.nanoTime() + visibilityTimeoutNanos;
+            for (StoredMessage message : batch) {
+                int receiveCount = ++message.receiveCount;
+                String receiptHandle = message.messageId + "#" + receiveCount;
+                InFlight entry = new InFlight(message, receiptHandle, visibleAt);
+                inFlight.put(receiptHandle, entry);
+                expiryOrder.add(entry);
+                result.add(new InboundMessage(message.messageId, receiptHandle, message.body,
+                        message.attributes, receiveCount));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return result;
+    }
+
+    @Override
+    public void acknowledge(List<InboundMessage> messages) {
+        for (InboundMessage message : messages) {
+            if (inFlight.remove(message.getReceiptHandle()) == null) {
+                log.debug("确认消息时凭证已失效（已超时重新投递或已确认）: {}", message.getMessageId());
+            }
+        }
+    }
+
+    @Override
+    public void changeVisibility(List<InboundMessage> messages, Duration visibilityTimeout) {
+        long visibleAt = System.nanoTime() + visibilityTimeout.toNanos();
+        for (InboundMessage message : messages) {
+            InFlight current = inFlight.get(message.getReceiptHandle());
+            if (current == null) {
+                continue;
+            }
+            if (visibilityTimeout.isZero()) {
+                if (inFlight.remove(current.receiptHandle, current) && !ready.offer(current.message)) {
+                    // 就绪队列已满，按正常可见性超时重新投递
+                    InFlight retry = new InFlight(current.message, current.receiptHandle,
+                            System.nanoTime() + visibilityTimeoutNanos);
+                    inFlight.put(retry.receiptHandle, retry);
+                    expiryOrder.add(retry);
+                }
+                continue;
+            }
+            InFlight extended = new InFlight(current.message, current.receiptHandle, visibleAt);
+            if (inFlight.replace(current.receiptHandle, current, extended)) {
+                expiryOrder.add(extended);
+            }
+        }
+    }
+
+    @Override
+    public List<String> send(List<OutboundMessage> messages) {
+        List<String> messageIds = new ArrayList<>(messages.size());
+        try {
+            for (OutboundMessage message : messages) {
+                String messageId = "mem-" + sequence.incrementAndGet();
+                if (!ready.offer(new StoredMessage(messageId, message.getBody(), message.getAttributes()),
+                        sendTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    throw new MessageTransportException("进程内队列已满, 已发送 " + messageIds.size() + "/" + messages.size(),
+                            messageIds, Collections.emptySet());
+                }
+                messageIds.add(messageId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessageTransportException("发送被中断", e);
+        }
+        return messageIds;
+    }
+
+    /**
+     * @return 就绪（可接收）的消息数
+     */
+    public int getReadyCount() {
+        return ready.size();
+    }
+
+    /**
+     * @return 已接收未确认的消息数
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * 把超过可见性截止时间仍未确认的消息放回就绪队列
+     */
+    void requeueExpired() {
+        if (!sweepLock.tryLock()) {
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            InFlight head;
+            while ((head = expiryOrder.peek()) != null) {
+                boolean current = inFlight.get(head.receiptHandle) == head;
+                if (current && head.visibleAt - now > 0) {
+                    break;
+                }
+                expiryOrder.poll();
+                if (current && inFlight.remove(head.receiptHandle, head)) {
+                    if (!ready.offer(head.message)) {
+                        // 就绪队列已满，延后一个可见性周期再检查
+                        InFlight retry = new InFlight(head.message, head.receiptHandle, now + visibilityTimeoutNanos);
+                        inFlight.put(retry.receiptHandle, retry);
+                        expiryOrder.add(retry);
+                        break;
+                    }
+                }
+            }
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    private static final class StoredMessage {
+        private final String messageId;
+        private final String body;
+        private final Map<String, String> attributes;
+        // 只在持有消息的单个线程中修改：消息要么在就绪队列中，要么在途
+        private int receiveCount;
+
+        private StoredMessage(String messageId, String body, Map<String, String> attributes) {
+            this.messageId = messageId;
+            this.body = body;
+            this.attributes = attributes;
+        }
+    }
+
+    private static final class InFlight {
+        private final StoredMessage message;
+        private final String receiptHandle;
+        private final long visibleAt;
+
+        private InFlight(StoredMessage message, String receiptHandle, long visibleAt) {
+            this.message = message;
+            this.receiptHandle = receiptHandle;
+            this.visibleAt = visibleAt;
+        }
+    }
+}
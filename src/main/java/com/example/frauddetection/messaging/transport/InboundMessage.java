@@ -0,0 +1,56 @@
+package com.example.frauddetection.messaging.transport;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 收到的消息
+ * receiptHandle是本次接收的凭证，确认消息时使用；同一消息重新投递后凭证会变化
+ */
+public final class InboundMessage {
+
+    private final String messageId;
+    private final String receiptHandle;
+    private final String body;
+    private final Map<String, String> attributes;
+    private final int receiveCount;
+
+    public InboundMessage(String messageId, String receiptHandle, String body,
+                          Map<String, String> attributes, int receiveCount) {
+        this.messageId = messageId;
+        this.receiptHandle = receiptHandle;
+        this.body = body;
+        this.attributes = attributes != null ? attributes : Collections.<String, String>emptyMap();
+        this.receiveCount = receiveCount;
+    }
+
+    public String getMessageId() {
+        return messageId;
+    }
+
+    public String getReceiptHandle() {
+        return receiptHandle;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    /**
+     * @return 消息属性（只包含字符串类型的属性）
+     */
+    public Map<String, String> getAttributes() {
+        return attributes;
+    }
+
+    public String getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    /**
+     * @return 消息被接收的次数，首次接收为1
+     */
+    public int getReceiveCount() {
+        return receiveCount;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.frauddetection.messaging.transport;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 消息传输抽象
+ *
+ * 语义与SQS一致：收到的消息在可见性超时内对其他消费者不可见，处理完成后确认（删除），
+ * 超时未确认的消息重新投递。消费和发送逻辑只依赖这个接口，可以在SQS和进程内队列之间切换。
+ */
+public interface MessageTransport {
+
+    /**
+     * @return 传输名称，用于日志
+     */
+    String getName();
+
+    /**
+     * 接收一批消息，没有消息时最多等待wait
+     *
+     * @param maxMessages 最多接收的消息数
+     * @param wait        长轮询等待时间
+     */
+    List<InboundMessage> receive(int maxMessages, Duration wait);
+
+    /**
+     * 确认一批已处理完成的消息，之后不会再投递
+     */
+    void acknowledge(List<InboundMessage> messages);
+
+    /**
+     * 把一批在途消息的可见性超时重新设置为从现在起visibilityTimeout
+     * 凭证已失效（已确认或已超时重新投递）的消息忽略
+     */
+    void changeVisibility(List<InboundMessage> messages, Duration visibilityTimeout);
+
+    /**
+     * 放弃处理一批在途消息，使其立即可以被重新接收
+     */
+    default void release(List<InboundMessage> messages) {
+        changeVisibility(messages, Duration.ZERO);
+    }
+
+    /**
+     * 发送一批消息
+     *
+     * @return 每条消息的消息ID，与入参顺序一致
+     * @throws MessageTransportException 部分或全部消息发送失败，异常中带有哪些消息已发送、哪些被永久拒绝
+     */
+    List<String> send(List<OutboundMessage> messages);
+}
@@ -0,0 +1,51 @@
+package com.example.frauddetection.messaging.transport;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 消息传输失败
+ *
+ * 批量发送部分失败时携带每条消息的结果：已发送的消息ID（与入参顺序一致，未发送的为null）
+ * 和被永久拒绝（重试也不会成功）的消息下标，调用方据此只重试未发送的消息。
+ */
+public class MessageTransportException extends RuntimeException {
+
+    private final List<String> messageIds;
+    private final Set<Integer> rejected;
+
+    public MessageTransportException(String message) {
+        this(message, (Throwable) null);
+    }
+
+    public MessageTransportException(String message, Throwable cause) {
+        super(message, cause);
+        this.messageIds = Collections.emptyList();
+        this.rejected = Collections.emptySet();
+    }
+
+    /**
+     * @param messageIds 已发送的消息ID，与入参顺序一致，未发送的为null，可以短于入参
+     * @param rejected   被永久拒绝的消息下标
+     */
+    public MessageTransportException(String message, List<String> messageIds, Set<Integer> rejected) {
+        super(message);
+        this.messageIds = messageIds;
+        this.rejected = rejected;
+    }
+
+    /**
+     * @return 第index条消息是否已发送成功
+     */
+    public boolean isSent(int index) {
+        return index < messageIds.size() && messageIds.get(index) != null;
+    }
+
+    /**
+     * @return 第index条消息是否被永久拒绝（例如消息过大、属性不合法），不应重试
+     */
+    public boolean isRejected(int index) {
+        return rejected.contains(index);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.frauddetection.messaging.transport;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 待发送的消息
+ * groupId和deduplicationId只对FIFO队列有意义，其他传输忽略
+ */
+public final class OutboundMessage {
+
+    private final String body;
+    private final Map<String, String> attributes;
+    private final String groupId;
+    private final String deduplicationId;
+
+    private OutboundMessage(String body, Map<String, String> attributes, String groupId, String deduplicationId) {
+        this.body = body;
+        this.attributes = attributes;
+        this.groupId = groupId;
+        this.deduplicationId = deduplicationId;
+    }
+
+    public static OutboundMessage of(String body) {
+        return new OutboundMessage(body, Collections.<String, String>emptyMap(), null, null);
+    }
+
+    public OutboundMessage withAttribute(String name, String value) {
+        Map<String, String> copy = new LinkedHashMap<>(attributes);
+        copy.put(name, value);
+        return new OutboundMessage(body, Collections.unmodifiableMap(copy), groupId, deduplicationId);
+    }
+
+    public OutboundMessage withFifo(String groupId, String deduplicationId) {
+        return new OutboundMessage(body, attributes, groupId, deduplicationId);
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public Map<String, String> getAttributes() {
+        return attributes;
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public String getDeduplicationId() {
+        return deduplicationId;
+    }
+}
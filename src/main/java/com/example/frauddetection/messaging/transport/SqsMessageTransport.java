@@ -0,0 +1,191 @@
+package com.example.frauddetection.messaging.transport;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 基于AWS SDK v2的SQS传输
+ * 批量接口按SQS限制每10条一个请求；队列URL以.fifo结尾时发送消息组ID和去重ID
+ * 批量发送部分失败时，在异常中报告已发送的消息和因请求内容被拒绝（senderFault）的消息
+ */
+@Slf4j
+public class SqsMessageTransport implements MessageTransport {
+
+    static final int MAX_BATCH_SIZE = 10;
+    private static final int MAX_WAIT_SECONDS = 20;
+    private static final int MAX_VISIBILITY_SECONDS = 12 * 60 * 60;
+
+    private final SqsClient sqsClient;
+    private final String queueUrl;
+    private final boolean fifoQueue;
+
+    public SqsMessageTransport(SqsClient sqsClient, String queueUrl) {
+        this.sqsClient = sqsClient;
+        this.queueUrl = queueUrl;
+        this.fifoQueue = queueUrl.endsWith(".fifo");
+    }
+
+    @Override
+    public String getName() {
+        return "sqs(" + (fifoQueue ? "FIFO" : "标准") + ")";
+    }
+
+    @Override
+    public List<InboundMessage> receive(int maxMessages, Duration wait) {
+        ReceiveMessageResponse response = sqsClient.receiveMessage(ReceiveMessageRequest.builder()
+                .queueUrl(queueUrl)
+                .maxNumberOfMessages(Math.max(1, Math.min(MAX_BATCH_SIZE, maxMessages)))
+                .waitTimeSeconds((int) Math.min(MAX_WAIT_SECONDS, wait.getSeconds()))
+                .attributeNamesWithStrings(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT.toString(),
+                        MessageSystemAttributeName.MESSAGE_GROUP_ID.toString(),
+                        MessageSystemAttributeName.SEQUENCE_NUMBER.toString())
+                .messageAttributeNames("All")
+                .build());
+        List<InboundMessage> messages = new ArrayList<>(response.messages().size());
+        for (Message message : response.messages()) {
+            Map<String, String> attributes = new HashMap<>();
+            for (Map.Entry<String, MessageAttributeValue> entry : message.messageAttributes().entrySet()) {
+                if (entry.getValue().stringValue() != null) {
+                    attributes.put(entry.getKey(), entry.getValue().stringValue());
+                }
+            }
+            String receiveCount = message.attributes().get(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT);
+            messages.add(new InboundMessage(message.messageId(), message.receiptHandle(), message.body(),
+                    attributes, receiveCount != null ? Integer.parseInt(receiveCount) : 1));
+        }
+        return messages;
+    }
+
+    @Override
+    public void acknowledge(List<InboundMessage> messages) {
+        for (int from = 0; from < messages.size(); from += MAX_BATCH_SIZE) {
+            List<InboundMessage> chunk = messages.subList(from, Math.min(messages.size(), from + MAX_BATCH_SIZE));
+            List<DeleteMessageBatchRequestEntry> entries = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                entries.add(DeleteMessageBatchRequestEntry.builder()
+                        .id(Integer.toString(i))
+                        .receiptHandle(chunk.get(i).getReceiptHandle())
+                        .build());
+            }
+            DeleteMessageBatchResponse response = sqsClient.deleteMessageBatch(DeleteMessageBatchRequest.builder()
+                    .queueUrl(queueUrl)
+                    .entries(entries)
+                    .build());
+            for (BatchResultErrorEntry failed : response.failed()) {
+                // 删除失败的消息会在可见性超时后重新投递
+                log.warn("删除SQS消息失败: {}, 错误: {} {}", chunk.get(Integer.parseInt(failed.id())).getMessageId(),
+                        failed.code(), failed.message());
+            }
+        }
+    }
+
+    @Override
+    public void changeVisibility(List<InboundMessage> messages, Duration visibilityTimeout) {
+        int seconds = (int) Math.min(MAX_VISIBILITY_SECONDS, visibilityTimeout.getSeconds());
+        for (int from = 0; from < messages.size(); from += MAX_BATCH_SIZE) {
+            List<InboundMessage> chunk = messages.subList(from, Math.min(messages.size(), from + MAX_BATCH_SIZE));
+            List<ChangeMessageVisibilityBatchRequestEntry> entries = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                entries.add(ChangeMessageVisibilityBatchRequestEntry.builder()
+                        .id(Integer.toString(i))
+                        .receiptHandle(chunk.get(i).getReceiptHandle())
+                        .visibilityTimeout(seconds)
+                        .build());
+            }
+            ChangeMessageVisibilityBatchResponse response = sqsClient.changeMessageVisibilityBatch(
+                    ChangeMessageVisibilityBatchRequest.builder()
+                            .queueUrl(queueUrl)
+                            .entries(entries)
+                            .build());
+            for (BatchResultErrorEntry failed : response.failed()) {
+                // 消息已被删除或凭证过期时同样会失败，不影响处理
+                log.debug("修改SQS消息可见性失败: {}, 错误: {} {}", chunk.get(Integer.parseInt(failed.id())).getMessageId(),
+                        failed.code(), failed.message());
+            }
+        }
+    }
+
+    @Override
+    public List<String> send(List<OutboundMessage> messages) {
+        List<String> messageIds = new ArrayList<>(messages.size());
+        List<String> failures = new ArrayList<>();
+        Set<Integer> rejected = new HashSet<>();
+        for (int from = 0; from < messages.size(); from += MAX_BATCH_SIZE) {
+            List<OutboundMessage> chunk = messages.subList(from, Math.min(messages.size(), from + MAX_BATCH_SIZE));
+            List<SendMessageBatchRequestEntry> entries = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                entries.add(toEntry(Integer.toString(i), chunk.get(i)));
+            }
+            SendMessageBatchResponse response;
+            try {
+                response = sqsClient.sendMessageBatch(SendMessageBatchRequest.builder()
+                        .queueUrl(queueUrl)
+                        .entries(entries)
+                        .build());
+            } catch (RuntimeException e) {
+                if (from == 0) {
+                    throw e;
+                }
+                // 之前的请求已经发送成功，其余消息视为未发送
+                failures.add(e.getMessage());
+                break;
+            }
+            String[] ids = new String[chunk.size()];
+            for (SendMessageBatchResultEntry entry : response.successful()) {
+                ids[Integer.parseInt(entry.id())] = entry.messageId();
+            }
+            for (BatchResultErrorEntry failed : response.failed()) {
+                failures.add(failed.code() + ": " + failed.message());
+                if (Boolean.TRUE.equals(failed.senderFault())) {
+                    rejected.add(from + Integer.parseInt(failed.id()));
+                }
+            }
+            for (String id : ids) {
+                messageIds.add(id);
+            }
+        }
+        if (!failures.isEmpty()) {
+            throw new MessageTransportException("发送SQS消息失败 " + (messages.size() - countSent(messageIds)) + "/"
+                    + messages.size() + ": " + failures, messageIds, rejected);
+        }
+        return messageIds;
+    }
+
+    private static int countSent(List<String> messageIds) {
+        int sent = 0;
+        for (String id : messageIds) {
+            if (id != null) {
+                sent++;
+            }
+        }
+        return sent;
+    }
+
+    private SendMessageBatchRequestEntry toEntry(String id, OutboundMessage message) {
+        Map<String, MessageAttributeValue> attributes = new HashMap<>();
+        for (Map.Entry<String, String> attribute : message.getAttributes().entrySet()) {
+            attributes.put(attribute.getKey(), MessageAttributeValue.builder()
+                    .dataType("String")
+                    .stringValue(attribute.getValue())
+                    .build());
+        }
+        SendMessageBatchRequestEntry.Builder builder = SendMessageBatchRequestEntry.builder()
+                .id(id)
+                .messageBody(message.getBody())
+                .messageAttributes(attributes);
+        if (fifoQueue) {
+            builder.messageGroupId(message.getGroupId())
+                    .messageDeduplicationId(message.getDeduplicationId());
+        }
+        return builder.build();
+    }
+}
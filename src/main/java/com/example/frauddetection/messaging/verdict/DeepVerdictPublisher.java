@@ -0,0 +1,115 @@
+package com.example.frauddetection.messaging.verdict;
+
+import com.example.frauddetection.dto.DeepAnalysisVerdict;
+import com.example.frauddetection.messaging.transport.MessageTransport;
+import com.example.frauddetection.messaging.transport.OutboundMessage;
+import com.example.frauddetection.trace.TraceIds;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.Collections;
+
+/**
+ * 深度分析决策的发布
+ *
+ * 按交易ID发布第二级决策，可以同时配置：
+ * callback-url：以JSON POST到回调地址，请求头X-Transaction-Id为交易ID；
+ * verdictTransport：发送到结果队列，消息属性transactionId为交易ID，FIFO队列按交易ID分组。
+ * 两者都未配置时不发布。发布在深度分析线程中同步执行，失败只记录日志，不重试。
+ */
+@Slf4j
+@Component
+public class DeepVerdictPublisher {
+
+    public static final String TRANSACTION_ID_HEADER = "X-Transaction-Id";
+
+    private final MessageTransport transport;
+    private final ObjectMapper objectMapper;
+    private final String callbackUrl;
+    private final RestTemplate restTemplate;
+
+    @Autowired
+    public DeepVerdictPublisher(
+            @Qualifier("verdictTransport") ObjectProvider<MessageTransport> verdictTransport,
+            ObjectMapper objectMapper,
+            @Value("${fraud-detection.tiered.callback-url:}") String callbackUrl,
+            @Value("${fraud-detection.tiered.callback-timeout-ms:2000}") long callbackTimeoutMs) {
+        this(verdictTransport.getIfAvailable(), objectMapper, callbackUrl, Duration.ofMillis(callbackTimeoutMs));
+    }
+
+    /**
+     * @param transport   结果队列，为空时不发送到队列
+     * @param callbackUrl 回调地址，为空时不回调
+     */
+    public DeepVerdictPublisher(MessageTransport transport, ObjectMapper objectMapper, String callbackUrl,
+                                Duration callbackTimeout) {
+        this.transport = transport;
+        this.objectMapper = objectMapper;
+        this.callbackUrl = callbackUrl != null && !callbackUrl.trim().isEmpty() ? callbackUrl.trim() : null;
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout((int) callbackTimeout.toMillis());
+        requestFactory.setReadTimeout((int) callbackTimeout.toMillis());
+        this.restTemplate = new RestTemplate(requestFactory);
+    }
+
+    public boolean isEnabled() {
+        return transport != null || callbackUrl != null;
+    }
+
+    /**
+     * @return 全部配置的目标都发布成功时返回true
+     */
+    public boolean publish(DeepAnalysisVerdict verdict) {
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(verdict);
+        } catch (Exception e) {
+            log.error("序列化深度分析决策失败: {}", verdict.getTransactionId(), e);
+            return false;
+        }
+        boolean published = true;
+        if (callbackUrl != null) {
+            try {
+                HttpHeaders headers = new HttpHeaders();
+                headers.setContentType(MediaType.APPLICATION_JSON);
+                headers.set(TRANSACTION_ID_HEADER, verdict.getTransactionId());
+                String traceId = MDC.get(TraceIds.MDC_KEY);
+                if (traceId != null) {
+                    headers.set(TraceIds.TRACE_ID_HEADER, traceId);
+                }
+                restTemplate.postForEntity(callbackUrl, new HttpEntity<>(body, headers), Void.class);
+            } catch (Exception e) {
+                published = false;
+                log.warn("回调深度分析决策失败: {}, {}", verdict.getTransactionId(), e.getMessage());
+            }
+        }
+        if (transport != null) {
+            try {
+                OutboundMessage message = OutboundMessage.of(body)
+                        .withAttribute("transactionId", verdict.getTransactionId());
+                String traceId = MDC.get(TraceIds.MDC_KEY);
+                if (traceId != null) {
+                    message = message.withAttribute(TraceIds.MESSAGE_ATTRIBUTE, traceId);
+                }
+                transport.send(Collections.singletonList(
+                        message.withFifo(verdict.getTransactionId(), verdict.getTransactionId() + ":deep")));
+            } catch (Exception e) {
+                published = false;
+                log.warn("发送深度分析决策失败: {}, {}", verdict.getTransactionId(), e.getMessage());
+            }
+        }
+        return published;
+    }
+}
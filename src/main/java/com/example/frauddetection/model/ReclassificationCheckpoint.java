@@ -0,0 +1,39 @@
+package com.example.frauddetection.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Version;
+import java.time.LocalDateTime;
+
+/**
+ * 重分类任务检查点
+ * 每处理完一批交易与回写的更新在同一事务中保存，实例重启后从lastProcessedId之后继续
+ * 乐观锁版本号防止多个实例同时推进同一个检查点
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+public class ReclassificationCheckpoint {
+
+    @Id
+    private String jobName;
+
+    private Long lastProcessedId;
+    private long scanned;
+    private long updated;
+    // RUNNING / STOPPED / COMPLETED / FAILED
+    private String status;
+    private String error;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+
+    @Version
+    private Long version;
+}
@@ -0,0 +1,151 @@
+package com.example.frauddetection.persistence;
+
+/**
+ * 基于滑动窗口的熔断器
+ *
+ * 最近windowSize次调用中失败率或慢调用率达到阈值即打开；打开openDuration之后进入半开状态，
+ * 只放行一次试探调用，成功则关闭并清空窗口，失败或仍然很慢则重新打开。
+ * 试探调用在openDuration内没有结果时允许新的试探，避免丢失结果后永久卡在半开状态。
+ * 调用方式：先{@link #allowRequest()}，再根据结果调用{@link #onSuccess(long)}或{@link #onFailure()}。
+ */
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final byte OK = 0;
+    private static final byte SLOW = 1;
+    private static final byte FAILED = 2;
+
+    private final byte[] outcomes;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openDurationNanos;
+
+    private volatile State state = State.CLOSED;
+    private int index;
+    private int count;
+    private int failures;
+    private int slowCalls;
+    private long openedAt;
+    private long trialStartedAt;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+                          double slowCallRateThreshold, long slowCallMs, long openDurationMs) {
+        this.outcomes = new byte[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = slowCallMs * 1_000_000L;
+        this.openDurationNanos = openDurationMs * 1_000_000L;
+    }
+
+    public synchronized boolean allowRequest() {
+        long now = System.nanoTime();
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (now - openedAt < openDurationNanos) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                return startTrial(now);
+            default:
+                if (trialInFlight && now - trialStartedAt < openDurationNanos) {
+                    return false;
+                }
+                return startTrial(now);
+        }
+    }
+
+    /**
+     * @param durationNanos 调用耗时，超过慢调用阈值的成功调用计为慢调用
+     */
+    public synchronized void onSuccess(long durationNanos) {
+        boolean slow = durationNanos >= slowCallNanos;
+        if (state == State.HALF_OPEN) {
+            if (slow) {
+                open();
+            } else {
+                close();
+            }
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(slow ? SLOW : OK);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(FAILED);
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public synchronized double getFailureRate() {
+        return count == 0 ? 0.0 : (double) failures / count;
+    }
+
+    public synchronized double getSlowCallRate() {
+        return count == 0 ? 0.0 : (double) slowCalls / count;
+    }
+
+    private boolean startTrial(long now) {
+        trialInFlight = true;
+        trialStartedAt = now;
+        return true;
+    }
+
+    private void record(byte outcome) {
+        if (count == outcomes.length) {
+            byte evicted = outcomes[index];
+            if (evicted == FAILED) {
+                failures--;
+            } else if (evicted == SLOW) {
+                slowCalls--;
+            }
+        } else {
+            count++;
+        }
+        outcomes[index] = outcome;
+        index = (index + 1) % outcomes.length;
+        if (outcome == FAILED) {
+            failures++;
+        } else if (outcome == SLOW) {
+            slowCalls++;
+        }
+        if (count >= minimumCalls
+                && ((double) failures / count >= failureRateThreshold
+                || (double) slowCalls / count >= slowCallRateThreshold)) {
+            open();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        trialInFlight = false;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        trialInFlight = false;
+        index = 0;
+        count = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+}
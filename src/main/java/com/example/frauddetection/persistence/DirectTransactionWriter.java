@@ -0,0 +1,27 @@
+package com.example.frauddetection.persistence;
+
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 同步写数据库（默认模式）
+ */
+@Component
+@ConditionalOnProperty(name = "fraud-detection.persistence.mode", havingValue = "direct", matchIfMissing = true)
+public class DirectTransactionWriter implements TransactionWriter {
+
+    private final TransactionRepository transactionRepository;
+
+    @Autowired
+    public DirectTransactionWriter(TransactionRepository transactionRepository) {
+        this.transactionRepository = transactionRepository;
+    }
+
+    @Override
+    public void write(Transaction transaction) {
+        transactionRepository.save(transaction);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.frauddetection.persistence;
+
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.persistence.partition.PartitionedTransactionStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 同步写入按时间分区的交易表
+ */
+@Component
+@ConditionalOnProperty(name = "fraud-detection.persistence.mode", havingValue = "partitioned")
+public class PartitionedTransactionWriter implements TransactionWriter {
+
+    private final PartitionedTransactionStore store;
+
+    @Autowired
+    public PartitionedTransactionWriter(PartitionedTransactionStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public void write(Transaction transaction) {
+        store.insert(transaction);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.frauddetection.persistence;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * 持久化健康状态
+ * 熔断打开或暂存未回写完时报告DEGRADED而不是DOWN：决策仍可正常处理，实例不应被摘除
+ */
+@Component("persistence")
+public class PersistenceHealthIndicator implements HealthIndicator {
+
+    public static final Status DEGRADED = new Status("DEGRADED", "数据库不可用或回写中，决策记录暂存在本地");
+
+    private final ObjectProvider<ResilientTransactionWriter> resilientWriter;
+
+    @Autowired
+    public PersistenceHealthIndicator(ObjectProvider<ResilientTransactionWriter> resilientWriter) {
+        this.resilientWriter = resilientWriter;
+    }
+
+    @Override
+    public Health health() {
+        ResilientTransactionWriter writer = resilientWriter.getIfAvailable();
+        if (writer == null) {
+            return Health.up().build();
+        }
+        CircuitBreaker breaker = writer.getCircuitBreaker();
+        boolean degraded = breaker.getState() != CircuitBreaker.State.CLOSED || writer.hasSpoolBacklog();
+        return Health.status(degraded ? DEGRADED : Status.UP)
+                .withDetail("circuitState", breaker.getState())
+                .withDetail("failureRate", breaker.getFailureRate())
+                .withDetail("slowCallRate", breaker.getSlowCallRate())
+                .withDetail("spoolBacklog", writer.hasSpoolBacklog())
+                .withDetail("quarantined", writer.getQuarantinedCount())
+                .build();
+    }
+}
@@ -0,0 +1,294 @@
+package com.example.frauddetection.persistence;
+
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.persistence.log.LogCursorFile;
+import com.example.frauddetection.persistence.log.LogPosition;
+import com.example.frauddetection.persistence.log.SegmentLog;
+import com.example.frauddetection.persistence.log.TransactionRecordCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 带熔断和本地暂存的数据库写入
+ *
+ * 同步写数据库的调用经过熔断器：失败率或慢调用率过高时熔断器打开，之后的决策记录直接写入本地暂存日志，
+ * 不再占用请求线程等待数据库。后台线程在熔断器允许时（关闭或半开试探）按批把暂存记录写回数据库。
+ * 单条写入失败的记录同样进入暂存，决策本身不受数据库故障影响。
+ * 暂存记录回写时按交易ID跳过已存在的记录，超时但实际已提交的写入不会重复。
+ * 因数据错误无法写入的暂存记录移入暂存目录下的quarantine隔离日志，不阻塞其余记录的回写。
+ */
+@Slf4j
+@Primary
+@Component
+@ConditionalOnProperty(name = "fraud-detection.persistence.mode", havingValue = "direct", matchIfMissing = true)
+public class ResilientTransactionWriter implements TransactionWriter {
+
+    private static final String CURSOR_FILE = "drained.position";
+    private static final String QUARANTINE_DIRECTORY = "quarantine";
+
+    private final DirectTransactionWriter delegate;
+    private final TransactionBatchInserter batchInserter;
+    private final CircuitBreaker circuitBreaker;
+    private final boolean enabled;
+    private final Path spoolDirectory;
+    private final int spoolSegmentSize;
+    private final long drainIntervalMs;
+    private final int drainBatchSize;
+    private final ScheduledExecutorService drainer;
+    private final LongAdder quarantined = new LongAdder();
+
+    private volatile SegmentLog spool;
+    private volatile LogPosition drained;
+    private volatile SegmentLog quarantine;
+    private LogCursorFile cursorFile;
+
+    @Autowired
+    public ResilientTransactionWriter(
+            DirectTransactionWriter delegate,
+            TransactionBatchInserter batchInserter,
+            @Value("${fraud-detection.persistence.circuit-breaker.enabled:true}") boolean enabled,
+            @Value("${fraud-detection.persistence.circuit-breaker.window-size:50}") int windowSize,
+            @Value("${fraud-detection.persistence.circuit-breaker.minimum-calls:20}") int minimumCalls,
+            @Value("${fraud-detection.persistence.circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+            @Value("${fraud-detection.persistence.circuit-breaker.slow-call-threshold-ms:1000}") long slowCallMs,
+            @Value("${fraud-detection.persistence.circuit-breaker.slow-call-rate-threshold:0.8}") double slowCallRateThreshold,
+            @Value("${fraud-detection.persistence.circuit-breaker.open-duration-ms:10000}") long openDurationMs,
+            @Value("${fraud-detection.persistence.spool.directory:data/spool}") String spoolDirectory,
+            @Value("${fraud-detection.persistence.spool.segment-size-mb:16}") int spoolSegmentSizeMb,
+            @Value("${fraud-detection.persistence.spool.drain-interval-ms:1000}") long drainIntervalMs,
+            @Value("${fraud-detection.persistence.spool.drain-batch-size:500}") int drainBatchSize) {
+        this.delegate = delegate;
+        this.batchInserter = batchInserter;
+        this.enabled = enabled;
+        this.circuitBreaker = new CircuitBreaker(windowSize, minimumCalls, failureRateThreshold,
+                slowCallRateThreshold, slowCallMs, openDurationMs);
+        this.spoolDirectory = Paths.get(spoolDirectory);
+        this.spoolSegmentSize = spoolSegmentSizeMb * 1024 * 1024;
+        this.drainIntervalMs = drainIntervalMs;
+        this.drainBatchSize = drainBatchSize;
+        this.drainer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "persistence-spool-drainer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 上次运行留下暂存记录时立即打开暂存日志，由后台线程回写
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("持久化熔断已禁用，决策记录同步写入数据库");
+            return;
+        }
+        if (Files.isDirectory(spoolDirectory)) {
+            openSpool();
+        }
+        drainer.scheduleWithFixedDelay(this::drainSpool, drainIntervalMs, drainIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void write(Transaction transaction) {
+        if (!enabled) {
+            delegate.write(transaction);
+            return;
+        }
+        if (!circuitBreaker.allowRequest()) {
+            spool(transaction);
+            return;
+        }
+        long startTime = System.nanoTime();
+        try {
+            delegate.write(transaction);
+            circuitBreaker.onSuccess(System.nanoTime() - startTime);
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure();
+            log.warn("写入数据库失败，交易 {} 转入本地暂存: {}", transaction.getTransactionId(), e.getMessage());
+            try {
+                spool(transaction);
+            } catch (RuntimeException spoolFailure) {
+                e.addSuppressed(spoolFailure);
+                throw e;
+            }
+        }
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * @return 暂存日志中是否还有未回写的记录
+     */
+    public boolean hasSpoolBacklog() {
+        SegmentLog current = spool;
+        return current != null && drained.compareTo(current.tail()) < 0;
+    }
+
+    private void spool(Transaction transaction) {
+        SegmentLog current = spool;
+        if (current == null) {
+            current = openSpool();
+        }
+        current.append(TransactionRecordCodec.encode(transaction));
+    }
+
+    private synchronized SegmentLog openSpool() {
+        if (spool == null) {
+            SegmentLog opened = SegmentLog.open(spoolDirectory, spoolSegmentSize, false);
+            cursorFile = new LogCursorFile(spoolDirectory.resolve(CURSOR_FILE));
+            drained = cursorFile.read(opened);
+            spool = opened;
+            if (hasSpoolBacklog()) {
+                log.info("本地暂存中有待回写的记录，回写位置: {}, 写入位置: {}", drained, opened.tail());
+            }
+        }
+        return spool;
+    }
+
+    /**
+     * 按批回写暂存记录，每批都经过熔断器，数据库仍不可用时停止本轮回写
+     * 整批因数据错误（约束冲突、字段超长等，重试也不会成功）失败时逐条写入，写不进去的记录移入隔离日志，
+     * 回写位置照常推进：个别坏记录不会阻塞之后的回写，也不会被当作数据库故障让熔断器保持打开
+     */
+    void drainSpool() {
+        try {
+            while (hasSpoolBacklog() && circuitBreaker.allowRequest()) {
+                SegmentLog.ReadResult batch = spool.read(drained, drainBatchSize);
+                if (batch.getRecords().isEmpty() && batch.getNext().equals(drained)) {
+                    break;
+                }
+                List<Transaction> transactions = new ArrayList<>(batch.getRecords().size());
+                List<byte[]> records = new ArrayList<>(batch.getRecords().size());
+                for (byte[] record : batch.getRecords()) {
+                    try {
+                        transactions.add(TransactionRecordCodec.decode(record));
+                        records.add(record);
+                    } catch (RuntimeException e) {
+                        quarantine(record, "无法解析: " + e.getMessage());
+                    }
+                }
+                try {
+                    batchInserter.insertMissing(transactions);
+                    // 批量写入耗时与单条写入不可比，不计入慢调用
+                    circuitBreaker.onSuccess(0L);
+                } catch (NonTransientDataAccessException e) {
+                    log.warn("暂存记录整批回写出现数据错误，改为逐条写入: {}", e.getMessage());
+                    if (!insertOneByOne(transactions, records)) {
+                        return;
+                    }
+                } catch (RuntimeException e) {
+                    circuitBreaker.onFailure();
+                    log.warn("暂存记录回写失败，稍后重试: {}", e.getMessage());
+                    return;
+                }
+                drained = batch.getNext();
+                cursorFile.write(drained);
+                spool.deleteSegmentsBefore(drained.getSegment());
+                log.info("已回写 {} 条暂存记录, 回写位置: {}", transactions.size(), drained);
+            }
+        } catch (Exception e) {
+            log.error("回写暂存记录时发生错误", e);
+        }
+    }
+
+    /**
+     * 逐条写入一批记录，数据错误的记录移入隔离日志
+     * 已写入的记录在重试时按交易ID跳过，因此中途遇到数据库故障时整批可以原样重试
+     *
+     * @return 整批都已处理（写入或隔离）时返回true，遇到数据库故障时返回false
+     */
+    private boolean insertOneByOne(List<Transaction> transactions, List<byte[]> records) {
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            try {
+                batchInserter.insertMissing(Collections.singletonList(transaction));
+            } catch (NonTransientDataAccessException e) {
+                quarantine(records.get(i), e.getMessage());
+            } catch (RuntimeException e) {
+                circuitBreaker.onFailure();
+                log.warn("暂存记录逐条回写失败，稍后重试: {}", e.getMessage());
+                return false;
+            }
+        }
+        // 数据库正常响应，数据错误不计为失败
+        circuitBreaker.onSuccess(0L);
+        return true;
+    }
+
+    /**
+     * 把无法写入的原始记录追加到隔离日志，保留原始字节便于排查后手工重放
+     */
+    private void quarantine(byte[] record, String reason) {
+        SegmentLog current = quarantine;
+        if (current == null) {
+            current = openQuarantine();
+        }
+        current.append(record);
+        quarantined.increment();
+        String transactionId;
+        try {
+            transactionId = TransactionRecordCodec.decode(record).getTransactionId();
+        } catch (RuntimeException e) {
+            transactionId = "未知";
+        }
+        log.error("暂存记录无法写入数据库，已移入隔离日志 {}, 交易: {}, 原因: {}",
+                spoolDirectory.resolve(QUARANTINE_DIRECTORY), transactionId, reason);
+    }
+
+    private synchronized SegmentLog openQuarantine() {
+        if (quarantine == null) {
+            quarantine = SegmentLog.open(spoolDirectory.resolve(QUARANTINE_DIRECTORY), spoolSegmentSize, false);
+        }
+        return quarantine;
+    }
+
+    /**
+     * @return 本次运行移入隔离日志的记录数
+     */
+    public long getQuarantinedCount() {
+        return quarantined.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        drainer.shutdown();
+        try {
+            if (!drainer.awaitTermination(5, TimeUnit.SECONDS)) {
+                drainer.shutdownNow();
+            }
+            // 关闭前尽量回写剩余的暂存记录，失败的部分在下次启动时继续
+            if (enabled) {
+                drainSpool();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        SegmentLog current = spool;
+        if (current != null) {
+            current.close();
+        }
+        if (quarantine != null) {
+            quarantine.close();
+        }
+    }
+}
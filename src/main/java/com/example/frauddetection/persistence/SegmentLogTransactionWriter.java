@@ -0,0 +1,161 @@
+package com.example.frauddetection.persistence;
+
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.persistence.log.LogCursorFile;
+import com.example.frauddetection.persistence.log.LogPosition;
+import com.example.frauddetection.persistence.log.SegmentLog;
+import com.example.frauddetection.persistence.log.TransactionRecordCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 先写本地段日志、后台批量投递到数据库的持久化方式
+ *
+ * 决策路径只做一次内存映射文件的顺序写入即返回；投递线程按批读取日志，批量插入数据库后
+ * 把已投递位置原子地写入游标文件，并删除已完全投递的段。数据库不可用时日志持续累积，恢复后继续投递。
+ * 启动时从游标位置继续投递上次未投递的记录。游标在数据库提交之后写入，
+ * 两者之间崩溃会导致最后一批重复，因此启动后的第一批只插入数据库中不存在的记录。
+ * 投递出错时（例如数据库已提交但确认丢失、游标写入失败）同样无法确定上一批是否已入库，
+ * 出错后的下一批也只插入不存在的记录。
+ * 注意：记录在投递完成前不能通过查询接口查到。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "fraud-detection.persistence.mode", havingValue = "segment-log")
+public class SegmentLogTransactionWriter implements TransactionWriter {
+
+    private static final String CURSOR_FILE = "shipped.position";
+
+    private final TransactionBatchInserter batchInserter;
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean forceOnWrite;
+    private final long shipIntervalMs;
+    private final int shipBatchSize;
+    private final ScheduledExecutorService shipper;
+
+    private SegmentLog segmentLog;
+    private LogCursorFile cursorFile;
+    private volatile LogPosition shipped;
+    // 启动后和投递出错后为true，下一批只插入数据库中不存在的记录
+    private boolean insertMissingNext = true;
+
+    @Autowired
+    public SegmentLogTransactionWriter(
+            TransactionBatchInserter batchInserter,
+            @Value("${fraud-detection.persistence.segment-log.directory:data/segment-log}") String directory,
+            @Value("${fraud-detection.persistence.segment-log.segment-size-mb:64}") int segmentSizeMb,
+            @Value("${fraud-detection.persistence.segment-log.force-on-write:false}") boolean forceOnWrite,
+            @Value("${fraud-detection.persistence.segment-log.ship-interval-ms:200}") long shipIntervalMs,
+            @Value("${fraud-detection.persistence.segment-log.ship-batch-size:500}") int shipBatchSize) {
+        this.batchInserter = batchInserter;
+        this.directory = Paths.get(directory);
+        this.segmentSize = segmentSizeMb * 1024 * 1024;
+        this.forceOnWrite = forceOnWrite;
+        this.shipIntervalMs = shipIntervalMs;
+        this.shipBatchSize = shipBatchSize;
+        this.shipper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "segment-log-shipper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        segmentLog = SegmentLog.open(directory, segmentSize, forceOnWrite);
+        cursorFile = new LogCursorFile(directory.resolve(CURSOR_FILE));
+        shipped = cursorFile.read(segmentLog);
+        if (shipped.compareTo(segmentLog.tail()) < 0) {
+            log.info("段日志存在未投递记录，从 {} 继续投递到 {}", shipped, segmentLog.tail());
+        }
+        shipper.scheduleWithFixedDelay(this::shipPending, shipIntervalMs, shipIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void write(Transaction transaction) {
+        segmentLog.append(TransactionRecordCodec.encode(transaction));
+    }
+
+    /**
+     * @return 已写入日志但尚未投递的位置区间是否为空
+     */
+    public boolean isFullyShipped() {
+        return shipped.compareTo(segmentLog.tail()) >= 0;
+    }
+
+    private void shipPending() {
+        try {
+            while (shipBatch() >= shipBatchSize) {
+                // 积压时连续投递，直到追上写入位置
+            }
+        } catch (Exception e) {
+            log.warn("段日志投递失败，稍后重试: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 投递一批记录
+     *
+     * @return 本批读取的记录数
+     */
+    int shipBatch() {
+        SegmentLog.ReadResult batch = segmentLog.read(shipped, shipBatchSize);
+        List<Transaction> transactions = new ArrayList<>(batch.getRecords().size());
+        for (byte[] record : batch.getRecords()) {
+            transactions.add(TransactionRecordCodec.decode(record));
+        }
+        try {
+            if (!transactions.isEmpty()) {
+                if (insertMissingNext) {
+                    batchInserter.insertMissing(transactions);
+                } else {
+                    batchInserter.insertAll(transactions);
+                }
+            }
+
+            if (!batch.getNext().equals(shipped)) {
+                cursorFile.write(batch.getNext());
+                shipped = batch.getNext();
+                int deleted = segmentLog.deleteSegmentsBefore(shipped.getSegment());
+                if (deleted > 0) {
+                    log.debug("已删除 {} 个已投递的段文件", deleted);
+                }
+            }
+        } catch (RuntimeException e) {
+            insertMissingNext = true;
+            throw e;
+        }
+        insertMissingNext = false;
+        return batch.getRecords().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shipper.shutdown();
+        try {
+            if (!shipper.awaitTermination(5, TimeUnit.SECONDS)) {
+                shipper.shutdownNow();
+            }
+            // 关闭前尽量投递剩余记录，失败的部分在下次启动时继续
+            shipPending();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            segmentLog.close();
+        }
+    }
+}
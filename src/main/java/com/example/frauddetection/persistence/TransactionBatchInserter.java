@@ -0,0 +1,100 @@
+package com.example.frauddetection.persistence;
+
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 交易记录批量写入
+ * 使用JDBC批量插入并在单个事务中提交，一批要么全部写入要么全部不写入
+ */
+@Slf4j
+@Component
+public class TransactionBatchInserter {
+
+    static final String INSERT_SQL = "INSERT INTO transaction (transaction_id, account_id, amount, currency, "
+            + "source_country, destination_country, timestamp, account_creation_date, ip_address, device_id, "
+            + "fraudulent, fraud_reason) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionRepository transactionRepository;
+
+    @Autowired
+    public TransactionBatchInserter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                    TransactionRepository transactionRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionRepository = transactionRepository;
+    }
+
+    /**
+     * 只插入数据库中还不存在的交易（按交易ID判断）
+     * 用于重放可能已经部分写入的本地记录，例如提交成功但游标未更新、或超时后实际已提交的写入
+     */
+    public void insertMissing(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        Set<String> ids = new HashSet<>();
+        for (Transaction transaction : transactions) {
+            ids.add(transaction.getTransactionId());
+        }
+        Set<String> existing = new HashSet<>();
+        for (Transaction transaction : transactionRepository.findByTransactionIdIn(ids)) {
+            existing.add(transaction.getTransactionId());
+        }
+        if (existing.isEmpty()) {
+            insertAll(transactions);
+            return;
+        }
+        log.info("跳过 {} 条数据库中已存在的记录", existing.size());
+        List<Transaction> missing = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            if (!existing.contains(transaction.getTransactionId())) {
+                missing.add(transaction);
+            }
+        }
+        insertAll(missing);
+    }
+
+    public void insertAll(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            rows.add(new Object[]{
+                    transaction.getTransactionId(),
+                    transaction.getAccountId(),
+                    transaction.getAmount(),
+                    transaction.getCurrency(),
+                    transaction.getSourceCountry(),
+                    transaction.getDestinationCountry(),
+                    toTimestamp(transaction.getTimestamp()),
+                    toTimestamp(transaction.getAccountCreationDate()),
+                    transaction.getIpAddress(),
+                    transaction.getDeviceId(),
+                    transaction.isFraudulent(),
+                    transaction.getFraudReason()
+            });
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, rows));
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime value) {
+        return value != null ? Timestamp.valueOf(value) : null;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.frauddetection.persistence;
+
+import com.example.frauddetection.model.Transaction;
+
+/**
+ * 交易决策记录的持久化出口
+ * 决策路径只依赖该接口，具体是同步写数据库还是先写本地日志由配置决定
+ */
+public interface TransactionWriter {
+
+    /**
+     * 持久化一条交易决策，返回时记录已经持久（数据库或本地日志）
+     *
+     * @param transaction 交易及其检测结果
+     */
+    void write(Transaction transaction);
+}
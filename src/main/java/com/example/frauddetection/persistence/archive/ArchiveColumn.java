@@ -0,0 +1,42 @@
+package com.example.frauddetection.persistence.archive;
+
+/**
+ * 归档文件中的列及其编码方式
+ */
+public enum ArchiveColumn {
+
+    ID(Encoding.DELTA_LONG),
+    TRANSACTION_ID(Encoding.STRING),
+    ACCOUNT_ID(Encoding.STRING),
+    AMOUNT(Encoding.DELTA_DECIMAL),
+    CURRENCY(Encoding.DICTIONARY),
+    SOURCE_COUNTRY(Encoding.DICTIONARY),
+    DESTINATION_COUNTRY(Encoding.DICTIONARY),
+    TIMESTAMP(Encoding.DELTA_TIMESTAMP),
+    ACCOUNT_CREATION_DATE(Encoding.DELTA_TIMESTAMP),
+    IP_ADDRESS(Encoding.STRING),
+    DEVICE_ID(Encoding.STRING),
+    FRAUDULENT(Encoding.BOOLEAN),
+    FRAUD_REASON(Encoding.DICTIONARY);
+
+    /**
+     * 列编码
+     * DELTA_*: 与上一个非空值的差值，zigzag变长整数；金额按列统一的小数位数转为整数，时间为UTC毫秒
+     * DICTIONARY: 列内字典 + 每行字典下标
+     * STRING: 每行长度前缀的UTF-8字节
+     * BOOLEAN: 位图
+     */
+    public enum Encoding {
+        DELTA_LONG, DELTA_DECIMAL, DELTA_TIMESTAMP, DICTIONARY, STRING, BOOLEAN
+    }
+
+    private final Encoding encoding;
+
+    ArchiveColumn(Encoding encoding) {
+        this.encoding = encoding;
+    }
+
+    public Encoding getEncoding() {
+        return encoding;
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.frauddetection.persistence.archive;
+
+import com.example.frauddetection.model.Transaction;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 列式归档文件读取
+ *
+ * 打开时只读取列目录；按列读取时定位到对应数据块并解压，其他列不会被读取。
+ * 差值编码的列需要从首行开始累加，因此解码整列后再截取[from, to)区间。
+ * 整数列中的空值以{@link #NULL_LONG}表示。实例不是线程安全的。
+ */
+public final class ColumnarArchiveReader implements Closeable {
+
+    public static final long NULL_LONG = Long.MIN_VALUE;
+
+    private final FileChannel channel;
+    private final int rowCount;
+    private final Map<ArchiveColumn, ColumnEntry> directory = new EnumMap<>(ArchiveColumn.class);
+
+    private ColumnarArchiveReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        if (in.readInt() != ColumnarArchiveWriter.MAGIC) {
+            throw new IOException("不是交易归档文件");
+        }
+        byte version = in.readByte();
+        if (version != ColumnarArchiveWriter.VERSION) {
+            throw new IOException("不支持的归档文件版本: " + version);
+        }
+        this.rowCount = in.readInt();
+        int columnCount = in.readShort();
+        for (int c = 0; c < columnCount; c++) {
+            String name = in.readUTF();
+            ColumnEntry entry = new ColumnEntry(in.readInt(), in.readLong(), in.readInt(), in.readInt());
+            try {
+                directory.put(ArchiveColumn.valueOf(name), entry);
+            } catch (IllegalArgumentException e) {
+                // 新版本写入的未知列，忽略
+            }
+        }
+    }
+
+    public static ColumnarArchiveReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new ColumnarArchiveReader(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 读取整数列（主键、时间毫秒数、金额的整数表示）
+     */
+    public long[] readLongs(ArchiveColumn column, int from, int to) throws IOException {
+        checkRange(from, to);
+        ByteBuffer block = readBlock(column, ArchiveColumn.Encoding.DELTA_LONG,
+                ArchiveColumn.Encoding.DELTA_TIMESTAMP, ArchiveColumn.Encoding.DELTA_DECIMAL);
+        boolean[] nulls = readBitmap(block);
+        long[] result = new long[to - from];
+        long value = 0;
+        for (int i = 0; i < to; i++) {
+            if (nulls[i]) {
+                if (i >= from) {
+                    result[i - from] = NULL_LONG;
+                }
+                continue;
+            }
+            value += VarInts.readSigned(block);
+            if (i >= from) {
+                result[i - from] = value;
+            }
+        }
+        return result;
+    }
+
+    public BigDecimal[] readDecimals(ArchiveColumn column, int from, int to) throws IOException {
+        int scale = entry(column).scale;
+        long[] unscaled = readLongs(column, from, to);
+        BigDecimal[] result = new BigDecimal[unscaled.length];
+        for (int i = 0; i < unscaled.length; i++) {
+            result[i] = unscaled[i] != NULL_LONG ? new BigDecimal(BigInteger.valueOf(unscaled[i]), scale) : null;
+        }
+        return result;
+    }
+
+    public LocalDateTime[] readTimestamps(ArchiveColumn column, int from, int to) throws IOException {
+        long[] millis = readLongs(column, from, to);
+        LocalDateTime[] result = new LocalDateTime[millis.length];
+        for (int i = 0; i < millis.length; i++) {
+            result[i] = millis[i] != NULL_LONG
+                    ? LocalDateTime.ofInstant(Instant.ofEpochMilli(millis[i]), ZoneOffset.UTC) : null;
+        }
+        return result;
+    }
+
+    public String[] readStrings(ArchiveColumn column, int from, int to) throws IOException {
+        checkRange(from, to);
+        ByteBuffer block = readBlock(column, ArchiveColumn.Encoding.DICTIONARY, ArchiveColumn.Encoding.STRING);
+        boolean[] nulls = readBitmap(block);
+        String[] result = new String[to - from];
+        if (column.getEncoding() == ArchiveColumn.Encoding.DICTIONARY) {
+            String[] dictionary = new String[(int) VarInts.readUnsigned(block)];
+            for (int d = 0; d < dictionary.length; d++) {
+                dictionary[d] = readString(block);
+            }
+            for (int i = 0; i < to; i++) {
+                if (!nulls[i]) {
+                    String value = dictionary[(int) VarInts.readUnsigned(block)];
+                    if (i >= from) {
+                        result[i - from] = value;
+                    }
+                }
+            }
+        } else {
+            for (int i = 0; i < to; i++) {
+                if (nulls[i]) {
+                    continue;
+                }
+                if (i >= from) {
+                    result[i - from] = readString(block);
+                } else {
+                    block.position(block.position() + (int) VarInts.readUnsigned(block));
+                }
+            }
+        }
+        return result;
+    }
+
+    public boolean[] readBooleans(ArchiveColumn column, int from, int to) throws IOException {
+        checkRange(from, to);
+        boolean[] values = readBitmap(readBlock(column, ArchiveColumn.Encoding.BOOLEAN));
+        boolean[] result = new boolean[to - from];
+        System.arraycopy(values, from, result, 0, result.length);
+        return result;
+    }
+
+    /**
+     * 按行重建交易记录
+     */
+    public List<Transaction> readRows(int from, int to) throws IOException {
+        long[] ids = readLongs(ArchiveColumn.ID, from, to);
+        String[] transactionIds = readStrings(ArchiveColumn.TRANSACTION_ID, from, to);
+        String[] accountIds = readStrings(ArchiveColumn.ACCOUNT_ID, from, to);
+        BigDecimal[] amounts = readDecimals(ArchiveColumn.AMOUNT, from, to);
+        String[] currencies = readStrings(ArchiveColumn.CURRENCY, from, to);
+        String[] sourceCountries = readStrings(ArchiveColumn.SOURCE_COUNTRY, from, to);
+        String[] destinationCountries = readStrings(ArchiveColumn.DESTINATION_COUNTRY, from, to);
+        LocalDateTime[] timestamps = readTimestamps(ArchiveColumn.TIMESTAMP, from, to);
+        LocalDateTime[] accountCreationDates = readTimestamps(ArchiveColumn.ACCOUNT_CREATION_DATE, from, to);
+        String[] ipAddresses = readStrings(ArchiveColumn.IP_ADDRESS, from, to);
+        String[] deviceIds = readStrings(ArchiveColumn.DEVICE_ID, from, to);
+        boolean[] fraudulent = readBooleans(ArchiveColumn.FRAUDULENT, from, to);
+        String[] fraudReasons = readStrings(ArchiveColumn.FRAUD_REASON, from, to);
+
+        List<Transaction> rows = new ArrayList<>(to - from);
+        for (int i = 0; i < to - from; i++) {
+            rows.add(Transaction.builder()
+                    .id(ids[i] != NULL_LONG ? ids[i] : null)
+                    .transactionId(transactionIds[i])
+                    .accountId(accountIds[i])
+                    .amount(amounts[i])
+                    .currency(currencies[i])
+                    .sourceCountry(sourceCountries[i])
+                    .destinationCountry(destinationCountries[i])
+                    .timestamp(timestamps[i])
+                    .accountCreationDate(accountCreationDates[i])
+                    .ipAddress(ipAddresses[i])
+                    .deviceId(deviceIds[i])
+                    .fraudulent(fraudulent[i])
+                    .fraudReason(fraudReasons[i])
+                    .build());
+        }
+        return rows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private ByteBuffer readBlock(ArchiveColumn column, ArchiveColumn.Encoding... expected) throws IOException {
+        boolean matches = false;
+        for (ArchiveColumn.Encoding encoding : expected) {
+            matches |= column.getEncoding() == encoding;
+        }
+        if (!matches) {
+            throw new IllegalArgumentException("列 " + column + " 的编码为 " + column.getEncoding());
+        }
+        ColumnEntry entry = entry(column);
+        ByteBuffer compressed = ByteBuffer.allocate(entry.compressedLength);
+        long position = entry.offset;
+        while (compressed.hasRemaining()) {
+            int n = channel.read(compressed, position);
+            if (n < 0) {
+                throw new IOException("归档文件被截断: 列 " + column);
+            }
+            position += n;
+        }
+        byte[] raw = new byte[entry.rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed.array());
+            int inflated = 0;
+            while (inflated < raw.length && !inflater.finished()) {
+                inflated += inflater.inflate(raw, inflated, raw.length - inflated);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("归档文件数据损坏: 列 " + column, e);
+        } finally {
+            inflater.end();
+        }
+        return ByteBuffer.wrap(raw);
+    }
+
+    private boolean[] readBitmap(ByteBuffer block) {
+        boolean[] bits = new boolean[rowCount];
+        byte[] bitmap = new byte[(rowCount + 7) / 8];
+        block.get(bitmap);
+        for (int i = 0; i < rowCount; i++) {
+            bits[i] = (bitmap[i >>> 3] & (1 << (i & 7))) != 0;
+        }
+        return bits;
+    }
+
+    private static String readString(ByteBuffer block) {
+        int length = (int) VarInts.readUnsigned(block);
+        String value = new String(block.array(), block.position(), length, StandardCharsets.UTF_8);
+        block.position(block.position() + length);
+        return value;
+    }
+
+    private ColumnEntry entry(ArchiveColumn column) {
+        ColumnEntry entry = directory.get(column);
+        if (entry == null) {
+            throw new IllegalArgumentException("归档文件中没有列: " + column);
+        }
+        return entry;
+    }
+
+    private void checkRange(int from, int to) {
+        if (from < 0 || to > rowCount || from > to) {
+            throw new IndexOutOfBoundsException("行区间 [" + from + ", " + to + ") 超出范围, 行数: " + rowCount);
+        }
+    }
+
+    private static final class ColumnEntry {
+        private final int scale;
+        private final long offset;
+        private final int compressedLength;
+        private final int rawLength;
+
+        private ColumnEntry(int scale, long offset, int compressedLength, int rawLength) {
+            this.scale = scale;
+            this.offset = offset;
+            this.compressedLength = compressedLength;
+            this.rawLength = rawLength;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.frauddetection.persistence.archive;
+
+import com.example.frauddetection.model.Transaction;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * 列式归档文件写入
+ *
+ * 文件布局：
+ * <pre>
+ * int    魔数 FDCA
+ * byte   版本号
+ * int    行数
+ * short  列数
+ * 列目录: 每列 UTF列名, int 小数位数, long 数据块偏移, int 压缩后长度, int 原始长度
+ * 数据块: 每列一个Deflate压缩块 = 空值位图 + 非空值的编码数据
+ * </pre>
+ * 读取时根据列目录直接定位到需要的列，只解压用到的列。
+ */
+public final class ColumnarArchiveWriter {
+
+    static final int MAGIC = 0x46444341;
+    static final byte VERSION = 1;
+
+    private ColumnarArchiveWriter() {
+    }
+
+    /**
+     * 把一批交易写入归档文件
+     *
+     * @param file 目标文件（调用方负责先写临时文件再改名）
+     * @param rows 交易记录
+     */
+    public static void write(Path file, List<Transaction> rows) throws IOException {
+        ArchiveColumn[] columns = ArchiveColumn.values();
+        byte[][] blocks = new byte[columns.length][];
+        int[] rawLengths = new int[columns.length];
+        int[] scales = new int[columns.length];
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            for (int c = 0; c < columns.length; c++) {
+                ByteArrayOutputStream raw = new ByteArrayOutputStream(rows.size() * 4 + 64);
+                scales[c] = encodeColumn(columns[c], rows, raw);
+                byte[] rawBytes = raw.toByteArray();
+                rawLengths[c] = rawBytes.length;
+                blocks[c] = compress(deflater, rawBytes);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        ByteArrayOutputStream directoryBytes = new ByteArrayOutputStream();
+        DataOutputStream directory = new DataOutputStream(directoryBytes);
+        // 列目录长度与偏移无关，先按0偏移计算目录长度
+        int headerLength = 4 + 1 + 4 + 2;
+        for (ArchiveColumn column : columns) {
+            headerLength += 2 + column.name().getBytes(StandardCharsets.UTF_8).length + 4 + 8 + 4 + 4;
+        }
+        long offset = headerLength;
+        for (int c = 0; c < columns.length; c++) {
+            directory.writeUTF(columns[c].name());
+            directory.writeInt(scales[c]);
+            directory.writeLong(offset);
+            directory.writeInt(blocks[c].length);
+            directory.writeInt(rawLengths[c]);
+            offset += blocks[c].length;
+        }
+
+        try (OutputStream fileOut = Files.newOutputStream(file);
+             DataOutputStream out = new DataOutputStream(fileOut)) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(rows.size());
+            out.writeShort(columns.length);
+            directoryBytes.writeTo(out);
+            for (byte[] block : blocks) {
+                out.write(block);
+            }
+        }
+    }
+
+    /**
+     * @return 列的小数位数，仅金额列有意义
+     */
+    private static int encodeColumn(ArchiveColumn column, List<Transaction> rows, ByteArrayOutputStream out) {
+        switch (column.getEncoding()) {
+            case DELTA_LONG:
+            case DELTA_TIMESTAMP: {
+                long[] values = new long[rows.size()];
+                boolean[] present = new boolean[rows.size()];
+                for (int i = 0; i < rows.size(); i++) {
+                    Long value = longValue(column, rows.get(i));
+                    present[i] = value != null;
+                    values[i] = value != null ? value : 0L;
+                }
+                writeDeltas(out, values, present);
+                return 0;
+            }
+            case DELTA_DECIMAL: {
+                int scale = 0;
+                for (Transaction row : rows) {
+                    if (row.getAmount() != null) {
+                        scale = Math.max(scale, row.getAmount().scale());
+                    }
+                }
+                long[] values = new long[rows.size()];
+                boolean[] present = new boolean[rows.size()];
+                for (int i = 0; i < rows.size(); i++) {
+                    BigDecimal amount = rows.get(i).getAmount();
+                    present[i] = amount != null;
+                    values[i] = amount != null ? amount.setScale(scale).unscaledValue().longValueExact() : 0L;
+                }
+                writeDeltas(out, values, present);
+                return scale;
+            }
+            case DICTIONARY: {
+                String[] values = stringValues(column, rows);
+                writeNullBitmap(out, values);
+                Map<String, Integer> ids = new HashMap<>();
+                List<String> dictionary = new ArrayList<>();
+                int[] rowIds = new int[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    if (values[i] != null) {
+                        Integer id = ids.get(values[i]);
+                        if (id == null) {
+                            id = dictionary.size();
+                            ids.put(values[i], id);
+                            dictionary.add(values[i]);
+                        }
+                        rowIds[i] = id;
+                    }
+                }
+                VarInts.writeUnsigned(out, dictionary.size());
+                for (String entry : dictionary) {
+                    writeString(out, entry);
+                }
+                for (int i = 0; i < values.length; i++) {
+                    if (values[i] != null) {
+                        VarInts.writeUnsigned(out, rowIds[i]);
+                    }
+                }
+                return 0;
+            }
+            case STRING: {
+                String[] values = stringValues(column, rows);
+                writeNullBitmap(out, values);
+                for (String value : values) {
+                    if (value != null) {
+                        writeString(out, value);
+                    }
+                }
+                return 0;
+            }
+            case BOOLEAN: {
+                byte[] bitmap = new byte[(rows.size() + 7) / 8];
+                for (int i = 0; i < rows.size(); i++) {
+                    if (rows.get(i).isFraudulent()) {
+                        bitmap[i >>> 3] |= 1 << (i & 7);
+                    }
+                }
+                out.write(bitmap, 0, bitmap.length);
+                return 0;
+            }
+            default:
+                throw new IllegalStateException("未知的列编码: " + column.getEncoding());
+        }
+    }
+
+    private static void writeDeltas(ByteArrayOutputStream out, long[] values, boolean[] present) {
+        byte[] bitmap = new byte[(values.length + 7) / 8];
+        for (int i = 0; i < values.length; i++) {
+            if (!present[i]) {
+                bitmap[i >>> 3] |= 1 << (i & 7);
+            }
+        }
+        out.write(bitmap, 0, bitmap.length);
+        long previous = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (present[i]) {
+                VarInts.writeSigned(out, values[i] - previous);
+                previous = values[i];
+            }
+        }
+    }
+
+    private static void writeNullBitmap(ByteArrayOutputStream out, String[] values) {
+        byte[] bitmap = new byte[(values.length + 7) / 8];
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                bitmap[i >>> 3] |= 1 << (i & 7);
+            }
+        }
+        out.write(bitmap, 0, bitmap.length);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        VarInts.writeUnsigned(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static Long longValue(ArchiveColumn column, Transaction row) {
+        switch (column) {
+            case ID:
+                return row.getId();
+            case TIMESTAMP:
+                return epochMillis(row.getTimestamp());
+            case ACCOUNT_CREATION_DATE:
+                return epochMillis(row.getAccountCreationDate());
+            default:
+                throw new IllegalArgumentException("不是整数列: " + column);
+        }
+    }
+
+    private static String[] stringValues(ArchiveColumn column, List<Transaction> rows) {
+        String[] values = new String[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            Transaction row = rows.get(i);
+            switch (column) {
+                case TRANSACTION_ID: values[i] = row.getTransactionId(); break;
+                case ACCOUNT_ID: values[i] = row.getAccountId(); break;
+                case CURRENCY: values[i] = row.getCurrency(); break;
+                case SOURCE_COUNTRY: values[i] = row.getSourceCountry(); break;
+                case DESTINATION_COUNTRY: values[i] = row.getDestinationCountry(); break;
+                case IP_ADDRESS: values[i] = row.getIpAddress(); break;
+                case DEVICE_ID: values[i] = row.getDeviceId(); break;
+                case FRAUD_REASON: values[i] = row.getFraudReason(); break;
+                default:
+                    throw new IllegalArgumentException("不是字符串列: " + column);
+            }
+        }
+        return values;
+    }
+
+    private static Long epochMillis(LocalDateTime value) {
+        return value != null ? value.toInstant(ZoneOffset.UTC).toEpochMilli() : null;
+    }
+
+    private static byte[] compress(Deflater deflater, byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            int n = deflater.deflate(buffer);
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.frauddetection.persistence.archive;
+
+import com.example.frauddetection.dto.ArchiveSummary;
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 过期交易归档
+ *
+ * 定时把早于N天的交易按主键顺序写入本地列式归档文件，然后从数据库删除，保持热表较小。
+ * 每个文件经过三步：写临时文件 -> 改名为.pending -> 删除数据库中对应的行 -> 改名为正式文件。
+ * 启动归档时先完成遗留的.pending文件（重新按文件中的主键删除），崩溃后不会丢失也不会重复归档。
+ */
+@Slf4j
+@Service
+public class TransactionArchiveService {
+
+    static final String SUFFIX = ".fdca";
+    private static final String PENDING_SUFFIX = ".pending";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Path directory;
+    private final int olderThanDays;
+    private final int rowsPerFile;
+    private final int pageSize;
+    private final int deleteBatchSize;
+
+    @Autowired
+    public TransactionArchiveService(
+            TransactionRepository transactionRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${fraud-detection.archive.enabled:false}") boolean enabled,
+            @Value("${fraud-detection.archive.directory:data/archive}") String directory,
+            @Value("${fraud-detection.archive.older-than-days:90}") int olderThanDays,
+            @Value("${fraud-detection.archive.rows-per-file:100000}") int rowsPerFile,
+            @Value("${fraud-detection.archive.page-size:2000}") int pageSize,
+            @Value("${fraud-detection.archive.delete-batch-size:1000}") int deleteBatchSize) {
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.olderThanDays = olderThanDays;
+        this.rowsPerFile = rowsPerFile;
+        this.pageSize = pageSize;
+        this.deleteBatchSize = deleteBatchSize;
+    }
+
+    @Scheduled(cron = "${fraud-detection.archive.cron:0 30 3 * * *}")
+    public void scheduledArchive() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            archive();
+        } catch (Exception e) {
+            log.error("交易归档失败", e);
+        }
+    }
+
+    /**
+     * 归档早于配置天数的交易
+     */
+    public synchronized ArchiveSummary archive() throws IOException {
+        long startTime = System.currentTimeMillis();
+        Files.createDirectories(directory);
+        completePendingFiles();
+
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(olderThanDays);
+        List<String> fileNames = new ArrayList<>();
+        long archivedRows = 0;
+        long afterId = 0L;
+        while (true) {
+            List<Transaction> rows = collect(afterId, cutoff);
+            if (rows.isEmpty()) {
+                break;
+            }
+            afterId = rows.get(rows.size() - 1).getId();
+            fileNames.add(archiveFile(rows));
+            archivedRows += rows.size();
+            if (rows.size() < rowsPerFile) {
+                break;
+            }
+        }
+
+        long elapsed = System.currentTimeMillis() - startTime;
+        log.info("交易归档完成, 截止时间: {}, 文件数: {}, 行数: {}, 耗时: {}ms",
+                cutoff, fileNames.size(), archivedRows, elapsed);
+        return ArchiveSummary.builder()
+                .cutoff(cutoff)
+                .files(fileNames.size())
+                .rows(archivedRows)
+                .elapsedMs(elapsed)
+                .fileNames(fileNames)
+                .build();
+    }
+
+    /**
+     * @return 目录中已完成的归档文件，按文件名（即主键范围）排序
+     */
+    public List<Path> listArchives() throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        files.sort(null);
+        return files;
+    }
+
+    private List<Transaction> collect(long afterId, LocalDateTime cutoff) {
+        List<Transaction> rows = new ArrayList<>();
+        long lastId = afterId;
+        while (rows.size() < rowsPerFile) {
+            int limit = Math.min(pageSize, rowsPerFile - rows.size());
+            List<Transaction> page = transactionRepository.findByIdGreaterThanAndTimestampBeforeOrderByIdAsc(
+                    lastId, cutoff, PageRequest.of(0, limit));
+            if (page.isEmpty()) {
+                break;
+            }
+            rows.addAll(page);
+            lastId = page.get(page.size() - 1).getId();
+            if (page.size() < limit) {
+                break;
+            }
+        }
+        return rows;
+    }
+
+    private String archiveFile(List<Transaction> rows) throws IOException {
+        String name = String.format("transactions-%019d-%019d%s",
+                rows.get(0).getId(), rows.get(rows.size() - 1).getId(), SUFFIX);
+        Path temp = directory.resolve(name + TEMP_SUFFIX);
+        Path pending = directory.resolve(name + PENDING_SUFFIX);
+        ColumnarArchiveWriter.write(temp, rows);
+        Files.move(temp, pending, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (Transaction row : rows) {
+            ids.add(row.getId());
+        }
+        deleteRows(ids);
+        Files.move(pending, directory.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+        log.debug("已归档 {} 行到 {}", rows.size(), name);
+        return name;
+    }
+
+    private void completePendingFiles() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + PENDING_SUFFIX)) {
+            for (Path pending : stream) {
+                List<Long> ids = new ArrayList<>();
+                try (ColumnarArchiveReader reader = ColumnarArchiveReader.open(pending)) {
+                    for (long id : reader.readLongs(ArchiveColumn.ID, 0, reader.getRowCount())) {
+                        ids.add(id);
+                    }
+                }
+                deleteRows(ids);
+                String name = pending.getFileName().toString();
+                Files.move(pending, pending.resolveSibling(name.substring(0, name.length() - PENDING_SUFFIX.length())),
+                        StandardCopyOption.ATOMIC_MOVE);
+                log.info("已完成遗留的归档文件: {}, 行数: {}", name, ids.size());
+            }
+        }
+    }
+
+    /**
+     * 在一个事务中分批删除，避免过长的IN列表
+     */
+    private void deleteRows(List<Long> ids) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int from = 0; from < ids.size(); from += deleteBatchSize) {
+                transactionRepository.deleteAllByIdInBatch(ids.subList(from, Math.min(ids.size(), from + deleteBatchSize)));
+            }
+        });
+    }
+
+    /**
+     * 供导出使用：打开归档文件
+     */
+    public ColumnarArchiveReader open(String fileName) throws IOException {
+        Path file = directory.resolve(fileName).normalize();
+        if (!file.startsWith(directory.normalize()) || !fileName.endsWith(SUFFIX)) {
+            throw new IllegalArgumentException("非法的归档文件名: " + fileName);
+        }
+        return ColumnarArchiveReader.open(file);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.frauddetection.persistence.log;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 持久化的日志读取位置
+ * 先写临时文件再原子替换，崩溃时不会留下写了一半的游标
+ */
+@Slf4j
+public final class LogCursorFile {
+
+    private final Path path;
+    private final Path tempPath;
+
+    public LogCursorFile(Path path) {
+        this.path = path;
+        this.tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+    }
+
+    /**
+     * 读取游标，文件不存在、无法解析或早于日志起点时返回日志起点
+     */
+    public LogPosition read(SegmentLog segmentLog) {
+        LogPosition head = segmentLog.head();
+        try {
+            if (Files.exists(path)) {
+                LogPosition position = LogPosition.parse(new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+                return position.compareTo(head) >= 0 ? position : head;
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("读取日志游标 {} 失败，从最早的段开始: {}", path, e.getMessage());
+        }
+        return head;
+    }
+
+    public void write(LogPosition position) {
+        try {
+            Files.write(tempPath, position.toString().getBytes(StandardCharsets.UTF_8));
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入日志游标失败: " + path, e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.frauddetection.persistence.log;
+
+/**
+ * 段日志中的位置：段序号 + 段内偏移
+ */
+public final class LogPosition implements Comparable<LogPosition> {
+
+    private final long segment;
+    private final int offset;
+
+    public LogPosition(long segment, int offset) {
+        this.segment = segment;
+        this.offset = offset;
+    }
+
+    public long getSegment() {
+        return segment;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    @Override
+    public int compareTo(LogPosition other) {
+        int bySegment = Long.compare(segment, other.segment);
+        return bySegment != 0 ? bySegment : Integer.compare(offset, other.offset);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LogPosition)) {
+            return false;
+        }
+        LogPosition that = (LogPosition) o;
+        return segment == that.segment && offset == that.offset;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(segment) + offset;
+    }
+
+    @Override
+    public String toString() {
+        return segment + ":" + offset;
+    }
+
+    /**
+     * 解析{@link #toString()}的输出
+     */
+    public static LogPosition parse(String text) {
+        int separator = text.indexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("非法的日志位置: " + text);
+        }
+        return new LogPosition(Long.parseLong(text.substring(0, separator).trim()),
+                Integer.parseInt(text.substring(separator + 1).trim()));
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.frauddetection.persistence.log;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+/**
+ * 基于内存映射文件的只追加段日志
+ *
+ * 日志由固定大小的段文件组成（{序号}.seg），每条记录的布局为：
+ * <pre>
+ * int   payload长度（0表示段内数据结束）
+ * int   payload的CRC32
+ * byte[] payload
+ * </pre>
+ * 写入时先写CRC和payload，最后写长度，长度非0即表示记录完整。段剩余空间不足时滚动到新段。
+ * 打开时扫描最后一个段，遇到长度非法或CRC不匹配的记录即视为进程崩溃时的残缺写入，从该位置截断。
+ *
+ * 写入是同步的单写者模型；读取只允许单个线程（投递线程），读取位置不会超过已发布的写入位置。
+ * 未开启forceOnWrite时，记录写入页缓存即返回，能够在进程崩溃后保留，但不保证掉电后保留。
+ */
+@Slf4j
+public final class SegmentLog implements Closeable {
+
+    static final int HEADER_SIZE = 8;
+    private static final String SUFFIX = ".seg";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean forceOnWrite;
+
+    private FileChannel activeChannel;
+    private MappedByteBuffer active;
+    private long activeSegment;
+    private volatile LogPosition tail;
+
+    // 读取端缓存的段映射，只在读取线程中访问
+    private long readSegment = -1;
+    private FileChannel readChannel;
+    private MappedByteBuffer readBuffer;
+
+    private SegmentLog(Path directory, int segmentSize, boolean forceOnWrite) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.forceOnWrite = forceOnWrite;
+    }
+
+    /**
+     * 打开（或创建）段日志并恢复写入位置
+     *
+     * @param directory    段文件目录
+     * @param segmentSize  单个段文件大小(字节)
+     * @param forceOnWrite 每次写入后是否强制刷盘
+     */
+    public static SegmentLog open(Path directory, int segmentSize, boolean forceOnWrite) {
+        SegmentLog segmentLog = new SegmentLog(directory, segmentSize, forceOnWrite);
+        try {
+            Files.createDirectories(directory);
+            segmentLog.recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("打开段日志失败: " + directory, e);
+        }
+        return segmentLog;
+    }
+
+    private void recover() throws IOException {
+        TreeSet<Long> segments = listSegments();
+        long last = segments.isEmpty() ? 0L : segments.last();
+        mapActive(last);
+
+        int offset = 0;
+        int records = 0;
+        while (true) {
+            int length = validRecordLength(active, offset);
+            if (length <= 0) {
+                if (length < 0) {
+                    log.warn("段 {} 偏移 {} 处存在残缺记录，已截断", last, offset);
+                    for (int i = offset; i < segmentSize; i++) {
+                        active.put(i, (byte) 0);
+                    }
+                    active.force();
+                }
+                break;
+            }
+            offset += HEADER_SIZE + length;
+            records++;
+        }
+        active.position(offset);
+        tail = new LogPosition(last, offset);
+        log.info("段日志已打开: {}, 段数: {}, 当前段记录数: {}, 写入位置: {}",
+                directory, Math.max(1, segments.size()), records, tail);
+    }
+
+    /**
+     * 追加一条记录
+     *
+     * @return 记录之后的位置
+     */
+    public synchronized LogPosition append(byte[] payload) {
+        int recordSize = HEADER_SIZE + payload.length;
+        if (recordSize > segmentSize) {
+            throw new IllegalArgumentException("记录大小(" + recordSize + ")超过段大小(" + segmentSize + ")");
+        }
+        if (active == null) {
+            throw new IllegalStateException("段日志已关闭");
+        }
+        try {
+            if (active.position() + recordSize > segmentSize) {
+                roll();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("段日志滚动失败", e);
+        }
+
+        int start = active.position();
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        active.putInt(start + 4, (int) crc.getValue());
+        active.position(start + HEADER_SIZE);
+        active.put(payload);
+        active.putInt(start, payload.length);
+        if (forceOnWrite) {
+            active.force();
+        }
+        LogPosition end = new LogPosition(activeSegment, active.position());
+        tail = end;
+        return end;
+    }
+
+    /**
+     * 从指定位置读取最多maxRecords条记录
+     * 段内残缺记录会跳过该段剩余部分并记录错误，避免投递永久卡住
+     */
+    public ReadResult read(LogPosition from, int maxRecords) {
+        List<byte[]> records = new ArrayList<>();
+        LogPosition end = tail;
+        long segment = from.getSegment();
+        int offset = from.getOffset();
+        try {
+            while (records.size() < maxRecords && (segment < end.getSegment() || offset < end.getOffset())) {
+                if (segment < end.getSegment() && !Files.exists(segmentPath(segment))) {
+                    segment = nextSegment(segment, end.getSegment());
+                    offset = 0;
+                    continue;
+                }
+                ByteBuffer buffer = mapForRead(segment);
+                int limit = segment == end.getSegment() ? end.getOffset() : segmentSize;
+                int length = offset + HEADER_SIZE <= limit ? validRecordLength(buffer, offset) : 0;
+                if (length <= 0) {
+                    if (length < 0) {
+                        log.error("段 {} 偏移 {} 处记录校验失败，跳过该段剩余数据", segment, offset);
+                    }
+                    if (segment >= end.getSegment()) {
+                        break;
+                    }
+                    segment = nextSegment(segment, end.getSegment());
+                    offset = 0;
+                    continue;
+                }
+                byte[] payload = new byte[length];
+                ByteBuffer view = buffer.duplicate();
+                view.position(offset + HEADER_SIZE);
+                view.get(payload);
+                records.add(payload);
+                offset += HEADER_SIZE + length;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取段日志失败", e);
+        }
+        return new ReadResult(records, new LogPosition(segment, offset));
+    }
+
+    /**
+     * @return 最早的段起始位置，没有投递位置记录时从这里开始读取
+     */
+    public LogPosition head() {
+        try {
+            TreeSet<Long> segments = listSegments();
+            return new LogPosition(segments.isEmpty() ? tail.getSegment() : segments.first(), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("列出段文件失败", e);
+        }
+    }
+
+    public LogPosition tail() {
+        return tail;
+    }
+
+    /**
+     * 删除序号小于segment的段（不包括当前写入段）
+     *
+     * @return 删除的段数
+     */
+    public int deleteSegmentsBefore(long segment) {
+        int deleted = 0;
+        try {
+            for (Long index : listSegments()) {
+                if (index >= segment || index >= tail.getSegment()) {
+                    break;
+                }
+                if (index == readSegment) {
+                    closeReadSegment();
+                }
+                Files.deleteIfExists(segmentPath(index));
+                deleted++;
+            }
+        } catch (IOException e) {
+            log.warn("删除已投递段文件失败: {}", e.getMessage());
+        }
+        return deleted;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            closeReadSegment();
+            if (active != null) {
+                active.force();
+                active = null;
+                activeChannel.close();
+            }
+        } catch (IOException e) {
+            log.warn("关闭段日志失败: {}", e.getMessage());
+        }
+    }
+
+    private void roll() throws IOException {
+        active.force();
+        activeChannel.close();
+        mapActive(activeSegment + 1);
+        log.debug("段日志滚动到新段: {}", activeSegment);
+    }
+
+    private void mapActive(long segment) throws IOException {
+        activeChannel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        active = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        activeSegment = segment;
+    }
+
+    private ByteBuffer mapForRead(long segment) throws IOException {
+        if (segment != readSegment) {
+            closeReadSegment();
+            readChannel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ);
+            readBuffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(segmentSize, readChannel.size()));
+            readSegment = segment;
+        }
+        return readBuffer;
+    }
+
+    private void closeReadSegment() throws IOException {
+        if (readChannel != null) {
+            readChannel.close();
+        }
+        readChannel = null;
+        readBuffer = null;
+        readSegment = -1;
+    }
+
+    /**
+     * @return 记录payload长度；0表示数据结束；-1表示记录残缺或校验失败
+     */
+    private int validRecordLength(ByteBuffer buffer, int offset) {
+        if (offset + HEADER_SIZE > buffer.capacity()) {
+            return 0;
+        }
+        int length = buffer.getInt(offset);
+        if (length == 0) {
+            return 0;
+        }
+        if (length < 0 || offset + HEADER_SIZE + length > buffer.capacity()) {
+            return -1;
+        }
+        ByteBuffer payload = buffer.duplicate();
+        payload.limit(offset + HEADER_SIZE + length).position(offset + HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue() == buffer.getInt(offset + 4) ? length : -1;
+    }
+
+    private long nextSegment(long segment, long last) throws IOException {
+        Long next = listSegments().higher(segment);
+        return next != null ? Math.min(next, last) : last;
+    }
+
+    private TreeSet<Long> listSegments() throws IOException {
+        TreeSet<Long> segments = new TreeSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                try {
+                    segments.add(Long.parseLong(name.substring(0, name.length() - SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    log.warn("忽略无法识别的段文件: {}", path);
+                }
+            }
+        }
+        return segments;
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%020d%s", segment, SUFFIX));
+    }
+
+    /**
+     * 读取结果：记录payload列表和下一次读取的起始位置
+     */
+    public static final class ReadResult {
+
+        private final List<byte[]> records;
+        private final LogPosition next;
+
+        ReadResult(List<byte[]> records, LogPosition next) {
+            this.records = records;
+            this.next = next;
+        }
+
+        public List<byte[]> getRecords() {
+            return records;
+        }
+
+        public LogPosition getNext() {
+            return next;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.frauddetection.persistence.log;
+
+import com.example.frauddetection.model.Transaction;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 交易记录的二进制编码
+ *
+ * 字段顺序固定，不写字段名：
+ * <pre>
+ * byte  版本号
+ * short 空值位图（第i位为1表示第i个可空字段存在）
+ * byte  fraudulent
+ * 依次为存在的字段：字符串使用modified UTF-8，金额使用十进制字符串，时间使用UTC秒数+纳秒
+ * </pre>
+ * 主键由数据库生成，不写入日志。
+ */
+public final class TransactionRecordCodec {
+
+    private static final byte VERSION = 1;
+
+    private static final int TRANSACTION_ID = 0;
+    private static final int ACCOUNT_ID = 1;
+    private static final int AMOUNT = 2;
+    private static final int CURRENCY = 3;
+    private static final int SOURCE_COUNTRY = 4;
+    private static final int DESTINATION_COUNTRY = 5;
+    private static final int TIMESTAMP = 6;
+    private static final int ACCOUNT_CREATION_DATE = 7;
+    private static final int IP_ADDRESS = 8;
+    private static final int DEVICE_ID = 9;
+    private static final int FRAUD_REASON = 10;
+
+    private TransactionRecordCodec() {
+    }
+
+    public static byte[] encode(Transaction transaction) {
+        int present = 0;
+        present |= bit(TRANSACTION_ID, transaction.getTransactionId());
+        present |= bit(ACCOUNT_ID, transaction.getAccountId());
+        present |= bit(AMOUNT, transaction.getAmount());
+        present |= bit(CURRENCY, transaction.getCurrency());
+        present |= bit(SOURCE_COUNTRY, transaction.getSourceCountry());
+        present |= bit(DESTINATION_COUNTRY, transaction.getDestinationCountry());
+        present |= bit(TIMESTAMP, transaction.getTimestamp());
+        present |= bit(ACCOUNT_CREATION_DATE, transaction.getAccountCreationDate());
+        present |= bit(IP_ADDRESS, transaction.getIpAddress());
+        present |= bit(DEVICE_ID, transaction.getDeviceId());
+        present |= bit(FRAUD_REASON, transaction.getFraudReason());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeShort(present);
+            out.writeBoolean(transaction.isFraudulent());
+            writeString(out, transaction.getTransactionId());
+            writeString(out, transaction.getAccountId());
+            if (transaction.getAmount() != null) {
+                out.writeUTF(transaction.getAmount().toPlainString());
+            }
+            writeString(out, transaction.getCurrency());
+            writeString(out, transaction.getSourceCountry());
+            writeString(out, transaction.getDestinationCountry());
+            writeTime(out, transaction.getTimestamp());
+            writeTime(out, transaction.getAccountCreationDate());
+            writeString(out, transaction.getIpAddress());
+            writeString(out, transaction.getDeviceId());
+            writeString(out, transaction.getFraudReason());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static Transaction decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("不支持的记录版本: " + version);
+            }
+            int present = in.readShort();
+            Transaction transaction = new Transaction();
+            transaction.setFraudulent(in.readBoolean());
+            transaction.setTransactionId(readString(in, present, TRANSACTION_ID));
+            transaction.setAccountId(readString(in, present, ACCOUNT_ID));
+            String amount = readString(in, present, AMOUNT);
+            transaction.setAmount(amount != null ? new BigDecimal(amount) : null);
+            transaction.setCurrency(readString(in, present, CURRENCY));
+            transaction.setSourceCountry(readString(in, present, SOURCE_COUNTRY));
+            transaction.setDestinationCountry(readString(in, present, DESTINATION_COUNTRY));
+            transaction.setTimestamp(readTime(in, present, TIMESTAMP));
+            transaction.setAccountCreationDate(readTime(in, present, ACCOUNT_CREATION_DATE));
+            transaction.setIpAddress(readString(in, present, IP_ADDRESS));
+            transaction.setDeviceId(readString(in, present, DEVICE_ID));
+            transaction.setFraudReason(readString(in, present, FRAUD_REASON));
+            return transaction;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int bit(int field, Object value) {
+        return value != null ? 1 << field : 0;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static String readString(DataInputStream in, int present, int field) throws IOException {
+        return (present & (1 << field)) != 0 ? in.readUTF() : null;
+    }
+
+    private static LocalDateTime readTime(DataInputStream in, int present, int field) throws IOException {
+        if ((present & (1 << field)) == 0) {
+            return null;
+        }
+        long seconds = in.readLong();
+        int nanos = in.readInt();
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+}
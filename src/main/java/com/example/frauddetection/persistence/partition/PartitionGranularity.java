@@ -0,0 +1,85 @@
+package com.example.frauddetection.persistence.partition;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * 分区粒度：按天或按月
+ * 分区以起始日期标识，覆盖 [start, next(start)) 区间，表名后缀为起始日期的格式化结果
+ */
+public enum PartitionGranularity {
+
+    DAILY(DateTimeFormatter.ofPattern("yyyyMMdd")) {
+        @Override
+        public LocalDate start(LocalDateTime timestamp) {
+            return timestamp.toLocalDate();
+        }
+
+        @Override
+        public LocalDate next(LocalDate start) {
+            return start.plusDays(1);
+        }
+
+        @Override
+        LocalDate parseSuffix(String suffix) {
+            return LocalDate.parse(suffix, getFormatter());
+        }
+    },
+
+    MONTHLY(DateTimeFormatter.ofPattern("yyyyMM")) {
+        @Override
+        public LocalDate start(LocalDateTime timestamp) {
+            return timestamp.toLocalDate().withDayOfMonth(1);
+        }
+
+        @Override
+        public LocalDate next(LocalDate start) {
+            return start.plusMonths(1);
+        }
+
+        @Override
+        LocalDate parseSuffix(String suffix) {
+            return YearMonth.parse(suffix, getFormatter()).atDay(1);
+        }
+    };
+
+    private final DateTimeFormatter formatter;
+
+    PartitionGranularity(DateTimeFormatter formatter) {
+        this.formatter = formatter;
+    }
+
+    /**
+     * @return 时间所在分区的起始日期
+     */
+    public abstract LocalDate start(LocalDateTime timestamp);
+
+    /**
+     * @return 下一个分区的起始日期，即当前分区的结束日期（不包含）
+     */
+    public abstract LocalDate next(LocalDate start);
+
+    abstract LocalDate parseSuffix(String suffix);
+
+    public String suffix(LocalDate start) {
+        return start.format(formatter);
+    }
+
+    /**
+     * @return 后缀对应的分区起始日期，格式不匹配时返回null
+     */
+    public LocalDate parse(String suffix) {
+        try {
+            return parseSuffix(suffix);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    DateTimeFormatter getFormatter() {
+        return formatter;
+    }
+}
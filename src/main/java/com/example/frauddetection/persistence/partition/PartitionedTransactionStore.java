@@ -0,0 +1,377 @@
+package com.example.frauddetection.persistence.partition;
+
+import com.example.frauddetection.model.Transaction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 按时间分区的交易存储
+ *
+ * 每个分区是一张独立的表（transaction_p{yyyyMM}或transaction_p{yyyyMMdd}），写入时按交易时间路由，
+ * 不存在的分区按需创建。交易时间由调用方提供，只在 [当前时间 - 保留期, 预创建的最后一个分区] 内路由，
+ * 超出的记录写入最近的边界分区，调用方无法通过编造时间在请求路径上触发任意DDL。
+ * 按时间范围查询只访问与范围相交的分区；保留期清理直接DROP整张分区表，不产生逐行删除的锁和vacuum开销。
+ * 主键来自所有分区共享的序列，跨分区唯一；序列从切换前transaction表的最大主键之后开始，
+ * 合并查询两者时主键也不重复。只使用H2和PostgreSQL都支持的DDL，两者仅在序列取值语法上不同。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "fraud-detection.persistence.mode", havingValue = "partitioned")
+public class PartitionedTransactionStore {
+
+    static final String TABLE_PREFIX = "transaction_p";
+    static final String SEQUENCE = "transaction_partition_seq";
+    // 切换到分区模式前JPA写入的表
+    static final String LEGACY_TABLE = "transaction";
+
+    private static final String COLUMNS = "id, transaction_id, account_id, amount, currency, source_country, "
+            + "destination_country, timestamp, account_creation_date, ip_address, device_id, fraudulent, fraud_reason";
+
+    private static final RowMapper<Transaction> ROW_MAPPER = (rs, rowNum) -> Transaction.builder()
+            .id(rs.getLong("id"))
+            .transactionId(rs.getString("transaction_id"))
+            .accountId(rs.getString("account_id"))
+            .amount(rs.getBigDecimal("amount"))
+            .currency(rs.getString("currency"))
+            .sourceCountry(rs.getString("source_country"))
+            .destinationCountry(rs.getString("destination_country"))
+            .timestamp(toLocalDateTime(rs.getTimestamp("timestamp")))
+            .accountCreationDate(toLocalDateTime(rs.getTimestamp("account_creation_date")))
+            .ipAddress(rs.getString("ip_address"))
+            .deviceId(rs.getString("device_id"))
+            .fraudulent(rs.getBoolean("fraudulent"))
+            .fraudReason(rs.getString("fraud_reason"))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PartitionGranularity granularity;
+    private final int retentionDays;
+    private final int precreate;
+    private final int maxPastDays;
+
+    // 分区起始日期 -> 表名
+    private final ConcurrentSkipListMap<LocalDate, String> partitions = new ConcurrentSkipListMap<>();
+    private String nextIdExpression;
+
+    @Autowired
+    public PartitionedTransactionStore(
+            JdbcTemplate jdbcTemplate,
+            @Value("${fraud-detection.persistence.partition.granularity:MONTHLY}") PartitionGranularity granularity,
+            @Value("${fraud-detection.persistence.partition.retention-days:0}") int retentionDays,
+            @Value("${fraud-detection.persistence.partition.precreate:1}") int precreate,
+            @Value("${fraud-detection.persistence.partition.max-past-days:366}") int maxPastDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.granularity = granularity;
+        this.retentionDays = retentionDays;
+        this.precreate = precreate;
+        this.maxPastDays = maxPastDays;
+    }
+
+    @PostConstruct
+    public void init() {
+        String product = jdbcTemplate.execute((Connection connection) ->
+                connection.getMetaData().getDatabaseProductName());
+        nextIdExpression = "PostgreSQL".equalsIgnoreCase(product)
+                ? "nextval('" + SEQUENCE + "')"
+                : "NEXT VALUE FOR " + SEQUENCE;
+        initSequence();
+        loadPartitions();
+        maintain();
+        log.info("交易分区存储已启用, 数据库: {}, 粒度: {}, 保留天数: {}, 现有分区: {}",
+                product, granularity, retentionDays > 0 ? retentionDays : "不限", partitions.size());
+    }
+
+    @Scheduled(cron = "${fraud-detection.persistence.partition.maintenance-cron:0 5 0 * * *}")
+    public void scheduledMaintenance() {
+        try {
+            maintain();
+        } catch (Exception e) {
+            log.error("分区维护失败", e);
+        }
+    }
+
+    /**
+     * 预创建当前及之后的分区，删除整体超出保留期的分区
+     *
+     * @return 删除的分区表名
+     */
+    public synchronized List<String> maintain() {
+        LocalDate start = granularity.start(LocalDateTime.now());
+        for (int i = 0; i <= precreate; i++) {
+            ensurePartition(start);
+            start = granularity.next(start);
+        }
+        List<String> dropped = new ArrayList<>();
+        if (retentionDays <= 0) {
+            return dropped;
+        }
+        LocalDate cutoff = LocalDate.now().minusDays(retentionDays);
+        for (Map.Entry<LocalDate, String> entry : partitions.headMap(cutoff).entrySet()) {
+            if (granularity.next(entry.getKey()).isAfter(cutoff)) {
+                continue;
+            }
+            // 先从路由表移除，新的查询不再访问该分区
+            partitions.remove(entry.getKey());
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + entry.getValue());
+            dropped.add(entry.getValue());
+        }
+        if (!dropped.isEmpty()) {
+            log.info("已删除超出保留期({}天)的分区: {}", retentionDays, dropped);
+        }
+        return dropped;
+    }
+
+    /**
+     * 写入交易所在时间的分区，并回填生成的主键
+     * 没有交易时间的记录写入当前分区，超出路由范围的记录写入最近的边界分区
+     */
+    public void insert(Transaction transaction) {
+        LocalDateTime timestamp = transaction.getTimestamp() != null ? transaction.getTimestamp() : LocalDateTime.now();
+        String table = ensurePartition(route(timestamp));
+        String sql = "INSERT INTO " + table + " (transaction_id, account_id, amount, currency, source_country, "
+                + "destination_country, timestamp, account_creation_date, ip_address, device_id, fraudulent, "
+                + "fraud_reason) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, new String[]{"id"});
+            statement.setString(1, transaction.getTransactionId());
+            statement.setString(2, transaction.getAccountId());
+            statement.setBigDecimal(3, transaction.getAmount());
+            statement.setString(4, transaction.getCurrency());
+            statement.setString(5, transaction.getSourceCountry());
+            statement.setString(6, transaction.getDestinationCountry());
+            statement.setTimestamp(7, toTimestamp(transaction.getTimestamp()));
+            statement.setTimestamp(8, toTimestamp(transaction.getAccountCreationDate()));
+            statement.setString(9, transaction.getIpAddress());
+            statement.setString(10, transaction.getDeviceId());
+            statement.setBoolean(11, transaction.isFraudulent());
+            statement.setString(12, transaction.getFraudReason());
+            return statement;
+        }, keyHolder);
+        Number id = keyHolder.getKey();
+        if (id != null) {
+            transaction.setId(id.longValue());
+        }
+    }
+
+    /**
+     * 只查询与[start, end]相交的分区
+     */
+    public List<Transaction> findByAccountIdAndTimestampBetween(String accountId, LocalDateTime start, LocalDateTime end) {
+        List<Transaction> result = new ArrayList<>();
+        for (String table : partitionsBetween(start, end)) {
+            result.addAll(jdbcTemplate.query("SELECT " + COLUMNS + " FROM " + table
+                            + " WHERE account_id = ? AND timestamp BETWEEN ? AND ?",
+                    ROW_MAPPER, accountId, Timestamp.valueOf(start), Timestamp.valueOf(end)));
+        }
+        return result;
+    }
+
+    /**
+     * 只查询与[start, end]相交的分区，各分区分别计数后相加
+     */
+    public long countByAccountIdAndTimestampBetween(String accountId, LocalDateTime start, LocalDateTime end) {
+        long count = 0;
+        for (String table : partitionsBetween(start, end)) {
+            Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table
+                            + " WHERE account_id = ? AND timestamp BETWEEN ? AND ?",
+                    Long.class, accountId, Timestamp.valueOf(start), Timestamp.valueOf(end));
+            count += rows != null ? rows : 0;
+        }
+        return count;
+    }
+
+    public List<Transaction> findByAccountId(String accountId) {
+        return queryAll(" WHERE account_id = ?", accountId);
+    }
+
+    public List<Transaction> findFraudulent() {
+        return queryAll(" WHERE fraudulent = TRUE");
+    }
+
+    /**
+     * 从最新的分区开始查找
+     */
+    public Transaction findByTransactionId(String transactionId) {
+        for (String table : partitions.descendingMap().values()) {
+            List<Transaction> rows = jdbcTemplate.query("SELECT " + COLUMNS + " FROM " + table
+                    + " WHERE transaction_id = ?", ROW_MAPPER, transactionId);
+            if (!rows.isEmpty()) {
+                return rows.get(0);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return 与时间范围相交的分区表名，按时间升序
+     */
+    public List<String> partitionsBetween(LocalDateTime start, LocalDateTime end) {
+        if (start.isAfter(end)) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(partitions.subMap(granularity.start(start), true, granularity.start(end), true).values());
+    }
+
+    public List<String> getPartitions() {
+        return new ArrayList<>(partitions.values());
+    }
+
+    private List<Transaction> queryAll(String where, Object... args) {
+        List<Transaction> result = new ArrayList<>();
+        for (String table : partitions.values()) {
+            result.addAll(jdbcTemplate.query("SELECT " + COLUMNS + " FROM " + table + where, ROW_MAPPER, args));
+        }
+        return result;
+    }
+
+    /**
+     * @return 交易时间所在的分区，限制在 [当前时间 - 保留期（不清理时为max-past-days）, 预创建的最后一个分区] 内
+     */
+    LocalDate route(LocalDateTime timestamp) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate earliest = granularity.start(now.minusDays(retentionDays > 0 ? retentionDays : maxPastDays));
+        LocalDate latest = granularity.start(now);
+        for (int i = 0; i < precreate; i++) {
+            latest = granularity.next(latest);
+        }
+        LocalDate start = granularity.start(timestamp);
+        if (start.isBefore(earliest)) {
+            log.debug("交易时间 {} 早于路由范围, 写入分区 {}", timestamp, earliest);
+            return earliest;
+        }
+        if (start.isAfter(latest)) {
+            log.debug("交易时间 {} 晚于路由范围, 写入分区 {}", timestamp, latest);
+            return latest;
+        }
+        return start;
+    }
+
+    private String ensurePartition(LocalDate start) {
+        String table = partitions.get(start);
+        return table != null ? table : createPartition(start);
+    }
+
+    private synchronized String createPartition(LocalDate start) {
+        String table = partitions.get(start);
+        if (table != null) {
+            return table;
+        }
+        table = TABLE_PREFIX + granularity.suffix(start);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + " ("
+                + "id BIGINT DEFAULT " + nextIdExpression + " PRIMARY KEY, "
+                + "transaction_id VARCHAR(255), "
+                + "account_id VARCHAR(255), "
+                + "amount NUMERIC(19, 2), "
+                + "currency VARCHAR(255), "
+                + "source_country VARCHAR(255), "
+                + "destination_country VARCHAR(255), "
+                + "timestamp TIMESTAMP, "
+                + "account_creation_date TIMESTAMP, "
+                + "ip_address VARCHAR(255), "
+                + "device_id VARCHAR(255), "
+                + "fraudulent BOOLEAN NOT NULL, "
+                + "fraud_reason VARCHAR(255))");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + table + "_account_idx ON " + table
+                + " (account_id, timestamp)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + table + "_transaction_idx ON " + table
+                + " (transaction_id)");
+        partitions.put(start, table);
+        log.info("已创建交易分区: {}", table);
+        return table;
+    }
+
+    /**
+     * 创建共享序列，并保证下一个值大于transaction表中已有的最大主键
+     * 序列已存在时也检查一次：取走一个值，不够大则重置
+     */
+    private void initSequence() {
+        long legacyMaxId = legacyMaxId();
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + SEQUENCE + " START WITH " + (legacyMaxId + 1));
+        if (legacyMaxId <= 0) {
+            return;
+        }
+        Long next = jdbcTemplate.queryForObject("SELECT " + nextIdExpression, Long.class);
+        if (next == null || next <= legacyMaxId) {
+            jdbcTemplate.execute("ALTER SEQUENCE " + SEQUENCE + " RESTART WITH " + (legacyMaxId + 1));
+            log.info("分区主键序列从 {} 开始，避免与transaction表的主键重复", legacyMaxId + 1);
+        }
+    }
+
+    /**
+     * @return transaction表中的最大主键，表不存在或为空时为0
+     */
+    private long legacyMaxId() {
+        Boolean exists = jdbcTemplate.execute((Connection connection) -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String name = metaData.storesUpperCaseIdentifiers() ? LEGACY_TABLE.toUpperCase(Locale.ROOT) : LEGACY_TABLE;
+            try (ResultSet rs = metaData.getTables(connection.getCatalog(), null, name, new String[]{"TABLE"})) {
+                return rs.next();
+            }
+        });
+        if (!Boolean.TRUE.equals(exists)) {
+            return 0;
+        }
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + LEGACY_TABLE, Long.class);
+        return maxId != null ? maxId : 0;
+    }
+
+    /**
+     * 从数据库元数据加载已有分区，PostgreSQL的标识符为小写，H2为大写
+     */
+    private void loadPartitions() {
+        Collection<String> tables = jdbcTemplate.execute((Connection connection) -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String pattern = metaData.storesUpperCaseIdentifiers()
+                    ? TABLE_PREFIX.toUpperCase(Locale.ROOT) + "%" : TABLE_PREFIX + "%";
+            List<String> names = new ArrayList<>();
+            try (ResultSet rs = metaData.getTables(connection.getCatalog(), null, pattern, new String[]{"TABLE"})) {
+                while (rs.next()) {
+                    names.add(rs.getString("TABLE_NAME").toLowerCase(Locale.ROOT));
+                }
+            }
+            return names;
+        });
+        for (String table : tables) {
+            String suffix = table.substring(TABLE_PREFIX.length());
+            LocalDate start = suffix.length() == granularity.suffix(LocalDate.now()).length()
+                    ? granularity.parse(suffix) : null;
+            if (start == null) {
+                log.warn("忽略与分区粒度 {} 不匹配的表: {}", granularity, table);
+                continue;
+            }
+            partitions.put(start, table);
+        }
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime value) {
+        return value != null ? Timestamp.valueOf(value) : null;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp value) {
+        return value != null ? value.toLocalDateTime() : null;
+    }
+}
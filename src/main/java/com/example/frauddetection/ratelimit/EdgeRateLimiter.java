@@ -0,0 +1,169 @@
+package com.example.frauddetection.ratelimit;
+
+import com.example.frauddetection.dto.FraudDetectionResult;
+import com.example.frauddetection.dto.TransactionRequest;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 检测接口的入口限流（按账户和按IP的令牌桶）
+ *
+ * 盗卡试探攻击会用同一账户或同一IP在短时间内提交成千上万笔小额交易，每一笔都要完整评估规则并写库。
+ * 检测接口在调用检测服务之前先按accountId和客户端地址各取一个令牌，任一超限即直接返回，不评估规则、不写库：
+ * reject模式返回429和Retry-After，flag模式直接返回欺诈决策（原因码rate-limit-account/rate-limit-ip）。
+ * 按IP取令牌时使用连接的对端地址而不是请求体中的ipAddress：请求体由调用方填写，攻击者每次换一个值即可绕过。
+ * 部署在反向代理之后时，只有对端是受信任代理（trusted-proxies）才读取X-Forwarded-For，
+ * 取其中最右边一个不是受信任代理的地址，见{@link TrustedProxies}。
+ * IP超限时退还已取的账户令牌，被拒绝的请求不消耗账户的额度。字段为空的维度不限流。
+ */
+@Slf4j
+@Component
+public class EdgeRateLimiter implements MeterBinder {
+
+    public static final String MODE_REJECT = "reject";
+    public static final String MODE_FLAG = "flag";
+
+    private static final String FORWARDED_FOR = "X-Forwarded-For";
+
+    private final boolean enabled;
+    private final boolean flag;
+    private final TokenBucketMap accountBuckets;
+    private final TokenBucketMap ipBuckets;
+    private final TrustedProxies trustedProxies;
+    private final LongAdder limitedByAccount = new LongAdder();
+    private final LongAdder limitedByIp = new LongAdder();
+
+    @Autowired
+    public EdgeRateLimiter(
+            @Value("${fraud-detection.rate-limit.enabled:true}") boolean enabled,
+            @Value("${fraud-detection.rate-limit.mode:reject}") String mode,
+            @Value("${fraud-detection.rate-limit.account.rate-per-second:5}") double accountRate,
+            @Value("${fraud-detection.rate-limit.account.burst:20}") int accountBurst,
+            @Value("${fraud-detection.rate-limit.ip.rate-per-second:20}") double ipRate,
+            @Value("${fraud-detection.rate-limit.ip.burst:100}") int ipBurst,
+            @Value("${fraud-detection.rate-limit.max-keys:100000}") int maxKeys,
+            @Value("${fraud-detection.rate-limit.trusted-proxies:}") String trustedProxies) {
+        if (!MODE_REJECT.equals(mode) && !MODE_FLAG.equals(mode)) {
+            throw new IllegalArgumentException("不支持的限流模式: " + mode);
+        }
+        this.enabled = enabled;
+        this.flag = MODE_FLAG.equals(mode);
+        this.accountBuckets = new TokenBucketMap(accountRate, accountBurst, maxKeys);
+        this.ipBuckets = new TokenBucketMap(ipRate, ipBurst, maxKeys);
+        this.trustedProxies = TrustedProxies.parse(trustedProxies);
+        log.info("入口限流: {}, 模式: {}, 账户: {}/s (突发{}), IP: {}/s (突发{}), 受信任代理: {}个",
+                enabled ? "启用" : "关闭", mode, accountRate, accountBurst, ipRate, ipBurst,
+                this.trustedProxies.size());
+    }
+
+    /**
+     * 为一次检测请求取令牌
+     *
+     * @param httpRequest 检测请求，从中解析客户端地址
+     * @return 超限时返回应直接返回的响应，放行时返回null
+     */
+    public ResponseEntity<FraudDetectionResult> check(TransactionRequest request, HttpServletRequest httpRequest) {
+        if (!enabled) {
+            return null;
+        }
+        String clientAddress = resolveClientAddress(httpRequest);
+        long now = System.nanoTime();
+        String accountId = request.getAccountId();
+        long waitNanos = accountId != null ? accountBuckets.tryAcquire(accountId, now) : 0;
+        if (waitNanos > 0) {
+            limitedByAccount.increment();
+            return limited(request, "account", waitNanos);
+        }
+        waitNanos = clientAddress != null ? ipBuckets.tryAcquire(clientAddress, now) : 0;
+        if (waitNanos > 0) {
+            if (accountId != null) {
+                accountBuckets.refund(accountId);
+            }
+            limitedByIp.increment();
+            return limited(request, "ip", waitNanos);
+        }
+        return null;
+    }
+
+    /**
+     * @return 对端是受信任代理时为X-Forwarded-For中最右边一个不是受信任代理的地址，否则为对端地址
+     */
+    public String resolveClientAddress(HttpServletRequest httpRequest) {
+        String remoteAddr = httpRequest.getRemoteAddr();
+        if (trustedProxies.isEmpty()) {
+            return remoteAddr;
+        }
+        return trustedProxies.resolve(remoteAddr, httpRequest.getHeaders(FORWARDED_FOR));
+    }
+
+    private ResponseEntity<FraudDetectionResult> limited(TransactionRequest request, String dimension, long waitNanos) {
+        log.debug("交易 {} 超出{}限流", request.getTransactionId(), dimension);
+        if (!flag) {
+            // 向上取整到秒
+            long retryAfterSeconds = (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                    .build();
+        }
+        return ResponseEntity.ok(FraudDetectionResult.builder()
+                .transactionId(request.getTransactionId())
+                .fraudulent(true)
+                .fraudReason("交易频率超限")
+                .reasonCodes(Collections.singletonList("rate-limit-" + dimension))
+                .build());
+    }
+
+    /**
+     * 定期淘汰已装满令牌的桶，控制内存占用
+     */
+    @Scheduled(fixedDelayString = "${fraud-detection.rate-limit.evict-interval-ms:10000}")
+    public void evictIdle() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        int evicted = accountBuckets.evictIdle(now) + ipBuckets.evictIdle(now);
+        if (evicted > 0) {
+            log.debug("淘汰{}个空闲令牌桶", evicted);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("fraud.ratelimit.limited", limitedByAccount, LongAdder::doubleValue)
+                .tag("dimension", "account")
+                .description("超出限流被直接处理的检测请求数")
+                .register(registry);
+        FunctionCounter.builder("fraud.ratelimit.limited", limitedByIp, LongAdder::doubleValue)
+                .tag("dimension", "ip")
+                .description("超出限流被直接处理的检测请求数")
+                .register(registry);
+        Gauge.builder("fraud.ratelimit.keys", accountBuckets, TokenBucketMap::size)
+                .tag("dimension", "account")
+                .description("跟踪中的令牌桶数")
+                .register(registry);
+        Gauge.builder("fraud.ratelimit.keys", ipBuckets, TokenBucketMap::size)
+                .tag("dimension", "ip")
+                .description("跟踪中的令牌桶数")
+                .register(registry);
+        FunctionCounter.builder("fraud.ratelimit.overflow", this,
+                        l -> l.accountBuckets.getOverflowCount() + l.ipBuckets.getOverflowCount())
+                .description("令牌桶数量已满、未限流直接放行的请求数")
+                .register(registry);
+    }
+}
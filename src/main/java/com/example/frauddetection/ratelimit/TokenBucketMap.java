@@ -0,0 +1,157 @@
+package com.example.frauddetection.ratelimit;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按键分桶的令牌桶（有界、分段、无锁）
+ *
+ * 每个键的令牌桶用GCRA（通用信元速率算法）表示：只保存一个"理论到达时间"tat，
+ * 取令牌时CAS为max(tat, now) + 发放间隔，新的tat超出now不到burst个间隔即放行。
+ * 与令牌数 + 上次补充时间的实现等价，但状态只有一个long，一次CAS即可完成，不需要加锁。
+ *
+ * 键按哈希分到若干段，每段最多maxKeys/段数个键。tat不晚于当前时间的桶已经装满令牌，
+ * 与不存在的桶行为相同，可以无损淘汰，因此空闲淘汰只删除这类桶。
+ * 某段装满且没有可淘汰的桶时（大量键同时超限），新键不限流，按overflow计数。
+ */
+public final class TokenBucketMap {
+
+    private static final int STRIPES = 16;
+    // 段满时两次清理之间的最小间隔，避免攻击期间每个新键都扫描整段
+    private static final long MIN_SWEEP_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long NEVER = Long.MIN_VALUE;
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final int maxKeysPerStripe;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final AtomicLong overflow = new AtomicLong();
+
+    /**
+     * @param ratePerSecond 每秒补充的令牌数
+     * @param burst         桶容量（允许的突发请求数）
+     * @param maxKeys       最多跟踪的键数
+     */
+    public TokenBucketMap(double ratePerSecond, int burst, int maxKeys) {
+        if (ratePerSecond <= 0 || burst < 1 || maxKeys < STRIPES) {
+            throw new IllegalArgumentException("令牌桶参数无效: rate=" + ratePerSecond + ", burst=" + burst
+                    + ", maxKeys=" + maxKeys);
+        }
+        this.emissionIntervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond));
+        this.burstToleranceNanos = emissionIntervalNanos * burst;
+        this.maxKeysPerStripe = maxKeys / STRIPES;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * 为键取一个令牌
+     *
+     * @return 0表示放行，否则为还需等待的纳秒数
+     */
+    public long tryAcquire(String key, long nowNanos) {
+        Stripe stripe = stripe(key);
+        AtomicLong tat = stripe.buckets.get(key);
+        if (tat == null) {
+            if (stripe.size.get() >= maxKeysPerStripe && stripe.sweepIfDue(nowNanos) == 0
+                    && stripe.size.get() >= maxKeysPerStripe) {
+                overflow.incrementAndGet();
+                return 0;
+            }
+            AtomicLong created = new AtomicLong(nowNanos);
+            tat = stripe.buckets.putIfAbsent(key, created);
+            if (tat == null) {
+                stripe.size.incrementAndGet();
+                tat = created;
+            }
+        }
+        while (true) {
+            long current = tat.get();
+            long next = Math.max(current, nowNanos) + emissionIntervalNanos;
+            long excess = next - nowNanos - burstToleranceNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * 退还一个已取得的令牌，用于同一请求在其他维度被拒绝时
+     * 桶已被淘汰时（已装满令牌）无需退还
+     */
+    public void refund(String key) {
+        AtomicLong tat = stripe(key).buckets.get(key);
+        if (tat != null) {
+            tat.addAndGet(-emissionIntervalNanos);
+        }
+    }
+
+    /**
+     * 淘汰已经装满令牌的桶
+     *
+     * @return 淘汰的键数
+     */
+    public int evictIdle(long nowNanos) {
+        int evicted = 0;
+        for (Stripe stripe : stripes) {
+            evicted += stripe.evictIdle(nowNanos);
+        }
+        return evicted;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size.get();
+        }
+        return size;
+    }
+
+    /**
+     * @return 因容量已满未能跟踪、直接放行的请求数
+     */
+    public long getOverflowCount() {
+        return overflow.get();
+    }
+
+    private Stripe stripe(String key) {
+        return stripes[(key.hashCode() ^ (key.hashCode() >>> 16)) & (STRIPES - 1)];
+    }
+
+    private static final class Stripe {
+        private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicLong lastSweepNanos = new AtomicLong(NEVER);
+
+        private int sweepIfDue(long nowNanos) {
+            long last = lastSweepNanos.get();
+            if (last != NEVER && nowNanos - last < MIN_SWEEP_INTERVAL_NANOS
+                    || !lastSweepNanos.compareAndSet(last, nowNanos)) {
+                return 0;
+            }
+            return evictIdle(nowNanos);
+        }
+
+        private int evictIdle(long nowNanos) {
+            int evicted = 0;
+            Iterator<Map.Entry<String, AtomicLong>> iterator = buckets.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, AtomicLong> entry = iterator.next();
+                // 与取令牌并发时最多丢失该键的一次取令牌记录，可以接受
+                if (entry.getValue().get() - nowNanos <= 0 && buckets.remove(entry.getKey(), entry.getValue())) {
+                    size.decrementAndGet();
+                    evicted++;
+                }
+            }
+            return evicted;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.frauddetection.ratelimit;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * 受信任的反向代理地址（单个IP或CIDR网段），用于从X-Forwarded-For中解析客户端地址
+ *
+ * 只有连接的对端地址是受信任代理时才读取X-Forwarded-For，从右往左跳过受信任代理，
+ * 取第一个不是受信任代理的地址：最右边的条目由离服务最近的代理追加，左边的条目可能由客户端伪造。
+ * 不使用容器的forward-headers-strategy：Undertow的处理器接受任意对端发来的X-Forwarded-For。
+ */
+public final class TrustedProxies {
+
+    private final List<Cidr> entries;
+
+    private TrustedProxies(List<Cidr> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * @param spec 逗号分隔的IP或CIDR，例如 10.0.0.0/8,192.168.1.10；为空时不信任任何代理
+     */
+    public static TrustedProxies parse(String spec) {
+        if (spec == null || spec.trim().isEmpty()) {
+            return new TrustedProxies(Collections.emptyList());
+        }
+        List<Cidr> entries = new ArrayList<>();
+        for (String item : spec.split(",")) {
+            String value = item.trim();
+            if (value.isEmpty()) {
+                continue;
+            }
+            int slash = value.indexOf('/');
+            byte[] network = literal(slash < 0 ? value : value.substring(0, slash));
+            if (network == null) {
+                throw new IllegalArgumentException("无效的受信任代理地址: " + value);
+            }
+            int prefix;
+            try {
+                prefix = slash < 0 ? network.length * 8 : Integer.parseInt(value.substring(slash + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("无效的受信任代理地址: " + value, e);
+            }
+            if (prefix < 0 || prefix > network.length * 8) {
+                throw new IllegalArgumentException("无效的受信任代理地址: " + value);
+            }
+            entries.add(new Cidr(network, prefix));
+        }
+        return new TrustedProxies(entries);
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean contains(String address) {
+        if (entries.isEmpty() || address == null) {
+            return false;
+        }
+        byte[] bytes = literal(address.trim());
+        if (bytes == null) {
+            return false;
+        }
+        for (Cidr entry : entries) {
+            if (entry.matches(bytes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 解析客户端地址
+     *
+     * @param remoteAddr    连接的对端地址
+     * @param forwardedFor  所有X-Forwarded-For请求头，按出现顺序
+     * @return 对端不是受信任代理或没有X-Forwarded-For时返回remoteAddr；
+     *         所有转发地址都是受信任代理时返回最左边的地址
+     */
+    public String resolve(String remoteAddr, Enumeration<String> forwardedFor) {
+        if (!contains(remoteAddr) || forwardedFor == null) {
+            return remoteAddr;
+        }
+        List<String> hops = new ArrayList<>();
+        while (forwardedFor.hasMoreElements()) {
+            String header = forwardedFor.nextElement();
+            if (header == null) {
+                continue;
+            }
+            for (String hop : header.split(",")) {
+                String value = hop.trim();
+                if (!value.isEmpty()) {
+                    hops.add(value);
+                }
+            }
+        }
+        for (int i = hops.size() - 1; i >= 0; i--) {
+            if (!contains(hops.get(i))) {
+                return hops.get(i);
+            }
+        }
+        return hops.isEmpty() ? remoteAddr : hops.get(0);
+    }
+
+    /**
+     * 解析IP字面量，不是IP字面量时返回null（不做DNS查询）
+     */
+    private static byte[] literal(String value) {
+        if (value.startsWith("[") && value.endsWith("]")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        if (value.isEmpty()) {
+            return null;
+        }
+        boolean ipv6 = value.indexOf(':') >= 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            boolean valid = (c >= '0' && c <= '9') || c == '.'
+                    || (ipv6 && (c == ':' || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F')));
+            if (!valid) {
+                return null;
+            }
+        }
+        if (!ipv6) {
+            // 自行解析IPv4，避免InetAddress把不合法的字面量当作主机名查询DNS
+            String[] parts = value.split("\\.", -1);
+            if (parts.length != 4) {
+                return null;
+            }
+            byte[] bytes = new byte[4];
+            for (int i = 0; i < 4; i++) {
+                if (parts[i].isEmpty() || parts[i].length() > 3) {
+                    return null;
+                }
+                int octet = Integer.parseInt(parts[i]);
+                if (octet > 255) {
+                    return null;
+                }
+                bytes[i] = (byte) octet;
+            }
+            return bytes;
+        }
+        try {
+            return InetAddress.getByName(value).getAddress();
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private static final class Cidr {
+        private final byte[] network;
+        private final int prefix;
+
+        private Cidr(byte[] network, int prefix) {
+            this.network = network;
+            this.prefix = prefix;
+        }
+
+        private boolean matches(byte[] address) {
+            if (address.length != network.length) {
+                return false;
+            }
+            int fullBytes = prefix / 8;
+            for (int i = 0; i < fullBytes; i++) {
+                if (address[i] != network[i]) {
+                    return false;
+                }
+            }
+            int remainingBits = prefix % 8;
+            if (remainingBits == 0) {
+                return true;
+            }
+            int mask = (0xFF << (8 - remainingBits)) & 0xFF;
+            return (address[fullBytes] & mask) == (network[fullBytes] & mask);
+        }
+    }
+}
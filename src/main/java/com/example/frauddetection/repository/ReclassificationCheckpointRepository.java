@@ -0,0 +1,19 @@
+package com.example.frauddetection.repository;
+
+import com.example.frauddetection.model.ReclassificationCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface ReclassificationCheckpointRepository extends JpaRepository<ReclassificationCheckpoint, String> {
+
+    /**
+     * 检查点带乐观锁版本号，读写分离时也必须从主库读取
+     */
+    @Override
+    @Transactional
+    Optional<ReclassificationCheckpoint> findById(String jobName);
+}
@@ -0,0 +1,25 @@
+package com.example.frauddetection.repository;
+
+import com.example.frauddetection.model.Transaction;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 交易查询接口，启用时间分区时路由到相关分区
+ */
+public interface TransactionQueries {
+
+    Transaction findByTransactionId(String transactionId);
+
+    List<Transaction> findByAccountId(String accountId);
+
+    List<Transaction> findByAccountIdAndTimestampBetween(String accountId, LocalDateTime start, LocalDateTime end);
+
+    /**
+     * 只需要条数时使用，由数据库计数，不加载交易记录
+     */
+    long countByAccountIdAndTimestampBetween(String accountId, LocalDateTime start, LocalDateTime end);
+
+    List<Transaction> findByFraudulentIsTrue();
+}
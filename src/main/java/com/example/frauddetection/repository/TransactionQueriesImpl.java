@@ -0,0 +1,106 @@
+package com.example.frauddetection.repository;
+
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.persistence.partition.PartitionedTransactionStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TransactionRepository的查询实现
+ *
+ * 默认查询transaction表；分区模式下同时查询分区表，transaction表中切换前写入的历史数据仍然可见。
+ */
+@Transactional(readOnly = true)
+public class TransactionQueriesImpl implements TransactionQueries {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ObjectProvider<PartitionedTransactionStore> partitionedStore;
+
+    @Autowired
+    public TransactionQueriesImpl(ObjectProvider<PartitionedTransactionStore> partitionedStore) {
+        this.partitionedStore = partitionedStore;
+    }
+
+    @Override
+    public Transaction findByTransactionId(String transactionId) {
+        PartitionedTransactionStore store = partitionedStore.getIfAvailable();
+        if (store != null) {
+            Transaction transaction = store.findByTransactionId(transactionId);
+            if (transaction != null) {
+                return transaction;
+            }
+        }
+        List<Transaction> rows = entityManager
+                .createQuery("SELECT t FROM Transaction t WHERE t.transactionId = :transactionId", Transaction.class)
+                .setParameter("transactionId", transactionId)
+                .setMaxResults(1)
+                .getResultList();
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    @Override
+    public List<Transaction> findByAccountId(String accountId) {
+        List<Transaction> result = new ArrayList<>(entityManager
+                .createQuery("SELECT t FROM Transaction t WHERE t.accountId = :accountId", Transaction.class)
+                .setParameter("accountId", accountId)
+                .getResultList());
+        PartitionedTransactionStore store = partitionedStore.getIfAvailable();
+        if (store != null) {
+            result.addAll(store.findByAccountId(accountId));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Transaction> findByAccountIdAndTimestampBetween(String accountId, LocalDateTime start, LocalDateTime end) {
+        List<Transaction> result = new ArrayList<>(entityManager
+                .createQuery("SELECT t FROM Transaction t WHERE t.accountId = :accountId "
+                        + "AND t.timestamp BETWEEN :start AND :end", Transaction.class)
+                .setParameter("accountId", accountId)
+                .setParameter("start", start)
+                .setParameter("end", end)
+                .getResultList());
+        PartitionedTransactionStore store = partitionedStore.getIfAvailable();
+        if (store != null) {
+            result.addAll(store.findByAccountIdAndTimestampBetween(accountId, start, end));
+        }
+        return result;
+    }
+
+    @Override
+    public long countByAccountIdAndTimestampBetween(String accountId, LocalDateTime start, LocalDateTime end) {
+        long count = entityManager
+                .createQuery("SELECT COUNT(t) FROM Transaction t WHERE t.accountId = :accountId "
+                        + "AND t.timestamp BETWEEN :start AND :end", Long.class)
+                .setParameter("accountId", accountId)
+                .setParameter("start", start)
+                .setParameter("end", end)
+                .getSingleResult();
+        PartitionedTransactionStore store = partitionedStore.getIfAvailable();
+        if (store != null) {
+            count += store.countByAccountIdAndTimestampBetween(accountId, start, end);
+        }
+        return count;
+    }
+
+    @Override
+    public List<Transaction> findByFraudulentIsTrue() {
+        List<Transaction> result = new ArrayList<>(entityManager
+                .createQuery("SELECT t FROM Transaction t WHERE t.fraudulent = true", Transaction.class)
+                .getResultList());
+        PartitionedTransactionStore store = partitionedStore.getIfAvailable();
+        if (store != null) {
+            result.addAll(store.findFraudulent());
+        }
+        return result;
+    }
+}
@@ -1,20 +1,32 @@
 package com.example.frauddetection.repository;
 
 import com.example.frauddetection.model.Transaction;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, TransactionQueries {
     
-    Transaction findByTransactionId(String transactionId);
+    /**
+     * 用于写入前去重，读写分离时必须从主库读取
+     */
+    @Transactional
+    List<Transaction> findByTransactionIdIn(Collection<String> transactionIds);
     
-    List<Transaction> findByAccountId(String accountId);
+    /**
+     * 按主键游标分页扫描，配合PageRequest.of(0, size)使用，避免OFFSET深分页
+     */
+    List<Transaction> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
     
-    List<Transaction> findByAccountIdAndTimestampBetween(String accountId, LocalDateTime start, LocalDateTime end);
+    List<Transaction> findByIdGreaterThanAndTimestampBetweenOrderByIdAsc(
+            Long id, LocalDateTime start, LocalDateTime end, Pageable pageable);
     
-    List<Transaction> findByFraudulentIsTrue();
+    List<Transaction> findByIdGreaterThanAndTimestampBeforeOrderByIdAsc(
+            Long id, LocalDateTime cutoff, Pageable pageable);
 } 
\ No newline at end of file
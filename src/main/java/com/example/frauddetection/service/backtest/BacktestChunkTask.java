@@ -0,0 +1,75 @@
+package com.example.frauddetection.service.backtest;
+
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.service.rule.FraudRule;
+import com.example.frauddetection.service.rule.RuleEvaluation;
+import com.example.frauddetection.service.rule.RuleSet;
+import com.example.frauddetection.service.rule.TransactionFeatures;
+
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 在一批交易上并行评估所有候选规则集的fork-join任务
+ * 按下标二分拆分，每笔交易只提取一次特征，再依次交给各候选规则集评估
+ */
+final class BacktestChunkTask extends RecursiveTask<BacktestTally[]> {
+
+    private static final int SEQUENTIAL_THRESHOLD = 256;
+
+    private final List<Transaction> transactions;
+    private final int from;
+    private final int to;
+    private final RuleSet[] candidates;
+    private final int sampleSize;
+
+    BacktestChunkTask(List<Transaction> transactions, int from, int to, RuleSet[] candidates, int sampleSize) {
+        this.transactions = transactions;
+        this.from = from;
+        this.to = to;
+        this.candidates = candidates;
+        this.sampleSize = sampleSize;
+    }
+
+    @Override
+    protected BacktestTally[] compute() {
+        if (to - from <= SEQUENTIAL_THRESHOLD) {
+            return computeSequentially();
+        }
+        int mid = (from + to) >>> 1;
+        BacktestChunkTask left = new BacktestChunkTask(transactions, from, mid, candidates, sampleSize);
+        BacktestChunkTask right = new BacktestChunkTask(transactions, mid, to, candidates, sampleSize);
+        left.fork();
+        BacktestTally[] rightResult = right.compute();
+        BacktestTally[] leftResult = left.join();
+        for (int c = 0; c < leftResult.length; c++) {
+            leftResult[c].merge(rightResult[c], sampleSize);
+        }
+        return leftResult;
+    }
+
+    private BacktestTally[] computeSequentially() {
+        BacktestTally[] tallies = new BacktestTally[candidates.length];
+        for (int c = 0; c < candidates.length; c++) {
+            tallies[c] = new BacktestTally();
+        }
+        for (int i = from; i < to; i++) {
+            Transaction transaction = transactions.get(i);
+            TransactionFeatures features = TransactionFeatures.of(transaction);
+            for (int c = 0; c < candidates.length; c++) {
+                RuleEvaluation evaluation = candidates[c].evaluate(features);
+                BacktestTally tally = tallies[c];
+                for (FraudRule rule : evaluation.getMatchedRules()) {
+                    tally.recordHit(rule.getCode());
+                }
+                if (evaluation.isBlocked()) {
+                    tally.flagged++;
+                }
+                if (evaluation.isBlocked() != transaction.isFraudulent()) {
+                    tally.recordFlip(transaction.getTransactionId(), evaluation.isBlocked(), sampleSize);
+                }
+            }
+        }
+        return tallies;
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.frauddetection.service.backtest;
+
+import com.example.frauddetection.dto.BacktestCandidate;
+import com.example.frauddetection.dto.BacktestReport;
+import com.example.frauddetection.dto.BacktestRequest;
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.repository.TransactionRepository;
+import com.example.frauddetection.service.rule.BuiltinRules;
+import com.example.frauddetection.service.rule.FraudRule;
+import com.example.frauddetection.service.rule.RuleScoringProperties;
+import com.example.frauddetection.service.rule.RuleSet;
+import com.example.frauddetection.service.rule.dsl.DslRuleParser;
+import com.example.frauddetection.service.rule.dsl.DslRuleRegistry;
+import com.example.frauddetection.service.rule.dsl.RuleExpressionException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * 规则回测服务
+ *
+ * 按主键游标分批读取历史交易，每批在专用ForkJoinPool中并行评估所有候选规则配置，
+ * 评估当前批次的同时预取下一批，统计各候选的命中数、翻转数和翻转交易样本。
+ * 回测任务在后台单线程排队执行，避免多个回测同时占用数据库。
+ */
+@Slf4j
+@Service
+public class BacktestService {
+
+    private static final int MAX_RETAINED_JOBS = 20;
+
+    @Value("${fraud-detection.rules.max-transaction-amount}")
+    private BigDecimal maxTransactionAmount;
+
+    @Value("${fraud-detection.rules.suspicious-countries}")
+    private String suspiciousCountries;
+
+    @Value("${fraud-detection.rules.min-account-age-days}")
+    private int minAccountAgeDays;
+
+    private final TransactionRepository transactionRepository;
+    private final RuleScoringProperties scoringProperties;
+    private final DslRuleRegistry dslRuleRegistry;
+    private final ForkJoinPool forkJoinPool;
+    private final ExecutorService jobExecutor;
+    private final int defaultChunkSize;
+    private final Map<String, BacktestReport> jobs = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    @Autowired
+    public BacktestService(
+            TransactionRepository transactionRepository,
+            RuleScoringProperties scoringProperties,
+            DslRuleRegistry dslRuleRegistry,
+            @Value("${fraud-detection.backtest.parallelism:0}") int parallelism,
+            @Value("${fraud-detection.backtest.chunk-size:2000}") int defaultChunkSize) {
+        this.transactionRepository = transactionRepository;
+        this.scoringProperties = scoringProperties;
+        this.dslRuleRegistry = dslRuleRegistry;
+        this.forkJoinPool = new ForkJoinPool(
+                parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.jobExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "backtest-job-thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.defaultChunkSize = defaultChunkSize;
+    }
+
+    /**
+     * 提交回测任务，立即返回任务ID
+     *
+     * @throws RuleExpressionException 候选配置中的DSL规则不合法
+     */
+    public BacktestReport submit(BacktestRequest request) {
+        // 提交前编译，配置错误直接返回给调用方
+        RuleSet[] candidates = compileCandidates(request.getCandidates());
+
+        String jobId = UUID.randomUUID().toString();
+        BacktestReport report = BacktestReport.builder()
+                .jobId(jobId)
+                .status("RUNNING")
+                .startedAt(LocalDateTime.now())
+                .build();
+        retain(jobId, report);
+        jobExecutor.submit(() -> run(report, request, candidates));
+        log.info("回测任务已提交: {}, 候选配置数: {}", jobId, candidates.length);
+        return report;
+    }
+
+    public BacktestReport getReport(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * 同步执行回测
+     */
+    public BacktestReport runNow(BacktestRequest request) {
+        BacktestReport report = BacktestReport.builder()
+                .jobId(UUID.randomUUID().toString())
+                .status("RUNNING")
+                .startedAt(LocalDateTime.now())
+                .build();
+        run(report, request, compileCandidates(request.getCandidates()));
+        return report;
+    }
+
+    private void run(BacktestReport report, BacktestRequest request, RuleSet[] candidates) {
+        long startTime = System.currentTimeMillis();
+        int chunkSize = request.getChunkSize() != null && request.getChunkSize() > 0
+                ? request.getChunkSize() : defaultChunkSize;
+        int sampleSize = request.getSampleSize() != null ? request.getSampleSize() : 20;
+        BacktestTally[] totals = new BacktestTally[candidates.length];
+        for (int c = 0; c < candidates.length; c++) {
+            totals[c] = new BacktestTally();
+        }
+
+        try {
+            long scanned = 0;
+            List<Transaction> chunk = fetchChunk(request, 0L, chunkSize);
+            while (!chunk.isEmpty()) {
+                ForkJoinTask<BacktestTally[]> task = forkJoinPool.submit(
+                        new BacktestChunkTask(chunk, 0, chunk.size(), candidates, sampleSize));
+
+                // 评估当前批次的同时预取下一批
+                Long lastId = chunk.get(chunk.size() - 1).getId();
+                List<Transaction> next = chunk.size() < chunkSize
+                        ? Collections.<Transaction>emptyList() : fetchChunk(request, lastId, chunkSize);
+
+                BacktestTally[] tallies = task.join();
+                for (int c = 0; c < candidates.length; c++) {
+                    totals[c].merge(tallies[c], sampleSize);
+                }
+                scanned += chunk.size();
+                report.setScanned(scanned);
+                chunk = next;
+            }
+
+            report.setCandidates(toResults(request.getCandidates(), totals));
+            report.setStatus("COMPLETED");
+            log.info("回测任务完成: {}, 扫描交易数: {}, 耗时: {}ms",
+                    report.getJobId(), scanned, System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            log.error("回测任务失败: {}", report.getJobId(), e);
+            report.setStatus("FAILED");
+            report.setError(e.getMessage());
+        } finally {
+            report.setElapsedMs(System.currentTimeMillis() - startTime);
+        }
+    }
+
+    private List<Transaction> fetchChunk(BacktestRequest request, Long afterId, int chunkSize) {
+        PageRequest page = PageRequest.of(0, chunkSize);
+        if (request.getStart() != null || request.getEnd() != null) {
+            LocalDateTime start = request.getStart() != null ? request.getStart() : LocalDateTime.of(1970, 1, 1, 0, 0);
+            LocalDateTime end = request.getEnd() != null ? request.getEnd() : LocalDateTime.of(9999, 12, 31, 0, 0);
+            return transactionRepository.findByIdGreaterThanAndTimestampBetweenOrderByIdAsc(afterId, start, end, page);
+        }
+        return transactionRepository.findByIdGreaterThanOrderByIdAsc(afterId, page);
+    }
+
+    RuleSet[] compileCandidates(List<BacktestCandidate> candidates) {
+        if (candidates == null || candidates.isEmpty()) {
+            throw new IllegalArgumentException("至少需要一个候选配置");
+        }
+        RuleSet[] ruleSets = new RuleSet[candidates.size()];
+        for (int c = 0; c < ruleSets.length; c++) {
+            ruleSets[c] = compile(candidates.get(c));
+        }
+        return ruleSets;
+    }
+
+    private RuleSet compile(BacktestCandidate candidate) {
+        List<FraudRule> rules = new ArrayList<>(BuiltinRules.create(
+                candidate.getMaxTransactionAmount() != null ? candidate.getMaxTransactionAmount() : maxTransactionAmount,
+                candidate.getSuspiciousCountries() != null ? candidate.getSuspiciousCountries() : suspiciousCountries,
+                candidate.getMinAccountAgeDays() != null ? candidate.getMinAccountAgeDays() : minAccountAgeDays,
+                scoringProperties));
+        if (!Boolean.FALSE.equals(candidate.getIncludeDslRules())) {
+            rules.addAll(dslRuleRegistry.getRules());
+        }
+        if (candidate.getExtraRules() != null) {
+            int lineNo = 0;
+            for (String line : candidate.getExtraRules()) {
+                rules.add(DslRuleParser.parseLine(line, ++lineNo));
+            }
+        }
+        double threshold = candidate.getBlockThreshold() != null
+                ? candidate.getBlockThreshold() : scoringProperties.getBlockThreshold();
+        return new RuleSet(rules, threshold);
+    }
+
+    private List<BacktestReport.CandidateResult> toResults(List<BacktestCandidate> candidates, BacktestTally[] totals) {
+        List<BacktestReport.CandidateResult> results = new ArrayList<>(totals.length);
+        for (int c = 0; c < totals.length; c++) {
+            BacktestCandidate candidate = candidates.get(c);
+            results.add(BacktestReport.CandidateResult.builder()
+                    .name(candidate.getName() != null ? candidate.getName() : "candidate-" + (c + 1))
+                    .flagged(totals[c].flagged)
+                    .flippedToFraud(totals[c].flippedToFraud)
+                    .flippedToClean(totals[c].flippedToClean)
+                    .ruleHits(new TreeMap<>(totals[c].ruleHits))
+                    .sampleFlippedIds(totals[c].sampleFlippedIds)
+                    .build());
+        }
+        return results;
+    }
+
+    private void retain(String jobId, BacktestReport report) {
+        synchronized (jobs) {
+            jobs.put(jobId, report);
+            Iterator<String> iterator = jobs.keySet().iterator();
+            while (jobs.size() > MAX_RETAINED_JOBS && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        forkJoinPool.shutdownNow();
+    }
+}
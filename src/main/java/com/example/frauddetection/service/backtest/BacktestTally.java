@@ -0,0 +1,47 @@
+package com.example.frauddetection.service.backtest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单个候选配置在一段交易上的统计，分段计算后逐级合并
+ * 每个实例只被一个线程写入，合并在join之后进行，无需同步
+ */
+final class BacktestTally {
+
+    long flagged;
+    long flippedToFraud;
+    long flippedToClean;
+    final Map<String, Long> ruleHits = new HashMap<>();
+    final List<String> sampleFlippedIds = new ArrayList<>();
+
+    void recordHit(String ruleCode) {
+        ruleHits.merge(ruleCode, 1L, Long::sum);
+    }
+
+    void recordFlip(String transactionId, boolean toFraud, int sampleSize) {
+        if (toFraud) {
+            flippedToFraud++;
+        } else {
+            flippedToClean++;
+        }
+        if (sampleFlippedIds.size() < sampleSize) {
+            sampleFlippedIds.add(transactionId);
+        }
+    }
+
+    void merge(BacktestTally other, int sampleSize) {
+        flagged += other.flagged;
+        flippedToFraud += other.flippedToFraud;
+        flippedToClean += other.flippedToClean;
+        other.ruleHits.forEach((code, hits) -> ruleHits.merge(code, hits, Long::sum));
+        for (String id : other.sampleFlippedIds) {
+            if (sampleFlippedIds.size() >= sampleSize) {
+                break;
+            }
+            sampleFlippedIds.add(id);
+        }
+    }
+}
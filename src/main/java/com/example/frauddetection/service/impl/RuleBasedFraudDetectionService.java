@@ -2,18 +2,31 @@ package com.example.frauddetection.service.impl;
 
 import com.example.frauddetection.dto.FraudDetectionResult;
 import com.example.frauddetection.dto.TransactionRequest;
+import com.example.frauddetection.messaging.alert.FraudAlertPublisher;
 import com.example.frauddetection.model.Transaction;
-import com.example.frauddetection.repository.TransactionRepository;
+import com.example.frauddetection.persistence.TransactionWriter;
 import com.example.frauddetection.service.FraudDetectionService;
+import com.example.frauddetection.service.rule.BuiltinRules;
+import com.example.frauddetection.service.rule.FraudRule;
+import com.example.frauddetection.service.rule.RuleEvaluation;
+import com.example.frauddetection.service.rule.RuleScoringProperties;
+import com.example.frauddetection.service.rule.RuleSet;
+import com.example.frauddetection.service.rule.TransactionFeatures;
+import com.example.frauddetection.service.rule.expensive.ExpensiveRuleOutcome;
+import com.example.frauddetection.service.rule.expensive.ParallelRuleEvaluator;
+import com.example.frauddetection.service.rule.dsl.DslRuleRegistry;
+import com.example.frauddetection.service.rule.dsl.RuleSetChangedEvent;
+import com.example.frauddetection.service.shadow.ShadowRuleEvaluator;
+import com.example.frauddetection.service.tiered.DeepAnalysisService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
 
 @Slf4j
@@ -29,11 +42,31 @@ public class RuleBasedFraudDetectionService implements FraudDetectionService {
     @Value("${fraud-detection.rules.min-account-age-days}")
     private int minAccountAgeDays;
 
-    private final TransactionRepository transactionRepository;
+    private final TransactionWriter transactionWriter;
+    private final ParallelRuleEvaluator parallelRuleEvaluator;
+    private final RuleScoringProperties scoringProperties;
+    private final DslRuleRegistry dslRuleRegistry;
+    private final ShadowRuleEvaluator shadowRuleEvaluator;
+    private final FraudAlertPublisher fraudAlertPublisher;
+    private final DeepAnalysisService deepAnalysisService;
+    private volatile RuleSet ruleSet;
 
     @Autowired
-    public RuleBasedFraudDetectionService(TransactionRepository transactionRepository) {
-        this.transactionRepository = transactionRepository;
+    public RuleBasedFraudDetectionService(
+            TransactionWriter transactionWriter,
+            ParallelRuleEvaluator parallelRuleEvaluator,
+            RuleScoringProperties scoringProperties,
+            DslRuleRegistry dslRuleRegistry,
+            ShadowRuleEvaluator shadowRuleEvaluator,
+            FraudAlertPublisher fraudAlertPublisher,
+            DeepAnalysisService deepAnalysisService) {
+        this.transactionWriter = transactionWriter;
+        this.parallelRuleEvaluator = parallelRuleEvaluator;
+        this.scoringProperties = scoringProperties;
+        this.dslRuleRegistry = dslRuleRegistry;
+        this.shadowRuleEvaluator = shadowRuleEvaluator;
+        this.fraudAlertPublisher = fraudAlertPublisher;
+        this.deepAnalysisService = deepAnalysisService;
     }
 
     @Override
@@ -42,72 +75,107 @@ public class RuleBasedFraudDetectionService implements FraudDetectionService {
         long startTime = System.currentTimeMillis();
 
         // 应用各种规则检测欺诈
-        FraudDetectionResult result = applyRules(request);
+        TransactionFeatures features = TransactionFeatures.of(request);
+        FraudDetectionResult result = applyRules(request, features);
+        
+        // 账户历史等耗时规则并行评估，总耗时不超过期限，模型评分在当前线程同步评估；启用分级决策时移到第二级异步执行
+        if (!deepAnalysisService.isEnabled()) {
+            applyExpensiveRules(request, result, parallelRuleEvaluator.evaluate(request));
+        }
+        
+        // 候选规则影子评估，异步执行不影响线上决策
+        shadowRuleEvaluator.submit(features, result.isFraudulent());
         
         // 保存交易记录
         saveTransaction(request, result);
         
+        // 欺诈警报按账户合并后异步发布，不阻塞决策
+        fraudAlertPublisher.publish(request, result);
+        
+        // 分级决策：模型评分、账户历史等耗时分析异步执行，更新的决策按交易ID另行发布
+        if (deepAnalysisService.isEnabled()) {
+            deepAnalysisService.submit(request, result);
+        }
+        
         // 计算处理时间
         long processingTime = System.currentTimeMillis() - startTime;
         result.setProcessingTimeMs(processingTime);
         
-        log.info("交易 {} 分析完成，是否欺诈: {}, 原因: {}, 处理时间: {}ms", 
+        log.info("交易 {} 分析完成，是否欺诈: {}, 原因: {}, 风险分: {}, 处理时间: {}ms", 
                 request.getTransactionId(), result.isFraudulent(), 
-                result.getFraudReason(), processingTime);
+                result.getFraudReason(), result.getRuleScore(), processingTime);
         
         return result;
     }
     
-    private FraudDetectionResult applyRules(TransactionRequest request) {
-        // 规则1: 检查交易金额是否超过阈值
-        if (isAmountExceedingThreshold(request.getAmount())) {
-            return buildFraudResult(request.getTransactionId(), "交易金额超过阈值");
-        }
-        
-        // 规则2: 检查交易是否来自可疑国家
-        if (isFromSuspiciousCountry(request.getSourceCountry())) {
-            return buildFraudResult(request.getTransactionId(), "交易来自可疑国家");
-        }
-        
-        // 规则3: 检查账户年龄是否过新（可能是欺诈账户）
-        if (isAccountTooNew(request.getAccountCreationDate())) {
-            return buildFraudResult(request.getTransactionId(), "账户创建时间过短");
-        }
-        
-        // 通过所有规则，交易被认为是合法的
-        return FraudDetectionResult.builder()
-                .transactionId(request.getTransactionId())
-                .fraudulent(false)
-                .build();
+    /**
+     * 按当前配置编译规则集（内置规则 + DSL规则），配置注入完成后调用
+     */
+    @PostConstruct
+    public void init() {
+        List<FraudRule> rules = new ArrayList<>(BuiltinRules.create(
+                maxTransactionAmount, suspiciousCountries, minAccountAgeDays, scoringProperties));
+        rules.addAll(dslRuleRegistry.getRules());
+        this.ruleSet = new RuleSet(rules, scoringProperties.getBlockThreshold());
+        log.info("规则集已加载: {}, 拦截阈值: {}", ruleSet.getRules(), ruleSet.getBlockThreshold());
     }
     
-    private boolean isAmountExceedingThreshold(BigDecimal amount) {
-        return amount.compareTo(maxTransactionAmount) > 0;
+    /**
+     * DSL规则重新加载后重建规则集，新规则集整体替换旧规则集
+     */
+    @EventListener
+    public void onRuleSetChanged(RuleSetChangedEvent event) {
+        log.info("收到规则变更通知, 版本: {}", event.getVersion());
+        init();
     }
     
-    private boolean isFromSuspiciousCountry(String countryCode) {
-        List<String> suspiciousCountryList = Arrays.asList(suspiciousCountries.split(","));
-        return suspiciousCountryList.contains(countryCode);
+    /**
+     * @return 当前生效的规则（按评估顺序）
+     */
+    public RuleSet getActiveRuleSet() {
+        return ruleSet;
     }
     
-    private boolean isAccountTooNew(LocalDateTime accountCreationDate) {
-        if (accountCreationDate == null) {
-            return true; // 如果没有提供账户创建日期，视为可疑
-        }
+    private FraudDetectionResult applyRules(TransactionRequest request, TransactionFeatures features) {
+        RuleEvaluation evaluation = ruleSet.evaluate(features);
         
-        // JDK 8兼容的方式计算天数
-        long accountAgeInDays = ChronoUnit.DAYS.between(accountCreationDate, LocalDateTime.now());
-        return accountAgeInDays < minAccountAgeDays;
-    }
-    
-    private FraudDetectionResult buildFraudResult(String transactionId, String reason) {
         return FraudDetectionResult.builder()
-                .transactionId(transactionId)
-                .fraudulent(true)
-                .fraudReason(reason)
+                .transactionId(request.getTransactionId())
+                .fraudulent(evaluation.isBlocked())
+                .fraudReason(evaluation.isBlocked() ? evaluation.describeReasons() : null)
+                .ruleScore(evaluation.getScore())
+                .reasonCodes(evaluation.getReasonCodes())
                 .build();
     }
     
+    /**
+     * 合并耗时规则的结果：命中的规则直接判定欺诈，使用了兜底结果的规则记录在决策中
+     */
+    private void applyExpensiveRules(TransactionRequest request, FraudDetectionResult result,
+                                     List<ExpensiveRuleOutcome> outcomes) {
+        for (ExpensiveRuleOutcome outcome : outcomes) {
+            if (outcome.getRiskScore() != null) {
+                result.setRiskScore(outcome.getRiskScore());
+            }
+            if (outcome.isFallback()) {
+                if (result.getFallbackRules() == null) {
+                    result.setFallbackRules(new ArrayList<>(2));
+                }
+                result.getFallbackRules().add(outcome.getCode());
+            }
+            if (outcome.isMatched()) {
+                result.getReasonCodes().add(outcome.getCode());
+                if (!result.isFraudulent()) {
+                    result.setFraudulent(true);
+                    result.setFraudReason(outcome.getReason());
+                }
+            }
+        }
+        if (result.getFallbackRules() != null) {
+            log.warn("交易 {} 的耗时规则使用了兜底结果: {}", request.getTransactionId(), result.getFallbackRules());
+        }
+    }
+    
     private void saveTransaction(TransactionRequest request, FraudDetectionResult result) {
         Transaction transaction = Transaction.builder()
                 .transactionId(request.getTransactionId())
@@ -124,6 +192,6 @@ public class RuleBasedFraudDetectionService implements FraudDetectionService {
                 .fraudReason(result.getFraudReason())
                 .build();
                 
-        transactionRepository.save(transaction);
+        transactionWriter.write(transaction);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.example.frauddetection.service.ml;
+
+/**
+ * 模型支持的输入特征
+ * 模型文件中的特征名在加载时解析为枚举，推理时不再做任何字符串或Map查找
+ */
+public enum ModelFeature {
+
+    AMOUNT("amount"),
+    LOG_AMOUNT("log_amount"),
+    ACCOUNT_AGE_DAYS("account_age_days"),
+    HOUR_OF_DAY("hour_of_day"),
+    CROSS_BORDER("cross_border");
+
+    private final String featureName;
+
+    ModelFeature(String featureName) {
+        this.featureName = featureName;
+    }
+
+    public String getFeatureName() {
+        return featureName;
+    }
+
+    public static ModelFeature fromName(String name) {
+        for (ModelFeature feature : values()) {
+            if (feature.featureName.equals(name)) {
+                return feature;
+            }
+        }
+        throw new ModelLoadException("不支持的模型特征: " + name);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.frauddetection.service.ml;
+
+/**
+ * 模型文件加载或格式校验失败时抛出
+ */
+public class ModelLoadException extends RuntimeException {
+
+    public ModelLoadException(String message) {
+        super(message);
+    }
+
+    public ModelLoadException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.frauddetection.service.ml;
+
+import com.example.frauddetection.dto.TransactionRequest;
+import com.example.frauddetection.service.rule.TransactionFeatures;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 嵌入式模型评分组件
+ * 在进程内加载离线训练导出的模型，不依赖外部模型服务
+ * 未配置模型路径时处于禁用状态
+ */
+@Slf4j
+@Component
+public class ModelScorer {
+
+    private final String modelPath;
+    private final double blockThreshold;
+    private final ThreadLocal<double[]> featureBuffer = new ThreadLocal<>();
+    private volatile TreeEnsembleModel model;
+
+    @Autowired
+    public ModelScorer(
+            @Value("${fraud-detection.ml.model-path:}") String modelPath,
+            @Value("${fraud-detection.ml.block-threshold:0.9}") double blockThreshold) {
+        this.modelPath = modelPath;
+        this.blockThreshold = blockThreshold;
+        if (modelPath != null && !modelPath.trim().isEmpty()) {
+            reload();
+        } else {
+            log.info("未配置模型文件，模型评分已禁用");
+        }
+    }
+
+    /**
+     * 从配置的路径重新加载模型，加载失败时保留旧模型
+     */
+    public void reload() {
+        Path path = Paths.get(modelPath.trim());
+        TreeEnsembleModel loaded = TreeEnsembleModel.load(path);
+        this.model = loaded;
+        log.info("模型已加载: {}, 特征数: {}, 树数量: {}, 节点数: {}",
+                path, loaded.featureCount(), loaded.treeCount(), loaded.nodeCount());
+    }
+
+    public boolean isEnabled() {
+        return model != null;
+    }
+
+    public double getBlockThreshold() {
+        return blockThreshold;
+    }
+
+    /**
+     * 计算交易的风险分，账户年龄按当前时间计算
+     *
+     * @param request 交易请求
+     * @return [0,1]区间的风险分
+     */
+    public double score(TransactionRequest request) {
+        return score(TransactionFeatures.of(request));
+    }
+
+    /**
+     * 按已提取的交易特征计算风险分，回放历史交易时使用按交易发生时计算的特征，与规则评估保持一致
+     *
+     * @param features 交易特征
+     * @return [0,1]区间的风险分
+     */
+    public double score(TransactionFeatures features) {
+        TreeEnsembleModel current = model;
+        double[] x = featureBuffer.get();
+        if (x == null || x.length != current.featureCount()) {
+            x = new double[current.featureCount()];
+            featureBuffer.set(x);
+        }
+        for (int i = 0; i < x.length; i++) {
+            x[i] = extract(current.featureAt(i), features);
+        }
+        return current.score(x);
+    }
+
+    private static double extract(ModelFeature feature, TransactionFeatures features) {
+        switch (feature) {
+            case AMOUNT:
+                return features.isAmountKnown() ? features.getAmountValue() : Double.NaN;
+            case LOG_AMOUNT:
+                return features.isAmountKnown() ? Math.log1p(Math.max(0.0, features.getAmountValue())) : Double.NaN;
+            case ACCOUNT_AGE_DAYS:
+                return features.isAccountAgeKnown() ? features.getAccountAgeDays() : Double.NaN;
+            case HOUR_OF_DAY:
+                return features.getHourOfDay() >= 0 ? features.getHourOfDay() : Double.NaN;
+            case CROSS_BORDER:
+                if (features.getSourceCountry() == null || features.getDestinationCountry() == null) {
+                    return Double.NaN;
+                }
+                return features.getSourceCountry().equals(features.getDestinationCountry()) ? 0.0 : 1.0;
+            default:
+                return Double.NaN;
+        }
+    }
+}
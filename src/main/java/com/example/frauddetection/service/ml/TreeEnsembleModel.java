@@ -0,0 +1,241 @@
+package com.example.frauddetection.service.ml;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 扁平化的树集成/逻辑回归模型
+ *
+ * 所有树的节点被展开到同一组基本类型数组中（特征下标、阈值、左右子节点、叶子值），
+ * 推理时只做数组访问和比较，不产生任何对象分配。
+ * 原始分数 = bias + Σ(linear[i] * x[i]) + Σ(每棵树的叶子值)，最终经sigmoid映射为[0,1]风险分。
+ * 没有树时即为逻辑回归模型，没有linear行时即为纯GBDT模型。
+ *
+ * 模型文件格式（文本，由离线训练导出）：
+ * <pre>
+ * # 注释
+ * features amount,account_age_days,hour_of_day,cross_border
+ * bias -2.5
+ * linear 0.0001,-0.01,0,0.8
+ * tree
+ * 0 10000 1 2 0        # 内部节点: 特征下标 阈值 左子节点 右子节点 (x <= 阈值走左)
+ * -1 0 0 0 1.2         # 叶子节点: -1 0 0 0 叶子值
+ * -1 0 0 0 -0.4
+ * </pre>
+ * 子节点下标是树内的局部下标，且必须大于父节点下标，保证遍历一定终止。
+ * 缺失特征用NaN表示，与任何阈值比较都为false，因此走右子树。
+ */
+public final class TreeEnsembleModel {
+
+    private static final int LEAF = -1;
+
+    private final ModelFeature[] features;
+    private final double bias;
+    private final double[] linearWeights;
+    private final int[] treeRoots;
+    private final int[] nodeFeature;
+    private final double[] nodeThreshold;
+    private final int[] nodeLeft;
+    private final int[] nodeRight;
+    private final double[] nodeValue;
+
+    private TreeEnsembleModel(ModelFeature[] features, double bias, double[] linearWeights, int[] treeRoots,
+                              int[] nodeFeature, double[] nodeThreshold, int[] nodeLeft, int[] nodeRight,
+                              double[] nodeValue) {
+        this.features = features;
+        this.bias = bias;
+        this.linearWeights = linearWeights;
+        this.treeRoots = treeRoots;
+        this.nodeFeature = nodeFeature;
+        this.nodeThreshold = nodeThreshold;
+        this.nodeLeft = nodeLeft;
+        this.nodeRight = nodeRight;
+        this.nodeValue = nodeValue;
+    }
+
+    public ModelFeature[] getFeatures() {
+        return features.clone();
+    }
+
+    public int featureCount() {
+        return features.length;
+    }
+
+    ModelFeature featureAt(int index) {
+        return features[index];
+    }
+
+    public int treeCount() {
+        return treeRoots.length;
+    }
+
+    public int nodeCount() {
+        return nodeFeature.length;
+    }
+
+    /**
+     * 计算风险分
+     *
+     * @param x 特征向量，顺序与{@link #getFeatures()}一致
+     * @return [0,1]区间的风险分
+     */
+    public double score(double[] x) {
+        double raw = bias;
+        for (int i = 0; i < linearWeights.length; i++) {
+            double value = x[i];
+            if (value == value) { // 跳过NaN
+                raw += linearWeights[i] * value;
+            }
+        }
+        for (int t = 0; t < treeRoots.length; t++) {
+            int node = treeRoots[t];
+            int feature = nodeFeature[node];
+            while (feature != LEAF) {
+                node = x[feature] <= nodeThreshold[node] ? nodeLeft[node] : nodeRight[node];
+                feature = nodeFeature[node];
+            }
+            raw += nodeValue[node];
+        }
+        return 1.0 / (1.0 + Math.exp(-raw));
+    }
+
+    /**
+     * 从本地文件加载模型
+     *
+     * @param path 模型文件路径
+     * @return 模型
+     * @throws ModelLoadException 文件无法读取或格式不合法
+     */
+    public static TreeEnsembleModel load(Path path) {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        } catch (IOException e) {
+            throw new ModelLoadException("读取模型文件失败: " + path, e);
+        }
+    }
+
+    static TreeEnsembleModel parse(BufferedReader reader) throws IOException {
+        ModelFeature[] features = null;
+        double bias = 0.0;
+        double[] linear = new double[0];
+        List<Integer> roots = new ArrayList<>();
+        List<double[]> nodes = new ArrayList<>();
+        int currentRoot = -1;
+
+        String line;
+        int lineNo = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            if (line.startsWith("features ")) {
+                String[] names = line.substring("features ".length()).trim().split(",");
+                features = new ModelFeature[names.length];
+                for (int i = 0; i < names.length; i++) {
+                    features[i] = ModelFeature.fromName(names[i].trim());
+                }
+            } else if (line.startsWith("bias ")) {
+                bias = parseDouble(line.substring("bias ".length()), lineNo);
+            } else if (line.startsWith("linear ")) {
+                String[] weights = line.substring("linear ".length()).trim().split(",");
+                linear = new double[weights.length];
+                for (int i = 0; i < weights.length; i++) {
+                    linear[i] = parseDouble(weights[i], lineNo);
+                }
+            } else if (line.equals("tree")) {
+                currentRoot = nodes.size();
+                roots.add(currentRoot);
+            } else {
+                if (currentRoot < 0) {
+                    throw new ModelLoadException("第" + lineNo + "行: 节点定义必须位于tree之后");
+                }
+                String[] parts = line.split("\\s+");
+                if (parts.length != 5) {
+                    throw new ModelLoadException("第" + lineNo + "行: 节点需要5列，实际为" + parts.length);
+                }
+                double[] node = new double[5];
+                for (int i = 0; i < 5; i++) {
+                    node[i] = parseDouble(parts[i], lineNo);
+                }
+                // 局部子节点下标转换为全局下标
+                if ((int) node[0] != LEAF) {
+                    node[2] += currentRoot;
+                    node[3] += currentRoot;
+                }
+                nodes.add(node);
+            }
+        }
+
+        if (features == null) {
+            throw new ModelLoadException("模型文件缺少features定义");
+        }
+        if (linear.length != 0 && linear.length != features.length) {
+            throw new ModelLoadException("linear权重数量(" + linear.length + ")与特征数量(" + features.length + ")不一致");
+        }
+        return flatten(features, bias, linear, roots, nodes);
+    }
+
+    private static TreeEnsembleModel flatten(ModelFeature[] features, double bias, double[] linear,
+                                             List<Integer> roots, List<double[]> nodes) {
+        int count = nodes.size();
+        int[] nodeFeature = new int[count];
+        double[] nodeThreshold = new double[count];
+        int[] nodeLeft = new int[count];
+        int[] nodeRight = new int[count];
+        double[] nodeValue = new double[count];
+
+        int[] treeRoots = new int[roots.size()];
+        for (int t = 0; t < treeRoots.length; t++) {
+            treeRoots[t] = roots.get(t);
+        }
+
+        for (int t = 0; t < treeRoots.length; t++) {
+            int start = treeRoots[t];
+            int end = t + 1 < treeRoots.length ? treeRoots[t + 1] : count;
+            if (start == end) {
+                throw new ModelLoadException("第" + (t + 1) + "棵树没有节点");
+            }
+            for (int i = start; i < end; i++) {
+                double[] node = nodes.get(i);
+                int feature = (int) node[0];
+                nodeFeature[i] = feature;
+                nodeThreshold[i] = node[1];
+                nodeLeft[i] = (int) node[2];
+                nodeRight[i] = (int) node[3];
+                nodeValue[i] = node[4];
+                if (feature == LEAF) {
+                    continue;
+                }
+                if (feature < 0 || feature >= features.length) {
+                    throw new ModelLoadException("第" + (t + 1) + "棵树节点" + (i - start) + "的特征下标越界: " + feature);
+                }
+                if (nodeLeft[i] <= i || nodeLeft[i] >= end || nodeRight[i] <= i || nodeRight[i] >= end) {
+                    throw new ModelLoadException("第" + (t + 1) + "棵树节点" + (i - start) + "的子节点下标非法");
+                }
+            }
+        }
+
+        return new TreeEnsembleModel(features, bias, linear, treeRoots,
+                nodeFeature, nodeThreshold, nodeLeft, nodeRight, nodeValue);
+    }
+
+    private static double parseDouble(String value, int lineNo) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ModelLoadException("第" + lineNo + "行: 无法解析数值 " + value, e);
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package com.example.frauddetection.service.reclassify;
+
+import com.example.frauddetection.dto.ReclassificationStatus;
+import com.example.frauddetection.model.ReclassificationCheckpoint;
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.repository.ReclassificationCheckpointRepository;
+import com.example.frauddetection.repository.TransactionRepository;
+import com.example.frauddetection.service.impl.RuleBasedFraudDetectionService;
+import com.example.frauddetection.service.ml.ModelScorer;
+import com.example.frauddetection.service.rule.RuleEvaluation;
+import com.example.frauddetection.service.rule.RuleSet;
+import com.example.frauddetection.service.rule.TransactionFeatures;
+import com.example.frauddetection.service.rule.dsl.RuleSetChangedEvent;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * 交易重分类任务
+ *
+ * 规则变更后，已存储交易的fraudulent/fraudReason会过期。该任务按主键游标分批扫描交易表，
+ * 在专用ForkJoinPool中用当前生效的规则集并行重新评估，只把结论发生变化的行通过JDBC批量更新写回，
+ * 批量更新与检查点在同一事务中提交，实例重启后从检查点继续。
+ * 任务只占用一个数据库连接，并按每秒行数限速；连接池中有线上请求在等待连接时主动让出。
+ */
+@Slf4j
+@Service
+public class ReclassificationService {
+
+    static final String JOB_NAME = "transaction-reclassification";
+    static final String UPDATE_SQL = "UPDATE transaction SET fraudulent = ?, fraud_reason = ? WHERE id = ?";
+
+    private static final String MODEL_REASON = "模型风险评分过高";
+    private static final int MAX_BACKOFF_ROUNDS = 50;
+
+    private final TransactionRepository transactionRepository;
+    private final ReclassificationCheckpointRepository checkpointRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DataSource dataSource;
+    private final RuleBasedFraudDetectionService fraudDetectionService;
+    private final ModelScorer modelScorer;
+    private final ForkJoinPool workerPool;
+    private final ExecutorService jobExecutor;
+    private final int chunkSize;
+    private final int maxRowsPerSecond;
+    private final long backoffMs;
+    private final boolean triggerOnRuleChange;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicBoolean restartRequested = new AtomicBoolean(false);
+    private volatile boolean stopRequested;
+
+    @Autowired
+    public ReclassificationService(
+            TransactionRepository transactionRepository,
+            ReclassificationCheckpointRepository checkpointRepository,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            DataSource dataSource,
+            RuleBasedFraudDetectionService fraudDetectionService,
+            ModelScorer modelScorer,
+            @Value("${fraud-detection.reclassify.parallelism:2}") int parallelism,
+            @Value("${fraud-detection.reclassify.chunk-size:1000}") int chunkSize,
+            @Value("${fraud-detection.reclassify.max-rows-per-second:2000}") int maxRowsPerSecond,
+            @Value("${fraud-detection.reclassify.backoff-ms:200}") long backoffMs,
+            @Value("${fraud-detection.reclassify.trigger-on-rule-change:false}") boolean triggerOnRuleChange) {
+        this.transactionRepository = transactionRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.dataSource = dataSource;
+        this.fraudDetectionService = fraudDetectionService;
+        this.modelScorer = modelScorer;
+        this.workerPool = new ForkJoinPool(Math.max(1, parallelism));
+        this.jobExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "reclassification-job-thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.chunkSize = chunkSize;
+        this.maxRowsPerSecond = maxRowsPerSecond;
+        this.backoffMs = backoffMs;
+        this.triggerOnRuleChange = triggerOnRuleChange;
+    }
+
+    /**
+     * 启动重分类任务
+     *
+     * @param resume true时从上次的检查点继续，false时从头扫描
+     * @return 任务已在运行时返回false
+     */
+    public boolean start(boolean resume) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            stopRequested = false;
+            restartRequested.set(false);
+            ReclassificationCheckpoint checkpoint = resume ? resumableCheckpoint() : null;
+            ReclassificationCheckpoint initial = checkpoint != null ? checkpoint : resetCheckpoint();
+            log.info("重分类任务启动, 起始主键: {}", initial.getLastProcessedId());
+            jobExecutor.submit(() -> runJob(initial));
+            return true;
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * 请求停止任务，当前批次提交后停止，之后可以从检查点继续
+     */
+    public void stop() {
+        stopRequested = true;
+        restartRequested.set(false);
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public ReclassificationStatus getStatus() {
+        ReclassificationStatus.ReclassificationStatusBuilder status = ReclassificationStatus.builder()
+                .running(running.get());
+        checkpointRepository.findById(JOB_NAME).ifPresent(checkpoint -> status
+                .status(checkpoint.getStatus())
+                .lastProcessedId(checkpoint.getLastProcessedId())
+                .scanned(checkpoint.getScanned())
+                .updated(checkpoint.getUpdated())
+                .error(checkpoint.getError())
+                .startedAt(checkpoint.getStartedAt())
+                .updatedAt(checkpoint.getUpdatedAt()));
+        return status.build();
+    }
+
+    /**
+     * 应用启动后继续上次被中断的任务（检查点仍为RUNNING说明进程在任务执行中退出）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJob() {
+        checkpointRepository.findById(JOB_NAME)
+                .filter(checkpoint -> "RUNNING".equals(checkpoint.getStatus()))
+                .ifPresent(checkpoint -> {
+                    log.info("发现未完成的重分类任务，从主键 {} 之后继续", checkpoint.getLastProcessedId());
+                    start(true);
+                });
+    }
+
+    /**
+     * 规则变更后自动从头重分类；任务正在运行时在本轮结束后重新开始
+     */
+    @EventListener
+    public void onRuleSetChanged(RuleSetChangedEvent event) {
+        if (!triggerOnRuleChange) {
+            return;
+        }
+        restartRequested.set(true);
+        if (!start(false)) {
+            log.info("规则已变更(版本 {})，当前重分类任务结束后将重新开始", event.getVersion());
+        }
+    }
+
+    private void runJob(ReclassificationCheckpoint initial) {
+        try {
+            ReclassificationCheckpoint checkpoint = initial;
+            while (process(checkpoint) && !stopRequested && restartRequested.getAndSet(false)) {
+                log.info("规则在任务执行期间发生变更，重新开始重分类");
+                checkpoint = resetCheckpoint();
+            }
+        } catch (RuntimeException e) {
+            log.error("重分类任务异常退出", e);
+        } finally {
+            running.set(false);
+        }
+        // 规则变更通知与任务结束并发时，补一次启动
+        if (restartRequested.get() && !stopRequested && !Thread.currentThread().isInterrupted()) {
+            start(false);
+        }
+    }
+
+    /**
+     * 执行一轮扫描
+     *
+     * @return 是否完整扫描到末尾
+     */
+    boolean process(ReclassificationCheckpoint checkpoint) {
+        long startTime = System.currentTimeMillis();
+        try {
+            while (true) {
+                if (stopRequested) {
+                    checkpoint.setStatus("STOPPED");
+                    checkpoint.setUpdatedAt(LocalDateTime.now());
+                    checkpointRepository.save(checkpoint);
+                    log.info("重分类任务已停止, 已处理到主键: {}", checkpoint.getLastProcessedId());
+                    return false;
+                }
+
+                long chunkStart = System.nanoTime();
+                List<Transaction> chunk = transactionRepository.findByIdGreaterThanOrderByIdAsc(
+                        checkpoint.getLastProcessedId(), PageRequest.of(0, chunkSize));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+
+                List<Object[]> changes = evaluate(chunk, fraudDetectionService.getActiveRuleSet());
+                checkpoint = commit(checkpoint, chunk, changes);
+                if (!changes.isEmpty()) {
+                    log.debug("重分类批次完成, 主键至: {}, 更新: {}/{}",
+                            checkpoint.getLastProcessedId(), changes.size(), chunk.size());
+                }
+                if (chunk.size() < chunkSize) {
+                    break;
+                }
+                throttle(chunk.size(), chunkStart);
+            }
+
+            checkpoint.setStatus("COMPLETED");
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            checkpointRepository.save(checkpoint);
+            log.info("重分类任务完成, 扫描: {}, 更新: {}, 耗时: {}ms",
+                    checkpoint.getScanned(), checkpoint.getUpdated(), System.currentTimeMillis() - startTime);
+            return true;
+        } catch (InterruptedException e) {
+            // 检查点保持RUNNING，重启后继续
+            Thread.currentThread().interrupt();
+            log.warn("重分类任务被中断, 重启后从主键 {} 之后继续", checkpoint.getLastProcessedId());
+            return false;
+        } catch (OptimisticLockingFailureException e) {
+            log.warn("重分类检查点已被其他实例更新，本实例退出: {}", e.getMessage());
+            return false;
+        } catch (Exception e) {
+            log.error("重分类任务失败, 已处理到主键: {}", checkpoint.getLastProcessedId(), e);
+            // 以已提交的检查点为准，失败批次重试时重新处理
+            ReclassificationCheckpoint persisted = checkpointRepository.findById(JOB_NAME).orElse(checkpoint);
+            persisted.setStatus("FAILED");
+            persisted.setError(e.getMessage());
+            persisted.setUpdatedAt(LocalDateTime.now());
+            checkpointRepository.save(persisted);
+            return false;
+        }
+    }
+
+    /**
+     * 并行重新评估一批交易
+     *
+     * @return 结论发生变化的行的更新参数 [fraudulent, fraudReason, id]
+     */
+    private List<Object[]> evaluate(List<Transaction> chunk, RuleSet ruleSet)
+            throws InterruptedException, ExecutionException {
+        return workerPool.submit(() -> chunk.parallelStream()
+                .map(transaction -> reclassify(transaction, ruleSet))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()))
+                .get();
+    }
+
+    private Object[] reclassify(Transaction transaction, RuleSet ruleSet) {
+        // 规则和模型使用同一份按交易发生时计算的特征
+        TransactionFeatures features = TransactionFeatures.of(transaction);
+        RuleEvaluation evaluation = ruleSet.evaluate(features);
+        boolean fraudulent = evaluation.isBlocked();
+        String reason = fraudulent ? evaluation.describeReasons() : null;
+        if (!fraudulent && modelScorer.isEnabled()
+                && modelScorer.score(features) >= modelScorer.getBlockThreshold()) {
+            fraudulent = true;
+            reason = MODEL_REASON;
+        }
+        if (fraudulent == transaction.isFraudulent() && Objects.equals(reason, transaction.getFraudReason())) {
+            return null;
+        }
+        return new Object[]{fraudulent, reason, transaction.getId()};
+    }
+
+    private ReclassificationCheckpoint commit(ReclassificationCheckpoint checkpoint, List<Transaction> chunk,
+                                              List<Object[]> changes) {
+        checkpoint.setLastProcessedId(chunk.get(chunk.size() - 1).getId());
+        checkpoint.setScanned(checkpoint.getScanned() + chunk.size());
+        checkpoint.setUpdated(checkpoint.getUpdated() + changes.size());
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        return transactionTemplate.execute(status -> {
+            if (!changes.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_SQL, changes);
+            }
+            return checkpointRepository.save(checkpoint);
+        });
+    }
+
+    /**
+     * 按每秒行数限速，并在线上请求等待数据库连接时退让
+     */
+    private void throttle(int rows, long chunkStart) throws InterruptedException {
+        if (maxRowsPerSecond > 0) {
+            long minNanos = rows * 1_000_000_000L / maxRowsPerSecond;
+            long remaining = minNanos - (System.nanoTime() - chunkStart);
+            if (remaining > 0) {
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            }
+        }
+        int rounds = 0;
+        while (rounds < MAX_BACKOFF_ROUNDS && !stopRequested && hasConnectionWaiters()) {
+            Thread.sleep(backoffMs);
+            rounds++;
+        }
+    }
+
+    private boolean hasConnectionWaiters() {
+        try {
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+                return false;
+            }
+            HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+            return pool != null && pool.getThreadsAwaitingConnection() > 0;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private ReclassificationCheckpoint resumableCheckpoint() {
+        return checkpointRepository.findById(JOB_NAME)
+                .filter(checkpoint -> !"COMPLETED".equals(checkpoint.getStatus()))
+                .map(checkpoint -> {
+                    checkpoint.setStatus("RUNNING");
+                    checkpoint.setError(null);
+                    checkpoint.setUpdatedAt(LocalDateTime.now());
+                    return checkpointRepository.save(checkpoint);
+                })
+                .orElse(null);
+    }
+
+    private ReclassificationCheckpoint resetCheckpoint() {
+        ReclassificationCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME)
+                .orElseGet(() -> ReclassificationCheckpoint.builder().jobName(JOB_NAME).build());
+        LocalDateTime now = LocalDateTime.now();
+        checkpoint.setLastProcessedId(0L);
+        checkpoint.setScanned(0);
+        checkpoint.setUpdated(0);
+        checkpoint.setStatus("RUNNING");
+        checkpoint.setError(null);
+        checkpoint.setStartedAt(now);
+        checkpoint.setUpdatedAt(now);
+        return checkpointRepository.save(checkpoint);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        workerPool.shutdownNow();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.frauddetection.service.rule;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 内置规则定义
+ * 阈值参数在构建时固化到规则中，评估时不再解析配置
+ */
+public final class BuiltinRules {
+
+    public static final String AMOUNT_OVER_LIMIT = "amount-over-limit";
+    public static final String SUSPICIOUS_COUNTRY = "suspicious-country";
+    public static final String NEW_ACCOUNT = "new-account";
+
+    private BuiltinRules() {
+    }
+
+    /**
+     * 按给定参数构建内置规则
+     *
+     * @param maxTransactionAmount 单笔交易金额上限
+     * @param suspiciousCountries  逗号分隔的可疑国家列表
+     * @param minAccountAgeDays    最小账户年龄(天)
+     * @param scoring              权重配置
+     * @return 内置规则列表
+     */
+    public static List<FraudRule> create(BigDecimal maxTransactionAmount, String suspiciousCountries,
+                                         int minAccountAgeDays, RuleScoringProperties scoring) {
+        Set<String> countries = parseCountries(suspiciousCountries);
+        List<FraudRule> rules = new ArrayList<>(3);
+
+        // 规则1: 检查交易金额是否超过阈值
+        rules.add(new FraudRule(AMOUNT_OVER_LIMIT, "交易金额超过阈值",
+                scoring.weightOf(AMOUNT_OVER_LIMIT, 1.0), 1,
+                f -> f.getAmount() != null && f.getAmount().compareTo(maxTransactionAmount) > 0));
+
+        // 规则2: 检查交易是否来自可疑国家
+        rules.add(new FraudRule(SUSPICIOUS_COUNTRY, "交易来自可疑国家",
+                scoring.weightOf(SUSPICIOUS_COUNTRY, 1.0), 2,
+                f -> f.getSourceCountry() != null && countries.contains(f.getSourceCountry())));
+
+        // 规则3: 检查账户年龄是否过新（可能是欺诈账户），没有提供账户创建日期视为可疑
+        rules.add(new FraudRule(NEW_ACCOUNT, "账户创建时间过短",
+                scoring.weightOf(NEW_ACCOUNT, 1.0), 3,
+                f -> !f.isAccountAgeKnown() || f.getAccountAgeDays() < minAccountAgeDays));
+
+        return rules;
+    }
+
+    private static Set<String> parseCountries(String suspiciousCountries) {
+        Set<String> countries = new HashSet<>();
+        if (suspiciousCountries == null) {
+            return countries;
+        }
+        for (String country : Arrays.asList(suspiciousCountries.split(","))) {
+            String trimmed = country.trim();
+            if (!trimmed.isEmpty()) {
+                countries.add(trimmed);
+            }
+        }
+        return countries;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.frauddetection.service.rule;
+
+/**
+ * 欺诈检测规则
+ * 命中时向风险分贡献weight，cost表示相对评估开销，规则集按cost从低到高评估
+ */
+public final class FraudRule {
+
+    private final String code;
+    private final String reason;
+    private final double weight;
+    private final int cost;
+    private final TransactionPredicate predicate;
+
+    public FraudRule(String code, String reason, double weight, int cost, TransactionPredicate predicate) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("规则权重不能为负: " + code);
+        }
+        this.code = code;
+        this.reason = reason;
+        this.weight = weight;
+        this.cost = cost;
+        this.predicate = predicate;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public boolean matches(TransactionFeatures features) {
+        return predicate.test(features);
+    }
+
+    /**
+     * 返回修改权重后的规则副本
+     */
+    public FraudRule withWeight(double newWeight) {
+        return new FraudRule(code, reason, newWeight, cost, predicate);
+    }
+
+    @Override
+    public String toString() {
+        return code + "(weight=" + weight + ", cost=" + cost + ")";
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.frauddetection.service.rule;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 规则集评估结果
+ */
+public final class RuleEvaluation {
+
+    private final double score;
+    private final boolean blocked;
+    private final List<FraudRule> matchedRules;
+    private final int evaluatedRules;
+
+    RuleEvaluation(double score, boolean blocked, List<FraudRule> matchedRules, int evaluatedRules) {
+        this.score = score;
+        this.blocked = blocked;
+        this.matchedRules = matchedRules;
+        this.evaluatedRules = evaluatedRules;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public boolean isBlocked() {
+        return blocked;
+    }
+
+    public List<FraudRule> getMatchedRules() {
+        return matchedRules;
+    }
+
+    /**
+     * @return 实际评估过的规则数，用于观察提前退出的效果
+     */
+    public int getEvaluatedRules() {
+        return evaluatedRules;
+    }
+
+    public List<String> getReasonCodes() {
+        List<String> codes = new ArrayList<>(matchedRules.size());
+        for (FraudRule rule : matchedRules) {
+            codes.add(rule.getCode());
+        }
+        return codes;
+    }
+
+    /**
+     * @return 命中规则的原因描述，多个原因以"；"连接，未命中时为null
+     */
+    public String describeReasons() {
+        if (matchedRules.isEmpty()) {
+            return null;
+        }
+        if (matchedRules.size() == 1) {
+            return matchedRules.get(0).getReason();
+        }
+        StringBuilder sb = new StringBuilder();
+        for (FraudRule rule : matchedRules) {
+            if (sb.length() > 0) {
+                sb.append("；");
+            }
+            sb.append(rule.getReason());
+        }
+        return sb.toString();
+    }
+}
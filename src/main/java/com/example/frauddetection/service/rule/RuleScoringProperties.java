@@ -0,0 +1,33 @@
+package com.example.frauddetection.service.rule;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 加权评分配置
+ * 默认所有规则权重为1、拦截阈值为1，即首个命中规则即判定欺诈
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "fraud-detection.scoring")
+public class RuleScoringProperties {
+
+    /**
+     * 风险分达到该阈值时判定为欺诈
+     */
+    private double blockThreshold = 1.0;
+
+    /**
+     * 规则编码 -> 权重，未配置的规则使用默认权重
+     */
+    private Map<String, Double> weights = new HashMap<>();
+
+    public double weightOf(String ruleCode, double defaultWeight) {
+        Double weight = weights.get(ruleCode);
+        return weight != null ? weight : defaultWeight;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.frauddetection.service.rule;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 加权评分规则集
+ *
+ * 规则按cost从低到高依次评估，累计命中规则的权重作为风险分。
+ * 满足以下任一条件即提前结束评估：
+ * 1. 风险分已达到拦截阈值
+ * 2. 剩余规则即使全部命中也无法达到拦截阈值
+ * 所有权重为1、阈值为1时等价于"首个命中规则即拦截"。
+ */
+public final class RuleSet {
+
+    private final FraudRule[] rules;
+    private final double[] remainingWeight;
+    private final double blockThreshold;
+
+    public RuleSet(List<FraudRule> rules, double blockThreshold) {
+        if (blockThreshold <= 0) {
+            throw new IllegalArgumentException("拦截阈值必须大于0");
+        }
+        List<FraudRule> sorted = new ArrayList<>(rules);
+        // 稳定排序，cost相同的规则保持定义顺序
+        sorted.sort(Comparator.comparingInt(FraudRule::getCost));
+        this.rules = sorted.toArray(new FraudRule[0]);
+        this.remainingWeight = new double[this.rules.length + 1];
+        for (int i = this.rules.length - 1; i >= 0; i--) {
+            remainingWeight[i] = remainingWeight[i + 1] + this.rules[i].getWeight();
+        }
+        this.blockThreshold = blockThreshold;
+    }
+
+    public RuleEvaluation evaluate(TransactionFeatures features) {
+        double score = 0.0;
+        List<FraudRule> matched = null;
+        int evaluated = 0;
+        for (int i = 0; i < rules.length; i++) {
+            if (score + remainingWeight[i] < blockThreshold) {
+                break;
+            }
+            FraudRule rule = rules[i];
+            evaluated++;
+            if (rule.matches(features)) {
+                score += rule.getWeight();
+                if (matched == null) {
+                    matched = new ArrayList<>(2);
+                }
+                matched.add(rule);
+                if (score >= blockThreshold) {
+                    break;
+                }
+            }
+        }
+        return new RuleEvaluation(score, score >= blockThreshold,
+                matched != null ? matched : Collections.<FraudRule>emptyList(), evaluated);
+    }
+
+    public List<FraudRule> getRules() {
+        List<FraudRule> list = new ArrayList<>(rules.length);
+        Collections.addAll(list, rules);
+        return list;
+    }
+
+    public double getBlockThreshold() {
+        return blockThreshold;
+    }
+
+    public int size() {
+        return rules.length;
+    }
+}
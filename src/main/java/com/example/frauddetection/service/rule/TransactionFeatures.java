@@ -0,0 +1,126 @@
+package com.example.frauddetection.service.rule;
+
+import com.example.frauddetection.dto.TransactionRequest;
+import com.example.frauddetection.model.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * 规则评估用的交易特征
+ * 每笔交易只提取一次，规则直接读取基本类型字段，避免重复的日期计算和对象访问
+ */
+public final class TransactionFeatures {
+
+    private final String transactionId;
+    private final String accountId;
+    private final BigDecimal amount;
+    private final double amountValue;
+    private final String currency;
+    private final String sourceCountry;
+    private final String destinationCountry;
+    private final int hourOfDay;
+    private final boolean accountAgeKnown;
+    private final long accountAgeDays;
+    private final String ipAddress;
+    private final String deviceId;
+
+    private TransactionFeatures(String transactionId, String accountId, BigDecimal amount, String currency,
+                                String sourceCountry, String destinationCountry, LocalDateTime timestamp,
+                                LocalDateTime accountCreationDate, String ipAddress, String deviceId,
+                                LocalDateTime now) {
+        this.transactionId = transactionId;
+        this.accountId = accountId;
+        this.amount = amount;
+        this.amountValue = amount != null ? amount.doubleValue() : 0.0;
+        this.currency = currency;
+        this.sourceCountry = sourceCountry;
+        this.destinationCountry = destinationCountry;
+        this.hourOfDay = timestamp != null ? timestamp.getHour() : -1;
+        this.accountAgeKnown = accountCreationDate != null;
+        this.accountAgeDays = accountCreationDate != null ? ChronoUnit.DAYS.between(accountCreationDate, now) : -1;
+        this.ipAddress = ipAddress;
+        this.deviceId = deviceId;
+    }
+
+    public static TransactionFeatures of(TransactionRequest request) {
+        return new TransactionFeatures(request.getTransactionId(), request.getAccountId(), request.getAmount(),
+                request.getCurrency(), request.getSourceCountry(), request.getDestinationCountry(),
+                request.getTimestamp(), request.getAccountCreationDate(), request.getIpAddress(),
+                request.getDeviceId(), LocalDateTime.now());
+    }
+
+    /**
+     * 从已存储的交易提取特征，账户年龄按交易发生时计算，用于回放历史交易
+     */
+    public static TransactionFeatures of(Transaction transaction) {
+        LocalDateTime asOf = transaction.getTimestamp() != null ? transaction.getTimestamp() : LocalDateTime.now();
+        return new TransactionFeatures(transaction.getTransactionId(), transaction.getAccountId(),
+                transaction.getAmount(), transaction.getCurrency(), transaction.getSourceCountry(),
+                transaction.getDestinationCountry(), transaction.getTimestamp(),
+                transaction.getAccountCreationDate(), transaction.getIpAddress(), transaction.getDeviceId(),
+                asOf);
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public String getAccountId() {
+        return accountId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    /**
+     * @return 金额的double值，未知时为0，需要先用{@link #isAmountKnown()}判断
+     */
+    public double getAmountValue() {
+        return amountValue;
+    }
+
+    public boolean isAmountKnown() {
+        return amount != null;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public String getSourceCountry() {
+        return sourceCountry;
+    }
+
+    public String getDestinationCountry() {
+        return destinationCountry;
+    }
+
+    /**
+     * @return 交易发生的小时(0-23)，未知时为-1
+     */
+    public int getHourOfDay() {
+        return hourOfDay;
+    }
+
+    public boolean isAccountAgeKnown() {
+        return accountAgeKnown;
+    }
+
+    /**
+     * @return 账户年龄天数，未知时为-1
+     */
+    public long getAccountAgeDays() {
+        return accountAgeDays;
+    }
+
+    public String getIpAddress() {
+        return ipAddress;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.frauddetection.service.rule;
+
+/**
+ * 作用于交易特征的判断条件
+ */
+@FunctionalInterface
+public interface TransactionPredicate {
+
+    boolean test(TransactionFeatures features);
+}
@@ -0,0 +1,34 @@
+package com.example.frauddetection.service.rule.dsl;
+
+import com.example.frauddetection.service.rule.TransactionPredicate;
+
+/**
+ * 编译后的规则表达式
+ */
+public final class CompiledExpression {
+
+    private final String source;
+    private final TransactionPredicate predicate;
+    private final int complexity;
+
+    CompiledExpression(String source, TransactionPredicate predicate, int complexity) {
+        this.source = source;
+        this.predicate = predicate;
+        this.complexity = complexity;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public TransactionPredicate getPredicate() {
+        return predicate;
+    }
+
+    /**
+     * @return 求值节点数，作为规则评估开销的估计
+     */
+    public int getComplexity() {
+        return complexity;
+    }
+}
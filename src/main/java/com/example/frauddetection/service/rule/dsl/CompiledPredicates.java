@@ -0,0 +1,195 @@
+package com.example.frauddetection.service.rule.dsl;
+
+import com.example.frauddetection.service.rule.TransactionFeatures;
+import com.example.frauddetection.service.rule.TransactionPredicate;
+
+/**
+ * 规则表达式编译后的求值节点
+ *
+ * 所有数值比较在编译期归一化为闭区间判断（x > c 即 x >= nextUp(c)），
+ * 并按字段选择专用节点类，求值时没有反射、Map查找或运算符分派。
+ * 节点均为不可变final类，便于JIT内联整棵表达式树。
+ */
+final class CompiledPredicates {
+
+    private CompiledPredicates() {
+    }
+
+    static TransactionPredicate numericRange(NumericField field, double low, double high) {
+        switch (field) {
+            case AMOUNT:
+                return new AmountInRange(low, high);
+            case HOUR_OF_DAY:
+                return new HourOfDayInRange(low, high);
+            case ACCOUNT_AGE_DAYS:
+                return new AccountAgeInRange(low, high);
+            default:
+                throw new IllegalArgumentException("未知数值字段: " + field);
+        }
+    }
+
+    /**
+     * 字段未知（金额为空、交易时间或账户创建时间缺失）
+     */
+    static TransactionPredicate unknown(NumericField field) {
+        switch (field) {
+            case AMOUNT:
+                return f -> !f.isAmountKnown();
+            case HOUR_OF_DAY:
+                return f -> f.getHourOfDay() < 0;
+            case ACCOUNT_AGE_DAYS:
+                return f -> !f.isAccountAgeKnown();
+            default:
+                throw new IllegalArgumentException("未知数值字段: " + field);
+        }
+    }
+
+    static final class AmountInRange implements TransactionPredicate {
+        private final double low;
+        private final double high;
+
+        AmountInRange(double low, double high) {
+            this.low = low;
+            this.high = high;
+        }
+
+        @Override
+        public boolean test(TransactionFeatures f) {
+            double value = f.getAmountValue();
+            return f.isAmountKnown() && value >= low && value <= high;
+        }
+    }
+
+    static final class HourOfDayInRange implements TransactionPredicate {
+        private final double low;
+        private final double high;
+
+        HourOfDayInRange(double low, double high) {
+            this.low = low;
+            this.high = high;
+        }
+
+        @Override
+        public boolean test(TransactionFeatures f) {
+            int value = f.getHourOfDay();
+            return value >= 0 && value >= low && value <= high;
+        }
+    }
+
+    static final class AccountAgeInRange implements TransactionPredicate {
+        private final double low;
+        private final double high;
+
+        AccountAgeInRange(double low, double high) {
+            this.low = low;
+            this.high = high;
+        }
+
+        @Override
+        public boolean test(TransactionFeatures f) {
+            long value = f.getAccountAgeDays();
+            return f.isAccountAgeKnown() && value >= low && value <= high;
+        }
+    }
+
+    static final class StringEquals implements TransactionPredicate {
+        private final StringField field;
+        private final String constant;
+
+        StringEquals(StringField field, String constant) {
+            this.field = field;
+            this.constant = constant;
+        }
+
+        @Override
+        public boolean test(TransactionFeatures f) {
+            return constant.equals(field.read(f));
+        }
+    }
+
+    /**
+     * 常量集合用数组线性扫描，规则中的集合通常只有几个元素，比哈希查找更快
+     */
+    static final class StringInSet implements TransactionPredicate {
+        private final StringField field;
+        private final String[] constants;
+
+        StringInSet(StringField field, String[] constants) {
+            this.field = field;
+            this.constants = constants;
+        }
+
+        @Override
+        public boolean test(TransactionFeatures f) {
+            String value = field.read(f);
+            if (value == null) {
+                return false;
+            }
+            for (String constant : constants) {
+                if (constant.equals(value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    static final class FieldsEqual implements TransactionPredicate {
+        private final StringField left;
+        private final StringField right;
+
+        FieldsEqual(StringField left, StringField right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean test(TransactionFeatures f) {
+            String a = left.read(f);
+            return a != null && a.equals(right.read(f));
+        }
+    }
+
+    static final class And implements TransactionPredicate {
+        private final TransactionPredicate left;
+        private final TransactionPredicate right;
+
+        And(TransactionPredicate left, TransactionPredicate right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean test(TransactionFeatures f) {
+            return left.test(f) && right.test(f);
+        }
+    }
+
+    static final class Or implements TransactionPredicate {
+        private final TransactionPredicate left;
+        private final TransactionPredicate right;
+
+        Or(TransactionPredicate left, TransactionPredicate right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean test(TransactionFeatures f) {
+            return left.test(f) || right.test(f);
+        }
+    }
+
+    static final class Not implements TransactionPredicate {
+        private final TransactionPredicate operand;
+
+        Not(TransactionPredicate operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        public boolean test(TransactionFeatures f) {
+            return !operand.test(f);
+        }
+    }
+}
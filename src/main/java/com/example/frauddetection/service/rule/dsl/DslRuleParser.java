@@ -0,0 +1,77 @@
+package com.example.frauddetection.service.rule.dsl;
+
+import com.example.frauddetection.service.rule.FraudRule;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 规则文件解析器
+ *
+ * 每行一条规则，字段以 | 分隔，#开头的行为注释：
+ * <pre>
+ * # 编码 | 权重 | 原因 | 表达式
+ * night-cross-border | 1.0 | 异常时间交易 | amount > 5000 && hourOfDay in 2..5 && src != dst
+ * </pre>
+ * 规则开销按表达式节点数估算，并排在内置规则之后评估。
+ */
+public final class DslRuleParser {
+
+    /**
+     * DSL规则的基础开销，保证内置的简单规则先评估
+     */
+    static final int BASE_COST = 10;
+
+    private DslRuleParser() {
+    }
+
+    public static List<FraudRule> parse(BufferedReader reader) throws IOException {
+        List<FraudRule> rules = new ArrayList<>();
+        Set<String> codes = new HashSet<>();
+        String line;
+        int lineNo = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            FraudRule rule = parseLine(trimmed, lineNo);
+            if (!codes.add(rule.getCode())) {
+                throw new RuleExpressionException("第" + lineNo + "行: 规则编码重复 " + rule.getCode(), -1);
+            }
+            rules.add(rule);
+        }
+        return rules;
+    }
+
+    public static FraudRule parseLine(String line, int lineNo) {
+        String[] parts = line.split("\\|", 4);
+        if (parts.length != 4) {
+            throw new RuleExpressionException("第" + lineNo + "行: 规则需要4个字段(编码|权重|原因|表达式)", -1);
+        }
+        String code = parts[0].trim();
+        if (code.isEmpty()) {
+            throw new RuleExpressionException("第" + lineNo + "行: 规则编码不能为空", -1);
+        }
+        double weight;
+        try {
+            weight = Double.parseDouble(parts[1].trim());
+        } catch (NumberFormatException e) {
+            throw new RuleExpressionException("第" + lineNo + "行: 无法解析权重 " + parts[1].trim(), -1);
+        }
+        String reason = parts[2].trim();
+        CompiledExpression expression;
+        try {
+            expression = RuleExpressionCompiler.compile(parts[3]);
+        } catch (RuleExpressionException e) {
+            throw new RuleExpressionException("第" + lineNo + "行: " + e.getMessage(), e.getPosition());
+        }
+        return new FraudRule(code, reason.isEmpty() ? code : reason, weight,
+                BASE_COST + expression.getComplexity(), expression.getPredicate());
+    }
+}
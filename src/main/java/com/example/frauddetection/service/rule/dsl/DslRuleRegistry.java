@@ -0,0 +1,93 @@
+package com.example.frauddetection.service.rule.dsl;
+
+import com.example.frauddetection.service.rule.FraudRule;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 运行时规则注册表
+ * 从配置的规则文件加载DSL规则，支持不发版重新加载。
+ * 加载失败时保留当前生效的规则。
+ */
+@Slf4j
+@Component
+public class DslRuleRegistry {
+
+    private final ResourceLoader resourceLoader;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String ruleFileLocation;
+    private volatile List<FraudRule> rules = Collections.emptyList();
+    private volatile long version;
+
+    @Autowired
+    public DslRuleRegistry(
+            ResourceLoader resourceLoader,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${fraud-detection.rules.dsl-file:}") String ruleFileLocation) {
+        this.resourceLoader = resourceLoader;
+        this.eventPublisher = eventPublisher;
+        this.ruleFileLocation = ruleFileLocation;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (ruleFileLocation == null || ruleFileLocation.trim().isEmpty()) {
+            log.info("未配置DSL规则文件，仅使用内置规则");
+            return;
+        }
+        this.rules = load(ruleFileLocation.trim());
+        log.info("DSL规则已加载: {}", rules);
+    }
+
+    /**
+     * 重新加载规则文件并通知规则集重建
+     *
+     * @return 新加载的规则
+     * @throws RuleExpressionException 规则文件不合法，此时当前规则保持不变
+     */
+    public synchronized List<FraudRule> reload() {
+        if (ruleFileLocation == null || ruleFileLocation.trim().isEmpty()) {
+            throw new RuleExpressionException("未配置DSL规则文件", -1);
+        }
+        List<FraudRule> loaded = load(ruleFileLocation.trim());
+        this.rules = loaded;
+        this.version++;
+        log.info("DSL规则已重新加载, 版本: {}, 规则: {}", version, loaded);
+        eventPublisher.publishEvent(new RuleSetChangedEvent(this, version));
+        return loaded;
+    }
+
+    public List<FraudRule> getRules() {
+        return rules;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 从指定位置加载规则文件，支持classpath:和file:前缀
+     */
+    public List<FraudRule> load(String location) {
+        Resource resource = resourceLoader.getResource(location);
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            return Collections.unmodifiableList(DslRuleParser.parse(reader));
+        } catch (IOException e) {
+            throw new RuleExpressionException("读取规则文件失败: " + location + ", " + e.getMessage(), -1);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.frauddetection.service.rule.dsl;
+
+/**
+ * 表达式中可用的数值字段
+ * 编译期按字段选择专用的区间判断节点，评估时直接读取特征对象的基本类型字段
+ */
+enum NumericField {
+
+    AMOUNT("amount"),
+    HOUR_OF_DAY("hourOfDay"),
+    ACCOUNT_AGE_DAYS("accountAgeDays");
+
+    private final String fieldName;
+
+    NumericField(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    static NumericField find(String name) {
+        for (NumericField field : values()) {
+            if (field.fieldName.equals(name)) {
+                return field;
+            }
+        }
+        return null;
+    }
+}
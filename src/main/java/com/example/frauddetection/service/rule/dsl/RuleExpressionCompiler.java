@@ -0,0 +1,326 @@
+package com.example.frauddetection.service.rule.dsl;
+
+import com.example.frauddetection.service.rule.TransactionPredicate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 规则表达式编译器
+ *
+ * 表达式只在加载时解析一次，直接生成{@link CompiledPredicates}中的求值节点树。
+ * 语法：
+ * <pre>
+ * expr       := and ('||' and)*
+ * and        := unary ('&&' unary)*
+ * unary      := '!' unary | '(' expr ')' | comparison
+ * comparison := numField op number
+ *             | numField ['not'] 'in' number '..' number
+ *             | numField 'unknown'
+ *             | strField ('==' | '!=') (literal | strField)
+ *             | strField ['not'] 'in' '(' literal (',' literal)* ')'
+ * op         := '>' | '>=' | '<' | '<=' | '==' | '!='
+ * </pre>
+ * 数值字段: amount, hourOfDay, accountAgeDays（未知的金额、小时和账户年龄不满足任何区间，用 unknown 单独判断）
+ * 字符串字段: sourceCountry(src), destinationCountry(dst), currency, accountId, ipAddress(ip), deviceId(device)
+ * 字符串常量可以是裸标识符(RU)或引号包围('RU')。缺失的字符串字段不等于任何值。
+ * 例如: amount > 5000 && hourOfDay in 2..5 && src != dst
+ *       accountAgeDays < 7 || accountAgeDays unknown
+ */
+public final class RuleExpressionCompiler {
+
+    private final List<Token> tokens;
+    private int index;
+    private int nodeCount;
+
+    private RuleExpressionCompiler(String source) {
+        this.tokens = tokenize(source);
+    }
+
+    /**
+     * 编译规则表达式
+     *
+     * @param expression 表达式文本
+     * @return 编译结果
+     * @throws RuleExpressionException 表达式不合法
+     */
+    public static CompiledExpression compile(String expression) {
+        if (expression == null || expression.trim().isEmpty()) {
+            throw new RuleExpressionException("表达式不能为空", -1);
+        }
+        RuleExpressionCompiler compiler = new RuleExpressionCompiler(expression);
+        TransactionPredicate predicate = compiler.parseOr();
+        Token trailing = compiler.peek();
+        if (trailing.type != TokenType.END) {
+            throw new RuleExpressionException("无法识别的内容: " + trailing.text, trailing.position);
+        }
+        return new CompiledExpression(expression.trim(), predicate, compiler.nodeCount);
+    }
+
+    private TransactionPredicate parseOr() {
+        TransactionPredicate left = parseAnd();
+        while (accept(TokenType.OR)) {
+            left = node(new CompiledPredicates.Or(left, parseAnd()));
+        }
+        return left;
+    }
+
+    private TransactionPredicate parseAnd() {
+        TransactionPredicate left = parseUnary();
+        while (accept(TokenType.AND)) {
+            left = node(new CompiledPredicates.And(left, parseUnary()));
+        }
+        return left;
+    }
+
+    private TransactionPredicate parseUnary() {
+        if (accept(TokenType.NOT)) {
+            return node(new CompiledPredicates.Not(parseUnary()));
+        }
+        if (accept(TokenType.LPAREN)) {
+            TransactionPredicate inner = parseOr();
+            expect(TokenType.RPAREN, "缺少右括号");
+            return inner;
+        }
+        return parseComparison();
+    }
+
+    private TransactionPredicate parseComparison() {
+        Token fieldToken = expect(TokenType.IDENT, "此处需要字段名");
+        NumericField numericField = NumericField.find(fieldToken.text);
+        if (numericField != null) {
+            return parseNumericComparison(numericField);
+        }
+        StringField stringField = StringField.find(fieldToken.text);
+        if (stringField != null) {
+            return parseStringComparison(stringField);
+        }
+        throw new RuleExpressionException("未知字段: " + fieldToken.text, fieldToken.position);
+    }
+
+    private TransactionPredicate parseNumericComparison(NumericField field) {
+        if (acceptKeyword("unknown")) {
+            return node(CompiledPredicates.unknown(field));
+        }
+        boolean negated = acceptKeyword("not");
+        if (acceptKeyword("in")) {
+            double low = expectNumber();
+            expect(TokenType.RANGE, "区间需要使用 .. 分隔");
+            double high = expectNumber();
+            if (low > high) {
+                throw new RuleExpressionException("区间下限大于上限", previous().position);
+            }
+            return negate(node(CompiledPredicates.numericRange(field, low, high)), negated);
+        }
+        if (negated) {
+            throw new RuleExpressionException("not之后需要in", peek().position);
+        }
+
+        Token op = next();
+        double value = expectNumber();
+        switch (op.type) {
+            case GT:
+                return node(CompiledPredicates.numericRange(field, Math.nextUp(value), Double.POSITIVE_INFINITY));
+            case GE:
+                return node(CompiledPredicates.numericRange(field, value, Double.POSITIVE_INFINITY));
+            case LT:
+                return node(CompiledPredicates.numericRange(field, Double.NEGATIVE_INFINITY, Math.nextDown(value)));
+            case LE:
+                return node(CompiledPredicates.numericRange(field, Double.NEGATIVE_INFINITY, value));
+            case EQ:
+                return node(CompiledPredicates.numericRange(field, value, value));
+            case NE:
+                return node(new CompiledPredicates.Not(node(CompiledPredicates.numericRange(field, value, value))));
+            default:
+                throw new RuleExpressionException("数值字段不支持的运算符: " + op.text, op.position);
+        }
+    }
+
+    private TransactionPredicate parseStringComparison(StringField field) {
+        boolean negated = acceptKeyword("not");
+        if (acceptKeyword("in")) {
+            expect(TokenType.LPAREN, "集合需要以 ( 开始");
+            List<String> values = new ArrayList<>();
+            do {
+                values.add(expectLiteral());
+            } while (accept(TokenType.COMMA));
+            expect(TokenType.RPAREN, "集合需要以 ) 结束");
+            TransactionPredicate predicate = values.size() == 1
+                    ? new CompiledPredicates.StringEquals(field, values.get(0))
+                    : new CompiledPredicates.StringInSet(field, values.toArray(new String[0]));
+            return negate(node(predicate), negated);
+        }
+        if (negated) {
+            throw new RuleExpressionException("not之后需要in", peek().position);
+        }
+
+        Token op = next();
+        if (op.type != TokenType.EQ && op.type != TokenType.NE) {
+            throw new RuleExpressionException("字符串字段只支持 ==、!= 和 in", op.position);
+        }
+        Token operand = peek();
+        TransactionPredicate predicate;
+        StringField otherField = operand.type == TokenType.IDENT ? StringField.find(operand.text) : null;
+        if (otherField != null) {
+            next();
+            predicate = new CompiledPredicates.FieldsEqual(field, otherField);
+        } else {
+            predicate = new CompiledPredicates.StringEquals(field, expectLiteral());
+        }
+        return negate(node(predicate), op.type == TokenType.NE);
+    }
+
+    private TransactionPredicate negate(TransactionPredicate predicate, boolean negated) {
+        return negated ? node(new CompiledPredicates.Not(predicate)) : predicate;
+    }
+
+    private TransactionPredicate node(TransactionPredicate predicate) {
+        nodeCount++;
+        return predicate;
+    }
+
+    private double expectNumber() {
+        boolean negative = accept(TokenType.MINUS);
+        Token token = expect(TokenType.NUMBER, "此处需要数值");
+        double value = Double.parseDouble(token.text);
+        return negative ? -value : value;
+    }
+
+    private String expectLiteral() {
+        Token token = next();
+        if (token.type != TokenType.IDENT && token.type != TokenType.STRING && token.type != TokenType.NUMBER) {
+            throw new RuleExpressionException("此处需要常量", token.position);
+        }
+        return token.text;
+    }
+
+    private boolean acceptKeyword(String keyword) {
+        Token token = peek();
+        if (token.type == TokenType.IDENT && token.text.equals(keyword)) {
+            index++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean accept(TokenType type) {
+        if (peek().type == type) {
+            index++;
+            return true;
+        }
+        return false;
+    }
+
+    private Token expect(TokenType type, String message) {
+        Token token = peek();
+        if (token.type != type) {
+            throw new RuleExpressionException(message, token.position);
+        }
+        index++;
+        return token;
+    }
+
+    private Token next() {
+        Token token = peek();
+        if (token.type != TokenType.END) {
+            index++;
+        }
+        return token;
+    }
+
+    private Token peek() {
+        return tokens.get(index);
+    }
+
+    private Token previous() {
+        return tokens.get(index - 1);
+    }
+
+    private static List<Token> tokenize(String source) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        int length = source.length();
+        while (i < length) {
+            char c = source.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            int start = i;
+            if (Character.isDigit(c)) {
+                while (i < length && Character.isDigit(source.charAt(i))) {
+                    i++;
+                }
+                // 小数点后必须是数字，否则是区间分隔符 ..
+                if (i + 1 < length && source.charAt(i) == '.' && Character.isDigit(source.charAt(i + 1))) {
+                    i++;
+                    while (i < length && Character.isDigit(source.charAt(i))) {
+                        i++;
+                    }
+                }
+                tokens.add(new Token(TokenType.NUMBER, source.substring(start, i), start));
+            } else if (Character.isLetter(c) || c == '_') {
+                while (i < length && (Character.isLetterOrDigit(source.charAt(i)) || source.charAt(i) == '_')) {
+                    i++;
+                }
+                tokens.add(new Token(TokenType.IDENT, source.substring(start, i), start));
+            } else if (c == '\'' || c == '"') {
+                int end = source.indexOf(c, i + 1);
+                if (end < 0) {
+                    throw new RuleExpressionException("字符串缺少结束引号", start);
+                }
+                tokens.add(new Token(TokenType.STRING, source.substring(i + 1, end), start));
+                i = end + 1;
+            } else {
+                String two = i + 1 < length ? source.substring(i, i + 2) : "";
+                TokenType type;
+                switch (two) {
+                    case "&&": type = TokenType.AND; break;
+                    case "||": type = TokenType.OR; break;
+                    case "==": type = TokenType.EQ; break;
+                    case "!=": type = TokenType.NE; break;
+                    case ">=": type = TokenType.GE; break;
+                    case "<=": type = TokenType.LE; break;
+                    case "..": type = TokenType.RANGE; break;
+                    default: type = null;
+                }
+                if (type != null) {
+                    tokens.add(new Token(type, two, start));
+                    i += 2;
+                    continue;
+                }
+                switch (c) {
+                    case '>': type = TokenType.GT; break;
+                    case '<': type = TokenType.LT; break;
+                    case '!': type = TokenType.NOT; break;
+                    case '(': type = TokenType.LPAREN; break;
+                    case ')': type = TokenType.RPAREN; break;
+                    case ',': type = TokenType.COMMA; break;
+                    case '-': type = TokenType.MINUS; break;
+                    default:
+                        throw new RuleExpressionException("非法字符: " + c, start);
+                }
+                tokens.add(new Token(type, String.valueOf(c), start));
+                i++;
+            }
+        }
+        tokens.add(new Token(TokenType.END, "<结束>", length));
+        return tokens;
+    }
+
+    private enum TokenType {
+        IDENT, NUMBER, STRING, AND, OR, NOT, EQ, NE, GT, GE, LT, LE, LPAREN, RPAREN, COMMA, RANGE, MINUS, END
+    }
+
+    private static final class Token {
+        private final TokenType type;
+        private final String text;
+        private final int position;
+
+        private Token(TokenType type, String text, int position) {
+            this.type = type;
+            this.text = text;
+            this.position = position;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.frauddetection.service.rule.dsl;
+
+/**
+ * 规则表达式语法或语义错误
+ */
+public class RuleExpressionException extends RuntimeException {
+
+    private final int position;
+
+    public RuleExpressionException(String message, int position) {
+        super(position >= 0 ? message + " (位置 " + position + ")" : message);
+        this.position = position;
+    }
+
+    /**
+     * @return 出错字符在表达式中的位置，未知时为-1
+     */
+    public int getPosition() {
+        return position;
+    }
+}
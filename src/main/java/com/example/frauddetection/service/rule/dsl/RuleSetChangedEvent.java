@@ -0,0 +1,20 @@
+package com.example.frauddetection.service.rule.dsl;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 运行时规则重新加载后发布的事件
+ */
+public class RuleSetChangedEvent extends ApplicationEvent {
+
+    private final long version;
+
+    public RuleSetChangedEvent(Object source, long version) {
+        super(source);
+        this.version = version;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
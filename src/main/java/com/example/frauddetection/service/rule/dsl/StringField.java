@@ -0,0 +1,65 @@
+package com.example.frauddetection.service.rule.dsl;
+
+import com.example.frauddetection.service.rule.TransactionFeatures;
+
+/**
+ * 表达式中可用的字符串字段，部分字段提供简写别名
+ */
+enum StringField {
+
+    SOURCE_COUNTRY("sourceCountry", "src") {
+        @Override
+        String read(TransactionFeatures f) {
+            return f.getSourceCountry();
+        }
+    },
+    DESTINATION_COUNTRY("destinationCountry", "dst") {
+        @Override
+        String read(TransactionFeatures f) {
+            return f.getDestinationCountry();
+        }
+    },
+    CURRENCY("currency", "currency") {
+        @Override
+        String read(TransactionFeatures f) {
+            return f.getCurrency();
+        }
+    },
+    ACCOUNT_ID("accountId", "accountId") {
+        @Override
+        String read(TransactionFeatures f) {
+            return f.getAccountId();
+        }
+    },
+    IP_ADDRESS("ipAddress", "ip") {
+        @Override
+        String read(TransactionFeatures f) {
+            return f.getIpAddress();
+        }
+    },
+    DEVICE_ID("deviceId", "device") {
+        @Override
+        String read(TransactionFeatures f) {
+            return f.getDeviceId();
+        }
+    };
+
+    private final String fieldName;
+    private final String alias;
+
+    StringField(String fieldName, String alias) {
+        this.fieldName = fieldName;
+        this.alias = alias;
+    }
+
+    abstract String read(TransactionFeatures f);
+
+    static StringField find(String name) {
+        for (StringField field : values()) {
+            if (field.fieldName.equals(name) || field.alias.equals(name)) {
+                return field;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.frauddetection.service.rule.expensive;
+
+import com.example.frauddetection.dto.TransactionRequest;
+import com.example.frauddetection.repository.TransactionQueries;
+import com.example.frauddetection.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * 账户交易频率：统计账户在时间窗口内的历史交易数，超过上限时命中
+ * 每笔交易都要查询一次数据库，默认不启用；启用分级决策时在第二级异步执行
+ * 兜底结果为不命中
+ */
+@Component
+public class AccountVelocityRule implements ExpensiveRule {
+
+    public static final String CODE = "account-velocity";
+
+    private final TransactionQueries transactionQueries;
+    private final boolean enabled;
+    private final Duration window;
+    private final int maxTransactions;
+    private final Duration timeout;
+
+    @Autowired
+    public AccountVelocityRule(
+            TransactionRepository transactionRepository,
+            @Value("${fraud-detection.expensive-rules.account-velocity.enabled:false}") boolean enabled,
+            @Value("${fraud-detection.expensive-rules.account-velocity.window-minutes:60}") int windowMinutes,
+            @Value("${fraud-detection.expensive-rules.account-velocity.max-transactions:20}") int maxTransactions,
+            @Value("${fraud-detection.expensive-rules.account-velocity.timeout-ms:100}") long timeoutMs) {
+        this.transactionQueries = transactionRepository;
+        this.enabled = enabled;
+        this.window = Duration.ofMinutes(windowMinutes);
+        this.maxTransactions = maxTransactions;
+        this.timeout = Duration.ofMillis(timeoutMs);
+    }
+
+    @Override
+    public String getCode() {
+        return CODE;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    @Override
+    public ExpensiveRuleOutcome evaluate(TransactionRequest request) {
+        if (request.getAccountId() == null) {
+            return ExpensiveRuleOutcome.notMatched(CODE, null);
+        }
+        LocalDateTime end = request.getTimestamp() != null ? request.getTimestamp() : LocalDateTime.now();
+        long count = transactionQueries.countByAccountIdAndTimestampBetween(
+                request.getAccountId(), end.minus(window), end);
+        ExpensiveRuleOutcome outcome = count > maxTransactions
+                ? ExpensiveRuleOutcome.matched(CODE, "账户短时间内交易过多", null)
+                : ExpensiveRuleOutcome.notMatched(CODE, null);
+        return outcome.withCount(count);
+    }
+
+    @Override
+    public ExpensiveRuleOutcome fallback(TransactionRequest request) {
+        return ExpensiveRuleOutcome.notMatched(CODE, null);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.frauddetection.service.rule.expensive;
+
+import com.example.frauddetection.dto.TransactionRequest;
+
+import java.time.Duration;
+
+/**
+ * 耗时规则（模型评分、账户历史查询等）
+ * 与内存中的{@link com.example.frauddetection.service.rule.FraudRule}不同，耗时规则彼此独立，
+ * 由{@link ParallelRuleEvaluator}并行评估，每条规则有自己的超时和兜底结果。
+ * 只消耗CPU的规则（如内存中的模型评分）应声明为{@link #isInline()}，在调用线程中评估
+ */
+public interface ExpensiveRule {
+
+    String getCode();
+
+    /**
+     * 未启用的规则不评估，也不使用兜底结果
+     */
+    boolean isEnabled();
+
+    /**
+     * 在线程池中评估时的超时，同步评估的规则不使用
+     */
+    Duration getTimeout();
+
+    /**
+     * @return 是否在调用线程中同步评估：不经过线程池，不会因超时或线程池已满而使用兜底结果
+     */
+    default boolean isInline() {
+        return false;
+    }
+
+    ExpensiveRuleOutcome evaluate(TransactionRequest request);
+
+    /**
+     * 超时、出错或线程池已满时使用的结果，不能阻塞
+     */
+    ExpensiveRuleOutcome fallback(TransactionRequest request);
+}
@@ -0,0 +1,96 @@
+package com.example.frauddetection.service.rule.expensive;
+
+/**
+ * 耗时规则的评估结果
+ */
+public final class ExpensiveRuleOutcome {
+
+    public enum Status {
+        /** 在超时前完成 */
+        COMPLETED,
+        /** 超时，使用兜底结果 */
+        TIMED_OUT,
+        /** 评估出错，使用兜底结果 */
+        FAILED,
+        /** 线程池已满未执行，使用兜底结果 */
+        REJECTED
+    }
+
+    private final String code;
+    private final boolean matched;
+    private final String reason;
+    private final Double riskScore;
+    private final Long count;
+    private final Status status;
+
+    private ExpensiveRuleOutcome(String code, boolean matched, String reason, Double riskScore, Long count,
+                                 Status status) {
+        this.code = code;
+        this.matched = matched;
+        this.reason = reason;
+        this.riskScore = riskScore;
+        this.count = count;
+        this.status = status;
+    }
+
+    /**
+     * @param riskScore 规则给出的风险分，没有时为null
+     */
+    public static ExpensiveRuleOutcome matched(String code, String reason, Double riskScore) {
+        return new ExpensiveRuleOutcome(code, true, reason, riskScore, null, Status.COMPLETED);
+    }
+
+    public static ExpensiveRuleOutcome notMatched(String code, Double riskScore) {
+        return new ExpensiveRuleOutcome(code, false, null, riskScore, null, Status.COMPLETED);
+    }
+
+    /**
+     * @param newCount 规则统计到的数量（例如窗口内的交易数）
+     */
+    public ExpensiveRuleOutcome withCount(long newCount) {
+        return new ExpensiveRuleOutcome(code, matched, reason, riskScore, newCount, status);
+    }
+
+    ExpensiveRuleOutcome withStatus(Status newStatus) {
+        return new ExpensiveRuleOutcome(code, matched, reason, riskScore, count, newStatus);
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public boolean isMatched() {
+        return matched;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public Double getRiskScore() {
+        return riskScore;
+    }
+
+    /**
+     * @return 规则统计到的数量，没有时为null
+     */
+    public Long getCount() {
+        return count;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return 是否使用了兜底结果
+     */
+    public boolean isFallback() {
+        return status != Status.COMPLETED;
+    }
+
+    @Override
+    public String toString() {
+        return code + "(" + status + (matched ? ", matched" : "") + ")";
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.frauddetection.service.rule.expensive;
+
+import com.example.frauddetection.dto.TransactionRequest;
+import com.example.frauddetection.service.ml.ModelScorer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 模型评分：风险分达到模型的拦截阈值时命中，未配置模型时不启用
+ * 评分是内存中的纯CPU计算，在调用线程中同步评估：放到线程池里只会多一次线程切换，
+ * 且在负载高时因超时或线程池已满而不命中，攻击期间模型反而失效。
+ * 评分出错时的兜底结果为不命中、没有风险分
+ */
+@Component
+public class ModelScoreRule implements ExpensiveRule {
+
+    public static final String CODE = "model-score";
+
+    private final ModelScorer modelScorer;
+
+    @Autowired
+    public ModelScoreRule(ModelScorer modelScorer) {
+        this.modelScorer = modelScorer;
+    }
+
+    @Override
+    public String getCode() {
+        return CODE;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return modelScorer.isEnabled();
+    }
+
+    @Override
+    public Duration getTimeout() {
+        return Duration.ZERO;
+    }
+
+    @Override
+    public boolean isInline() {
+        return true;
+    }
+
+    @Override
+    public ExpensiveRuleOutcome evaluate(TransactionRequest request) {
+        double riskScore = modelScorer.score(request);
+        return riskScore >= modelScorer.getBlockThreshold()
+                ? ExpensiveRuleOutcome.matched(CODE, "模型风险评分过高", riskScore)
+                : ExpensiveRuleOutcome.notMatched(CODE, riskScore);
+    }
+
+    @Override
+    public ExpensiveRuleOutcome fallback(TransactionRequest request) {
+        return ExpensiveRuleOutcome.notMatched(CODE, null);
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.frauddetection.service.rule.expensive;
+
+import com.example.frauddetection.dto.TransactionRequest;
+import com.example.frauddetection.service.rule.expensive.ExpensiveRuleOutcome.Status;
+import com.example.frauddetection.trace.TraceIds;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 耗时规则的并行评估
+ *
+ * 所有启用的耗时规则同时提交到独立的有界线程池，检测线程按各规则的截止时间依次等待结果。
+ * 每条规则的截止时间为 开始时间 + min(规则超时, 总期限)，因此总耗时是最慢的规则或总期限，而不是各规则耗时之和。
+ * 超时的规则被取消（中断）并使用兜底结果，评估出错或线程池已满时同样使用兜底结果，
+ * 调用方据此在决策中标记使用了兜底结果的规则。
+ * 声明为{@link ExpensiveRule#isInline()}的规则（只消耗CPU）不进线程池，在提交其他规则之后由调用线程直接评估。
+ * 分级决策的第二级不在同步延迟预算内，用{@link #evaluateWithin(TransactionRequest, Duration)}按统一的超时评估。
+ */
+@Slf4j
+@Component
+public class ParallelRuleEvaluator implements MeterBinder {
+
+    private final List<ExpensiveRule> rules;
+    private final long deadlineNanos;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, LongAdder[]> outcomeCounts = new HashMap<>();
+
+    @Autowired
+    public ParallelRuleEvaluator(
+            List<ExpensiveRule> rules,
+            @Value("${fraud-detection.expensive-rules.threads:8}") int threads,
+            @Value("${fraud-detection.expensive-rules.queue-capacity:256}") int queueCapacity,
+            @Value("${fraud-detection.expensive-rules.deadline-ms:150}") long deadlineMs) {
+        this.rules = new ArrayList<>(rules);
+        this.deadlineNanos = TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+        List<String> codes = new ArrayList<>(this.rules.size());
+        for (ExpensiveRule rule : this.rules) {
+            codes.add(rule.getCode() + (rule.isInline() ? "(同步)" : "(超时" + rule.getTimeout().toMillis() + "ms)"));
+            LongAdder[] counts = new LongAdder[Status.values().length];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = new LongAdder();
+            }
+            outcomeCounts.put(rule.getCode(), counts);
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "expensive-rule-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        log.info("耗时规则: {}, 线程数: {}, 总期限: {}ms", codes, threads, deadlineMs);
+    }
+
+    /**
+     * 并行评估所有启用的耗时规则，最多等待到总期限
+     *
+     * @return 各规则的结果（超时、出错或未执行的规则为兜底结果），没有启用的规则时为空
+     */
+    public List<ExpensiveRuleOutcome> evaluate(TransactionRequest request) {
+        return evaluate(request, deadlineNanos, true);
+    }
+
+    /**
+     * 并行评估所有启用的耗时规则，每条规则最多等待timeout，不使用规则自身的超时和总期限
+     * 用于不在请求线程中执行的异步分析
+     */
+    public List<ExpensiveRuleOutcome> evaluateWithin(TransactionRequest request, Duration timeout) {
+        return evaluate(request, timeout.toNanos(), false);
+    }
+
+    private List<ExpensiveRuleOutcome> evaluate(TransactionRequest request, long budgetNanos, boolean ruleTimeouts) {
+        List<ExpensiveRule> active = new ArrayList<>(rules.size());
+        for (ExpensiveRule rule : rules) {
+            if (rule.isEnabled()) {
+                active.add(rule);
+            }
+        }
+        if (active.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        long start = System.nanoTime();
+        String traceId = MDC.get(TraceIds.MDC_KEY);
+        List<Future<ExpensiveRuleOutcome>> futures = new ArrayList<>(active.size());
+        for (ExpensiveRule rule : active) {
+            if (rule.isInline()) {
+                futures.add(null);
+                continue;
+            }
+            try {
+                futures.add(executor.submit(() -> {
+                    if (traceId != null) {
+                        MDC.put(TraceIds.MDC_KEY, traceId);
+                    }
+                    try {
+                        return rule.evaluate(request);
+                    } finally {
+                        MDC.remove(TraceIds.MDC_KEY);
+                    }
+                }));
+            } catch (RejectedExecutionException e) {
+                futures.add(null);
+            }
+        }
+
+        List<ExpensiveRuleOutcome> outcomes = new ArrayList<>(active.size());
+        for (int i = 0; i < active.size(); i++) {
+            ExpensiveRule rule = active.get(i);
+            ExpensiveRuleOutcome outcome;
+            if (rule.isInline()) {
+                outcome = evaluateInline(rule, request);
+            } else {
+                long ruleDeadline = start + (ruleTimeouts ? Math.min(rule.getTimeout().toNanos(), budgetNanos) : budgetNanos);
+                outcome = await(rule, request, futures.get(i), ruleDeadline);
+            }
+            outcomeCounts.get(rule.getCode())[outcome.getStatus().ordinal()].increment();
+            outcomes.add(outcome);
+        }
+        return outcomes;
+    }
+
+    private ExpensiveRuleOutcome evaluateInline(ExpensiveRule rule, TransactionRequest request) {
+        try {
+            return rule.evaluate(request);
+        } catch (RuntimeException e) {
+            log.error("交易 {} 的规则 {} 评估出错, 使用兜底结果", request.getTransactionId(), rule.getCode(), e);
+            return rule.fallback(request).withStatus(Status.FAILED);
+        }
+    }
+
+    private ExpensiveRuleOutcome await(ExpensiveRule rule, TransactionRequest request,
+                                       Future<ExpensiveRuleOutcome> future, long deadline) {
+        if (future == null) {
+            log.warn("耗时规则线程池已满, 交易 {} 的规则 {} 使用兜底结果", request.getTransactionId(), rule.getCode());
+            return rule.fallback(request).withStatus(Status.REJECTED);
+        }
+        try {
+            // 已过截止时间时仍检查一次是否已完成
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("交易 {} 的规则 {} 超时, 使用兜底结果", request.getTransactionId(), rule.getCode());
+            return rule.fallback(request).withStatus(Status.TIMED_OUT);
+        } catch (ExecutionException e) {
+            log.error("交易 {} 的规则 {} 评估出错, 使用兜底结果", request.getTransactionId(), rule.getCode(), e.getCause());
+            return rule.fallback(request).withStatus(Status.FAILED);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return rule.fallback(request).withStatus(Status.TIMED_OUT);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("fraud.rules.expensive.queue.size", executor, e -> e.getQueue().size())
+                .description("等待评估的耗时规则数")
+                .register(registry);
+        for (Map.Entry<String, LongAdder[]> entry : outcomeCounts.entrySet()) {
+            for (Status status : Status.values()) {
+                FunctionCounter.builder("fraud.rules.expensive.outcome", entry.getValue()[status.ordinal()],
+                                LongAdder::doubleValue)
+                        .tag("rule", entry.getKey())
+                        .tag("status", status.name().toLowerCase(Locale.ROOT))
+                        .description("耗时规则的评估结果数")
+                        .register(registry);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.frauddetection.service.shadow;
+
+import com.example.frauddetection.dto.ShadowStats;
+import com.example.frauddetection.service.rule.FraudRule;
+import com.example.frauddetection.service.rule.RuleEvaluation;
+import com.example.frauddetection.service.rule.RuleSet;
+import com.example.frauddetection.service.rule.TransactionFeatures;
+import com.example.frauddetection.service.rule.dsl.DslRuleRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 影子规则评估器（冠军/挑战者模式）
+ *
+ * 候选规则集在独立的有界线程池中对线上决策的副本进行评估，记录与线上决策的分歧和各规则命中率。
+ * 提交只做一次非阻塞入队，线程池饱和时直接丢弃，不会阻塞或拖慢线上决策。
+ * 候选规则文件需包含完整的候选规则（内置规则也需用DSL表达）。
+ */
+@Slf4j
+@Component
+public class ShadowRuleEvaluator {
+
+    private final DslRuleRegistry dslRuleRegistry;
+    private final boolean enabled;
+    private final String ruleFile;
+    private final double blockThreshold;
+    private final double sampleRate;
+    private final ThreadPoolExecutor executor;
+
+    private volatile RuleSet candidateRuleSet;
+    private volatile Counters counters = new Counters();
+
+    @Autowired
+    public ShadowRuleEvaluator(
+            DslRuleRegistry dslRuleRegistry,
+            @Value("${fraud-detection.shadow.enabled:false}") boolean enabled,
+            @Value("${fraud-detection.shadow.rules-file:}") String ruleFile,
+            @Value("${fraud-detection.shadow.block-threshold:1.0}") double blockThreshold,
+            @Value("${fraud-detection.shadow.sample-rate:1.0}") double sampleRate,
+            @Value("${fraud-detection.shadow.threads:1}") int threads,
+            @Value("${fraud-detection.shadow.queue-size:1000}") int queueSize) {
+        this.dslRuleRegistry = dslRuleRegistry;
+        this.enabled = enabled;
+        this.ruleFile = ruleFile;
+        this.blockThreshold = blockThreshold;
+        this.sampleRate = sampleRate;
+        this.executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                new ThreadFactory() {
+                    private final AtomicInteger threadNumber = new AtomicInteger(1);
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "shadow-rule-thread-" + threadNumber.getAndIncrement());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                },
+                // 饱和时丢弃，只计数不抛异常
+                (task, pool) -> counters.dropped.increment());
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("影子规则评估未启用");
+            return;
+        }
+        reload();
+    }
+
+    /**
+     * 重新加载候选规则并清空统计
+     */
+    public synchronized void reload() {
+        RuleSet loaded = new RuleSet(dslRuleRegistry.load(ruleFile), blockThreshold);
+        this.candidateRuleSet = loaded;
+        this.counters = new Counters();
+        log.info("影子候选规则已加载: {}, 拦截阈值: {}, 采样率: {}", loaded.getRules(), blockThreshold, sampleRate);
+    }
+
+    public boolean isEnabled() {
+        return enabled && candidateRuleSet != null;
+    }
+
+    /**
+     * 提交一次线上决策的副本进行影子评估，不会阻塞调用方
+     *
+     * @param features       交易特征（不可变，可安全跨线程共享）
+     * @param championFraud  线上规则的判定结果
+     */
+    public void submit(TransactionFeatures features, boolean championFraud) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        Counters current = counters;
+        RuleSet ruleSet = candidateRuleSet;
+        current.submitted.increment();
+        executor.execute(() -> evaluate(ruleSet, current, features, championFraud));
+    }
+
+    private void evaluate(RuleSet ruleSet, Counters current, TransactionFeatures features, boolean championFraud) {
+        try {
+            RuleEvaluation evaluation = ruleSet.evaluate(features);
+            boolean shadowFraud = evaluation.isBlocked();
+            for (FraudRule rule : evaluation.getMatchedRules()) {
+                current.ruleHits.computeIfAbsent(rule.getCode(), code -> new LongAdder()).increment();
+            }
+            if (shadowFraud && championFraud) {
+                current.bothFraud.increment();
+            } else if (!shadowFraud && !championFraud) {
+                current.bothClean.increment();
+            } else if (shadowFraud) {
+                current.shadowOnlyFraud.increment();
+                log.debug("影子规则分歧: 交易 {} 仅候选规则判定欺诈, 命中: {}",
+                        features.getTransactionId(), evaluation.getReasonCodes());
+            } else {
+                current.championOnlyFraud.increment();
+                log.debug("影子规则分歧: 交易 {} 仅线上规则判定欺诈", features.getTransactionId());
+            }
+        } catch (Exception e) {
+            log.warn("影子规则评估失败: {}", features.getTransactionId(), e);
+        } finally {
+            current.evaluated.increment();
+        }
+    }
+
+    public ShadowStats getStats() {
+        Counters current = counters;
+        long bothFraud = current.bothFraud.sum();
+        long bothClean = current.bothClean.sum();
+        long shadowOnly = current.shadowOnlyFraud.sum();
+        long championOnly = current.championOnlyFraud.sum();
+        long compared = bothFraud + bothClean + shadowOnly + championOnly;
+        Map<String, Long> ruleHits = new TreeMap<>();
+        current.ruleHits.forEach((code, hits) -> ruleHits.put(code, hits.sum()));
+        return ShadowStats.builder()
+                .enabled(isEnabled())
+                .ruleFile(ruleFile)
+                .submitted(current.submitted.sum())
+                .dropped(current.dropped.sum())
+                .evaluated(current.evaluated.sum())
+                .bothFraud(bothFraud)
+                .bothClean(bothClean)
+                .shadowOnlyFraud(shadowOnly)
+                .championOnlyFraud(championOnly)
+                .disagreementRate(compared == 0 ? 0.0 : (double) (shadowOnly + championOnly) / compared)
+                .ruleHits(ruleHits)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 一轮候选规则的统计，重新加载时整体替换
+     */
+    private static final class Counters {
+        private final LongAdder submitted = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder evaluated = new LongAdder();
+        private final LongAdder bothFraud = new LongAdder();
+        private final LongAdder bothClean = new LongAdder();
+        private final LongAdder shadowOnlyFraud = new LongAdder();
+        private final LongAdder championOnlyFraud = new LongAdder();
+        private final Map<String, LongAdder> ruleHits = new ConcurrentHashMap<>();
+    }
+}
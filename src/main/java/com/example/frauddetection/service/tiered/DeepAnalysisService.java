@@ -0,0 +1,246 @@
+package com.example.frauddetection.service.tiered;
+
+import com.example.frauddetection.dto.DeepAnalysisVerdict;
+import com.example.frauddetection.dto.FraudDetectionResult;
+import com.example.frauddetection.dto.TransactionRequest;
+import com.example.frauddetection.messaging.alert.FraudAlertPublisher;
+import com.example.frauddetection.messaging.verdict.DeepVerdictPublisher;
+import com.example.frauddetection.service.rule.expensive.ExpensiveRule;
+import com.example.frauddetection.service.rule.expensive.ExpensiveRuleOutcome;
+import com.example.frauddetection.service.rule.expensive.ParallelRuleEvaluator;
+import com.example.frauddetection.trace.TraceIds;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 分级决策的第二级：异步深度分析
+ *
+ * 第一级在请求线程中只评估内存规则并立即返回决策；启用分级决策后，耗时规则（{@link ExpensiveRule}，
+ * 模型评分、账户历史查询等）不在请求线程中评估，而是提交到独立的有界线程池，由{@link ParallelRuleEvaluator}
+ * 按rule-timeout-ms并行评估，得出的决策按交易ID经{@link DeepVerdictPublisher}
+ * 发布（回调地址或结果队列）。决策由不欺诈变为欺诈时同时提交欺诈警报。
+ * 线程池队列满时丢弃深度分析并计数，第一级决策保持有效，不会反压到检测接口。
+ * 深度分析不修改已保存的交易记录，以发布的决策为准。
+ */
+@Slf4j
+@Component
+public class DeepAnalysisService implements MeterBinder {
+
+    private final ParallelRuleEvaluator parallelRuleEvaluator;
+    private final DeepVerdictPublisher verdictPublisher;
+    private final FraudAlertPublisher fraudAlertPublisher;
+    private final boolean enabled;
+    private final Duration ruleTimeout;
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder changed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    @Autowired
+    public DeepAnalysisService(
+            ParallelRuleEvaluator parallelRuleEvaluator,
+            DeepVerdictPublisher verdictPublisher,
+            FraudAlertPublisher fraudAlertPublisher,
+            @Value("${fraud-detection.tiered.enabled:false}") boolean enabled,
+            @Value("${fraud-detection.tiered.threads:4}") int threads,
+            @Value("${fraud-detection.tiered.queue-capacity:10000}") int queueCapacity,
+            @Value("${fraud-detection.tiered.rule-timeout-ms:2000}") long ruleTimeoutMs) {
+        this.parallelRuleEvaluator = parallelRuleEvaluator;
+        this.verdictPublisher = verdictPublisher;
+        this.fraudAlertPublisher = fraudAlertPublisher;
+        this.enabled = enabled;
+        this.ruleTimeout = Duration.ofMillis(ruleTimeoutMs);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "deep-analysis-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        if (enabled) {
+            log.info("分级决策已启用, 深度分析线程数: {}, 队列容量: {}, 决策发布: {}",
+                    threads, queueCapacity, verdictPublisher.isEnabled() ? "启用" : "未配置");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 提交深度分析，不阻塞调用方
+     *
+     * @param tier1 第一级决策，提交时复制需要的字段，之后调用方可以继续修改
+     * @return 线程池已满被丢弃时返回false
+     */
+    public boolean submit(TransactionRequest request, FraudDetectionResult tier1) {
+        Tier1Snapshot snapshot = new Tier1Snapshot(tier1);
+        String traceId = MDC.get(TraceIds.MDC_KEY);
+        try {
+            executor.execute(() -> {
+                try {
+                    if (traceId != null) {
+                        MDC.put(TraceIds.MDC_KEY, traceId);
+                    }
+                    DeepAnalysisVerdict verdict = analyze(request, snapshot);
+                    publish(request, snapshot, verdict);
+                } catch (Exception e) {
+                    failed.increment();
+                    log.error("交易 {} 深度分析失败", request.getTransactionId(), e);
+                } finally {
+                    MDC.remove(TraceIds.MDC_KEY);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            dropped.increment();
+            log.debug("深度分析队列已满，交易 {} 只使用第一级决策", request.getTransactionId());
+            return false;
+        }
+        submitted.increment();
+        return true;
+    }
+
+    DeepAnalysisVerdict analyze(TransactionRequest request, Tier1Snapshot tier1) {
+        long startTime = System.currentTimeMillis();
+        List<String> reasonCodes = new ArrayList<>(tier1.reasonCodes);
+        boolean fraudulent = tier1.fraudulent;
+        String fraudReason = tier1.fraudReason;
+
+        Double riskScore = null;
+        Integer recentCount = null;
+        List<String> fallbackRules = null;
+        for (ExpensiveRuleOutcome outcome : parallelRuleEvaluator.evaluateWithin(request, ruleTimeout)) {
+            if (outcome.getRiskScore() != null) {
+                riskScore = outcome.getRiskScore();
+            }
+            if (outcome.getCount() != null) {
+                recentCount = outcome.getCount().intValue();
+            }
+            if (outcome.isFallback()) {
+                if (fallbackRules == null) {
+                    fallbackRules = new ArrayList<>(2);
+                }
+                fallbackRules.add(outcome.getCode());
+            }
+            if (outcome.isMatched()) {
+                reasonCodes.add(outcome.getCode());
+                if (!fraudulent) {
+                    fraudulent = true;
+                    fraudReason = outcome.getReason();
+                }
+            }
+        }
+        if (fallbackRules != null) {
+            log.warn("交易 {} 的深度分析使用了兜底结果: {}", request.getTransactionId(), fallbackRules);
+        }
+
+        return DeepAnalysisVerdict.builder()
+                .transactionId(request.getTransactionId())
+                .accountId(request.getAccountId())
+                .initialFraudulent(tier1.fraudulent)
+                .fraudulent(fraudulent)
+                .changed(fraudulent != tier1.fraudulent)
+                .fraudReason(fraudReason)
+                .reasonCodes(reasonCodes)
+                .riskScore(riskScore)
+                .recentTransactionCount(recentCount)
+                .analyzedAt(LocalDateTime.now())
+                .analysisTimeMs(System.currentTimeMillis() - startTime)
+                .build();
+    }
+
+    private void publish(TransactionRequest request, Tier1Snapshot tier1, DeepAnalysisVerdict verdict) {
+        completed.increment();
+        if (verdict.isChanged()) {
+            changed.increment();
+            log.info("交易 {} 深度分析改变决策: {} -> {}, 原因: {}", verdict.getTransactionId(),
+                    tier1.fraudulent, verdict.isFraudulent(), verdict.getFraudReason());
+            fraudAlertPublisher.publish(request, FraudDetectionResult.builder()
+                    .transactionId(verdict.getTransactionId())
+                    .fraudulent(verdict.isFraudulent())
+                    .fraudReason(verdict.getFraudReason())
+                    .riskScore(verdict.getRiskScore())
+                    .ruleScore(tier1.ruleScore)
+                    .reasonCodes(verdict.getReasonCodes())
+                    .build());
+        }
+        if (verdictPublisher.isEnabled()) {
+            verdictPublisher.publish(verdict);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("fraud.deep.queue.size", executor, e -> e.getQueue().size())
+                .description("等待深度分析的交易数")
+                .register(registry);
+        FunctionCounter.builder("fraud.deep.submitted", submitted, LongAdder::doubleValue)
+                .description("提交深度分析的交易数")
+                .register(registry);
+        FunctionCounter.builder("fraud.deep.dropped", dropped, LongAdder::doubleValue)
+                .description("队列已满未做深度分析的交易数")
+                .register(registry);
+        FunctionCounter.builder("fraud.deep.completed", completed, LongAdder::doubleValue)
+                .description("完成深度分析的交易数")
+                .register(registry);
+        FunctionCounter.builder("fraud.deep.changed", changed, LongAdder::doubleValue)
+                .description("深度分析改变决策的交易数")
+                .register(registry);
+        FunctionCounter.builder("fraud.deep.failed", failed, LongAdder::doubleValue)
+                .description("深度分析出错的交易数")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("深度分析未在停机期限内完成，剩余{}笔放弃", executor.shutdownNow().size());
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 第一级决策中深度分析需要的字段
+     */
+    static final class Tier1Snapshot {
+        private final boolean fraudulent;
+        private final String fraudReason;
+        private final double ruleScore;
+        private final List<String> reasonCodes;
+
+        Tier1Snapshot(FraudDetectionResult result) {
+            this.fraudulent = result.isFraudulent();
+            this.fraudReason = result.getFraudReason();
+            this.ruleScore = result.getRuleScore();
+            this.reasonCodes = result.getReasonCodes() != null
+                    ? new ArrayList<>(result.getReasonCodes()) : new ArrayList<>();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.frauddetection.trace;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 追踪ID的生成与解析
+ *
+ * 追踪ID为32位小写十六进制（与W3C traceparent的trace-id格式相同）：前12位为毫秒时间戳，
+ * 其余为ThreadLocalRandom随机数。生成不加锁、不消耗熵池，大致按时间排序，便于在日志中按时间定位。
+ * UUID.randomUUID()每次都要获取全局SecureRandom的锁，在高并发下会成为竞争点。
+ */
+public final class TraceIds {
+
+    /** MDC中的追踪ID */
+    public static final String MDC_KEY = "traceId";
+    /** 队列消息属性中的追踪ID */
+    public static final String MESSAGE_ATTRIBUTE = "traceId";
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+    public static final String TRACEPARENT_HEADER = "traceparent";
+
+    private static final int MAX_LENGTH = 64;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private TraceIds() {
+    }
+
+    public static String newTraceId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] id = new char[32];
+        writeHex(id, 0, System.currentTimeMillis(), 12);
+        writeHex(id, 12, random.nextLong(), 16);
+        writeHex(id, 28, random.nextInt(), 4);
+        return new String(id);
+    }
+
+    /**
+     * 从W3C traceparent（version-traceid-parentid-flags）中取出trace-id
+     *
+     * @return 格式不正确或trace-id全为0时返回null
+     */
+    public static String fromTraceparent(String traceparent) {
+        if (traceparent == null) {
+            return null;
+        }
+        String value = traceparent.trim();
+        if (value.length() < 55 || value.charAt(2) != '-' || value.charAt(35) != '-' || value.charAt(52) != '-'
+                || value.startsWith("ff")) {
+            return null;
+        }
+        String traceId = value.substring(3, 35);
+        boolean allZero = true;
+        for (int i = 0; i < traceId.length(); i++) {
+            char c = traceId.charAt(i);
+            if (!(c >= '0' && c <= '9' || c >= 'a' && c <= 'f')) {
+                return null;
+            }
+            allZero &= c == '0';
+        }
+        return allZero ? null : traceId;
+    }
+
+    /**
+     * 校验外部传入的追踪ID（请求头、消息属性），只接受不超过64位的字母、数字、'-'和'_'，避免日志注入
+     *
+     * @return 不合法时返回null
+     */
+    public static String sanitize(String traceId) {
+        if (traceId == null || traceId.isEmpty() || traceId.length() > MAX_LENGTH) {
+            return null;
+        }
+        for (int i = 0; i < traceId.length(); i++) {
+            char c = traceId.charAt(i);
+            if (!(c >= '0' && c <= '9' || c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '-' || c == '_')) {
+                return null;
+            }
+        }
+        return traceId;
+    }
+
+    private static void writeHex(char[] target, int offset, long value, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            target[offset + i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+}
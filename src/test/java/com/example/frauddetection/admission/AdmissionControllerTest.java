@@ -0,0 +1,58 @@
+package com.example.frauddetection.admission;
+
+import com.example.frauddetection.admission.AdmissionController.Source;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionControllerTest {
+
+    @Test
+    void shouldReserveCapacityForApiAndLetQueueUseTheRest() throws Exception {
+        AdmissionController admission = new AdmissionController(true, 5, 2, 0);
+
+        // 队列最多使用 容量 - 预留
+        for (int i = 0; i < 3; i++) {
+            assertTrue(admission.tryAcquireQueue());
+        }
+        assertFalse(admission.tryAcquireQueue());
+        assertFalse(admission.awaitQueueCapacity(1));
+
+        // 预留名额只给同步接口，全部用完后拒绝
+        assertTrue(admission.tryAcquireApi());
+        assertTrue(admission.tryAcquireApi());
+        assertFalse(admission.tryAcquireApi());
+
+        // 同步接口在途数超过预留时，队列只能使用剩余的名额
+        admission.release(Source.QUEUE);
+        admission.release(Source.QUEUE);
+        assertTrue(admission.tryAcquireApi());
+        assertEquals(3, admission.getInFlight(Source.API));
+        assertEquals(1, admission.availableForQueue());
+        assertTrue(admission.awaitQueueCapacity(1));
+    }
+
+    @Test
+    void shouldLetWaitingApiCallerInWhenCapacityIsReleased() throws Exception {
+        AdmissionController admission = new AdmissionController(true, 2, 1, 2000);
+        assertTrue(admission.tryAcquireQueue());
+        assertTrue(admission.tryAcquireApi());
+
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                return;
+            }
+            admission.release(Source.QUEUE);
+        });
+        releaser.start();
+
+        assertTrue(admission.tryAcquireApi());
+        releaser.join();
+        assertEquals(0, admission.getInFlight(Source.QUEUE));
+        assertFalse(AdmissionController.unlimited().availableForQueue() <= 0);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.frauddetection.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadWriteRoutingDataSourceTest {
+
+    @Test
+    void shouldRouteReadOnlyTransactionsToReadPool() {
+        DataSource primary = database("primary");
+        DataSource replica = database("replica");
+        DataSource routing = new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replica));
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(routing);
+        TransactionTemplate readWrite = new TransactionTemplate(new DataSourceTransactionManager(routing));
+        TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(routing));
+        readOnly.setReadOnly(true);
+
+        assertEquals("replica", readOnly.execute(status -> marker(jdbcTemplate)));
+        assertEquals("primary", readWrite.execute(status -> marker(jdbcTemplate)));
+        // 不在事务中的访问使用写连接池
+        assertEquals("primary", marker(jdbcTemplate));
+    }
+
+    private static String marker(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("SELECT name FROM marker", String.class);
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE marker (name VARCHAR(20))");
+        jdbcTemplate.update("INSERT INTO marker VALUES (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.frauddetection.controller;
+
+import com.example.frauddetection.admission.AdmissionController;
+import com.example.frauddetection.dto.FraudDetectionResult;
+import com.example.frauddetection.dto.TransactionRequest;
+import com.example.frauddetection.ratelimit.EdgeRateLimiter;
+import com.example.frauddetection.repository.TransactionRepository;
+import com.example.frauddetection.service.FraudDetectionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 检测接口的入口限流：响应格式、按连接地址限IP、受信任代理的X-Forwarded-For、IP超限时退还账户令牌
+ */
+class FraudDetectionControllerRateLimitTest {
+
+    // 每秒0.001个令牌（间隔1000秒），测试期间不会补充
+    private static final double NO_REFILL = 0.001;
+
+    private final FraudDetectionService fraudDetectionService = mock(FraudDetectionService.class);
+
+    private MockMvc mockMvc(String mode, int accountBurst, int ipBurst) {
+        return mockMvc(mode, accountBurst, ipBurst, "");
+    }
+
+    private MockMvc mockMvc(String mode, int accountBurst, int ipBurst, String trustedProxies) {
+        when(fraudDetectionService.analyzeTransaction(any(TransactionRequest.class)))
+                .thenReturn(FraudDetectionResult.builder().transactionId("TX").build());
+        EdgeRateLimiter limiter = new EdgeRateLimiter(true, mode, NO_REFILL, accountBurst, NO_REFILL, ipBurst, 1000,
+                trustedProxies);
+        return MockMvcBuilders.standaloneSetup(new FraudDetectionController(fraudDetectionService,
+                mock(TransactionRepository.class), limiter, AdmissionController.unlimited())).build();
+    }
+
+    private static ResultActions detect(MockMvc mockMvc, String accountId, String bodyIp, String remoteAddr)
+            throws Exception {
+        return detect(mockMvc, accountId, bodyIp, remoteAddr, null);
+    }
+
+    private static ResultActions detect(MockMvc mockMvc, String accountId, String bodyIp, String remoteAddr,
+                                        String forwardedFor) throws Exception {
+        return mockMvc.perform(post("/api/v1/fraud-detection/detect")
+                .with(request -> {
+                    request.setRemoteAddr(remoteAddr);
+                    if (forwardedFor != null) {
+                        request.addHeader("X-Forwarded-For", forwardedFor);
+                    }
+                    return request;
+                })
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"transactionId\":\"TX\",\"accountId\":\"" + accountId
+                        + "\",\"ipAddress\":\"" + bodyIp + "\"}"));
+    }
+
+    @Test
+    void shouldRejectWithRetryAfterWhenClientAddressExceedsLimit() throws Exception {
+        MockMvc mockMvc = mockMvc(EdgeRateLimiter.MODE_REJECT, 100, 2);
+
+        detect(mockMvc, "ACC1", "1.1.1.1", "10.0.0.1").andExpect(status().isOk());
+        detect(mockMvc, "ACC2", "2.2.2.2", "10.0.0.1").andExpect(status().isOk());
+        // 每次换一个请求体中的ipAddress也不能绕过按连接地址的限流
+        detect(mockMvc, "ACC3", "3.3.3.3", "10.0.0.1")
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1000"));
+        detect(mockMvc, "ACC4", "3.3.3.3", "10.0.0.2").andExpect(status().isOk());
+
+        verify(fraudDetectionService, times(3)).analyzeTransaction(any(TransactionRequest.class));
+    }
+
+    @Test
+    void shouldHonourForwardedForOnlyFromTrustedProxies() throws Exception {
+        MockMvc mockMvc = mockMvc(EdgeRateLimiter.MODE_REJECT, 100, 1, "10.0.0.0/8");
+
+        // 经受信任代理转发：按X-Forwarded-For中最右边一个不是代理的地址限流，客户端伪造的左侧条目不起作用
+        detect(mockMvc, "ACC1", "1.1.1.1", "10.0.0.1", "9.9.9.1, 203.0.113.7, 10.1.1.1")
+                .andExpect(status().isOk());
+        detect(mockMvc, "ACC2", "1.1.1.1", "10.0.0.2", "9.9.9.2, 203.0.113.7")
+                .andExpect(status().isTooManyRequests());
+        detect(mockMvc, "ACC3", "1.1.1.1", "10.0.0.1", "198.51.100.1").andExpect(status().isOk());
+
+        // 不是受信任代理的对端发来的X-Forwarded-For被忽略，按对端地址限流
+        detect(mockMvc, "ACC4", "1.1.1.1", "192.0.2.1", "9.9.9.3").andExpect(status().isOk());
+        detect(mockMvc, "ACC5", "1.1.1.1", "192.0.2.1", "9.9.9.4").andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    void shouldRefundAccountTokenWhenRejectedByIpLimit() throws Exception {
+        MockMvc mockMvc = mockMvc(EdgeRateLimiter.MODE_REJECT, 2, 1);
+
+        detect(mockMvc, "ACC1", "1.1.1.1", "10.0.0.1").andExpect(status().isOk());
+        detect(mockMvc, "ACC1", "1.1.1.1", "10.0.0.1").andExpect(status().isTooManyRequests());
+        // 被IP拒绝的请求没有消耗账户的第二个令牌
+        detect(mockMvc, "ACC1", "1.1.1.1", "10.0.0.2").andExpect(status().isOk());
+        detect(mockMvc, "ACC1", "1.1.1.1", "10.0.0.3").andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    void shouldReturnFraudDecisionWithoutDetectionInFlagMode() throws Exception {
+        MockMvc mockMvc = mockMvc(EdgeRateLimiter.MODE_FLAG, 1, 100);
+
+        detect(mockMvc, "ACC1", "1.1.1.1", "10.0.0.1").andExpect(status().isOk());
+        detect(mockMvc, "ACC1", "1.1.1.1", "10.0.0.1")
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.RETRY_AFTER))
+                .andExpect(jsonPath("$.fraudulent").value(true))
+                .andExpect(jsonPath("$.reasonCodes[0]").value("rate-limit-account"));
+
+        verify(fraudDetectionService, times(1)).analyzeTransaction(any(TransactionRequest.class));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.frauddetection.messaging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    @Test
+    void shouldGrowWhileFastAndBackOffWhenSlow() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 20, 100, 0.5, true);
+
+        // 限制被用满时，快速完成的消息让限制逐步增长
+        for (int round = 0; round < 50; round++) {
+            int acquired = 0;
+            while (limiter.tryAcquire()) {
+                acquired++;
+            }
+            assertEquals(limiter.getLimit(), acquired);
+            for (int i = 0; i < acquired; i++) {
+                limiter.onSuccess(FAST);
+            }
+        }
+        assertEquals(20, limiter.getLimit());
+
+        // 同一轮中的多条慢消息只缩小一次
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        for (int i = 0; i < 10; i++) {
+            limiter.onSuccess(SLOW);
+        }
+        assertEquals(10, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void shouldBlockAcquireAtLimitAndExposeMetrics() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.fixed(2);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        limiter.bindTo(registry);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertFalse(limiter.awaitPermit(10));
+        assertEquals(2.0, registry.get("fraud.consumer.concurrency.in.flight").gauge().value());
+
+        new Thread(limiter::onDropped).start();
+        assertTrue(limiter.awaitPermit(5000));
+        // 固定限制不因失败缩小
+        assertEquals(2, limiter.getLimit());
+        assertEquals(1.0, registry.get("fraud.consumer.dropped").functionCounter().count());
+        assertEquals(2.0, registry.get("fraud.consumer.concurrency.limit").gauge().value());
+    }
+}
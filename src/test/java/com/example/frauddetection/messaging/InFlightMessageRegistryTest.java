@@ -0,0 +1,58 @@
+package com.example.frauddetection.messaging;
+
+import com.example.frauddetection.messaging.transport.InboundMessage;
+import com.example.frauddetection.messaging.transport.MessageTransport;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class InFlightMessageRegistryTest {
+
+    private final MessageTransport transport = mock(MessageTransport.class);
+
+    @Test
+    void shouldExtendOnlyMessagesStillInFlight() {
+        InFlightMessageRegistry registry = new InFlightMessageRegistry(transport, true,
+                Duration.ofMillis(100), Duration.ofMillis(50), Duration.ofMinutes(1));
+        InboundMessage queued = message("m1");
+        InboundMessage done = message("m2");
+        InboundMessage failed = message("m3");
+        registry.register(queued);
+        registry.register(done);
+        registry.register(failed);
+
+        registry.acknowledge(done);
+        registry.release(failed);
+        registry.extendExpiring();
+
+        verify(transport).acknowledge(Collections.singletonList(done));
+        verify(transport).release(Collections.singletonList(failed));
+        verify(transport).changeVisibility(Collections.singletonList(queued), Duration.ofMillis(100));
+        assertEquals(1, registry.getTrackedCount());
+    }
+
+    @Test
+    void shouldStopExtendingAfterMaxInFlight() throws Exception {
+        InFlightMessageRegistry registry = new InFlightMessageRegistry(transport, true,
+                Duration.ofMillis(100), Duration.ofMillis(50), Duration.ofMillis(10));
+        registry.register(message("m1"));
+        Thread.sleep(20);
+
+        registry.extendExpiring();
+
+        verify(transport, never()).changeVisibility(any(), eq(Duration.ofMillis(100)));
+        assertEquals(0, registry.getTrackedCount());
+    }
+
+    private static InboundMessage message(String id) {
+        return new InboundMessage(id, id + "#1", "{}", Collections.emptyMap(), 1);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.frauddetection.messaging;
+
+import com.example.frauddetection.config.KafkaConsumerConfig;
+import com.example.frauddetection.dto.FraudDetectionResult;
+import com.example.frauddetection.dto.TransactionRequest;
+import com.example.frauddetection.service.FraudDetectionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(classes = {KafkaConsumerConfig.class, KafkaTransactionConsumer.class,
+        KafkaAutoConfiguration.class, JacksonAutoConfiguration.class}, properties = {
+        "fraud-detection.kafka.enabled=true",
+        "fraud-detection.kafka.topic=transactions-dlt-test",
+        "fraud-detection.kafka.group-id=fraud-dlt-test-group",
+        "fraud-detection.kafka.retry-interval-ms=100",
+        "spring.kafka.consumer.auto-offset-reset=earliest"
+})
+@EmbeddedKafka(partitions = 1, topics = {"transactions-dlt-test", "transactions-dlt-test.DLT"},
+        bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+class KafkaDeadLetterTest {
+
+    @MockBean
+    private FraudDetectionService fraudDetectionService;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void shouldPublishRecordToDeadLetterTopicWhenRetriesAreExhausted() throws Exception {
+        List<String> processed = new CopyOnWriteArrayList<>();
+        when(fraudDetectionService.analyzeTransaction(any())).thenAnswer(invocation -> {
+            TransactionRequest request = invocation.getArgument(0);
+            if ("tx-poison".equals(request.getTransactionId())) {
+                throw new IllegalStateException("金额字段超出范围");
+            }
+            processed.add(request.getTransactionId());
+            return FraudDetectionResult.builder().transactionId(request.getTransactionId()).build();
+        });
+
+        Map<String, Object> producerProps = KafkaTestUtils.producerProps(embeddedKafka);
+        try (KafkaProducer<String, String> producer =
+                     new KafkaProducer<>(producerProps, new StringSerializer(), new StringSerializer())) {
+            for (String transactionId : new String[]{"tx-1", "tx-poison", "tx-2"}) {
+                producer.send(new ProducerRecord<>("transactions-dlt-test", "ACC-1", objectMapper.writeValueAsString(
+                        TransactionRequest.builder().transactionId(transactionId).accountId("ACC-1").build())));
+            }
+        }
+
+        // 重试耗尽的记录跳过后，同一分区之后的记录继续处理
+        await().atMost(Duration.ofSeconds(30)).untilAsserted(() -> assertEquals(2, processed.size()));
+        assertEquals("tx-1", processed.get(0));
+        assertEquals("tx-2", processed.get(1));
+
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("dlt-reader", "false", embeddedKafka);
+        consumerProps.put("auto.offset.reset", "earliest");
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<>(consumerProps,
+                new StringDeserializer(), new StringDeserializer()).createConsumer()) {
+            embeddedKafka.consumeFromAnEmbeddedTopic(consumer, "transactions-dlt-test.DLT");
+            ConsumerRecord<String, String> deadLetter =
+                    KafkaTestUtils.getSingleRecord(consumer, "transactions-dlt-test.DLT", 10_000);
+            assertEquals("ACC-1", deadLetter.key());
+            assertEquals("tx-poison", objectMapper.readValue(deadLetter.value(), TransactionRequest.class)
+                    .getTransactionId());
+            assertNotNull(deadLetter.headers().lastHeader("kafka_dlt-exception-message"));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.frauddetection.messaging;
+
+import com.example.frauddetection.config.KafkaConsumerConfig;
+import com.example.frauddetection.dto.FraudDetectionResult;
+import com.example.frauddetection.dto.TransactionRequest;
+import com.example.frauddetection.service.FraudDetectionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(classes = {KafkaConsumerConfig.class, KafkaTransactionConsumer.class,
+        KafkaAutoConfiguration.class, JacksonAutoConfiguration.class}, properties = {
+        "fraud-detection.kafka.enabled=true",
+        "fraud-detection.kafka.topic=transactions-test",
+        "fraud-detection.kafka.group-id=fraud-test-group",
+        "fraud-detection.kafka.retry-interval-ms=100",
+        "spring.kafka.consumer.auto-offset-reset=earliest"
+})
+@EmbeddedKafka(partitions = 3, topics = "transactions-test", bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+class KafkaTransactionConsumerTest {
+
+    @MockBean
+    private FraudDetectionService fraudDetectionService;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void shouldProcessAccountsInOrderAndCommitAfterRetry() throws Exception {
+        Map<String, List<String>> processed = new ConcurrentHashMap<>();
+        AtomicBoolean failedOnce = new AtomicBoolean();
+        when(fraudDetectionService.analyzeTransaction(any())).thenAnswer(invocation -> {
+            TransactionRequest request = invocation.getArgument(0);
+            if ("ACC-1-tx-2".equals(request.getTransactionId()) && failedOnce.compareAndSet(false, true)) {
+                throw new IllegalStateException("数据库暂时不可用");
+            }
+            processed.computeIfAbsent(request.getAccountId(), k -> new CopyOnWriteArrayList<>())
+                    .add(request.getTransactionId());
+            return FraudDetectionResult.builder().transactionId(request.getTransactionId()).build();
+        });
+
+        Map<String, Object> producerProps = KafkaTestUtils.producerProps(embeddedKafka);
+        try (KafkaProducer<String, String> producer =
+                     new KafkaProducer<>(producerProps, new StringSerializer(), new StringSerializer())) {
+            for (int i = 0; i < 5; i++) {
+                for (int account = 0; account < 4; account++) {
+                    String accountId = "ACC-" + account;
+                    producer.send(new ProducerRecord<>("transactions-test", accountId,
+                            objectMapper.writeValueAsString(request(accountId, accountId + "-tx-" + i))));
+                }
+            }
+            producer.send(new ProducerRecord<>("transactions-test", "ACC-0", "not json"));
+        }
+
+        await().atMost(Duration.ofSeconds(30)).untilAsserted(() -> {
+            assertEquals(4, processed.size());
+            for (Map.Entry<String, List<String>> entry : processed.entrySet()) {
+                // 同一账户在同一分区内按顺序处理，重试时已成功的记录不会重复
+                assertEquals(5, entry.getValue().size(), entry.getKey() + ": " + entry.getValue());
+                for (int i = 0; i < 5; i++) {
+                    assertEquals(entry.getKey() + "-tx-" + i, entry.getValue().get(i));
+                }
+            }
+            assertEquals(21L, committedOffsets());
+        });
+        assertTrue(failedOnce.get());
+    }
+
+    private long committedOffsets() throws Exception {
+        try (AdminClient admin = AdminClient.create(Collections.singletonMap(
+                AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, embeddedKafka.getBrokersAsString()))) {
+            Map<TopicPartition, OffsetAndMetadata> offsets =
+                    admin.listConsumerGroupOffsets("fraud-test-group").partitionsToOffsetAndMetadata().get();
+            return offsets.values().stream().mapToLong(OffsetAndMetadata::offset).sum();
+        }
+    }
+
+    private TransactionRequest request(String accountId, String transactionId) {
+        return TransactionRequest.builder()
+                .transactionId(transactionId)
+                .accountId(accountId)
+                .amount(new BigDecimal("100.00"))
+                .currency("USD")
+                .sourceCountry("US")
+                .destinationCountry("US")
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+}
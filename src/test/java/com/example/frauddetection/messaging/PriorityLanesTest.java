@@ -0,0 +1,82 @@
+package com.example.frauddetection.messaging;
+
+import com.example.frauddetection.dto.TransactionRequest;
+import com.example.frauddetection.messaging.PriorityLanes.Lane;
+import com.example.frauddetection.messaging.transport.InboundMessage;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriorityLanesTest {
+
+    @Test
+    void shouldClassifyByAttributeThenAmount() {
+        PriorityLanes lanes = new PriorityLanes(new BigDecimal("10000"), 4, 1, 10);
+        TransactionRequest large = TransactionRequest.builder().amount(new BigDecimal("10000")).build();
+        TransactionRequest small = TransactionRequest.builder().amount(new BigDecimal("9999.99")).build();
+
+        assertEquals(Lane.HIGH, lanes.classify(message(null), large));
+        assertEquals(Lane.NORMAL, lanes.classify(message(null), small));
+        assertEquals(Lane.NORMAL, lanes.classify(message(null), null));
+        assertEquals(Lane.HIGH, lanes.classify(message("HIGH"), small));
+        assertEquals(Lane.NORMAL, lanes.classify(message("normal"), large));
+        assertEquals(Lane.HIGH, lanes.classify(message("unknown"), large));
+    }
+
+    @Test
+    void shouldInterleaveBackloggedLanesByWeightWithoutStarvation() throws Exception {
+        PriorityLanes lanes = new PriorityLanes(null, 4, 1, 20);
+        for (int i = 0; i < 10; i++) {
+            lanes.offer(Lane.NORMAL, new Named("n"));
+        }
+        for (int i = 0; i < 10; i++) {
+            lanes.offer(Lane.HIGH, new Named("h"));
+        }
+        assertEquals(0, lanes.remainingCapacity());
+        assertFalse(lanes.awaitRoom(1));
+
+        StringBuilder order = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            order.append(lanes.poll());
+        }
+        // 每5条中高优先级4条，普通通道不会饿死
+        assertEquals("hhnhhhhnhh", order.toString());
+        assertEquals(2, lanes.depth(Lane.HIGH));
+        assertEquals(8, lanes.depth(Lane.NORMAL));
+        assertTrue(lanes.awaitRoom(1));
+
+        // 高优先级通道清空后普通通道独占
+        assertEquals("hhnn", "" + lanes.poll() + lanes.poll() + lanes.poll() + lanes.poll());
+        assertEquals(6, lanes.drainAll().size());
+        assertTrue(lanes.isEmpty());
+        assertNull(lanes.poll());
+    }
+
+    private static InboundMessage message(String priority) {
+        return new InboundMessage("m", "r", "{}", priority == null ? null
+                : Collections.singletonMap(PriorityLanes.PRIORITY_ATTRIBUTE, priority), 1);
+    }
+
+    private static final class Named implements Runnable {
+        private final String name;
+
+        private Named(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void run() {
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
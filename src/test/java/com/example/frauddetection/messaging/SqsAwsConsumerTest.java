@@ -0,0 +1,280 @@
+package com.example.frauddetection.messaging;
+
+import com.example.frauddetection.admission.AdmissionController;
+import com.example.frauddetection.dto.FraudDetectionResult;
+import com.example.frauddetection.dto.TransactionRequest;
+import com.example.frauddetection.messaging.codec.TransactionMessageCodec;
+import com.example.frauddetection.messaging.transport.InMemoryMessageTransport;
+import com.example.frauddetection.messaging.transport.OutboundMessage;
+import com.example.frauddetection.service.FraudDetectionService;
+import com.example.frauddetection.trace.TraceIds;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqsAwsConsumerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void shouldProcessBacklogThroughInMemoryTransport() throws Exception {
+        InMemoryMessageTransport transport = new InMemoryMessageTransport(10000, Duration.ofSeconds(30), Duration.ZERO);
+        Set<String> analysed = ConcurrentHashMap.newKeySet();
+        FraudDetectionService service = request -> {
+            analysed.add(request.getTransactionId());
+            return FraudDetectionResult.builder().transactionId(request.getTransactionId()).build();
+        };
+        SqsAwsProducer producer = new SqsAwsProducer(transport, objectMapper);
+        SqsAwsConsumer consumer = new SqsAwsConsumer(transport, TransactionMessageCodec.json(objectMapper), service, producer,
+                AdaptiveConcurrencyLimiter.fixed(4),
+                new InFlightMessageRegistry(transport, true, Duration.ofSeconds(30), Duration.ofSeconds(10),
+                        Duration.ofMinutes(15)),
+                100, 60, 10, 1, 1000, 5);
+
+        List<TransactionRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            requests.add(TransactionRequest.builder()
+                    .transactionId("tx-" + i)
+                    .accountId("acc-" + (i % 100))
+                    .amount(new BigDecimal("10.00"))
+                    .currency("USD")
+                    .timestamp(LocalDateTime.now())
+                    .build());
+        }
+        producer.sendTransactions(requests);
+        // 无法解析的消息不确认，留在途中等待重新投递
+        transport.send(Collections.singletonList(OutboundMessage.of("not json")));
+
+        consumer.init();
+        // 一轮调度即可处理完整个积压
+        consumer.receiveMessages();
+
+        await().atMost(Duration.ofSeconds(20)).untilAsserted(() -> assertEquals(5000, analysed.size()));
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertEquals(1, transport.getInFlightCount()));
+        assertEquals(0, transport.getReadyCount());
+        consumer.stop();
+    }
+
+    @Test
+    void shouldFinishStartedMessagesAndReturnTheRestOnStop() throws Exception {
+        InMemoryMessageTransport transport = new InMemoryMessageTransport(100, Duration.ofSeconds(30), Duration.ZERO);
+        Set<String> analysed = ConcurrentHashMap.newKeySet();
+        AtomicInteger started = new AtomicInteger();
+        FraudDetectionService service = request -> {
+            started.incrementAndGet();
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            analysed.add(request.getTransactionId());
+            return FraudDetectionResult.builder().transactionId(request.getTransactionId()).build();
+        };
+        SqsAwsProducer producer = new SqsAwsProducer(transport, objectMapper);
+        SqsAwsConsumer consumer = new SqsAwsConsumer(transport, TransactionMessageCodec.json(objectMapper), service, producer,
+                AdaptiveConcurrencyLimiter.fixed(2),
+                new InFlightMessageRegistry(transport, true, Duration.ofSeconds(30), Duration.ofSeconds(10),
+                        Duration.ofMinutes(15)),
+                100, 60, 10, 1, 1000, 5);
+        List<TransactionRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            requests.add(TransactionRequest.builder().transactionId("tx-" + i).accountId("acc").build());
+        }
+        producer.sendTransactions(requests);
+
+        consumer.start();
+        Thread poller = new Thread(consumer::receiveMessages);
+        poller.start();
+        await().atMost(Duration.ofSeconds(5)).until(() -> started.get() == 2);
+        consumer.stop();
+        poller.join(5000);
+
+        // 已开始的消息处理完成并确认，其余消息立即回到队列
+        assertFalse(consumer.isRunning());
+        assertEquals(2, analysed.size());
+        assertEquals(2, started.get());
+        assertEquals(0, transport.getInFlightCount());
+        assertEquals(3, transport.getReadyCount());
+    }
+
+    @Test
+    void shouldCarryTraceIdFromProducerIntoConsumerMdc() throws Exception {
+        InMemoryMessageTransport transport = new InMemoryMessageTransport(100, Duration.ofSeconds(30), Duration.ZERO);
+        Map<String, String> traceIds = new ConcurrentHashMap<>();
+        Set<String> messageIds = ConcurrentHashMap.newKeySet();
+        FraudDetectionService service = request -> {
+            traceIds.put(request.getTransactionId(), MDC.get(TraceIds.MDC_KEY));
+            messageIds.add(MDC.get("messageId"));
+            return FraudDetectionResult.builder().transactionId(request.getTransactionId()).build();
+        };
+        SqsAwsProducer producer = new SqsAwsProducer(transport, objectMapper);
+        SqsAwsConsumer consumer = new SqsAwsConsumer(transport, TransactionMessageCodec.json(objectMapper), service, producer,
+                AdaptiveConcurrencyLimiter.fixed(2),
+                new InFlightMessageRegistry(transport, true, Duration.ofSeconds(30), Duration.ofSeconds(10),
+                        Duration.ofMinutes(15)),
+                100, 60, 10, 1, 1000, 5);
+
+        MDC.put(TraceIds.MDC_KEY, "upstream-trace");
+        try {
+            producer.sendTransaction(TransactionRequest.builder().transactionId("tx-traced").build());
+        } finally {
+            MDC.remove(TraceIds.MDC_KEY);
+        }
+        producer.sendTransaction(TransactionRequest.builder().transactionId("tx-new").build());
+
+        consumer.init();
+        consumer.receiveMessages();
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertEquals(2, traceIds.size()));
+        assertEquals("upstream-trace", traceIds.get("tx-traced"));
+        assertEquals(32, traceIds.get("tx-new").length());
+        // 每条消息使用自己的消息ID
+        assertEquals(2, messageIds.size());
+        consumer.stop();
+    }
+
+    @Test
+    void shouldProcessHighValueTransactionAheadOfPrefetchedBacklog() throws Exception {
+        InMemoryMessageTransport transport = new InMemoryMessageTransport(100, Duration.ofSeconds(30), Duration.ZERO);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        FraudDetectionService service = request -> {
+            order.add(request.getTransactionId());
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return FraudDetectionResult.builder().transactionId(request.getTransactionId()).build();
+        };
+        SqsAwsProducer producer = new SqsAwsProducer(transport, objectMapper);
+        SqsAwsConsumer consumer = new SqsAwsConsumer(transport, TransactionMessageCodec.json(objectMapper), service, producer,
+                AdaptiveConcurrencyLimiter.fixed(1),
+                new InFlightMessageRegistry(transport, true, Duration.ofSeconds(30), Duration.ofSeconds(10),
+                        Duration.ofMinutes(15)),
+                new PriorityLanes(new BigDecimal("10000"), 4, 1, 50), AdmissionController.unlimited(),
+                100, 60, 10, 1, 1000, 5);
+        List<TransactionRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            requests.add(TransactionRequest.builder().transactionId("small-" + i).amount(new BigDecimal("5.00")).build());
+        }
+        requests.add(TransactionRequest.builder().transactionId("large").amount(new BigDecimal("90000.00")).build());
+        producer.sendTransactions(requests);
+
+        consumer.init();
+        consumer.receiveMessages();
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> assertEquals(21, order.size()));
+        // 最后入队的高额交易只排在接收时已经开始处理的那一条之后
+        assertTrue(order.indexOf("large") <= 1, "处理顺序: " + order);
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertEquals(0, transport.getInFlightCount()));
+        consumer.stop();
+    }
+
+    @Test
+    void shouldLeaveReservedCapacityToSynchronousCallersDuringBacklog() throws Exception {
+        InMemoryMessageTransport transport = new InMemoryMessageTransport(1000, Duration.ofSeconds(30), Duration.ZERO);
+        AdmissionController admission = new AdmissionController(true, 4, 2, 0);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        Set<String> analysed = ConcurrentHashMap.newKeySet();
+        FraudDetectionService service = request -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                active.decrementAndGet();
+            }
+            analysed.add(request.getTransactionId());
+            return FraudDetectionResult.builder().transactionId(request.getTransactionId()).build();
+        };
+        SqsAwsProducer producer = new SqsAwsProducer(transport, objectMapper);
+        SqsAwsConsumer consumer = new SqsAwsConsumer(transport, TransactionMessageCodec.json(objectMapper), service, producer,
+                AdaptiveConcurrencyLimiter.fixed(8),
+                new InFlightMessageRegistry(transport, true, Duration.ofSeconds(30), Duration.ofSeconds(10),
+                        Duration.ofMinutes(15)),
+                new PriorityLanes(null, 1, 1, 10), admission,
+                100, 60, 10, 1, 1000, 5);
+        List<TransactionRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            requests.add(TransactionRequest.builder().transactionId("tx-" + i).build());
+        }
+        producer.sendTransactions(requests);
+
+        consumer.init();
+        Thread poller = new Thread(consumer::receiveMessages);
+        poller.start();
+        await().atMost(Duration.ofSeconds(5)).until(() -> analysed.size() >= 20);
+        // 积压期间同步接口仍能立即拿到预留的名额
+        assertTrue(admission.tryAcquireApi());
+        assertTrue(admission.tryAcquireApi());
+        admission.release(AdmissionController.Source.API);
+        admission.release(AdmissionController.Source.API);
+        poller.join(10000);
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertEquals(200, analysed.size()));
+        // 队列消费最多使用 容量 - 预留 个名额，不受消费者自身并发限制的影响
+        assertTrue(maxActive.get() <= 2, "最大并发: " + maxActive.get());
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertEquals(0, admission.getInFlight(AdmissionController.Source.QUEUE)));
+        consumer.stop();
+    }
+    @Test
+    void shouldStartPrefetchedMessagesAsSoonAsSynchronousCallerReleases() throws Exception {
+        InMemoryMessageTransport transport = new InMemoryMessageTransport(1000, Duration.ofSeconds(30), Duration.ZERO);
+        AdmissionController admission = new AdmissionController(true, 2, 0, 0);
+        CountDownLatch finish = new CountDownLatch(1);
+        Set<String> started = ConcurrentHashMap.newKeySet();
+        FraudDetectionService service = request -> {
+            started.add(request.getTransactionId());
+            try {
+                finish.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return FraudDetectionResult.builder().transactionId(request.getTransactionId()).build();
+        };
+        SqsAwsProducer producer = new SqsAwsProducer(transport, objectMapper);
+        SqsAwsConsumer consumer = new SqsAwsConsumer(transport, TransactionMessageCodec.json(objectMapper), service, producer,
+                AdaptiveConcurrencyLimiter.fixed(8),
+                new InFlightMessageRegistry(transport, true, Duration.ofSeconds(30), Duration.ofSeconds(10),
+                        Duration.ofMinutes(15)),
+                new PriorityLanes(null, 1, 1, 10), admission,
+                100, 60, 10, 1, 1000, 5);
+        List<TransactionRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            requests.add(TransactionRequest.builder().transactionId("tx-" + i).build());
+        }
+        producer.sendTransactions(requests);
+
+        // 同步接口占用一个名额，队列消费只能处理一条，其余两条留在通道中
+        assertTrue(admission.tryAcquireApi());
+        consumer.init();
+        consumer.receiveMessages();
+        await().atMost(Duration.ofSeconds(5)).until(() -> started.size() == 1);
+
+        // 同步接口释放后不等下一轮接收，通道中的消息立即开始处理
+        admission.release(AdmissionController.Source.API);
+        await().atMost(Duration.ofSeconds(1)).until(() -> started.size() == 2);
+
+        finish.countDown();
+        await().atMost(Duration.ofSeconds(5)).until(() -> started.size() == 3);
+        consumer.stop();
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.frauddetection.messaging.alert;
+
+import com.example.frauddetection.dto.FraudAlert;
+import com.example.frauddetection.dto.FraudDetectionResult;
+import com.example.frauddetection.dto.TransactionRequest;
+import com.example.frauddetection.messaging.transport.InMemoryMessageTransport;
+import com.example.frauddetection.messaging.transport.InboundMessage;
+import com.example.frauddetection.messaging.transport.MessageTransport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class FraudAlertPublisherTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final InMemoryMessageTransport transport =
+            new InMemoryMessageTransport(100, Duration.ofSeconds(30), Duration.ZERO);
+
+    @Test
+    void shouldCoalesceFraudDecisionsPerAccount() throws Exception {
+        FraudAlertPublisher publisher = new FraudAlertPublisher(transport, objectMapper, 60_000, 200, 100, 2);
+        for (int i = 0; i < 3; i++) {
+            publisher.publish(request("tx-" + i, "acc-1", "10.00"), fraud("amount-over-limit"));
+        }
+        publisher.publish(request("tx-9", "acc-2", "5.00"), fraud("new-account"));
+        publisher.publish(request("tx-clean", "acc-1", "1.00"), FraudDetectionResult.builder().build());
+
+        // 窗口未到期时不发送
+        publisher.flush(false);
+        assertEquals(0, transport.getReadyCount());
+
+        publisher.flush(true);
+        List<InboundMessage> messages = transport.receive(10, Duration.ZERO);
+        assertEquals(2, messages.size());
+        FraudAlert first = objectMapper.readValue(messages.get(0).getBody(), FraudAlert.class);
+        assertEquals("acc-1", first.getAccountId());
+        assertEquals(3, first.getTransactionCount());
+        assertEquals(Arrays.asList("tx-0", "tx-1"), first.getTransactionIds());
+        assertEquals(0, new BigDecimal("30.00").compareTo(first.getAmountByCurrency().get("USD")));
+        assertEquals("acc-1", messages.get(0).getAttribute("accountId"));
+        assertEquals("acc-2", objectMapper.readValue(messages.get(1).getBody(), FraudAlert.class).getAccountId());
+    }
+
+    @Test
+    void shouldDropInsteadOfBlockingWhenBacklogIsFull() {
+        FraudAlertPublisher publisher = new FraudAlertPublisher(transport, objectMapper, 0, 200, 2, 10);
+        for (int i = 0; i < 5; i++) {
+            publisher.publish(request("tx-" + i, "acc-" + i, "10.00"), fraud("amount-over-limit"));
+        }
+
+        publisher.flush(false);
+
+        assertEquals(2, transport.getReadyCount());
+        assertFalse(new FraudAlertPublisher((MessageTransport) null, objectMapper, 0, 200, 2, 10).isEnabled());
+    }
+
+    @Test
+    void shouldRetryOnlyAlertsThatWereNotSent() throws Exception {
+        InMemoryMessageTransport small = new InMemoryMessageTransport(2, Duration.ofSeconds(30), Duration.ZERO);
+        FraudAlertPublisher publisher = new FraudAlertPublisher(small, objectMapper, 0, 200, 100, 10);
+        for (int i = 0; i < 3; i++) {
+            publisher.publish(request("tx-" + i, "acc-" + i, "10.00"), fraud("amount-over-limit"));
+        }
+
+        // 队列只能容纳2条，第3条发送失败
+        publisher.flush(false);
+        List<InboundMessage> first = small.receive(10, Duration.ZERO);
+        assertEquals(2, first.size());
+
+        // 下一轮只重试未发送的警报，不重复发送已发送的
+        publisher.flush(false);
+        List<InboundMessage> retried = small.receive(10, Duration.ZERO);
+        assertEquals(1, retried.size());
+        assertEquals("acc-2", objectMapper.readValue(retried.get(0).getBody(), FraudAlert.class).getAccountId());
+        publisher.flush(false);
+        assertEquals(0, small.getReadyCount());
+    }
+
+    private static TransactionRequest request(String transactionId, String accountId, String amount) {
+        return TransactionRequest.builder()
+                .transactionId(transactionId)
+                .accountId(accountId)
+                .amount(new BigDecimal(amount))
+                .currency("USD")
+                .build();
+    }
+
+    private static FraudDetectionResult fraud(String reasonCode) {
+        return FraudDetectionResult.builder()
+                .fraudulent(true)
+                .ruleScore(1.0)
+                .reasonCodes(Arrays.asList(reasonCode))
+                .build();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.frauddetection.messaging.codec;
+
+import com.example.frauddetection.dto.FraudDetectionResult;
+import com.example.frauddetection.dto.TransactionRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TransactionJsonCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final TransactionJsonCodec codec = new TransactionJsonCodec(objectMapper);
+
+    @Test
+    void shouldProduceSameJsonAsObjectMapper() throws Exception {
+        TransactionRequest request = TransactionRequest.builder()
+                .requestId("req-1")
+                .transactionId("tx-\"1\"")
+                .accountId("账户-1")
+                .amount(new BigDecimal("1250.50"))
+                .currency("USD")
+                .sourceCountry("CN")
+                .timestamp(LocalDateTime.of(2024, 3, 1, 12, 30, 0))
+                .accountCreationDate(LocalDateTime.of(2023, 12, 31, 8, 5, 9, 120_000_000))
+                .build();
+        FraudDetectionResult result = FraudDetectionResult.builder()
+                .transactionId("tx-1")
+                .fraudulent(true)
+                .fraudReason("amount-over-limit")
+                .ruleScore(0.75)
+                .reasonCodes(Arrays.asList("amount-over-limit", "new-account"))
+                .fallbackRules(Arrays.asList("account-velocity"))
+                .processingTimeMs(12)
+                .build();
+
+        assertEquals(objectMapper.writeValueAsString(request), codec.writeAsString(request));
+        assertEquals(objectMapper.writeValueAsString(result), codec.writeAsString(result));
+        assertEquals(request, codec.readRequest(codec.writeAsString(request)));
+        assertEquals(result, codec.readResult(codec.writeAsString(result)));
+        // 同一天的第二次解析使用缓存的日期
+        assertEquals(LocalDateTime.of(2024, 3, 1, 23, 59, 59, 999_999_999),
+                codec.parseDateTime("2024-03-01T23:59:59.999999999"));
+    }
+
+    @Test
+    void shouldAcceptInputsThatObjectMapperAccepts() throws Exception {
+        String json = "{\"transactionId\":42,\"amount\":\"10.5\",\"unknown\":{\"nested\":[1,2]},"
+                + "\"timestamp\":\"2024-03-01T12:30Z\",\"accountCreationDate\":[2024,1,2,3,4],"
+                + "\"deviceId\":null}";
+
+        TransactionRequest request = codec.readRequest(json);
+
+        assertEquals("42", request.getTransactionId());
+        assertEquals(new BigDecimal("10.5"), request.getAmount());
+        assertEquals(LocalDateTime.of(2024, 3, 1, 12, 30), request.getTimestamp());
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4), request.getAccountCreationDate());
+        assertNull(request.getDeviceId());
+        assertNull(codec.readRequest("null"));
+        assertFalse(codec.readResult("{\"fraudulent\":null}").isFraudulent());
+        assertThrows(IOException.class, () -> codec.readRequest("{\"timestamp\":\"2024-02-30T00:00:00\"}"));
+        assertThrows(IOException.class, () -> codec.readRequest("{\"amount\":\"abc\"}"));
+        assertThrows(IOException.class, () -> codec.readRequest("[1]"));
+    }
+}
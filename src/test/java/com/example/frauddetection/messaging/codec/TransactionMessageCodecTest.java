@@ -0,0 +1,76 @@
+package com.example.frauddetection.messaging.codec;
+
+import com.example.frauddetection.dto.TransactionRequest;
+import com.example.frauddetection.messaging.transport.InboundMessage;
+import com.example.frauddetection.messaging.transport.OutboundMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransactionMessageCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final TransactionMessageCodec binary =
+            new TransactionMessageCodec(new TransactionJsonCodec(objectMapper), "binary");
+    private final TransactionMessageCodec json = TransactionMessageCodec.json(objectMapper);
+
+    @Test
+    void shouldRoundTripBinaryPayloadAndReadLegacyJson() throws Exception {
+        TransactionRequest request = TransactionRequest.builder()
+                .requestId("req-1")
+                .transactionId("tx-1")
+                .accountId("acc-1")
+                .amount(new BigDecimal("1250.50"))
+                .currency("USD")
+                .sourceCountry("CN")
+                // 字典外的值按字符串编码
+                .destinationCountry("XK")
+                .timestamp(LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_000_000))
+                .ipAddress("10.0.0.1")
+                .build();
+
+        OutboundMessage encoded = binary.encode(request);
+        assertEquals("binary", encoded.getAttributes().get(TransactionMessageCodec.FORMAT_ATTRIBUTE));
+        String jsonBody = json.encode(request).getBody();
+        assertTrue(encoded.getBody().length() < jsonBody.length() / 2,
+                "二进制载荷应明显小于JSON: " + encoded.getBody().length() + " vs " + jsonBody.length());
+
+        TransactionRequest decoded = binary.decode(inbound(encoded));
+        assertEquals(request, decoded);
+        assertEquals(2, decoded.getAmount().scale());
+        assertNull(decoded.getAccountCreationDate());
+        assertNull(decoded.getDeviceId());
+
+        // 没有格式属性的旧消息按JSON解析
+        assertEquals(request, binary.decode(new InboundMessage("m-2", "r-2", jsonBody, null, 1)));
+    }
+
+    @Test
+    void shouldFallBackToJsonWhenAmountCannotBeEncoded() throws Exception {
+        TransactionRequest request = TransactionRequest.builder()
+                .transactionId("tx-huge")
+                .amount(new BigDecimal("123456789012345678901234567890.01"))
+                .currency("EUR")
+                .build();
+
+        OutboundMessage encoded = binary.encode(request);
+
+        assertNull(encoded.getAttributes().get(TransactionMessageCodec.FORMAT_ATTRIBUTE));
+        assertEquals(request, binary.decode(inbound(encoded)));
+        assertThrows(IOException.class, () -> binary.decode(new InboundMessage("m-3", "r-3", "AQ==",
+                Collections.singletonMap(TransactionMessageCodec.FORMAT_ATTRIBUTE, "binary"), 1)));
+    }
+
+    private static InboundMessage inbound(OutboundMessage message) {
+        return new InboundMessage("m-1", "r-1", message.getBody(), message.getAttributes(), 1);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.frauddetection.messaging.transport;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryMessageTransportTest {
+
+    @Test
+    void shouldRedeliverUnacknowledgedMessagesAfterVisibilityTimeout() throws Exception {
+        InMemoryMessageTransport transport = new InMemoryMessageTransport(10, Duration.ofMillis(100), Duration.ZERO);
+        transport.send(Arrays.asList(OutboundMessage.of("a").withAttribute("priority", "high"), OutboundMessage.of("b")));
+
+        List<InboundMessage> first = transport.receive(10, Duration.ZERO);
+        assertEquals(2, first.size());
+        assertEquals("high", first.get(0).getAttribute("priority"));
+        transport.acknowledge(Collections.singletonList(first.get(0)));
+        // 可见性超时内不会重复投递
+        assertTrue(transport.receive(10, Duration.ZERO).isEmpty());
+
+        Thread.sleep(150);
+        List<InboundMessage> redelivered = transport.receive(10, Duration.ofMillis(100));
+        assertEquals(1, redelivered.size());
+        assertEquals("b", redelivered.get(0).getBody());
+        assertEquals(2, redelivered.get(0).getReceiveCount());
+        assertNotEquals(first.get(1).getReceiptHandle(), redelivered.get(0).getReceiptHandle());
+
+        // 过期凭证的确认无效，新凭证的确认生效
+        transport.acknowledge(Collections.singletonList(first.get(1)));
+        assertEquals(1, transport.getInFlightCount());
+        transport.acknowledge(redelivered);
+        assertEquals(0, transport.getInFlightCount());
+        assertEquals(0, transport.getReadyCount());
+    }
+
+    @Test
+    void shouldExtendAndReleaseVisibility() throws Exception {
+        InMemoryMessageTransport transport = new InMemoryMessageTransport(10, Duration.ofMillis(100), Duration.ZERO);
+        transport.send(Arrays.asList(OutboundMessage.of("a"), OutboundMessage.of("b")));
+        List<InboundMessage> received = transport.receive(10, Duration.ZERO);
+        assertEquals(2, received.size());
+
+        // 延长后超过原可见性超时也不会重新投递
+        transport.changeVisibility(Collections.singletonList(received.get(0)), Duration.ofSeconds(30));
+        transport.release(Collections.singletonList(received.get(1)));
+        List<InboundMessage> again = transport.receive(10, Duration.ZERO);
+        assertEquals(1, again.size());
+        assertEquals("b", again.get(0).getBody());
+        assertEquals(2, again.get(0).getReceiveCount());
+
+        Thread.sleep(150);
+        transport.acknowledge(again);
+        assertTrue(transport.receive(10, Duration.ofMillis(50)).isEmpty());
+        transport.acknowledge(Collections.singletonList(received.get(0)));
+        assertEquals(0, transport.getInFlightCount());
+    }
+
+    @Test
+    void shouldRejectSendWhenFull() {
+        InMemoryMessageTransport transport = new InMemoryMessageTransport(2, Duration.ofSeconds(30), Duration.ofMillis(10));
+        transport.send(Arrays.asList(OutboundMessage.of("a"), OutboundMessage.of("b")));
+
+        assertThrows(MessageTransportException.class,
+                () -> transport.send(Collections.singletonList(OutboundMessage.of("c"))));
+        assertEquals(2, transport.receive(5, Duration.ZERO).size());
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.frauddetection.messaging.transport;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResultEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SqsMessageTransportTest {
+
+    @Test
+    void shouldReportSentAndRejectedMessagesOnPartialFailure() {
+        SqsClient sqsClient = mock(SqsClient.class);
+        // 第一个请求（10条）全部成功；第二个请求中第0条被拒绝（请求内容错误），第1条服务端错误
+        when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenReturn(successful(0, 10))
+                .thenReturn(SendMessageBatchResponse.builder()
+                        .failed(BatchResultErrorEntry.builder().id("0").code("InvalidMessageContents")
+                                        .senderFault(true).build(),
+                                BatchResultErrorEntry.builder().id("1").code("InternalError")
+                                        .senderFault(false).build())
+                        .build());
+        SqsMessageTransport transport = new SqsMessageTransport(sqsClient, "https://sqs.example/queue");
+        List<OutboundMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            messages.add(OutboundMessage.of("m" + i));
+        }
+
+        MessageTransportException e = assertThrows(MessageTransportException.class, () -> transport.send(messages));
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(e.isSent(i));
+        }
+        assertFalse(e.isSent(10));
+        assertTrue(e.isRejected(10));
+        assertFalse(e.isSent(11));
+        assertFalse(e.isRejected(11));
+    }
+
+    private static SendMessageBatchResponse successful(int from, int to) {
+        List<SendMessageBatchResultEntry> entries = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            entries.add(SendMessageBatchResultEntry.builder().id(Integer.toString(i)).messageId("id-" + i).build());
+        }
+        return SendMessageBatchResponse.builder().successful(entries).build();
+    }
+}
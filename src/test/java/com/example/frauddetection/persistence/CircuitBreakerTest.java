@@ -0,0 +1,56 @@
+package com.example.frauddetection.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private static final long FAST = 1_000_000L;
+    private static final long SLOW = 2_000_000_000L;
+
+    @Test
+    void shouldOpenWhenFailureRateExceedsThreshold() {
+        CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, 1.0, 1000, 60_000);
+
+        breaker.onSuccess(FAST);
+        breaker.onFailure();
+        breaker.onSuccess(FAST);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    void shouldOpenWhenMostCallsAreSlow() {
+        CircuitBreaker breaker = new CircuitBreaker(10, 5, 1.0, 0.8, 1000, 60_000);
+
+        for (int i = 0; i < 4; i++) {
+            breaker.onSuccess(SLOW);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onSuccess(SLOW);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void shouldAllowSingleTrialWhenHalfOpen() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 0.5, 1.0, 1000, 0);
+        breaker.onFailure();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        assertTrue(breaker.allowRequest());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        assertTrue(breaker.allowRequest());
+        breaker.onSuccess(FAST);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0.0, breaker.getFailureRate());
+    }
+}
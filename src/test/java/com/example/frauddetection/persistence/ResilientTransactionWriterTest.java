@@ -0,0 +1,152 @@
+package com.example.frauddetection.persistence;
+
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.persistence.log.SegmentLog;
+import com.example.frauddetection.persistence.log.TransactionRecordCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ResilientTransactionWriterTest {
+
+    @TempDir
+    Path spoolDirectory;
+
+    @Mock
+    private DirectTransactionWriter delegate;
+
+    @Mock
+    private TransactionBatchInserter batchInserter;
+
+    private ResilientTransactionWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // 窗口2次调用、失败率50%即熔断；打开后立即允许半开试探；回写由测试手动触发
+        writer = new ResilientTransactionWriter(delegate, batchInserter, true,
+                2, 2, 0.5, 1000, 1.0, 0, spoolDirectory.toString(), 1, 60_000, 100);
+        writer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.shutdown();
+    }
+
+    @Test
+    void shouldSpoolWhenDatabaseFailsAndDrainAfterRecovery() {
+        doThrow(new RuntimeException("连接超时")).when(delegate).write(any());
+        doThrow(new RuntimeException("连接超时")).when(batchInserter).insertMissing(any());
+
+        writer.write(transaction("TX1"));
+        writer.write(transaction("TX2"));
+        assertEquals(CircuitBreaker.State.OPEN, writer.getCircuitBreaker().getState());
+        assertTrue(writer.hasSpoolBacklog());
+
+        // 数据库仍不可用，半开试探失败，暂存保留
+        writer.drainSpool();
+        assertTrue(writer.hasSpoolBacklog());
+        assertEquals(CircuitBreaker.State.OPEN, writer.getCircuitBreaker().getState());
+
+        // 数据库恢复
+        doNothing().when(batchInserter).insertMissing(any());
+        writer.drainSpool();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Transaction>> drained = ArgumentCaptor.forClass(List.class);
+        verify(batchInserter, times(2)).insertMissing(drained.capture());
+        assertEquals(2, drained.getValue().size());
+        assertFalse(writer.hasSpoolBacklog());
+        assertEquals(CircuitBreaker.State.CLOSED, writer.getCircuitBreaker().getState());
+    }
+
+    @Test
+    void shouldQuarantinePoisonRecordAndKeepDraining() {
+        doThrow(new RuntimeException("连接超时")).when(delegate).write(any());
+        writer.write(transaction("TX1"));
+        writer.write(transaction("POISON"));
+        writer.write(transaction("TX3"));
+        assertEquals(CircuitBreaker.State.OPEN, writer.getCircuitBreaker().getState());
+
+        // 含坏记录的批次和坏记录本身都因数据错误失败，其余记录可以写入
+        List<String> inserted = new ArrayList<>();
+        doAnswer(invocation -> {
+            List<Transaction> batch = invocation.getArgument(0);
+            for (Transaction transaction : batch) {
+                if ("POISON".equals(transaction.getTransactionId())) {
+                    throw new DataIntegrityViolationException("字段超长");
+                }
+            }
+            for (Transaction transaction : batch) {
+                inserted.add(transaction.getTransactionId());
+            }
+            return null;
+        }).when(batchInserter).insertMissing(any());
+        writer.drainSpool();
+
+        assertEquals(Arrays.asList("TX1", "TX3"), inserted);
+        assertFalse(writer.hasSpoolBacklog());
+        assertEquals(1, writer.getQuarantinedCount());
+        assertEquals(CircuitBreaker.State.CLOSED, writer.getCircuitBreaker().getState());
+
+        SegmentLog quarantine = SegmentLog.open(spoolDirectory.resolve("quarantine"), 1024 * 1024, false);
+        try {
+            List<byte[]> records = quarantine.read(quarantine.head(), 10).getRecords();
+            assertEquals(1, records.size());
+            assertEquals("POISON", TransactionRecordCodec.decode(records.get(0)).getTransactionId());
+        } finally {
+            quarantine.close();
+        }
+    }
+
+    @Test
+    void shouldNotAdvancePastBatchWhenDatabaseFailsDuringOneByOneFallback() {
+        doThrow(new RuntimeException("连接超时")).when(delegate).write(any());
+        writer.write(transaction("POISON"));
+        writer.write(transaction("TX2"));
+
+        doThrow(new DataIntegrityViolationException("字段超长"))
+                .doThrow(new DataIntegrityViolationException("字段超长"))
+                .doThrow(new QueryTimeoutException("连接超时"))
+                .when(batchInserter).insertMissing(any());
+        writer.drainSpool();
+
+        // 数据库故障不是数据错误：回写位置不推进，整批稍后重试
+        assertTrue(writer.hasSpoolBacklog());
+        assertEquals(1, writer.getQuarantinedCount());
+    }
+
+    @Test
+    void shouldWriteDirectlyWhenCircuitClosed() {
+        writer.write(transaction("TX1"));
+
+        verify(delegate).write(any());
+        verify(batchInserter, never()).insertMissing(any());
+        assertFalse(writer.hasSpoolBacklog());
+    }
+
+    private static Transaction transaction(String transactionId) {
+        return Transaction.builder().transactionId(transactionId).build();
+    }
+}
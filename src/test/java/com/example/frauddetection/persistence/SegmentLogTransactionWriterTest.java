@@ -0,0 +1,95 @@
+package com.example.frauddetection.persistence;
+
+import com.example.frauddetection.model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class SegmentLogTransactionWriterTest {
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private TransactionBatchInserter batchInserter;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void shouldReplayUnshippedRecordsAfterRestart() {
+        // 数据库不可用，记录留在本地日志中
+        doThrow(new RuntimeException("数据库不可用")).when(batchInserter).insertMissing(any());
+        SegmentLogTransactionWriter writer = newWriter();
+        writer.start();
+        writer.write(Transaction.builder().transactionId("TX1").build());
+        writer.write(Transaction.builder().transactionId("TX2").build());
+        assertThrows(RuntimeException.class, writer::shipBatch);
+        assertFalse(writer.isFullyShipped());
+        writer.shutdown();
+
+        // 重启后数据库恢复，未投递的记录被投递
+        reset(batchInserter);
+        SegmentLogTransactionWriter restarted = newWriter();
+        restarted.start();
+        restarted.shipBatch();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Transaction>> shipped = ArgumentCaptor.forClass(List.class);
+        verify(batchInserter, times(1)).insertMissing(shipped.capture());
+        assertEquals(2, shipped.getValue().size());
+        assertEquals("TX2", shipped.getValue().get(1).getTransactionId());
+        assertTrue(restarted.isFullyShipped());
+        restarted.shutdown();
+    }
+
+    @Test
+    void shouldInsertOnlyMissingRecordsAfterFailedBatch() {
+        SegmentLogTransactionWriter writer = newWriter();
+        writer.start();
+        writer.write(Transaction.builder().transactionId("TX1").build());
+        writer.shipBatch();
+        verify(batchInserter, times(1)).insertMissing(any());
+
+        // 数据库已提交但确认丢失：同一批重新投递时不能直接插入，否则重复
+        writer.write(Transaction.builder().transactionId("TX2").build());
+        doThrow(new RuntimeException("连接中断")).when(batchInserter).insertAll(any());
+        assertThrows(RuntimeException.class, writer::shipBatch);
+        assertFalse(writer.isFullyShipped());
+
+        reset(batchInserter);
+        writer.shipBatch();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Transaction>> retried = ArgumentCaptor.forClass(List.class);
+        verify(batchInserter, times(1)).insertMissing(retried.capture());
+        verify(batchInserter, times(0)).insertAll(any());
+        assertEquals("TX2", retried.getValue().get(0).getTransactionId());
+        assertTrue(writer.isFullyShipped());
+
+        // 成功之后恢复直接插入
+        writer.write(Transaction.builder().transactionId("TX3").build());
+        writer.shipBatch();
+        verify(batchInserter, times(1)).insertAll(any());
+        writer.shutdown();
+    }
+
+    private SegmentLogTransactionWriter newWriter() {
+        // 投递间隔足够长，由测试手动触发投递
+        return new SegmentLogTransactionWriter(batchInserter, directory.toString(), 1, false, 60_000, 100);
+    }
+}
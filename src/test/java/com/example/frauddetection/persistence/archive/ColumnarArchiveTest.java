@@ -0,0 +1,103 @@
+package com.example.frauddetection.persistence.archive;
+
+import com.example.frauddetection.model.Transaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarArchiveTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldRoundTripRowsWithNulls() throws Exception {
+        List<Transaction> rows = createRows(500);
+        rows.get(3).setIpAddress(null);
+        rows.get(4).setAccountCreationDate(null);
+        rows.get(5).setFraudReason("高风险国家");
+        Path file = directory.resolve("rows.fdca");
+
+        ColumnarArchiveWriter.write(file, rows);
+
+        try (ColumnarArchiveReader reader = ColumnarArchiveReader.open(file)) {
+            assertEquals(500, reader.getRowCount());
+            List<Transaction> restored = reader.readRows(0, 500);
+            assertEquals(rows, restored);
+            assertNull(restored.get(3).getIpAddress());
+            assertNull(restored.get(4).getAccountCreationDate());
+            assertEquals("高风险国家", restored.get(5).getFraudReason());
+        }
+    }
+
+    @Test
+    void shouldReadColumnRange() throws Exception {
+        List<Transaction> rows = createRows(1000);
+        Path file = directory.resolve("range.fdca");
+        ColumnarArchiveWriter.write(file, rows);
+
+        try (ColumnarArchiveReader reader = ColumnarArchiveReader.open(file)) {
+            long[] ids = reader.readLongs(ArchiveColumn.ID, 100, 110);
+            assertEquals(10, ids.length);
+            assertEquals(101L, ids[0]);
+            assertEquals(110L, ids[9]);
+
+            BigDecimal[] amounts = reader.readDecimals(ArchiveColumn.AMOUNT, 998, 1000);
+            assertEquals(rows.get(998).getAmount(), amounts[0]);
+            assertEquals(rows.get(999).getAmount(), amounts[1]);
+
+            String[] currencies = reader.readStrings(ArchiveColumn.CURRENCY, 0, 3);
+            assertArrayEquals(new String[]{"USD", "EUR", "CNY"}, currencies);
+
+            boolean[] fraudulent = reader.readBooleans(ArchiveColumn.FRAUDULENT, 0, 10);
+            assertTrue(fraudulent[0]);
+            assertFalse(fraudulent[1]);
+
+            assertThrows(IndexOutOfBoundsException.class, () -> reader.readLongs(ArchiveColumn.ID, 990, 1001));
+            assertThrows(IllegalArgumentException.class, () -> reader.readLongs(ArchiveColumn.CURRENCY, 0, 1));
+        }
+    }
+
+    @Test
+    void shouldCompressLowCardinalityColumns() throws Exception {
+        List<Transaction> rows = createRows(10000);
+        Path file = directory.resolve("size.fdca");
+        ColumnarArchiveWriter.write(file, rows);
+
+        // 每行原始数据超过100字节，字典编码+差值编码+压缩后应明显更小
+        assertTrue(Files.size(file) < 10000L * 40, "归档文件大小: " + Files.size(file));
+    }
+
+    private List<Transaction> createRows(int count) {
+        String[] currencies = {"USD", "EUR", "CNY"};
+        String[] countries = {"US", "CN", "DE", "NG"};
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0, 0, 123000000);
+        List<Transaction> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(Transaction.builder()
+                    .id((long) i + 1)
+                    .transactionId("tx-" + i)
+                    .accountId("acc-" + (i % 50))
+                    .amount(new BigDecimal(100 + (i % 97)).add(new BigDecimal("0.25")))
+                    .currency(currencies[i % currencies.length])
+                    .sourceCountry(countries[i % countries.length])
+                    .destinationCountry(countries[(i + 1) % countries.length])
+                    .timestamp(base.plusSeconds(i * 7L))
+                    .accountCreationDate(base.minusDays(i % 400))
+                    .ipAddress("10.0.0." + (i % 255))
+                    .deviceId("device-" + (i % 30))
+                    .fraudulent(i % 10 == 0)
+                    .fraudReason(i % 10 == 0 ? "金额超过阈值" : null)
+                    .build());
+        }
+        return rows;
+    }
+}
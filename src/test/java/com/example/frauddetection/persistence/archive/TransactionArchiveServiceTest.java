@@ -0,0 +1,87 @@
+package com.example.frauddetection.persistence.archive;
+
+import com.example.frauddetection.dto.ArchiveSummary;
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionArchiveServiceTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldArchiveAndDeleteOldTransactions() throws Exception {
+        List<Transaction> page = Arrays.asList(transaction(1L), transaction(2L), transaction(3L));
+        when(transactionRepository.findByIdGreaterThanAndTimestampBeforeOrderByIdAsc(eq(0L), any(), any()))
+                .thenReturn(page);
+
+        ArchiveSummary summary = createService().archive();
+
+        assertEquals(1, summary.getFiles());
+        assertEquals(3, summary.getRows());
+        verify(transactionRepository).deleteAllByIdInBatch(Arrays.asList(1L, 2L));
+        verify(transactionRepository).deleteAllByIdInBatch(Collections.singletonList(3L));
+        Path file = directory.resolve(summary.getFileNames().get(0));
+        try (ColumnarArchiveReader reader = ColumnarArchiveReader.open(file)) {
+            assertEquals(page, reader.readRows(0, 3));
+        }
+    }
+
+    @Test
+    void shouldCompletePendingFileBeforeArchiving() throws Exception {
+        Path pending = directory.resolve("transactions-1-2.fdca.pending");
+        ColumnarArchiveWriter.write(pending, Arrays.asList(transaction(1L), transaction(2L)));
+        when(transactionRepository.findByIdGreaterThanAndTimestampBeforeOrderByIdAsc(anyLong(), any(), any()))
+                .thenReturn(Collections.emptyList());
+
+        ArchiveSummary summary = createService().archive();
+
+        assertEquals(0, summary.getRows());
+        verify(transactionRepository).deleteAllByIdInBatch(Arrays.asList(1L, 2L));
+        assertFalse(Files.exists(pending));
+        assertTrue(Files.exists(directory.resolve("transactions-1-2.fdca")));
+    }
+
+    private TransactionArchiveService createService() {
+        return new TransactionArchiveService(transactionRepository, transactionManager,
+                true, directory.toString(), 90, 100, 10, 2);
+    }
+
+    private Transaction transaction(Long id) {
+        return Transaction.builder()
+                .id(id)
+                .transactionId("tx-" + id)
+                .accountId("acc-1")
+                .amount(new BigDecimal("12.50"))
+                .currency("USD")
+                .sourceCountry("US")
+                .destinationCountry("CN")
+                .timestamp(LocalDateTime.of(2023, 1, 1, 10, 0))
+                .build();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.frauddetection.persistence.log;
+
+import com.example.frauddetection.model.Transaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReadRecordsAcrossSegments() {
+        SegmentLog segmentLog = SegmentLog.open(directory, 64, false);
+        for (int i = 0; i < 10; i++) {
+            segmentLog.append(("record-" + i).getBytes(StandardCharsets.UTF_8));
+        }
+
+        // 每条记录16字节，每段最多4条
+        assertEquals(2, segmentLog.tail().getSegment());
+        SegmentLog.ReadResult first = segmentLog.read(segmentLog.head(), 6);
+        assertEquals(6, first.getRecords().size());
+        SegmentLog.ReadResult rest = segmentLog.read(first.getNext(), 100);
+        assertEquals(4, rest.getRecords().size());
+        assertEquals("record-9", new String(rest.getRecords().get(3), StandardCharsets.UTF_8));
+        assertEquals(segmentLog.tail(), rest.getNext());
+        assertTrue(segmentLog.read(rest.getNext(), 100).getRecords().isEmpty());
+        segmentLog.close();
+    }
+
+    @Test
+    void shouldTruncateTornRecordOnRecovery() throws Exception {
+        SegmentLog segmentLog = SegmentLog.open(directory, 1024, false);
+        segmentLog.append("first".getBytes(StandardCharsets.UTF_8));
+        LogPosition afterFirst = segmentLog.tail();
+        segmentLog.append("second".getBytes(StandardCharsets.UTF_8));
+        segmentLog.close();
+
+        // 破坏第二条记录的payload，模拟写入中途崩溃
+        try (RandomAccessFile file = new RandomAccessFile(
+                directory.resolve(String.format("%020d.seg", 0)).toFile(), "rw")) {
+            file.seek(afterFirst.getOffset() + SegmentLog.HEADER_SIZE);
+            file.write('X');
+        }
+
+        SegmentLog reopened = SegmentLog.open(directory, 1024, false);
+        assertEquals(afterFirst, reopened.tail());
+        reopened.append("third".getBytes(StandardCharsets.UTF_8));
+        SegmentLog.ReadResult result = reopened.read(reopened.head(), 10);
+        assertEquals(2, result.getRecords().size());
+        assertEquals("third", new String(result.getRecords().get(1), StandardCharsets.UTF_8));
+        reopened.close();
+    }
+
+    @Test
+    void shouldRoundTripTransactionRecord() {
+        Transaction transaction = Transaction.builder()
+                .transactionId("TX1")
+                .accountId("ACC1")
+                .amount(new BigDecimal("1234.50"))
+                .currency("USD")
+                .sourceCountry("US")
+                .timestamp(LocalDateTime.of(2024, 3, 1, 2, 30, 15, 123000000))
+                .fraudulent(true)
+                .fraudReason("交易金额超过阈值")
+                .build();
+
+        Transaction decoded = TransactionRecordCodec.decode(TransactionRecordCodec.encode(transaction));
+
+        assertEquals(transaction, decoded);
+        assertNull(decoded.getDestinationCountry());
+        assertNull(decoded.getAccountCreationDate());
+    }
+}
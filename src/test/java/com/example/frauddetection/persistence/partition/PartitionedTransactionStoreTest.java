@@ -0,0 +1,138 @@
+package com.example.frauddetection.persistence.partition;
+
+import com.example.frauddetection.model.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionedTransactionStoreTest {
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+            "jdbc:h2:mem:partition-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", ""));
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void shouldRouteWritesAndRangeQueriesByMonth() {
+        PartitionedTransactionStore store = createStore(PartitionGranularity.MONTHLY, 0);
+        LocalDateTime base = LocalDateTime.now().withDayOfMonth(15).minusMonths(3);
+        for (int month = 0; month < 3; month++) {
+            store.insert(transaction("tx-" + month, base.plusMonths(month)));
+        }
+
+        LocalDateTime start = base.plusMonths(1).minusDays(1);
+        LocalDateTime end = base.plusMonths(1).plusDays(1);
+        assertEquals(1, store.partitionsBetween(start, end).size());
+        List<Transaction> rows = store.findByAccountIdAndTimestampBetween("acc-1", start, end);
+        assertEquals(1, rows.size());
+        assertEquals("tx-1", rows.get(0).getTransactionId());
+        assertEquals(new BigDecimal("88.50"), rows.get(0).getAmount());
+        assertEquals(1, store.countByAccountIdAndTimestampBetween("acc-1", start, end));
+        assertEquals(3, store.countByAccountIdAndTimestampBetween("acc-1", base.minusDays(1), base.plusMonths(2).plusDays(1)));
+
+        assertEquals(3, store.findByAccountId("acc-1").size());
+        assertEquals("tx-2", store.findByTransactionId("tx-2").getTransactionId());
+        assertNull(store.findByTransactionId("missing"));
+    }
+
+    @Test
+    void shouldAssignUniqueIdsAcrossPartitions() {
+        PartitionedTransactionStore store = createStore(PartitionGranularity.DAILY, 0);
+        Transaction first = transaction("tx-a", LocalDateTime.now().minusDays(2));
+        Transaction second = transaction("tx-b", LocalDateTime.now());
+        store.insert(first);
+        store.insert(second);
+
+        assertNotNull(first.getId());
+        assertNotEquals(first.getId(), second.getId());
+        String expected = PartitionedTransactionStore.TABLE_PREFIX
+                + PartitionGranularity.DAILY.suffix(LocalDate.now().minusDays(2));
+        assertTrue(store.getPartitions().contains(expected));
+    }
+
+    @Test
+    void shouldDropExpiredPartitionsAndReloadExisting() {
+        PartitionedTransactionStore store = createStore(PartitionGranularity.MONTHLY, 0);
+        LocalDateTime old = LocalDateTime.now().minusMonths(6);
+        store.insert(transaction("tx-old", old));
+        store.insert(transaction("tx-new", LocalDateTime.now()));
+
+        // 重新启动并启用保留期，旧分区从数据库元数据加载后被整体删除
+        PartitionedTransactionStore restarted = createStore(PartitionGranularity.MONTHLY, 60);
+        String oldTable = PartitionedTransactionStore.TABLE_PREFIX
+                + PartitionGranularity.MONTHLY.suffix(PartitionGranularity.MONTHLY.start(old));
+        assertFalse(restarted.getPartitions().contains(oldTable));
+        assertNull(restarted.findByTransactionId("tx-old"));
+        assertNotNull(restarted.findByTransactionId("tx-new"));
+        assertEquals(Arrays.asList(), restarted.maintain());
+    }
+
+    @Test
+    void shouldClampTimestampsOutsideTheRoutingWindow() {
+        PartitionedTransactionStore store = createStore(PartitionGranularity.DAILY, 30);
+        int created = store.getPartitions().size();
+        LocalDate today = LocalDate.now();
+
+        // 编造的时间不会创建新分区，年份超过9999也不会生成非法表名
+        Transaction future = transaction("tx-future", LocalDateTime.of(12000, 1, 1, 0, 0));
+        store.insert(future);
+        store.insert(transaction("tx-far-future", today.plusDays(400).atStartOfDay()));
+        assertEquals(created, store.getPartitions().size());
+        assertEquals(today.plusDays(1), store.route(future.getTimestamp()));
+
+        store.insert(transaction("tx-past", LocalDateTime.of(1970, 1, 1, 0, 0)));
+        assertEquals(created + 1, store.getPartitions().size());
+        assertEquals(today.minusDays(30), store.route(LocalDateTime.of(1970, 1, 1, 0, 0)));
+        assertEquals(today.minusDays(3), store.route(today.minusDays(3).atTime(12, 0)));
+        assertNotNull(store.findByTransactionId("tx-future"));
+    }
+
+    @Test
+    void shouldStartIdsAfterLegacyTable() {
+        jdbcTemplate.execute("CREATE TABLE transaction (id BIGINT PRIMARY KEY)");
+        jdbcTemplate.execute("INSERT INTO transaction (id) VALUES (41), (42)");
+        PartitionedTransactionStore store = createStore(PartitionGranularity.MONTHLY, 0);
+        Transaction first = transaction("tx-1", LocalDateTime.now());
+        store.insert(first);
+        assertTrue(first.getId() > 42, "id=" + first.getId());
+
+        // 序列已存在但落后于transaction表时（例如切换回JPA写入后再切回分区模式），重启时重置
+        jdbcTemplate.execute("INSERT INTO transaction (id) VALUES (1000)");
+        PartitionedTransactionStore restarted = createStore(PartitionGranularity.MONTHLY, 0);
+        Transaction second = transaction("tx-2", LocalDateTime.now());
+        restarted.insert(second);
+        assertTrue(second.getId() > 1000, "id=" + second.getId());
+    }
+
+    private PartitionedTransactionStore createStore(PartitionGranularity granularity, int retentionDays) {
+        PartitionedTransactionStore store = new PartitionedTransactionStore(jdbcTemplate, granularity, retentionDays, 1, 366);
+        store.init();
+        return store;
+    }
+
+    private Transaction transaction(String transactionId, LocalDateTime timestamp) {
+        return Transaction.builder()
+                .transactionId(transactionId)
+                .accountId("acc-1")
+                .amount(new BigDecimal("88.50"))
+                .currency("USD")
+                .sourceCountry("US")
+                .destinationCountry("CN")
+                .timestamp(timestamp)
+                .fraudulent(false)
+                .build();
+    }
+}
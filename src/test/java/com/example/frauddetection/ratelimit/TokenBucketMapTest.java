@@ -0,0 +1,62 @@
+package com.example.frauddetection.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketMapTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void shouldAllowBurstThenRefillAtConfiguredRate() {
+        TokenBucketMap buckets = new TokenBucketMap(2, 5, 1000);
+        long now = 0;
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, buckets.tryAcquire("acc-1", now));
+        }
+        long wait = buckets.tryAcquire("acc-1", now);
+        assertTrue(wait > 0 && wait <= SECOND / 2, "wait=" + wait);
+        // 其他键不受影响
+        assertEquals(0, buckets.tryAcquire("acc-2", now));
+
+        // 半秒补充一个令牌
+        assertEquals(0, buckets.tryAcquire("acc-1", now + SECOND / 2));
+        assertTrue(buckets.tryAcquire("acc-1", now + SECOND / 2) > 0);
+    }
+
+    @Test
+    void shouldEvictOnlyFullBucketsAndStayBounded() {
+        TokenBucketMap buckets = new TokenBucketMap(1, 1, 16);
+        long now = 0;
+        for (int i = 0; i < 1000; i++) {
+            buckets.tryAcquire("ip-" + i, now);
+        }
+        assertTrue(buckets.size() <= 16, "size=" + buckets.size());
+        assertTrue(buckets.getOverflowCount() > 0);
+
+        // 超限中的桶不能淘汰，装满后才淘汰
+        assertEquals(0, buckets.evictIdle(now));
+        assertEquals(buckets.size(), buckets.evictIdle(now + SECOND));
+        assertEquals(0, buckets.size());
+    }
+
+    @Test
+    void shouldRestoreTokenOnRefund() {
+        TokenBucketMap buckets = new TokenBucketMap(1, 2, 1000);
+        long now = 0;
+        assertEquals(0, buckets.tryAcquire("acc-1", now));
+        assertEquals(0, buckets.tryAcquire("acc-1", now));
+        assertTrue(buckets.tryAcquire("acc-1", now) > 0);
+
+        buckets.refund("acc-1");
+        assertEquals(0, buckets.tryAcquire("acc-1", now));
+        assertTrue(buckets.tryAcquire("acc-1", now) > 0);
+        // 不存在的桶无需退还
+        buckets.refund("acc-2");
+        assertEquals(1, buckets.size());
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.frauddetection.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrustedProxiesTest {
+
+    @Test
+    void shouldMatchAddressesAndCidrRanges() {
+        TrustedProxies proxies = TrustedProxies.parse("10.0.0.0/8, 192.168.1.10, fd00::/8");
+
+        assertTrue(proxies.contains("10.255.1.2"));
+        assertTrue(proxies.contains("192.168.1.10"));
+        assertTrue(proxies.contains("fd12::1"));
+        assertFalse(proxies.contains("11.0.0.1"));
+        assertFalse(proxies.contains("192.168.1.11"));
+        // 不是IP字面量的条目不视为代理，也不做DNS查询
+        assertFalse(proxies.contains("unknown"));
+        assertFalse(proxies.contains("10.0.0.256"));
+    }
+
+    @Test
+    void shouldResolveRightMostUntrustedForwardedAddress() {
+        TrustedProxies proxies = TrustedProxies.parse("10.0.0.0/8");
+
+        assertEquals("203.0.113.7", proxies.resolve("10.0.0.1",
+                Collections.enumeration(Arrays.asList("1.2.3.4, 203.0.113.7", "10.0.0.5"))));
+        // 对端不是受信任代理时忽略请求头
+        assertEquals("198.51.100.1", proxies.resolve("198.51.100.1",
+                Collections.enumeration(Collections.singletonList("1.2.3.4"))));
+        // 没有请求头或全部是代理时
+        assertEquals("10.0.0.1", proxies.resolve("10.0.0.1", Collections.emptyEnumeration()));
+        assertEquals("10.0.0.9", proxies.resolve("10.0.0.1",
+                Collections.enumeration(Collections.singletonList("10.0.0.9, 10.0.0.8"))));
+    }
+
+    @Test
+    void shouldRejectInvalidConfiguration() {
+        assertTrue(TrustedProxies.parse("").isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> TrustedProxies.parse("proxy.internal"));
+        assertThrows(IllegalArgumentException.class, () -> TrustedProxies.parse("10.0.0.0/33"));
+    }
+}
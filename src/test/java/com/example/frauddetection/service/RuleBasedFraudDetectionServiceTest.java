@@ -2,37 +2,71 @@ package com.example.frauddetection.service;
 
 import com.example.frauddetection.dto.FraudDetectionResult;
 import com.example.frauddetection.dto.TransactionRequest;
+import com.example.frauddetection.messaging.alert.FraudAlertPublisher;
+import com.example.frauddetection.persistence.DirectTransactionWriter;
 import com.example.frauddetection.repository.TransactionRepository;
 import com.example.frauddetection.service.impl.RuleBasedFraudDetectionService;
+import com.example.frauddetection.service.ml.ModelScorer;
+import com.example.frauddetection.service.rule.RuleScoringProperties;
+import com.example.frauddetection.service.rule.expensive.AccountVelocityRule;
+import com.example.frauddetection.service.rule.expensive.ModelScoreRule;
+import com.example.frauddetection.service.rule.expensive.ParallelRuleEvaluator;
+import com.example.frauddetection.service.rule.dsl.DslRuleRegistry;
+import com.example.frauddetection.service.shadow.ShadowRuleEvaluator;
+import com.example.frauddetection.service.tiered.DeepAnalysisService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 class RuleBasedFraudDetectionServiceTest {
 
     private RuleBasedFraudDetectionService fraudDetectionService;
 
+    private RuleScoringProperties scoringProperties;
+
     @Mock
     private TransactionRepository transactionRepository;
 
+    @Mock
+    private ShadowRuleEvaluator shadowRuleEvaluator;
+
+    @Mock
+    private FraudAlertPublisher fraudAlertPublisher;
+
+    @Mock
+    private DeepAnalysisService deepAnalysisService;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        fraudDetectionService = new RuleBasedFraudDetectionService(transactionRepository);
+        scoringProperties = new RuleScoringProperties();
+        DslRuleRegistry dslRuleRegistry = new DslRuleRegistry(new DefaultResourceLoader(), event -> { }, "");
+        fraudDetectionService = new RuleBasedFraudDetectionService(
+                new DirectTransactionWriter(transactionRepository),
+                new ParallelRuleEvaluator(Collections.singletonList(new ModelScoreRule(new ModelScorer("", 0.9))),
+                        1, 10, 150),
+                scoringProperties, dslRuleRegistry,
+                shadowRuleEvaluator, fraudAlertPublisher, deepAnalysisService);
         
         // 设置规则属性的值
         ReflectionTestUtils.setField(fraudDetectionService, "maxTransactionAmount", new BigDecimal("10000.00"));
         ReflectionTestUtils.setField(fraudDetectionService, "suspiciousCountries", "NG,RU,CN,VN");
         ReflectionTestUtils.setField(fraudDetectionService, "minAccountAgeDays", 30);
+        fraudDetectionService.init();
     }
 
     @Test
@@ -120,4 +154,111 @@ class RuleBasedFraudDetectionServiceTest {
         assertFalse(result.isFraudulent());
         assertNull(result.getFraudReason());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void shouldAccumulateWeightedScoreAndReportAllReasonCodes() {
+        // 单条规则不足以拦截，需要两条规则同时命中
+        scoringProperties.setBlockThreshold(1.0);
+        scoringProperties.getWeights().put("amount-over-limit", 0.6);
+        scoringProperties.getWeights().put("suspicious-country", 0.6);
+        scoringProperties.getWeights().put("new-account", 0.3);
+        fraudDetectionService.init();
+
+        TransactionRequest request = TransactionRequest.builder()
+                .transactionId("TX127")
+                .accountId("ACC459")
+                .amount(new BigDecimal("15000.00"))
+                .currency("USD")
+                .sourceCountry("RU")
+                .timestamp(LocalDateTime.now())
+                .accountCreationDate(LocalDateTime.now().minusDays(60))
+                .build();
+
+        FraudDetectionResult result = fraudDetectionService.analyzeTransaction(request);
+
+        assertTrue(result.isFraudulent());
+        assertEquals(1.2, result.getRuleScore(), 1e-9);
+        assertEquals(Arrays.asList("amount-over-limit", "suspicious-country"), result.getReasonCodes());
+        assertEquals("交易金额超过阈值；交易来自可疑国家", result.getFraudReason());
+    }
+
+    @Test
+    void shouldNotBlockWhenWeightedScoreBelowThreshold() {
+        scoringProperties.setBlockThreshold(1.0);
+        scoringProperties.getWeights().put("amount-over-limit", 0.6);
+        scoringProperties.getWeights().put("suspicious-country", 0.3);
+        scoringProperties.getWeights().put("new-account", 0.3);
+        fraudDetectionService.init();
+
+        TransactionRequest request = TransactionRequest.builder()
+                .transactionId("TX128")
+                .accountId("ACC460")
+                .amount(new BigDecimal("15000.00"))
+                .currency("USD")
+                .sourceCountry("US")
+                .timestamp(LocalDateTime.now())
+                .accountCreationDate(LocalDateTime.now().minusDays(60))
+                .build();
+
+        FraudDetectionResult result = fraudDetectionService.analyzeTransaction(request);
+
+        // 国家规则未命中后，剩余规则全部命中也只能达到0.9，提前结束评估
+        assertFalse(result.isFraudulent());
+        assertNull(result.getFraudReason());
+        assertEquals(0.6, result.getRuleScore(), 1e-9);
+        assertEquals(Collections.singletonList("amount-over-limit"), result.getReasonCodes());
+    }
+
+    @Test
+    void shouldSubmitChampionDecisionToShadowEvaluator() {
+        TransactionRequest request = TransactionRequest.builder()
+                .transactionId("TX129")
+                .accountId("ACC461")
+                .amount(new BigDecimal("15000.00"))
+                .currency("USD")
+                .sourceCountry("US")
+                .timestamp(LocalDateTime.now())
+                .accountCreationDate(LocalDateTime.now().minusDays(60))
+                .build();
+
+        fraudDetectionService.analyzeTransaction(request);
+
+        verify(shadowRuleEvaluator).submit(any(), eq(true));
+    }
+
+    @Test
+    void shouldMarkDecisionWhenExpensiveRuleTimesOut() {
+        when(transactionRepository.countByAccountIdAndTimestampBetween(any(), any(), any())).thenAnswer(invocation -> {
+            Thread.sleep(2000);
+            return 0L;
+        });
+        ParallelRuleEvaluator evaluator = new ParallelRuleEvaluator(Collections.singletonList(
+                new AccountVelocityRule(transactionRepository, true, 60, 20, 50)), 1, 10, 150);
+        RuleBasedFraudDetectionService service = new RuleBasedFraudDetectionService(
+                new DirectTransactionWriter(transactionRepository), evaluator, scoringProperties,
+                new DslRuleRegistry(new DefaultResourceLoader(), event -> { }, ""),
+                shadowRuleEvaluator, fraudAlertPublisher, deepAnalysisService);
+        ReflectionTestUtils.setField(service, "maxTransactionAmount", new BigDecimal("10000.00"));
+        ReflectionTestUtils.setField(service, "suspiciousCountries", "NG,RU,CN,VN");
+        ReflectionTestUtils.setField(service, "minAccountAgeDays", 30);
+        service.init();
+
+        TransactionRequest request = TransactionRequest.builder()
+                .transactionId("TX130")
+                .accountId("ACC462")
+                .amount(new BigDecimal("5000.00"))
+                .currency("USD")
+                .sourceCountry("US")
+                .timestamp(LocalDateTime.now())
+                .accountCreationDate(LocalDateTime.now().minusDays(60))
+                .build();
+
+        FraudDetectionResult result = service.analyzeTransaction(request);
+        evaluator.shutdown();
+
+        // 超时的规则按兜底结果（不命中）处理，并在决策中标记
+        assertFalse(result.isFraudulent());
+        assertEquals(Collections.singletonList(AccountVelocityRule.CODE), result.getFallbackRules());
+        assertTrue(result.getProcessingTimeMs() < 1000, "处理时间: " + result.getProcessingTimeMs() + "ms");
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.frauddetection.service.backtest;
+
+import com.example.frauddetection.dto.BacktestCandidate;
+import com.example.frauddetection.dto.BacktestReport;
+import com.example.frauddetection.dto.BacktestRequest;
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.repository.TransactionRepository;
+import com.example.frauddetection.service.rule.RuleScoringProperties;
+import com.example.frauddetection.service.rule.dsl.DslRuleRegistry;
+import com.example.frauddetection.service.rule.dsl.RuleExpressionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+class BacktestServiceTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    private BacktestService backtestService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        DslRuleRegistry dslRuleRegistry = new DslRuleRegistry(new DefaultResourceLoader(), event -> { }, "");
+        backtestService = new BacktestService(transactionRepository, new RuleScoringProperties(), dslRuleRegistry, 2, 500);
+        ReflectionTestUtils.setField(backtestService, "maxTransactionAmount", new BigDecimal("10000.00"));
+        ReflectionTestUtils.setField(backtestService, "suspiciousCountries", "NG,RU,CN,VN");
+        ReflectionTestUtils.setField(backtestService, "minAccountAgeDays", 30);
+    }
+
+    @AfterEach
+    void tearDown() {
+        backtestService.shutdown();
+    }
+
+    @Test
+    void shouldCountFlipsAcrossChunks() {
+        // 1200笔交易，每3笔一笔大额，且全部在历史上被判定为正常
+        List<Transaction> history = new ArrayList<>();
+        for (long id = 1; id <= 1200; id++) {
+            history.add(Transaction.builder()
+                    .id(id)
+                    .transactionId("TX" + id)
+                    .amount(id % 3 == 0 ? new BigDecimal("8000.00") : new BigDecimal("100.00"))
+                    .sourceCountry("US")
+                    .destinationCountry("US")
+                    .timestamp(LocalDateTime.of(2024, 1, 1, 12, 0))
+                    .accountCreationDate(LocalDateTime.of(2023, 1, 1, 0, 0))
+                    .fraudulent(false)
+                    .build());
+        }
+        when(transactionRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    long afterId = invocation.getArgument(0);
+                    Pageable page = invocation.getArgument(1);
+                    int from = (int) Math.min(afterId, history.size());
+                    int to = Math.min(from + page.getPageSize(), history.size());
+                    return history.subList(from, to);
+                });
+
+        BacktestRequest request = BacktestRequest.builder()
+                .sampleSize(5)
+                .candidates(Arrays.asList(
+                        BacktestCandidate.builder().name("current").build(),
+                        BacktestCandidate.builder().name("lower-limit")
+                                .maxTransactionAmount(new BigDecimal("5000.00")).build()))
+                .build();
+
+        BacktestReport report = backtestService.runNow(request);
+
+        assertEquals("COMPLETED", report.getStatus());
+        assertEquals(1200, report.getScanned());
+        BacktestReport.CandidateResult current = report.getCandidates().get(0);
+        assertEquals(0, current.getFlagged());
+        assertEquals(0, current.getFlippedToFraud());
+        BacktestReport.CandidateResult lowered = report.getCandidates().get(1);
+        assertEquals(400, lowered.getFlagged());
+        assertEquals(400, lowered.getFlippedToFraud());
+        assertEquals(0, lowered.getFlippedToClean());
+        assertEquals(Long.valueOf(400), lowered.getRuleHits().get("amount-over-limit"));
+        assertEquals(5, lowered.getSampleFlippedIds().size());
+    }
+
+    @Test
+    void shouldRejectInvalidCandidateRule() {
+        BacktestRequest request = BacktestRequest.builder()
+                .candidates(Collections.singletonList(BacktestCandidate.builder()
+                        .name("broken")
+                        .extraRules(Collections.singletonList("bad | 1 | 无效规则 | amount >"))
+                        .build()))
+                .build();
+
+        assertThrows(RuleExpressionException.class, () -> backtestService.submit(request));
+    }
+
+    @Test
+    void shouldRejectEmptyCandidates() {
+        assertThrows(IllegalArgumentException.class,
+                () -> backtestService.submit(new BacktestRequest()));
+    }
+}
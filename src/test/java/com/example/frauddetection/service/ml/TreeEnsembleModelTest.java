@@ -0,0 +1,75 @@
+package com.example.frauddetection.service.ml;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TreeEnsembleModelTest {
+
+    private static double sigmoid(double raw) {
+        return 1.0 / (1.0 + Math.exp(-raw));
+    }
+
+    @Test
+    void shouldLoadModelIntoFlattenedArrays() throws Exception {
+        TreeEnsembleModel model = TreeEnsembleModel.load(
+                Paths.get(getClass().getResource("/models/test-model.txt").toURI()));
+
+        assertEquals(4, model.featureCount());
+        assertEquals(2, model.treeCount());
+        assertEquals(8, model.nodeCount());
+    }
+
+    @Test
+    void shouldScoreHighRiskTransaction() throws Exception {
+        TreeEnsembleModel model = TreeEnsembleModel.load(
+                Paths.get(getClass().getResource("/models/test-model.txt").toURI()));
+
+        // 大额、跨境、凌晨: -2 + 1(线性) + 3(树1) + 0.5(树2)
+        double score = model.score(new double[]{20000, 60, 3, 1});
+
+        assertEquals(sigmoid(2.5), score, 1e-9);
+    }
+
+    @Test
+    void shouldScoreLowRiskTransaction() throws Exception {
+        TreeEnsembleModel model = TreeEnsembleModel.load(
+                Paths.get(getClass().getResource("/models/test-model.txt").toURI()));
+
+        // 小额、境内、白天: -2 + 0 - 1 - 0.5
+        double score = model.score(new double[]{500, 60, 14, 0});
+
+        assertEquals(sigmoid(-3.5), score, 1e-9);
+    }
+
+    @Test
+    void shouldRouteMissingFeatureToRightBranch() throws Exception {
+        TreeEnsembleModel model = TreeEnsembleModel.load(
+                Paths.get(getClass().getResource("/models/test-model.txt").toURI()));
+
+        // 账户年龄缺失时走右子树，线性项忽略NaN
+        double score = model.score(new double[]{500, Double.NaN, 3, Double.NaN});
+
+        assertEquals(sigmoid(-2.0 - 1.0 + 0.5), score, 1e-9);
+    }
+
+    @Test
+    void shouldRejectChildIndexPointingBackwards() {
+        String text = "features amount\ntree\n0 100 0 1 0\n-1 0 0 0 1\n";
+
+        assertThrows(ModelLoadException.class,
+                () -> TreeEnsembleModel.parse(new BufferedReader(new StringReader(text))));
+    }
+
+    @Test
+    void shouldRejectUnknownFeature() {
+        String text = "features amount,unknown_feature\nbias 0\n";
+
+        assertThrows(ModelLoadException.class,
+                () -> TreeEnsembleModel.parse(new BufferedReader(new StringReader(text))));
+    }
+}
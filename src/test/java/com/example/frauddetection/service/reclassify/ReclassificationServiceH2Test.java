@@ -0,0 +1,117 @@
+package com.example.frauddetection.service.reclassify;
+
+import com.example.frauddetection.model.ReclassificationCheckpoint;
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.repository.ReclassificationCheckpointRepository;
+import com.example.frauddetection.repository.TransactionRepository;
+import com.example.frauddetection.service.impl.RuleBasedFraudDetectionService;
+import com.example.frauddetection.service.ml.ModelScorer;
+import com.example.frauddetection.service.rule.BuiltinRules;
+import com.example.frauddetection.service.rule.RuleScoringProperties;
+import com.example.frauddetection.service.rule.RuleSet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 在H2上执行重分类，验证回写SQL、表名列名和检查点事务
+ * 测试本身不开启事务，批量更新与检查点由任务自己的事务提交
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReclassificationServiceH2Test {
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ReclassificationCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private ReclassificationService reclassificationService;
+
+    @BeforeEach
+    void setUp() {
+        RuleBasedFraudDetectionService fraudDetectionService = mock(RuleBasedFraudDetectionService.class);
+        when(fraudDetectionService.getActiveRuleSet()).thenReturn(new RuleSet(BuiltinRules.create(
+                new BigDecimal("10000.00"), "RU", 30, new RuleScoringProperties()), 1.0));
+        reclassificationService = new ReclassificationService(transactionRepository, checkpointRepository,
+                jdbcTemplate, transactionManager, dataSource, fraudDetectionService, new ModelScorer("", 0.9),
+                2, 2, 0, 10, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reclassificationService.shutdown();
+        transactionRepository.deleteAll();
+        checkpointRepository.deleteAll();
+    }
+
+    @Test
+    void shouldWriteBackChangedRowsAndCommitCheckpoint() {
+        Long flagged = transactionRepository.save(transaction("TX1", "20000.00", false, null)).getId();
+        Long unchanged = transactionRepository.save(transaction("TX2", "100.00", false, null)).getId();
+        Long cleared = transactionRepository.save(transaction("TX3", "9000.00", true, "交易金额超过阈值")).getId();
+
+        ReclassificationCheckpoint checkpoint = checkpointRepository.save(ReclassificationCheckpoint.builder()
+                .jobName(ReclassificationService.JOB_NAME)
+                .lastProcessedId(0L)
+                .status("RUNNING")
+                .build());
+        assertTrue(reclassificationService.process(checkpoint));
+
+        Transaction first = transactionRepository.findById(flagged).orElseThrow(AssertionError::new);
+        assertTrue(first.isFraudulent());
+        assertEquals("交易金额超过阈值", first.getFraudReason());
+        assertFalse(transactionRepository.findById(unchanged).orElseThrow(AssertionError::new).isFraudulent());
+        Transaction third = transactionRepository.findById(cleared).orElseThrow(AssertionError::new);
+        assertFalse(third.isFraudulent());
+        assertNull(third.getFraudReason());
+
+        // 每批（2行）提交一次检查点，最后一批后标记完成
+        ReclassificationCheckpoint persisted = checkpointRepository.findById(ReclassificationService.JOB_NAME)
+                .orElseThrow(AssertionError::new);
+        assertEquals("COMPLETED", persisted.getStatus());
+        assertEquals(cleared, persisted.getLastProcessedId());
+        assertEquals(3, persisted.getScanned());
+        assertEquals(2, persisted.getUpdated());
+        assertEquals(Long.valueOf(3L), persisted.getVersion());
+    }
+
+    private static Transaction transaction(String transactionId, String amount, boolean fraudulent, String reason) {
+        return Transaction.builder()
+                .transactionId(transactionId)
+                .accountId("ACC1")
+                .amount(new BigDecimal(amount))
+                .currency("USD")
+                .sourceCountry("US")
+                .destinationCountry("US")
+                .timestamp(LocalDateTime.of(2024, 1, 1, 12, 0))
+                .accountCreationDate(LocalDateTime.of(2023, 1, 1, 0, 0))
+                .fraudulent(fraudulent)
+                .fraudReason(reason)
+                .build();
+    }
+}
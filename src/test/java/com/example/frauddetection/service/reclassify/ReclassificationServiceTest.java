@@ -0,0 +1,165 @@
+package com.example.frauddetection.service.reclassify;
+
+import com.example.frauddetection.model.ReclassificationCheckpoint;
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.repository.ReclassificationCheckpointRepository;
+import com.example.frauddetection.repository.TransactionRepository;
+import com.example.frauddetection.service.impl.RuleBasedFraudDetectionService;
+import com.example.frauddetection.service.ml.ModelScorer;
+import com.example.frauddetection.service.rule.BuiltinRules;
+import com.example.frauddetection.service.rule.RuleScoringProperties;
+import com.example.frauddetection.service.rule.RuleSet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReclassificationServiceTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private ReclassificationCheckpointRepository checkpointRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private RuleBasedFraudDetectionService fraudDetectionService;
+
+    private ReclassificationService reclassificationService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        RuleSet ruleSet = new RuleSet(BuiltinRules.create(
+                new BigDecimal("10000.00"), "RU", 30, new RuleScoringProperties()), 1.0);
+        when(fraudDetectionService.getActiveRuleSet()).thenReturn(ruleSet);
+        when(checkpointRepository.save(any(ReclassificationCheckpoint.class))).then(returnsFirstArg());
+        reclassificationService = new ReclassificationService(transactionRepository, checkpointRepository,
+                jdbcTemplate, transactionManager, dataSource, fraudDetectionService, new ModelScorer("", 0.9),
+                2, 1000, 0, 10, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reclassificationService.shutdown();
+    }
+
+    @Test
+    void shouldWriteBackOnlyChangedRows() {
+        List<Transaction> chunk = Arrays.asList(
+                // 大额但历史上判定为正常 -> 改为欺诈
+                transaction(1L, "20000.00", false, null),
+                // 未变化
+                transaction(2L, "100.00", false, null),
+                // 历史上判定为欺诈，当前规则下正常 -> 改为正常
+                transaction(3L, "9000.00", true, "交易金额超过阈值"));
+        when(transactionRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class))).thenReturn(chunk);
+
+        ReclassificationCheckpoint checkpoint = checkpoint(0L);
+        assertTrue(reclassificationService.process(checkpoint));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> updates = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(ReclassificationService.UPDATE_SQL), updates.capture());
+        assertEquals(2, updates.getValue().size());
+        assertArrayEquals(new Object[]{true, "交易金额超过阈值", 1L}, updates.getValue().get(0));
+        assertArrayEquals(new Object[]{false, null, 3L}, updates.getValue().get(1));
+
+        assertEquals("COMPLETED", checkpoint.getStatus());
+        assertEquals(Long.valueOf(3L), checkpoint.getLastProcessedId());
+        assertEquals(3, checkpoint.getScanned());
+        assertEquals(2, checkpoint.getUpdated());
+    }
+
+    @Test
+    void shouldResumeAfterCheckpoint() {
+        when(transactionRepository.findByIdGreaterThanOrderByIdAsc(eq(500L), any(Pageable.class)))
+                .thenReturn(Collections.singletonList(transaction(501L, "100.00", false, null)));
+
+        ReclassificationCheckpoint checkpoint = checkpoint(500L);
+        assertTrue(reclassificationService.process(checkpoint));
+
+        verify(transactionRepository, never()).findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class));
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        assertEquals(Long.valueOf(501L), checkpoint.getLastProcessedId());
+    }
+
+    @Test
+    void shouldScoreModelWithAccountAgeAtTransactionTime() throws Exception {
+        // 测试模型中账户年龄小于30天加分；交易发生时账户只有10天，按当前时间计算则已超过一年
+        RuleSet ruleSet = new RuleSet(BuiltinRules.create(
+                new BigDecimal("10000.00"), "RU", 7, new RuleScoringProperties()), 1.0);
+        when(fraudDetectionService.getActiveRuleSet()).thenReturn(ruleSet);
+        ModelScorer modelScorer = new ModelScorer(
+                Paths.get(getClass().getResource("/models/test-model.txt").toURI()).toString(), 0.1);
+        reclassificationService.shutdown();
+        reclassificationService = new ReclassificationService(transactionRepository, checkpointRepository,
+                jdbcTemplate, transactionManager, dataSource, fraudDetectionService, modelScorer,
+                2, 1000, 0, 10, false);
+        Transaction transaction = transaction(1L, "500.00", false, null);
+        transaction.setAccountCreationDate(transaction.getTimestamp().minusDays(10));
+        when(transactionRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class)))
+                .thenReturn(Collections.singletonList(transaction));
+
+        assertTrue(reclassificationService.process(checkpoint(0L)));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> updates = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(ReclassificationService.UPDATE_SQL), updates.capture());
+        assertArrayEquals(new Object[]{true, "模型风险评分过高", 1L}, updates.getValue().get(0));
+    }
+
+    private static ReclassificationCheckpoint checkpoint(long lastProcessedId) {
+        return ReclassificationCheckpoint.builder()
+                .jobName(ReclassificationService.JOB_NAME)
+                .lastProcessedId(lastProcessedId)
+                .status("RUNNING")
+                .build();
+    }
+
+    private static Transaction transaction(long id, String amount, boolean fraudulent, String reason) {
+        return Transaction.builder()
+                .id(id)
+                .transactionId("TX" + id)
+                .amount(new BigDecimal(amount))
+                .sourceCountry("US")
+                .destinationCountry("US")
+                .timestamp(LocalDateTime.of(2024, 1, 1, 12, 0))
+                .accountCreationDate(LocalDateTime.of(2023, 1, 1, 0, 0))
+                .fraudulent(fraudulent)
+                .fraudReason(reason)
+                .build();
+    }
+}
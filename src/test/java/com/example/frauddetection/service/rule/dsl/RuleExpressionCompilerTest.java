@@ -0,0 +1,140 @@
+package com.example.frauddetection.service.rule.dsl;
+
+import com.example.frauddetection.dto.TransactionRequest;
+import com.example.frauddetection.service.rule.FraudRule;
+import com.example.frauddetection.service.rule.TransactionFeatures;
+import com.example.frauddetection.service.rule.TransactionPredicate;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleExpressionCompilerTest {
+
+    private static TransactionFeatures features(String amount, int hour, String src, String dst) {
+        return TransactionFeatures.of(TransactionRequest.builder()
+                .transactionId("TX1")
+                .accountId("ACC1")
+                .amount(new BigDecimal(amount))
+                .currency("USD")
+                .sourceCountry(src)
+                .destinationCountry(dst)
+                .timestamp(LocalDateTime.now().withHour(hour))
+                .accountCreationDate(LocalDateTime.now().minusDays(60))
+                .build());
+    }
+
+    @Test
+    void shouldEvaluateNightCrossBorderRule() {
+        TransactionPredicate predicate = RuleExpressionCompiler
+                .compile("amount > 5000 && hourOfDay in 2..5 && src != dst").getPredicate();
+
+        assertTrue(predicate.test(features("5000.01", 3, "US", "CN")));
+        assertFalse(predicate.test(features("5000.00", 3, "US", "CN")));
+        assertFalse(predicate.test(features("8000", 6, "US", "CN")));
+        assertFalse(predicate.test(features("8000", 3, "US", "US")));
+    }
+
+    @Test
+    void shouldSupportSetsNegationAndPrecedence() {
+        TransactionPredicate predicate = RuleExpressionCompiler
+                .compile("src in (RU, 'KP') || !(currency == USD) && accountAgeDays < 30").getPredicate();
+
+        // && 优先级高于 ||
+        assertTrue(predicate.test(features("10", 12, "RU", "US")));
+        assertFalse(predicate.test(features("10", 12, "DE", "US")));
+    }
+
+    @Test
+    void shouldSupportNotInAndComparisonOperators() {
+        TransactionPredicate predicate = RuleExpressionCompiler
+                .compile("dst not in (US, CA) && amount >= 100 && amount <= 200 && hourOfDay != 4").getPredicate();
+
+        assertTrue(predicate.test(features("100", 12, "US", "CN")));
+        assertTrue(predicate.test(features("200", 12, "US", "CN")));
+        assertFalse(predicate.test(features("200.01", 12, "US", "CN")));
+        assertFalse(predicate.test(features("150", 4, "US", "CN")));
+        assertFalse(predicate.test(features("150", 12, "US", "CA")));
+    }
+
+    @Test
+    void shouldTreatMissingStringFieldAsNotEqual() {
+        TransactionPredicate predicate = RuleExpressionCompiler.compile("src != dst").getPredicate();
+
+        assertTrue(predicate.test(features("10", 12, "US", null)));
+    }
+
+    @Test
+    void shouldNotMatchAnyAmountIntervalWhenAmountIsMissing() {
+        TransactionFeatures noAmount = TransactionFeatures.of(TransactionRequest.builder()
+                .transactionId("TX2")
+                .timestamp(LocalDateTime.now())
+                .build());
+
+        assertFalse(RuleExpressionCompiler.compile("amount < 100").getPredicate().test(noAmount));
+        assertFalse(RuleExpressionCompiler.compile("amount in 0..100").getPredicate().test(noAmount));
+        assertTrue(RuleExpressionCompiler.compile("amount < 100").getPredicate().test(features("0", 12, "US", "US")));
+    }
+
+    @Test
+    void shouldMatchUnknownFieldsExplicitly() {
+        TransactionFeatures unknownAge = TransactionFeatures.of(TransactionRequest.builder()
+                .transactionId("TX3")
+                .amount(new BigDecimal("10"))
+                .timestamp(LocalDateTime.now())
+                .build());
+        TransactionPredicate newAccount = RuleExpressionCompiler
+                .compile("accountAgeDays < 7 || accountAgeDays unknown").getPredicate();
+
+        assertTrue(newAccount.test(unknownAge));
+        assertFalse(newAccount.test(features("10", 12, "US", "US")));
+        assertFalse(RuleExpressionCompiler.compile("amount unknown").getPredicate().test(unknownAge));
+        assertThrows(RuleExpressionException.class, () -> RuleExpressionCompiler.compile("src unknown"));
+    }
+
+    @Test
+    void shouldRejectUnknownFieldWithPosition() {
+        RuleExpressionException e = assertThrows(RuleExpressionException.class,
+                () -> RuleExpressionCompiler.compile("amount > 10 && velocity > 3"));
+
+        assertEquals(15, e.getPosition());
+    }
+
+    @Test
+    void shouldRejectMalformedExpressions() {
+        assertThrows(RuleExpressionException.class, () -> RuleExpressionCompiler.compile("amount >"));
+        assertThrows(RuleExpressionException.class, () -> RuleExpressionCompiler.compile("(amount > 1"));
+        assertThrows(RuleExpressionException.class, () -> RuleExpressionCompiler.compile("hourOfDay in 5..2"));
+        assertThrows(RuleExpressionException.class, () -> RuleExpressionCompiler.compile("src > US"));
+        assertThrows(RuleExpressionException.class, () -> RuleExpressionCompiler.compile("amount > 1 amount"));
+    }
+
+    @Test
+    void shouldParseRuleFile() throws Exception {
+        String file = "# 注释\n"
+                + "night-cross-border | 1.0 | 异常时间交易 | amount > 5000 && hourOfDay in 2..5 && src != dst\n"
+                + "\n"
+                + "high-risk-currency | 0.5 | 高风险币种 | currency in (BTC, XMR)\n";
+
+        List<FraudRule> rules = DslRuleParser.parse(new BufferedReader(new StringReader(file)));
+
+        assertEquals(2, rules.size());
+        assertEquals("night-cross-border", rules.get(0).getCode());
+        assertEquals("异常时间交易", rules.get(0).getReason());
+        assertEquals(0.5, rules.get(1).getWeight(), 1e-9);
+        assertTrue(rules.get(0).getCost() > rules.get(1).getCost());
+    }
+
+    @Test
+    void shouldRejectDuplicateRuleCodes() {
+        String file = "a | 1 | x | amount > 1\na | 1 | y | amount > 2\n";
+
+        assertThrows(RuleExpressionException.class,
+                () -> DslRuleParser.parse(new BufferedReader(new StringReader(file))));
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.frauddetection.service.rule.expensive;
+
+import com.example.frauddetection.dto.TransactionRequest;
+import com.example.frauddetection.service.rule.expensive.ExpensiveRuleOutcome.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelRuleEvaluatorTest {
+
+    private final TransactionRequest request = TransactionRequest.builder().transactionId("tx-1").build();
+    private ParallelRuleEvaluator evaluator;
+
+    @AfterEach
+    void tearDown() {
+        if (evaluator != null) {
+            evaluator.shutdown();
+        }
+    }
+
+    @Test
+    void shouldTakeSlowestRuleInsteadOfSumAndFallBackOnTimeoutOrFailure() {
+        evaluator = new ParallelRuleEvaluator(Arrays.asList(
+                rule("slow-a", 300, r -> {
+                    sleep(150);
+                    return ExpensiveRuleOutcome.matched("slow-a", "a", 0.95);
+                }),
+                rule("slow-b", 300, r -> {
+                    sleep(150);
+                    return ExpensiveRuleOutcome.notMatched("slow-b", null);
+                }),
+                rule("hung", 50, r -> {
+                    sleep(5000);
+                    return ExpensiveRuleOutcome.matched("hung", "hung", null);
+                }),
+                rule("broken", 300, r -> {
+                    throw new IllegalStateException("数据库不可用");
+                })), 4, 16, 1000);
+
+        long start = System.nanoTime();
+        List<ExpensiveRuleOutcome> outcomes = evaluator.evaluate(request);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // 两条150ms的规则并行，总耗时接近150ms而不是300ms
+        assertTrue(elapsedMs < 280, "耗时: " + elapsedMs + "ms");
+        assertEquals(4, outcomes.size());
+        assertEquals(Status.COMPLETED, outcomes.get(0).getStatus());
+        assertTrue(outcomes.get(0).isMatched());
+        assertEquals(Status.COMPLETED, outcomes.get(1).getStatus());
+        assertEquals(Status.TIMED_OUT, outcomes.get(2).getStatus());
+        assertFalse(outcomes.get(2).isMatched());
+        assertEquals(Status.FAILED, outcomes.get(3).getStatus());
+        assertTrue(outcomes.get(3).isFallback());
+    }
+
+    @Test
+    void shouldCapEveryRuleAtTheOverallDeadline() {
+        evaluator = new ParallelRuleEvaluator(Arrays.asList(
+                rule("fast", 1000, r -> ExpensiveRuleOutcome.notMatched("fast", 0.1)),
+                rule("slow", 1000, r -> {
+                    sleep(2000);
+                    return ExpensiveRuleOutcome.notMatched("slow", null);
+                })), 2, 16, 100);
+
+        long start = System.nanoTime();
+        List<ExpensiveRuleOutcome> outcomes = evaluator.evaluate(request);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMs < 1000, "耗时: " + elapsedMs + "ms");
+        assertEquals(Status.COMPLETED, outcomes.get(0).getStatus());
+        assertEquals(Status.TIMED_OUT, outcomes.get(1).getStatus());
+    }
+
+    @Test
+    void shouldEvaluateInlineRulesOnCallingThreadWithoutTimeout() {
+        Thread caller = Thread.currentThread();
+        // 线程池只有1个线程、队列容量1，被慢规则占满
+        evaluator = new ParallelRuleEvaluator(Arrays.asList(
+                rule("slow", 1000, r -> {
+                    sleep(200);
+                    return ExpensiveRuleOutcome.notMatched("slow", null);
+                }),
+                rule("queued", 1000, r -> ExpensiveRuleOutcome.notMatched("queued", null)),
+                rule("rejected", 1000, r -> ExpensiveRuleOutcome.notMatched("rejected", null)),
+                inlineRule("model", r -> {
+                    assertSame(caller, Thread.currentThread());
+                    // 超过总期限也不使用兜底结果
+                    sleep(80);
+                    return ExpensiveRuleOutcome.matched("model", "模型", 0.99);
+                })), 1, 1, 50);
+
+        List<ExpensiveRuleOutcome> outcomes = evaluator.evaluate(request);
+
+        assertEquals(Status.REJECTED, outcomes.get(2).getStatus());
+        assertEquals(Status.COMPLETED, outcomes.get(3).getStatus());
+        assertTrue(outcomes.get(3).isMatched());
+    }
+
+    private static ExpensiveRule inlineRule(String code, Function<TransactionRequest, ExpensiveRuleOutcome> evaluation) {
+        ExpensiveRule delegate = rule(code, 0, evaluation);
+        return new ExpensiveRule() {
+            @Override
+            public String getCode() {
+                return code;
+            }
+
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+
+            @Override
+            public Duration getTimeout() {
+                return Duration.ZERO;
+            }
+
+            @Override
+            public boolean isInline() {
+                return true;
+            }
+
+            @Override
+            public ExpensiveRuleOutcome evaluate(TransactionRequest request) {
+                return delegate.evaluate(request);
+            }
+
+            @Override
+            public ExpensiveRuleOutcome fallback(TransactionRequest request) {
+                return delegate.fallback(request);
+            }
+        };
+    }
+
+    private static ExpensiveRule rule(String code, long timeoutMs,
+                                      Function<TransactionRequest, ExpensiveRuleOutcome> evaluation) {
+        return new ExpensiveRule() {
+            @Override
+            public String getCode() {
+                return code;
+            }
+
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+
+            @Override
+            public Duration getTimeout() {
+                return Duration.ofMillis(timeoutMs);
+            }
+
+            @Override
+            public ExpensiveRuleOutcome evaluate(TransactionRequest request) {
+                return evaluation.apply(request);
+            }
+
+            @Override
+            public ExpensiveRuleOutcome fallback(TransactionRequest request) {
+                return ExpensiveRuleOutcome.notMatched(code, null);
+            }
+        };
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
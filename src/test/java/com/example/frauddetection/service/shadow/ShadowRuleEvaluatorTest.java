@@ -0,0 +1,80 @@
+package com.example.frauddetection.service.shadow;
+
+import com.example.frauddetection.dto.ShadowStats;
+import com.example.frauddetection.dto.TransactionRequest;
+import com.example.frauddetection.service.rule.TransactionFeatures;
+import com.example.frauddetection.service.rule.dsl.DslRuleRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShadowRuleEvaluatorTest {
+
+    private ShadowRuleEvaluator shadowRuleEvaluator;
+
+    private ShadowRuleEvaluator createEvaluator(boolean enabled) {
+        DslRuleRegistry dslRuleRegistry = new DslRuleRegistry(new DefaultResourceLoader(), event -> { }, "");
+        shadowRuleEvaluator = new ShadowRuleEvaluator(dslRuleRegistry, enabled,
+                "classpath:rules/shadow-rules.rules", 1.0, 1.0, 1, 100);
+        shadowRuleEvaluator.init();
+        return shadowRuleEvaluator;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (shadowRuleEvaluator != null) {
+            shadowRuleEvaluator.shutdown();
+        }
+    }
+
+    private static TransactionFeatures features(String amount) {
+        return TransactionFeatures.of(TransactionRequest.builder()
+                .transactionId("TX-" + amount)
+                .accountId("ACC1")
+                .amount(new BigDecimal(amount))
+                .currency("USD")
+                .sourceCountry("US")
+                .destinationCountry("US")
+                .timestamp(LocalDateTime.now().withHour(12))
+                .accountCreationDate(LocalDateTime.now().minusDays(60))
+                .build());
+    }
+
+    @Test
+    void shouldRecordAgreementsAndDisagreements() {
+        ShadowRuleEvaluator evaluator = createEvaluator(true);
+
+        // 候选规则金额阈值为8000，线上为10000
+        evaluator.submit(features("9000"), false);
+        evaluator.submit(features("12000"), true);
+        evaluator.submit(features("100"), false);
+        evaluator.submit(features("100"), true);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> evaluator.getStats().getEvaluated() == 4);
+        ShadowStats stats = evaluator.getStats();
+        assertEquals(4, stats.getSubmitted());
+        assertEquals(1, stats.getShadowOnlyFraud());
+        assertEquals(1, stats.getBothFraud());
+        assertEquals(1, stats.getBothClean());
+        assertEquals(1, stats.getChampionOnlyFraud());
+        assertEquals(0.5, stats.getDisagreementRate(), 1e-9);
+        assertEquals(2L, stats.getRuleHits().get("amount-over-limit"));
+    }
+
+    @Test
+    void shouldIgnoreSubmissionsWhenDisabled() {
+        ShadowRuleEvaluator evaluator = createEvaluator(false);
+
+        evaluator.submit(features("9000"), false);
+
+        assertFalse(evaluator.isEnabled());
+        assertEquals(0, evaluator.getStats().getSubmitted());
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.frauddetection.service.tiered;
+
+import com.example.frauddetection.dto.DeepAnalysisVerdict;
+import com.example.frauddetection.dto.FraudDetectionResult;
+import com.example.frauddetection.dto.TransactionRequest;
+import com.example.frauddetection.messaging.alert.FraudAlertPublisher;
+import com.example.frauddetection.messaging.transport.InMemoryMessageTransport;
+import com.example.frauddetection.messaging.transport.InboundMessage;
+import com.example.frauddetection.messaging.verdict.DeepVerdictPublisher;
+import com.example.frauddetection.repository.TransactionRepository;
+import com.example.frauddetection.service.ml.ModelScorer;
+import com.example.frauddetection.service.rule.expensive.AccountVelocityRule;
+import com.example.frauddetection.service.rule.expensive.ModelScoreRule;
+import com.example.frauddetection.service.rule.expensive.ParallelRuleEvaluator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeepAnalysisServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+    private final FraudAlertPublisher fraudAlertPublisher = mock(FraudAlertPublisher.class);
+    private HttpServer callbackStub;
+    private ParallelRuleEvaluator evaluator;
+    private DeepAnalysisService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+        if (evaluator != null) {
+            evaluator.shutdown();
+        }
+        if (callbackStub != null) {
+            callbackStub.stop(0);
+        }
+    }
+
+    @Test
+    void shouldPublishUpdatedVerdictToCallbackAndResultQueue() throws Exception {
+        Map<String, String> callbacks = new ConcurrentHashMap<>();
+        callbackStub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        callbackStub.createContext("/verdicts", exchange -> {
+            callbacks.put(exchange.getRequestHeaders().getFirst(DeepVerdictPublisher.TRANSACTION_ID_HEADER),
+                    read(exchange.getRequestBody()));
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        callbackStub.start();
+        InMemoryMessageTransport resultQueue = new InMemoryMessageTransport(100, Duration.ofSeconds(30), Duration.ZERO);
+        DeepVerdictPublisher publisher = new DeepVerdictPublisher(resultQueue, objectMapper,
+                "http://127.0.0.1:" + callbackStub.getAddress().getPort() + "/verdicts", Duration.ofSeconds(2));
+        service = newService(publisher, 10);
+        when(transactionRepository.countByAccountIdAndTimestampBetween(eq("acc-busy"), any(), any()))
+                .thenReturn(3L);
+
+        TransactionRequest request = TransactionRequest.builder()
+                .transactionId("tx-1")
+                .accountId("acc-busy")
+                .timestamp(LocalDateTime.now())
+                .build();
+        assertTrue(service.submit(request, FraudDetectionResult.builder().transactionId("tx-1").build()));
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> callbacks.containsKey("tx-1"));
+        DeepAnalysisVerdict verdict = objectMapper.readValue(callbacks.get("tx-1"), DeepAnalysisVerdict.class);
+        assertFalse(verdict.isInitialFraudulent());
+        assertTrue(verdict.isFraudulent());
+        assertTrue(verdict.isChanged());
+        assertEquals(Collections.singletonList(AccountVelocityRule.CODE), verdict.getReasonCodes());
+        assertEquals(3, verdict.getRecentTransactionCount());
+
+        // 先回调、后发送到结果队列
+        await().atMost(Duration.ofSeconds(5)).until(() -> resultQueue.getReadyCount() == 1);
+        List<InboundMessage> messages = resultQueue.receive(10, Duration.ZERO);
+        assertEquals(1, messages.size());
+        assertEquals("tx-1", messages.get(0).getAttribute("transactionId"));
+        verify(fraudAlertPublisher, timeout(1000)).publish(eq(request), any());
+    }
+
+    @Test
+    void shouldKeepTier1VerdictWhenDeepAnalysisFindsNothing() {
+        when(transactionRepository.countByAccountIdAndTimestampBetween(any(), any(), any()))
+                .thenReturn(1L);
+        service = newService(new DeepVerdictPublisher(null, objectMapper, "", Duration.ofSeconds(1)), 10);
+        FraudDetectionResult tier1 = FraudDetectionResult.builder()
+                .transactionId("tx-2")
+                .fraudulent(true)
+                .fraudReason("交易金额超过阈值")
+                .reasonCodes(new ArrayList<>(Collections.singletonList("amount-over-limit")))
+                .build();
+
+        DeepAnalysisVerdict verdict = service.analyze(
+                TransactionRequest.builder().transactionId("tx-2").accountId("acc-1").build(),
+                new DeepAnalysisService.Tier1Snapshot(tier1));
+        // 调用方之后修改第一级结果不影响快照
+        tier1.getReasonCodes().add("later");
+
+        assertTrue(verdict.isFraudulent());
+        assertFalse(verdict.isChanged());
+        assertEquals("交易金额超过阈值", verdict.getFraudReason());
+        assertEquals(Collections.singletonList("amount-over-limit"), verdict.getReasonCodes());
+        verify(fraudAlertPublisher, never()).publish(any(), any());
+    }
+
+    @Test
+    void shouldNotApplySynchronousRuleTimeoutsToDeepAnalysis() {
+        // 账户历史查询耗时超过规则的同步超时（100ms），第二级仍等待结果
+        when(transactionRepository.countByAccountIdAndTimestampBetween(any(), any(), any())).thenAnswer(invocation -> {
+            Thread.sleep(300);
+            return 5L;
+        });
+        service = newService(new DeepVerdictPublisher(null, objectMapper, "", Duration.ofSeconds(1)), 10);
+
+        DeepAnalysisVerdict verdict = service.analyze(
+                TransactionRequest.builder().transactionId("tx-3").accountId("acc-slow").build(),
+                new DeepAnalysisService.Tier1Snapshot(FraudDetectionResult.builder().transactionId("tx-3").build()));
+
+        assertTrue(verdict.isFraudulent());
+        assertEquals(Collections.singletonList(AccountVelocityRule.CODE), verdict.getReasonCodes());
+        assertEquals(5, verdict.getRecentTransactionCount());
+    }
+
+    private DeepAnalysisService newService(DeepVerdictPublisher publisher, int queueCapacity) {
+        // 与同步检测相同的耗时规则：未配置模型，账户窗口内超过2笔判为欺诈
+        evaluator = new ParallelRuleEvaluator(Arrays.asList(
+                new ModelScoreRule(new ModelScorer("", 0.9)),
+                new AccountVelocityRule(transactionRepository, true, 60, 2, 100)), 2, 10, 150);
+        return new DeepAnalysisService(evaluator, publisher, fraudAlertPublisher, true, 1, queueCapacity, 2000);
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.frauddetection.trace;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TraceIdsTest {
+
+    @Test
+    void shouldGenerateTimeOrderedHexIds() throws Exception {
+        String first = TraceIds.newTraceId();
+        Thread.sleep(2);
+        String second = TraceIds.newTraceId();
+
+        assertTrue(first.matches("[0-9a-f]{32}"), first);
+        assertNotEquals(first, second);
+        assertTrue(first.substring(0, 12).compareTo(second.substring(0, 12)) < 0);
+    }
+
+    @Test
+    void shouldAcceptOnlyWellFormedIncomingIds() {
+        assertEquals("4bf92f3577b34da6a3ce929d0e0e4736",
+                TraceIds.fromTraceparent("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01"));
+        assertNull(TraceIds.fromTraceparent("00-00000000000000000000000000000000-00f067aa0ba902b7-01"));
+        assertNull(TraceIds.fromTraceparent("00-4BF92F3577B34DA6A3CE929D0E0E4736-00f067aa0ba902b7-01"));
+        assertNull(TraceIds.fromTraceparent("garbage"));
+
+        assertEquals("order-123_abc", TraceIds.sanitize("order-123_abc"));
+        assertNull(TraceIds.sanitize("abc\ninjected"));
+        assertNull(TraceIds.sanitize(""));
+    }
+}